@@ -1,6 +1,8 @@
 package com.horizen.node;
 
 import com.horizen.box.Box;
+import com.horizen.node.util.WalletBoxesPage;
+import com.horizen.node.util.WalletTransactionsPage;
 import com.horizen.proposition.Proposition;
 import com.horizen.proposition.ProofOfKnowledgeProposition;
 import com.horizen.secret.Secret;
@@ -19,6 +21,11 @@ public interface NodeWallet {
 
     List<Box<Proposition>> boxesOfType(Class<? extends Box<? extends Proposition>> type, List<byte[]> boxIdsToExclude);
 
+    // boxes are sorted by creation time in wallet from oldest to newest
+    // page contains at most pageSize boxes of given type (of any type if empty) with value not less than minValue,
+    // starting right after the position defined by the cursor (from the oldest box if empty)
+    WalletBoxesPage boxesPage(Optional<Class<? extends Box<? extends Proposition>>> type, long minValue, Optional<byte[]> cursor, int pageSize);
+
     Long boxesBalance(Class<? extends Box<? extends Proposition>> type);
 
     Long allBoxesBalance();
@@ -29,5 +36,13 @@ public interface NodeWallet {
 
     List<Secret> secretsOfType(Class<? extends Secret> type);
 
+    // transactions related to the proposition, included into blocks with timestamp in range [fromTimestamp, toTimestamp]
+    // transactions are sorted by block timestamp from oldest to newest
+    // page contains at most pageSize transactions starting from the position defined by the cursor (from the first one in range if empty)
+    WalletTransactionsPage transactionsHistory(Proposition proposition, long fromTimestamp, long toTimestamp, Optional<byte[]> cursor, int pageSize);
+
     byte[] walletSeed();
+
+    // derivation index of the last PrivateKey25519 key derived from the wallet seed and used by the wallet, -1 if none
+    int lastDerivedKeyIndex();
 }
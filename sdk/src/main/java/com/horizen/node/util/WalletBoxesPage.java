@@ -0,0 +1,30 @@
+package com.horizen.node.util;
+
+import com.horizen.box.Box;
+import com.horizen.proposition.Proposition;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+public final class WalletBoxesPage {
+
+    // Boxes of the page, sorted by creation time from oldest to newest
+    private final List<Box<Proposition>> boxes;
+
+    // Opaque position of the last box of the page, empty if there is nothing more to retrieve
+    private final byte[] nextCursor;
+
+    public WalletBoxesPage(List<Box<Proposition>> boxes, Optional<byte[]> nextCursor) {
+        this.boxes = boxes;
+        this.nextCursor = nextCursor.map(cursor -> Arrays.copyOf(cursor, cursor.length)).orElse(null);
+    }
+
+    public List<Box<Proposition>> getBoxes() {
+        return boxes;
+    }
+
+    public Optional<byte[]> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+}
@@ -0,0 +1,32 @@
+package com.horizen.node.util;
+
+import com.horizen.box.Box;
+import com.horizen.proposition.Proposition;
+import com.horizen.transaction.BoxTransaction;
+import com.horizen.utils.Pair;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+public final class WalletTransactionsPage {
+
+    // Pairs of containing block timestamp and transaction, sorted by block timestamp from oldest to newest
+    private final List<Pair<Long, BoxTransaction<Proposition, Box<Proposition>>>> transactions;
+
+    // Opaque position of the next transaction, empty if there is nothing more to retrieve
+    private final byte[] nextCursor;
+
+    public WalletTransactionsPage(List<Pair<Long, BoxTransaction<Proposition, Box<Proposition>>>> transactions, Optional<byte[]> nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor.map(cursor -> Arrays.copyOf(cursor, cursor.length)).orElse(null);
+    }
+
+    public List<Pair<Long, BoxTransaction<Proposition, Box<Proposition>>>> getTransactions() {
+        return transactions;
+    }
+
+    public Optional<byte[]> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+}
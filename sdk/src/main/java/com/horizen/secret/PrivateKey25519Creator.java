@@ -7,8 +7,6 @@ import com.horizen.utils.Ed25519;
 import com.horizen.utils.Pair;
 import scorex.crypto.hash.Blake2b256;
 
-import java.util.List;
-
 public final class PrivateKey25519Creator implements SecretCreator<PrivateKey25519>
 {
     private static PrivateKey25519Creator instance;
@@ -33,9 +31,14 @@ public final class PrivateKey25519Creator implements SecretCreator<PrivateKey255
 
     @Override
     public PrivateKey25519 generateNextSecret(NodeWallet wallet) {
-        List<Secret> prevSecrets = wallet.secretsOfType(PrivateKey25519.class);
-        byte[] nonce = Ints.toByteArray(prevSecrets.size());
-        byte[] seed = Blake2b256.hash(Bytes.concat(wallet.walletSeed(), nonce));
+        // Keys of all the indexes up to the last used derived one are known by the wallet
+        return deriveNextSecret(wallet, wallet.lastDerivedKeyIndex() + 1);
+    }
+
+    @Override
+    public PrivateKey25519 deriveSecret(byte[] walletSeed, int index) {
+        byte[] nonce = Ints.toByteArray(index);
+        byte[] seed = Blake2b256.hash(Bytes.concat(walletSeed, nonce));
 
         return generateSecret(seed);
     }
@@ -8,7 +8,6 @@ import com.horizen.node.NodeWallet;
 import scorex.crypto.hash.Blake2b256;
 
 import java.util.EnumMap;
-import java.util.List;
 
 public class SchnorrKeyGenerator implements SecretCreator<SchnorrSecret> {
     private static SchnorrKeyGenerator instance;
@@ -34,9 +33,13 @@ public class SchnorrKeyGenerator implements SecretCreator<SchnorrSecret> {
 
     @Override
     public SchnorrSecret generateNextSecret(NodeWallet wallet) {
-        List<Secret> prevSecrets = wallet.secretsOfType(SchnorrSecret.class);
-        byte[] nonce = Ints.toByteArray(prevSecrets.size());
-        byte[] seed = Blake2b256.hash(Bytes.concat(wallet.walletSeed(), nonce));
+        return deriveNextSecret(wallet, 0);
+    }
+
+    @Override
+    public SchnorrSecret deriveSecret(byte[] walletSeed, int index) {
+        byte[] nonce = Ints.toByteArray(index);
+        byte[] seed = Blake2b256.hash(Bytes.concat(walletSeed, nonce));
 
         return generateSecret(seed);
     }
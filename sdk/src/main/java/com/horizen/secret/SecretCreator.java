@@ -10,4 +10,19 @@ interface SecretCreator<S extends Secret>
 
     // Generate secret taking in consideration context of previously generated secrets stored in wallet.
     S generateNextSecret(NodeWallet wallet);
+
+    // Derive secret deterministically from the wallet seed and the derivation index.
+    // The same index always leads to the same secret, so derived secrets may be recovered from the seed only.
+    S deriveSecret(byte[] walletSeed, int index);
+
+    // Derive the secret of the lowest derivation index, starting from the given one, which key the wallet doesn't know yet.
+    // Keys of some indexes may be known already: imported or generated by the wallet before the keys derivation.
+    default S deriveNextSecret(NodeWallet wallet, int fromIndex) {
+        int index = fromIndex;
+        S secret = deriveSecret(wallet.walletSeed(), index);
+        while (wallet.secretByPublicKey(secret.publicImage()).isPresent())
+            secret = deriveSecret(wallet.walletSeed(), ++index);
+
+        return secret;
+    }
 }
\ No newline at end of file
@@ -7,7 +7,6 @@ import com.horizen.cryptolibprovider.CryptoLibProvider;
 import scorex.crypto.hash.Blake2b256;
 import com.horizen.cryptolibprovider.VrfFunctions.KeyType;
 import java.util.EnumMap;
-import java.util.List;
 
 public class VrfKeyGenerator implements SecretCreator<VrfSecretKey> {
     private static VrfKeyGenerator instance;
@@ -33,9 +32,13 @@ public class VrfKeyGenerator implements SecretCreator<VrfSecretKey> {
 
     @Override
     public VrfSecretKey generateNextSecret(NodeWallet wallet) {
-        List<Secret> prevSecrets = wallet.secretsOfType(VrfSecretKey.class);
-        byte[] nonce = Ints.toByteArray(prevSecrets.size());
-        byte[] seed = Blake2b256.hash(Bytes.concat(wallet.walletSeed(), nonce));
+        return deriveNextSecret(wallet, 0);
+    }
+
+    @Override
+    public VrfSecretKey deriveSecret(byte[] walletSeed, int index) {
+        byte[] nonce = Ints.toByteArray(index);
+        byte[] seed = Blake2b256.hash(Bytes.concat(walletSeed, nonce));
 
         return generateSecret(seed);
     }
@@ -116,10 +116,10 @@ public final class BytesUtils {
         byte first = bytes[offset];
         switch(first) {
             case (byte)253:
-                return new VarInt(BytesUtils.getReversedShort(bytes, offset + 1), 3);
+                return new VarInt(BytesUtils.getReversedShort(bytes, offset + 1) & 0xFFFFL, 3);
 
             case (byte)254:
-                return new VarInt(BytesUtils.getReversedInt(bytes, offset + 1), 5);
+                return new VarInt(BytesUtils.getReversedInt(bytes, offset + 1) & 0xFFFFFFFFL, 5);
 
             case (byte)255:
                 return new VarInt(BytesUtils.getReversedLong(bytes, offset + 1), 9);
@@ -4,6 +4,7 @@ import com.horizen.utils.Pair;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public final class MerkleTree
@@ -105,35 +106,55 @@ public final class MerkleTree
     }
 
     public MerklePath getMerklePathForLeaf(int leafIdx) {
-        if(leafIdx < 0 || leafIdx >= _leavesNumber)
-            throw new IllegalArgumentException("Leaf index is out of bound. Merkle Path can not be calculated.");
+        return getMerklePathsForLeaves(Collections.singletonList(leafIdx)).get(0);
+    }
+
+    // Calculate Merkle Paths for several leaves at once going through the tree levels a single time.
+    // Paths are returned in the same order as leaves indexes.
+    public List<MerklePath> getMerklePathsForLeaves(List<Integer> leavesIdx) {
+        for(int leafIdx : leavesIdx) {
+            if (leafIdx < 0 || leafIdx >= _leavesNumber)
+                throw new IllegalArgumentException("Leaf index is out of bound. Merkle Path can not be calculated.");
+        }
+
+        int pathsNumber = leavesIdx.size();
+        // pairs of <concatenation position> : <hash to concatenate> for each requested leaf
+        List<ArrayList<Pair<Byte, byte[]>>> merklePaths = new ArrayList<>(pathsNumber);
+        int[] idxOnLevel = new int[pathsNumber];
+        for(int i = 0; i < pathsNumber; i++) {
+            merklePaths.add(new ArrayList<>());
+            idxOnLevel[i] = leavesIdx.get(i);
+        }
 
         // offset in a merkleTree list.
         int offset = 0;
         // number of nodes on current level.
         int levelSize = _leavesNumber;
-        int idxOnLevel = leafIdx;
-
-
-        // pair of <concatenation position> : <hash to concatenate>
-        ArrayList<Pair<Byte, byte[]>> merklePath = new ArrayList<>();
 
         while(levelSize > 1) {
             boolean isOdd = levelSize % 2 == 1;
-            if(isOdd && idxOnLevel == levelSize - 1) // last element on level with odd number of elements -> concatenate with itself
-                merklePath.add(new Pair<>((byte)1, _merkleTree.get(offset + idxOnLevel)));
-            else if(idxOnLevel % 2 == 1) // right child
-                merklePath.add(new Pair<>((byte)0, _merkleTree.get(offset + idxOnLevel - 1)));
-            else // left child
-                merklePath.add(new Pair<>((byte)1, _merkleTree.get(offset + idxOnLevel + 1)));
+            for(int i = 0; i < pathsNumber; i++) {
+                int idx = idxOnLevel[i];
+                if(isOdd && idx == levelSize - 1) // last element on level with odd number of elements -> concatenate with itself
+                    merklePaths.get(i).add(new Pair<>((byte)1, _merkleTree.get(offset + idx)));
+                else if(idx % 2 == 1) // right child
+                    merklePaths.get(i).add(new Pair<>((byte)0, _merkleTree.get(offset + idx - 1)));
+                else // left child
+                    merklePaths.get(i).add(new Pair<>((byte)1, _merkleTree.get(offset + idx + 1)));
+
+                // calculate next level idx
+                idxOnLevel[i] = idx / 2;
+            }
 
             offset += levelSize;
             // calculate next level size
             levelSize = (levelSize + 1) / 2;
-            // calculate next level idx
-            idxOnLevel /= 2;
         }
-        return new MerklePath(merklePath);
+
+        List<MerklePath> res = new ArrayList<>(pathsNumber);
+        for(ArrayList<Pair<Byte, byte[]>> merklePath : merklePaths)
+            res.add(new MerklePath(merklePath));
+        return res;
     }
 
     public boolean validateMerklePath(byte[] leaf, MerklePath merklePath) {
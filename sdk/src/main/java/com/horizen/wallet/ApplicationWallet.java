@@ -10,6 +10,13 @@ import com.horizen.utils.ByteArrayWrapper;
 public interface ApplicationWallet {
 
     void onAddSecret(Secret secret);
+
+    // Called once for the secrets imported in a single batch, calls onAddSecret for each secret by default.
+    default void onAddSecrets(List<Secret> secrets) {
+        for (Secret secret : secrets)
+            onAddSecret(secret);
+    }
+
     void onRemoveSecret(Proposition proposition);
     void onChangeBoxes(byte[] version, List<Box<Proposition>> boxesToUpdate, List<byte[]> boxIdsToRemove);
     void onRollback(byte[] version);
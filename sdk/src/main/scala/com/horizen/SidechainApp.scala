@@ -16,7 +16,7 @@ import com.horizen.certificatesubmitter.CertificateSubmitterRef
 import com.horizen.companion._
 import com.horizen.consensus.ConsensusDataStorage
 import com.horizen.cryptolibprovider.CryptoLibProvider
-import com.horizen.forge.{ForgerRef, MainchainSynchronizer}
+import com.horizen.forge.{ForgerRef, MainchainBlockReferencePrefetcher, MainchainSynchronizer}
 import com.horizen.params._
 import com.horizen.proof.ProofSerializer
 import com.horizen.proposition.{SchnorrProposition, SchnorrPropositionSerializer}
@@ -41,9 +41,9 @@ import scala.collection.JavaConverters._
 import scala.collection.immutable.Map
 import scala.collection.mutable
 import scala.io.Source
-import com.horizen.network.SidechainNodeViewSynchronizer
+import com.horizen.network.{CompactSidechainBlockSpec, GetSidechainBlockHeadersSpec, GetSidechainBlockTransactionsSpec, SidechainBlockHeadersSpec, SidechainBlockTransactionsSpec, SidechainNodeViewSynchronizer}
 
-import scala.util.Try
+import scala.util.{Failure, Try}
 
 
 class SidechainApp @Inject()
@@ -83,13 +83,15 @@ class SidechainApp @Inject()
 
   override protected lazy val features: Seq[PeerFeature] = Seq()
 
-  override protected lazy val additionalMessageSpecs: Seq[MessageSpec[_]] = Seq(SidechainSyncInfoMessageSpec)
+  override protected lazy val additionalMessageSpecs: Seq[MessageSpec[_]] = Seq(SidechainSyncInfoMessageSpec, GetSidechainBlockHeadersSpec, SidechainBlockHeadersSpec,
+    new CompactSidechainBlockSpec(sidechainTransactionsCompanion), GetSidechainBlockTransactionsSpec, new SidechainBlockTransactionsSpec(sidechainTransactionsCompanion))
 
   protected val sidechainBoxesCompanion: SidechainBoxesCompanion =  SidechainBoxesCompanion(customBoxSerializers)
   protected val sidechainSecretsCompanion: SidechainSecretsCompanion = SidechainSecretsCompanion(customSecretSerializers)
-  protected val sidechainBoxesDataCompanion: SidechainBoxesDataCompanion = SidechainBoxesDataCompanion(customBoxDataSerializers)
-  protected val sidechainProofsCompanion: SidechainProofsCompanion = SidechainProofsCompanion(customProofSerializers)
-  protected val sidechainTransactionsCompanion: SidechainTransactionsCompanion =
+  // Lazy, because the transactions companion is used by the message specs during the Application initialization.
+  protected lazy val sidechainBoxesDataCompanion: SidechainBoxesDataCompanion = SidechainBoxesDataCompanion(customBoxDataSerializers)
+  protected lazy val sidechainProofsCompanion: SidechainProofsCompanion = SidechainProofsCompanion(customProofSerializers)
+  protected lazy val sidechainTransactionsCompanion: SidechainTransactionsCompanion =
     SidechainTransactionsCompanion(customTransactionSerializers, sidechainBoxesDataCompanion, sidechainProofsCompanion)
 
   // Deserialize genesis block bytes
@@ -183,13 +185,20 @@ class SidechainApp @Inject()
     registerStorage(consensusStorage))
   protected val forgingBoxesMerklePathStorage = new ForgingBoxesInfoStorage(registerStorage(walletForgingBoxesInfoStorage))
 
-  // Append genesis secrets if we start the node first time
+  // Append genesis secrets if we start the node first time, all of them in a single batch
   if(sidechainSecretStorage.isEmpty) {
-    for(secretHex <- sidechainSettings.wallet.genesisSecrets)
-      sidechainSecretStorage.add(sidechainSecretsCompanion.parseBytes(BytesUtils.fromHexString(secretHex)))
-
-    for(secretSchnorr <- sidechainSettings.withdrawalEpochCertificateSettings.signersSecrets)
-      sidechainSecretStorage.add(sidechainSecretsCompanion.parseBytes(BytesUtils.fromHexString(secretSchnorr)))
+    val genesisSecrets = (sidechainSettings.wallet.genesisSecrets ++ sidechainSettings.withdrawalEpochCertificateSettings.signersSecrets)
+      .distinct
+      .map(secretHex => sidechainSecretsCompanion.parseBytes(BytesUtils.fromHexString(secretHex)))
+
+    // Node can't start without the genesis secrets: forging and certificates signing depend on them
+    if(genesisSecrets.nonEmpty)
+      sidechainSecretStorage.add(genesisSecrets.toList) match {
+        case Failure(ex) =>
+          log.error("Failed to add genesis secrets to the secret storage.", ex)
+          throw new IllegalStateException("Genesis secrets can't be added to the secret storage.", ex)
+        case _ =>
+      }
   }
 
 
@@ -221,7 +230,7 @@ class SidechainApp @Inject()
         SidechainSyncInfoMessageSpec, settings.network, timeProvider, modifierSerializers))
 
   // Retrieve information for using a web socket connector
-  val communicationClient: WebSocketCommunicationClient = new WebSocketCommunicationClient()
+  val communicationClient: WebSocketCommunicationClient = new WebSocketCommunicationClient(sidechainSettings.websocket.binaryFramesEnabled)
   val webSocketReconnectionHandler: WebSocketReconnectionHandler = new DefaultWebSocketReconnectionHandler(sidechainSettings.websocket)
 
   // Create the web socket connector and configure it
@@ -241,7 +250,13 @@ class SidechainApp @Inject()
 
   // Init Forger with a proper web socket client
   val mainchainNodeChannel = new MainchainNodeChannelImpl(communicationClient, params)
-  val mainchainSynchronizer = new MainchainSynchronizer(mainchainNodeChannel)
+  // Keep references of the most recent MC blocks ready for the block assembly
+  val mainchainBlockReferencePrefetcher = new MainchainBlockReferencePrefetcher(mainchainNodeChannel, params)
+  mainchainNodeChannel.subscribeOnUpdateTipEvent(mainchainBlockReferencePrefetcher) match {
+    case Failure(ex) => log.warn(s"Failed to subscribe MainchainBlockReferencePrefetcher on MC tip update: ${ex.getMessage}")
+    case _ =>
+  }
+  val mainchainSynchronizer = new MainchainSynchronizer(mainchainNodeChannel, Some(mainchainBlockReferencePrefetcher))
   val sidechainBlockForgerActorRef: ActorRef = ForgerRef("Forger", sidechainSettings, nodeViewHolderRef,  mainchainSynchronizer, sidechainTransactionsCompanion, params)
 
   // Init Transactions and Block actors for Api routes classes
@@ -266,7 +281,7 @@ class SidechainApp @Inject()
     SidechainBlockApiRoute(settings.restApi, nodeViewHolderRef, sidechainBlockActorRef, sidechainBlockForgerActorRef),
     SidechainNodeApiRoute(peerManagerRef, networkControllerRef, timeProvider, settings.restApi, nodeViewHolderRef),
     SidechainTransactionApiRoute(settings.restApi, nodeViewHolderRef, sidechainTransactionActorRef, sidechainTransactionsCompanion, sidechainCoreTransactionFactory, params),
-    SidechainWalletApiRoute(settings.restApi, nodeViewHolderRef)
+    SidechainWalletApiRoute(settings.restApi, nodeViewHolderRef, sidechainSecretsCompanion)
   )
 
   // In order to provide the feature to override core api and exclude some other apis,
@@ -2,7 +2,7 @@ package com.horizen
 
 import java.util.{ArrayList => JArrayList, List => JList, Optional => JOptional}
 
-import com.horizen.block.{MainchainBlockReference, MainchainHeader, SidechainBlock}
+import com.horizen.block.{MainchainBlockReference, MainchainHeader, SidechainBlock, SidechainBlockHeader}
 import com.horizen.chain.{MainchainBlockReferenceDataInfo, MainchainHeaderHash, MainchainHeaderInfo, SidechainBlockInfo}
 import com.horizen.consensus._
 import com.horizen.node.NodeHistory
@@ -10,7 +10,7 @@ import com.horizen.node.util.MainchainBlockReferenceInfo
 import com.horizen.params.{NetworkParams, NetworkParamsUtils}
 import com.horizen.storage.SidechainHistoryStorage
 import com.horizen.utils.{BytesUtils, WithdrawalEpochInfo, WithdrawalEpochUtils}
-import com.horizen.validation.{HistoryBlockValidator, SemanticBlockValidator}
+import com.horizen.validation.{HistoryBlockValidator, InconsistentDataException, SemanticBlockValidator, SidechainBlockHeadersChainValidator}
 import scorex.core.NodeViewModifier
 import scorex.core.consensus.History._
 import scorex.core.consensus.{History, ModifierSemanticValidity}
@@ -151,7 +151,7 @@ class SidechainHistory private (val storage: SidechainHistoryStorage,
   }
 
   def bestForkChanges(block: SidechainBlock): Try[ProgressInfo[SidechainBlock]] = Try {
-    val (newChainSuffix, currentChainSuffix) = commonBlockSuffixes(modifierById(block.parentId).get)
+    val (newChainSuffix, currentChainSuffix) = commonBlockSuffixes(block.parentId)
     if(newChainSuffix.isEmpty && currentChainSuffix.isEmpty)
       throw new IllegalArgumentException("Cannot retrieve fork changes. Fork length is more than params.maxHistoryRewritingLength")
 
@@ -175,17 +175,16 @@ class SidechainHistory private (val storage: SidechainHistoryStorage,
 
   // Find common suffixes for two chains - starting from forkBlock and from bestBlock.
   // Returns last common block and then variant blocks for two chains.
-  private def commonBlockSuffixes(forkBlock: SidechainBlock): (Seq[ModifierId], Seq[ModifierId]) = {
-    chainBack(forkBlock.id, storage.isInActiveChain, Int.MaxValue) match {
-      case Some(newBestChain) =>
-        val commonBlockHeight = storage.blockInfoById(newBestChain.head).height
-        if(height - commonBlockHeight > params.maxHistoryRewritingLength)
-          // fork length is more than params.maxHistoryRewritingLength
-          (Seq[ModifierId](), Seq[ModifierId]())
-        else
-          (newBestChain, storage.activeChainAfter(newBestChain.head))
+  private def commonBlockSuffixes(forkBlockId: ModifierId): (Seq[ModifierId], Seq[ModifierId]) = {
+    // Common block deeper than params.maxHistoryRewritingLength is not acceptable, so don't go back further.
+    val lowestCommonBlockHeight = Math.max(1, height - params.maxHistoryRewritingLength)
+    val chainBackLimit = storage.heightOf(forkBlockId).map(forkBlockHeight => forkBlockHeight - lowestCommonBlockHeight + 1).getOrElse(0)
+
+    chainBack(forkBlockId, storage.isInActiveChain, chainBackLimit) match {
+      case Some(newBestChain) if newBestChain.nonEmpty && storage.isInActiveChain(newBestChain.head) =>
+        (newBestChain, storage.activeChainAfter(newBestChain.head))
 
-      case None => (Seq[ModifierId](), Seq[ModifierId]())
+      case _ => (Seq[ModifierId](), Seq[ModifierId]())
     }
   } ensuring { res =>
     // verify, that both sequences starts from common block
@@ -194,24 +193,29 @@ class SidechainHistory private (val storage: SidechainHistoryStorage,
 
   // Go back though chain and get block ids until condition 'until' or reaching the limit
   // None if parent block is not in chain
-  // Note: work faster for active chain back (looks inside memory) and slower for fork chain (looks inside disk)
+  // Note: recent fork blocks are taken from the storage fork tree index in memory, as well as the active chain ones.
   private def chainBack(blockId: ModifierId,
                         until: ModifierId => Boolean,
-                        limit: Int): Option[Seq[ModifierId]] = { // to do
-    var acc: Seq[ModifierId] = Seq(blockId)
+                        limit: Int): Option[Seq[ModifierId]] = {
+    if (limit <= 0)
+      return Some(Seq())
+
+    val acc: ListBuffer[ModifierId] = ListBuffer(blockId)
+    var accSize = 1
     var id = blockId
 
-    while(acc.size < limit && !until(id)) {
+    while(accSize < limit && !until(id)) {
       storage.parentBlockId(id) match {
         case Some(parentId) =>
-          acc = parentId +: acc
+          parentId +=: acc
+          accSize += 1
           id = parentId
         case _ =>
           //log.warn(s"Parent block for ${encoder.encode(block.id)} not found ")
           return None
       }
     }
-    Some(acc)
+    Some(acc.toList)
   }
 
   override def reportModifierIsValid(block: SidechainBlock): SidechainHistory = {
@@ -269,13 +273,43 @@ class SidechainHistory private (val storage: SidechainHistoryStorage,
   override def continuationIds(info: SidechainSyncInfo, size: Int): ModifierIds = {
     info.knownBlockIds.find(id => storage.isInActiveChain(id)) match {
       case Some(commonBlockId) =>
-        storage.activeChainAfter(commonBlockId).tail.take(size).map(id => (SidechainBlock.ModifierTypeId, id))
+        // Take only the requested ids right after the common block instead of the whole active chain suffix.
+        val commonBlockHeight = storage.heightOf(commonBlockId).get
+        storage.activeChainBlockIds(commonBlockHeight + 1, size).map(id => (SidechainBlock.ModifierTypeId, id))
       case None =>
         //log.warn("Found chain without common block ids from remote")
         Seq()
     }
   }
 
+  // Headers of the active chain blocks following the first known block of the locator, used by the headers-first sync.
+  def blockHeadersAfter(locator: Seq[ModifierId], limit: Int): Seq[SidechainBlockHeader] = {
+    locator.find(id => storage.isInActiveChain(id)) match {
+      case Some(commonBlockId) =>
+        val commonBlockHeight = storage.heightOf(commonBlockId).get
+        storage.activeChainBlockIds(commonBlockHeight + 1, limit).flatMap(id => storage.blockHeaderById(id))
+      case None =>
+        Seq()
+    }
+  }
+
+  // Headers-only checks of the headers chain, which follows either the given previous header or the known block.
+  def validateHeadersChain(headers: Seq[SidechainBlockHeader], previousHeaderOpt: Option[SidechainBlockHeader]): Try[Unit] = {
+    headers.headOption match {
+      case Some(firstHeader) =>
+        val parentTimestampOpt = previousHeaderOpt.filter(_.id == firstHeader.parentId).map(_.timestamp)
+          .orElse(storage.blockInfoOptionById(firstHeader.parentId).map(_.timestamp))
+        parentTimestampOpt match {
+          case Some(parentTimestamp) =>
+            new SidechainBlockHeadersChainValidator(params).validate(headers, firstHeader.parentId, parentTimestamp)
+          case None =>
+            Failure(new InconsistentDataException(s"Parent of the headers chain starting from ${firstHeader.id} is unknown"))
+        }
+      case None =>
+        Success()
+    }
+  }
+
   // see https://en.bitcoin.it/wiki/Protocol_documentation#getblocks
   private def knownBlocksHeightToSync(): Seq[Int] = {
     if (isEmpty)
@@ -310,17 +344,15 @@ class SidechainHistory private (val storage: SidechainHistoryStorage,
   // return last common block + divergent suffix
   // Note: otherBlockIds ordered from most recent to oldest block
   private def divergentSuffix(otherBlockIds: Seq[ModifierId]): Seq[ModifierId] = {
-    var suffix = Seq[ModifierId]()
-    var blockId: ModifierId = null
-    var restOfOtherBlockIds = otherBlockIds
+    val suffix: ListBuffer[ModifierId] = ListBuffer()
+    val restOfOtherBlockIds = otherBlockIds.iterator
 
-    while(restOfOtherBlockIds.nonEmpty) {
-      blockId = restOfOtherBlockIds.head
-      restOfOtherBlockIds = restOfOtherBlockIds.tail
-      suffix = blockId +: suffix
+    while(restOfOtherBlockIds.hasNext) {
+      val blockId = restOfOtherBlockIds.next()
+      blockId +=: suffix
 
       if(storage.isInActiveChain(blockId))
-        return suffix
+        return suffix.toList
     }
     Seq() // we didn't find common block (even genesis one is different) -> we have totally different chains.
   }
@@ -344,8 +376,9 @@ class SidechainHistory private (val storage: SidechainHistoryStorage,
         else
           Younger
       case _ =>
-        val otherBestKnownBlockIndex = dSuffix.size - 1 - dSuffix.reverse.indexWhere(id => storage.heightOf(id).isDefined)
-        val otherBestKnownBlockHeight = storage.heightOf(dSuffix(otherBestKnownBlockIndex)).get
+        // Only the active chain and the recent forks are checked: the blocks of the deeper forks can't become active anyway.
+        val otherBestKnownBlockIndex = dSuffix.lastIndexWhere(id => storage.recentHeightOf(id).isDefined)
+        val otherBestKnownBlockHeight = storage.recentHeightOf(dSuffix(otherBestKnownBlockIndex)).get
         // other node height can be approximatly calculated as height of other KNOWN best block height + size of rest unknown blocks after it.
         // why approximately? see knownBlocksHeightToSync algorithm: blocks to sync step increasing.
         // to do: need to discuss
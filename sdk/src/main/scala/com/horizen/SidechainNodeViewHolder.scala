@@ -64,7 +64,7 @@ class SidechainNodeViewHolder(sidechainSettings: SidechainSettings,
     history <- SidechainHistory.restoreHistory(historyStorage, consensusDataStorage, params, semanticBlockValidators(params), historyBlockValidators(params))
     state <- SidechainState.restoreState(stateStorage, params, applicationState)
     wallet <- SidechainWallet.restoreWallet(sidechainSettings.wallet.seed.getBytes,
-      walletBoxStorage, secretStorage, walletTransactionStorage, forgingBoxesInfoStorage, applicationWallet)
+      walletBoxStorage, secretStorage, walletTransactionStorage, forgingBoxesInfoStorage, applicationWallet, sidechainSettings.wallet.derivedKeysGapLimit)
     pool <- Some(SidechainMemoryPool.emptyPool)
   } yield (history, state, wallet, pool)
 
@@ -78,7 +78,7 @@ class SidechainNodeViewHolder(sidechainSettings: SidechainSettings,
         historyBlockValidators(params), StakeConsensusEpochInfo(consensusEpochInfo.forgersBoxIds.rootHash(), consensusEpochInfo.forgersStake))
 
       wallet <- SidechainWallet.createGenesisWallet(sidechainSettings.wallet.seed.getBytes, walletBoxStorage, secretStorage,
-        walletTransactionStorage, forgingBoxesInfoStorage, applicationWallet, genesisBlock, consensusEpochInfo)
+        walletTransactionStorage, forgingBoxesInfoStorage, applicationWallet, sidechainSettings.wallet.derivedKeysGapLimit, genesisBlock, consensusEpochInfo)
 
       pool <- Success(SidechainMemoryPool.emptyPool)
     } yield (history, state, wallet, pool)
@@ -128,11 +128,28 @@ class SidechainNodeViewHolder(sidechainSettings: SidechainSettings,
     }
   }
 
+  protected def processLocallyImportedSecrets: Receive = {
+    case ls: SidechainNodeViewHolder.ReceivableMessages.LocallyImportedSecrets[SidechainTypes#SCS] =>
+      secretsImport(ls.secrets)
+  }
+
+  // Reply with the secrets actually added to the wallet
+  protected def secretsImport(secrets: Seq[SidechainTypes#SCS]): Unit = {
+    vault().importSecrets(secrets) match {
+      case Success(importedSecrets) =>
+        updateNodeView(updatedVault = Some(vault()))
+        sender() ! Success(importedSecrets)
+      case Failure(ex) =>
+        sender() ! Failure(ex)
+    }
+  }
+
   override def receive: Receive = {
       applyFunctionOnNodeView orElse
       applyBiFunctionOnNodeView orElse
       getCurrentSidechainNodeViewInfo orElse
       processLocallyGeneratedSecret orElse
+      processLocallyImportedSecrets orElse
       super.receive
   }
 
@@ -286,6 +303,7 @@ object SidechainNodeViewHolder /*extends ScorexLogging with ScorexEncoding*/ {
     case class ApplyFunctionOnNodeView[HIS, MS, VL, MP, A](f: java.util.function.Function[SidechainNodeView, A])
     case class ApplyBiFunctionOnNodeView[HIS, MS, VL, MP, T, A](f: java.util.function.BiFunction[SidechainNodeView, T, A], functionParameter: T)
     case class LocallyGeneratedSecret[S <: SidechainTypes#SCS](secret: S)
+    case class LocallyImportedSecrets[S <: SidechainTypes#SCS](secrets: Seq[S])
   }
 }
 
@@ -1,5 +1,6 @@
 package com.horizen
 
+import com.horizen.forge.ForgeMessageBuilder
 import scorex.core.settings.ScorexSettings
 
 import scala.concurrent.duration.FiniteDuration
@@ -11,7 +12,8 @@ case class WebSocketSettings(address: String,
                              reconnectionMaxAttempts: Int,
                              zencliCommandLine: String,
                              zencliCommandLineArguments: Option[Seq[String]] = None,
-                             allowNoConnectionInRegtest: Boolean = true // In Regtest allow to forge new blocks without connection to MC node, for example.
+                             allowNoConnectionInRegtest: Boolean = true, // In Regtest allow to forge new blocks without connection to MC node, for example.
+                             binaryFramesEnabled: Boolean = false // Ask MC node to send blocks as raw bytes in binary frames instead of hex in JSON.
                             )
 
 case class GenesisDataSettings(scGenesisBlockHex: String,
@@ -30,7 +32,10 @@ case class withdrawalEpochCertificateSettings(submitterIsEnabled: Boolean,
                                               verificationKeyFilePath: String)
 
 case class WalletSettings(seed: String,
-                          genesisSecrets: Seq[String])
+                          genesisSecrets: Seq[String],
+                          derivedKeysGapLimit: Int = SidechainWallet.DEFAULT_DERIVED_KEYS_GAP_LIMIT)
+
+case class ForgerSettings(vrfProvingThreads: Int = ForgeMessageBuilder.DEFAULT_VRF_PROVING_THREADS)
 
 case class MainchainSettings(
                               path: String
@@ -41,5 +46,6 @@ case class SidechainSettings(
                               genesisData: GenesisDataSettings,
                               websocket: WebSocketSettings,
                               withdrawalEpochCertificateSettings: withdrawalEpochCertificateSettings,
-                              wallet: WalletSettings
+                              wallet: WalletSettings,
+                              forger: ForgerSettings = ForgerSettings()
                             )
\ No newline at end of file
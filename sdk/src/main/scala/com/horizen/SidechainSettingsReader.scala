@@ -25,7 +25,8 @@ object SidechainSettingsReader
     val genesisSetting = config.as[GenesisDataSettings]("scorex.genesis")
     val backwardTransfer = config.as[withdrawalEpochCertificateSettings]("scorex.withdrawalEpochCertificate")
     val walletSetting = config.as[WalletSettings]("scorex.wallet")
-    SidechainSettings(scorexSettings, genesisSetting, webSocketConnectorConfiguration, backwardTransfer, walletSetting)
+    val forgerSetting = config.getAs[ForgerSettings]("scorex.forger").getOrElse(ForgerSettings())
+    SidechainSettings(scorexSettings, genesisSetting, webSocketConnectorConfiguration, backwardTransfer, walletSetting, forgerSetting)
   }
 
   def readConfigFromPath(userConfigPath: String, applicationConfigPath: Option[String]): Config = {
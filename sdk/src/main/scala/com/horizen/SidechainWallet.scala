@@ -1,24 +1,30 @@
 package com.horizen
 
 import java.lang
+import java.util.concurrent.{Executors, ThreadFactory}
 import java.util.{List => JList, Optional => JOptional}
 
+import com.google.common.primitives.Ints
+
 import com.horizen.block.SidechainBlock
 import com.horizen.box.{Box, ForgerBox}
 import com.horizen.consensus.{ConsensusEpochInfo, ConsensusEpochNumber}
 import com.horizen.wallet.ApplicationWallet
 import com.horizen.node.NodeWallet
-import com.horizen.proposition.Proposition
-import com.horizen.secret.Secret
+import com.horizen.node.util.{WalletBoxesPage, WalletTransactionsPage}
+import com.horizen.proposition.{Proposition, PublicKey25519Proposition}
+import com.horizen.secret.{PrivateKey25519, PrivateKey25519Creator, Secret}
 import com.horizen.storage._
 import com.horizen.transaction.Transaction
 import com.horizen.transaction.mainchain.SidechainCreation
 import com.horizen.utils.{ByteArrayWrapper, BytesUtils, ForgerBoxMerklePathInfo, MerklePath}
 import scorex.core.VersionTag
 import com.horizen.utils._
-import scorex.util.ModifierId
+import scorex.util.{ModifierId, ScorexLogging, idToBytes}
 
-import scala.util.Try
+import scala.concurrent.{Await, ExecutionContext, Future}
+import scala.concurrent.duration._
+import scala.util.{Failure, Success, Try}
 import scala.collection.JavaConverters._
 import scala.collection.mutable
 import scala.compat.java8.OptionConverters._
@@ -47,7 +53,8 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
                                         secretStorage: SidechainSecretStorage,
                                         walletTransactionStorage: SidechainWalletTransactionStorage,
                                         forgingBoxesInfoStorage: ForgingBoxesInfoStorage,
-                                        applicationWallet: ApplicationWallet)
+                                        applicationWallet: ApplicationWallet,
+                                        derivedKeysGapLimit: Int = SidechainWallet.DEFAULT_DERIVED_KEYS_GAP_LIMIT)
   extends Wallet[SidechainTypes#SCS,
                  SidechainTypes#SCP,
                  SidechainTypes#SCBT,
@@ -55,21 +62,142 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
                  SidechainWallet]
   with SidechainTypes
   with NodeWallet
+  with ScorexLogging
 {
   override type NVCT = SidechainWallet
 
   require(applicationWallet != null, "ApplicationWallet must be NOT NULL.")
+  require(derivedKeysGapLimit > 0, "Derived keys gap limit must be positive.")
+
+  // Forger boxes merkle paths calculated in background while the switch block is applied to the state:
+  // consensus epoch -> calculation result. Taken and stored by the scan of the switch block.
+  private val pendingForgerBoxMerklePathInfo = new mutable.LinkedHashMap[ConsensusEpochNumber, Future[Seq[ForgerBoxMerklePathInfo]]]()
+
+  // Lookahead window of PrivateKey25519 keys derived from the seed, but not used yet:
+  // public key bytes -> derivation index, for indexes in range (last used derived index, last used derived index + gap limit].
+  // Secrets of the used derived keys are not stored: SecretStorage keeps index records by public key only,
+  // secrets are derived again on lookup.
+  private val derivedKeysLookahead = new mutable.HashMap[ByteArrayWrapper, Int]()
+  private var derivedKeysLookaheadLastIndex: Int = -1
+
+  // Recently looked up secrets of the used derived keys: public key bytes -> secret.
+  private val derivedSecretsCache = new LruCache[ByteArrayWrapper, PrivateKey25519](SidechainWallet.DERIVED_SECRETS_CACHE_SIZE)
+
+  migrateGeneratedSecrets()
+  updateDerivedKeysLookahead()
+
+  // Wallets created before the keys derivation keep the keys generated from the seed as regular secrets.
+  // Such keys of the consecutive indexes from zero become used derived keys once, so the lookahead window starts after them.
+  private def migrateGeneratedSecrets(): Unit = {
+    if (secretStorage.getLastDerivedKeyIndex == -1) {
+      val generatedKeys = Stream.from(0)
+        .map(index => (PrivateKey25519Creator.getInstance().deriveSecret(seed, index).publicImage(), index))
+        .takeWhile { case (publicKey, _) => secretStorage.get(publicKey).isDefined }
+        .toList
+
+      if (generatedKeys.nonEmpty) {
+        secretStorage.replaceWithDerivedKeys(generatedKeys).get
+        log.info(s"${generatedKeys.size} keys generated from the wallet seed were moved to the derived keys.")
+      }
+    }
+  }
+
+  // Move the lookahead window right after the last used derived key, deriving only the keys not derived yet
+  private def updateDerivedKeysLookahead(): Unit = {
+    val lastUsedIndex = secretStorage.getLastDerivedKeyIndex
+    derivedKeysLookahead.retain((_, index) => index > lastUsedIndex)
+
+    val lastIndex = lastUsedIndex + derivedKeysGapLimit
+    for (index <- Math.max(derivedKeysLookaheadLastIndex, lastUsedIndex) + 1 to lastIndex) {
+      val secret = PrivateKey25519Creator.getInstance().deriveSecret(seed, index)
+      derivedKeysLookahead.put(new ByteArrayWrapper(secret.publicImage().pubKeyBytes()), index)
+    }
+    derivedKeysLookaheadLastIndex = Math.max(derivedKeysLookaheadLastIndex, lastIndex)
+  }
+
+  private def getLookaheadDerivedKeyIndex(proposition: Proposition): Option[Int] = proposition match {
+    case publicKey: PublicKey25519Proposition => derivedKeysLookahead.get(new ByteArrayWrapper(publicKey.pubKeyBytes()))
+    case _ => None
+  }
+
+  private def getUsedDerivedKeyIndex(proposition: Proposition): Option[Int] = proposition match {
+    case publicKey: PublicKey25519Proposition => secretStorage.getDerivedKeyIndex(publicKey)
+    case _ => None
+  }
+
+  // Mark as used all the lookahead keys up to the given derivation index (skipped ones included, so used derived keys
+  // always cover the whole range of indexes from zero), then move the lookahead window forward.
+  // Keys already stored as secrets are skipped. Other secrets, if any, are stored by the same storage update.
+  private def useDerivedKeys(upToIndex: Int, otherSecrets: Seq[SidechainTypes#SCS] = Seq()): Seq[PrivateKey25519] = {
+    val newDerivedKeys = derivedKeysLookahead.values.filter(_ <= upToIndex).toSeq.sorted
+      .map(index => (index, PrivateKey25519Creator.getInstance().deriveSecret(seed, index)))
+      .filter { case (_, derivedSecret) => secretStorage.get(derivedSecret.publicImage()).isEmpty }
+
+    secretStorage.add(otherSecrets.toList, newDerivedKeys.map { case (index, derivedSecret) => (derivedSecret.publicImage(), index) }).get
+    // Skipped keys, already stored as secrets, are not looked for anymore either
+    derivedKeysLookahead.retain((_, index) => index > upToIndex)
+    updateDerivedKeysLookahead()
+    newDerivedKeys.map(_._2)
+  }
+
+  // Scan the boxes for the keys of the lookahead window. Repeat while the window moves,
+  // because a box may belong to a key which gets into the window only after the window moved.
+  private def scanDerivedKeys(boxes: Seq[SidechainTypes#SCB]): Seq[PrivateKey25519] = {
+    val usedIndexes = boxes.flatMap(box => getLookaheadDerivedKeyIndex(box.proposition()) ++ (box match {
+      case forgerBox: ForgerBox => getLookaheadDerivedKeyIndex(forgerBox.blockSignProposition())
+      case _ => None
+    }))
+
+    if (usedIndexes.isEmpty)
+      Seq()
+    else
+      useDerivedKeys(usedIndexes.max) ++ scanDerivedKeys(boxes)
+  }
 
   // 1) check for existence
   // 2) try to store in SecretStore using SidechainSecretsCompanion
+  // Derived key from the lookahead window is stored as used derived key instead of the secret.
   override def addSecret(secret: SidechainTypes#SCS): Try[SidechainWallet] = Try {
     require(secret != null, "Secret must be NOT NULL.")
-    secretStorage.add(secret).get
+    getLookaheadDerivedKeyIndex(secret.publicImage()) match {
+      case Some(index) if secret.equals(PrivateKey25519Creator.getInstance().deriveSecret(seed, index)) =>
+        require(secretStorage.get(secret.publicImage()).isEmpty, "Key already exists - " + secret)
+        useDerivedKeys(index).withFilter(!_.equals(secret)).foreach(derivedSecret => applicationWallet.onAddSecret(derivedSecret))
+      case _ =>
+        secretStorage.add(secret).get
+    }
     //TODO (Alberto) should we catch user exception here (and don't return it outside)???
     applicationWallet.onAddSecret(secret)
     this
   }
 
+  // 1) check all the secrets for NOT NULL
+  // 2) skip the secrets already known by the wallet and repeated ones
+  // 3) store the rest of them by a single SecretStore update: derived keys from the lookahead window as used derived keys,
+  //    other secrets as they are. Nothing is stored, if any of them can't be added.
+  // Return the secrets actually added to the wallet.
+  def importSecrets(secretsToImport: Seq[SidechainTypes#SCS]): Try[Seq[SidechainTypes#SCS]] = Try {
+    require(secretsToImport != null, "Secrets must be NOT NULL.")
+    require(!secretsToImport.contains(null), "Secret must be NOT NULL.")
+
+    val uniqueSecrets = new mutable.LinkedHashMap[SidechainTypes#SCP, SidechainTypes#SCS]()
+    secretsToImport.foreach(s => if (!uniqueSecrets.contains(s.publicImage()) && secret(s.publicImage()).isEmpty) uniqueSecrets.put(s.publicImage(), s))
+
+    val (lookaheadSecrets, otherSecrets) = uniqueSecrets.values.toSeq.partition(s => getLookaheadDerivedKeyIndex(s.publicImage()) match {
+      case Some(index) => s.equals(PrivateKey25519Creator.getInstance().deriveSecret(seed, index))
+      case None => false
+    })
+
+    val newDerivedSecrets: Seq[SidechainTypes#SCS] =
+      if (uniqueSecrets.isEmpty) Seq()
+      else useDerivedKeys((lookaheadSecrets.flatMap(s => getLookaheadDerivedKeyIndex(s.publicImage())) :+ -1).max, otherSecrets)
+
+    val addedSecrets = newDerivedSecrets ++ otherSecrets
+    if (addedSecrets.nonEmpty)
+      applicationWallet.onAddSecrets(addedSecrets.asJava)
+    addedSecrets
+  }
+
   // 1) check for existence
   // 2) remove from SecretStore (note: provide a unique version to SecretStore)
   override def removeSecret(publicImage: SidechainTypes#SCP): Try[SidechainWallet] = Try {
@@ -80,11 +208,35 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
   }
 
   override def secret(publicImage: SidechainTypes#SCP): Option[SidechainTypes#SCS] = {
-    secretStorage.get(publicImage)
+    secretStorage.get(publicImage).orElse(publicImage match {
+      case publicKey: PublicKey25519Proposition => derivedSecret(publicKey)
+      case _ => None
+    })
+  }
+
+  // Secret of the used derived key: derived from the seed by the index stored for the public key
+  private def derivedSecret(publicKey: PublicKey25519Proposition): Option[PrivateKey25519] = {
+    val publicKeyBytes = new ByteArrayWrapper(publicKey.pubKeyBytes())
+    Option(derivedSecretsCache.get(publicKeyBytes)).orElse {
+      secretStorage.getDerivedKeyIndex(publicKey).map(index => {
+        val secret = PrivateKey25519Creator.getInstance().deriveSecret(seed, index)
+        derivedSecretsCache.put(publicKeyBytes, secret)
+        secret
+      })
+    }
   }
 
   override def secrets(): Set[SidechainTypes#SCS] = {
-    secretStorage.getAll.toSet
+    (secretStorage.getAll ++ derivedSecrets()).toSet
+  }
+
+  // Secrets of all the used derived keys in order of derivation indexes. Every secret is derived again,
+  // so it is for listing the whole wallet only: single secrets are looked up by secret().
+  private def derivedSecrets(): List[SidechainTypes#SCS] = {
+    (0 to secretStorage.getLastDerivedKeyIndex).view
+      .map(index => PrivateKey25519Creator.getInstance().deriveSecret(seed, index))
+      .filter(derivedSecret => secretStorage.getDerivedKeyIndex(derivedSecret.publicImage()).isDefined)
+      .toList
   }
 
   override def boxes(): Seq[WalletBox] = {
@@ -92,7 +244,11 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
   }
 
   override def publicKeys(): Set[SidechainTypes#SCP] = {
-    secretStorage.getAll.map(_.publicImage()).toSet
+    (secretStorage.getAll ++ derivedSecrets()).map(_.publicImage()).toSet
+  }
+
+  private def isOwnedProposition(pubKeys: Set[SidechainTypes#SCP], proposition: SidechainTypes#SCP): Boolean = {
+    pubKeys.contains(proposition) || getUsedDerivedKeyIndex(proposition).isDefined
   }
 
   // just do nothing, we don't need to care about offchain objects inside the wallet
@@ -103,12 +259,20 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
 
   // scan like in HybridApp, but in more general way.
   // update boxes in BoxStore
-  override def scanPersistent(modifier: SidechainBlock): SidechainWallet = {
+  override def scanPersistent(modifier: SidechainBlock): SidechainWallet = scanPersistent(modifier, None)
+
+  // Consensus epoch info, if defined, refers to the epoch ending with the modifier: merkle paths of the forger boxes
+  // are calculated right away and stored together with the modifier.
+  private def scanPersistent(modifier: SidechainBlock, endingEpochInfoOpt: Option[ConsensusEpochInfo]): SidechainWallet = {
     //require(modifier != null, "SidechainBlock must be NOT NULL.")
+    // Merkle paths of the epoch switched by the modifier are stored under its version, so they survive the node restart
+    // and are rolled back together with the modifier only.
+    val forgerBoxMerklePathInfoToStore = takeForgerBoxMerklePathInfo()
+
     val version = BytesUtils.fromHexString(modifier.id)
     val changes = SidechainState.changes(modifier).get
-    val pubKeys = publicKeys()
-    val boxesInWallet = boxes().map(_.box.id())
+    val pubKeys = secretStorage.getAll.map(_.publicImage()).toSet
+    val walletBoxesById = boxes().map(wb => new ByteArrayWrapper(wb.box.id()) -> wb).toMap
 
     val txBoxes: Map[ByteArrayWrapper, SidechainTypes#SCBT] = modifier.transactions
       .foldLeft(Map.empty[ByteArrayWrapper, SidechainTypes#SCBT]) {
@@ -118,26 +282,48 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
 
     val newBoxes = changes.toAppend.map(_.box)
 
-    val newWalletBoxes = newBoxes.withFilter(box => pubKeys.contains(box.proposition())).map( box => {
+    // Lookahead keys met in the block become used derived keys before ownership check
+    scanDerivedKeys(newBoxes).foreach(derivedSecret => applicationWallet.onAddSecret(derivedSecret))
+
+    val newWalletBoxes = newBoxes.withFilter(box => isOwnedProposition(pubKeys, box.proposition())).map( box => {
       val boxTransaction = txBoxes(box.id())
       new WalletBox(box, ModifierId @@ boxTransaction.id, boxTransaction.timestamp())
     })
 
     val newDelegatedForgerBoxes: Seq[ForgerBox] = newBoxes.withFilter(_.isInstanceOf[ForgerBox]).map(_.asInstanceOf[ForgerBox])
-      .filter(forgerBox => pubKeys.contains(forgerBox.blockSignProposition()))
+      .filter(forgerBox => isOwnedProposition(pubKeys, forgerBox.blockSignProposition()))
 
     val boxIdsToRemove = changes.toRemove.map(_.boxId.array)
-      .filter(boxId => boxesInWallet.exists(b => java.util.Arrays.equals(boxId, b)))
+      .filter(boxId => walletBoxesById.contains(new ByteArrayWrapper(boxId)))
 
     val transactions = (for (boxId <- (newWalletBoxes.map(_.box.id()) ++ boxIdsToRemove))
       yield txBoxes(new ByteArrayWrapper(boxId))).distinct
 
+    val txIndexes: Map[String, Int] = modifier.transactions.map(_.id).zipWithIndex.toMap
+
+    // Transactions history per wallet proposition: both new and spent boxes relate the transaction to the box owner
+    val propositionsTransactions = (newWalletBoxes.map(wb => (wb.box.proposition(), txBoxes(wb.box.id()))) ++
+      boxIdsToRemove.map(boxId => (walletBoxesById(new ByteArrayWrapper(boxId)).box.proposition(), txBoxes(new ByteArrayWrapper(boxId)))))
+      .distinct
+      .sortBy { case (_, tx) => txIndexes(tx.id) }
+
+    val historyEntries = propositionsTransactions.map {
+      case (proposition, tx) => (proposition, WalletTransactionHistoryEntry(modifier.timestamp, ModifierId @@ tx.id))
+    }
+
     walletBoxStorage.update(new ByteArrayWrapper(version), newWalletBoxes.toList, boxIdsToRemove.toList).get
 
-    walletTransactionStorage.update(new ByteArrayWrapper(version), transactions).get
+    walletTransactionStorage.update(new ByteArrayWrapper(version), transactions, historyEntries).get
 
     // We keep forger boxes separate to manage forging stake delegation
-    forgingBoxesInfoStorage.updateForgerBoxes(new ByteArrayWrapper(version), newDelegatedForgerBoxes, boxIdsToRemove).get
+    val endingEpochForgerBoxMerklePathInfo = endingEpochInfoOpt.map(epochInfo => {
+      val forgerBoxes = forgingBoxesInfoStorage.getForgerBoxes.getOrElse(Seq())
+        .filterNot(box => boxIdsToRemove.exists(boxId => box.id().sameElements(boxId))) ++ newDelegatedForgerBoxes
+      (epochInfo.epoch, epochInfo.getForgerBoxMerklePathInfo(forgerBoxes))
+    })
+
+    forgingBoxesInfoStorage.updateForgerBoxes(new ByteArrayWrapper(version), newDelegatedForgerBoxes, boxIdsToRemove,
+      forgerBoxMerklePathInfoToStore ++ endingEpochForgerBoxMerklePathInfo).get
 
     applicationWallet.onChangeBoxes(version, newBoxes.toList.asJava, boxIdsToRemove.toList.asJava)
 
@@ -148,6 +334,8 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
   override def rollback(to: VersionTag): Try[SidechainWallet] = Try {
     require(to != null, "Version to rollback to must be NOT NULL.")
     val version = new ByteArrayWrapper(BytesUtils.fromHexString(to))
+    // Calculation not stored yet belongs to the switch block, which was not applied: the epoch switch is applied again.
+    pendingForgerBoxMerklePathInfo.clear()
     walletBoxStorage.rollback(version).get
     walletTransactionStorage.rollback(version).get
     forgingBoxesInfoStorage.rollback(version).get
@@ -180,46 +368,80 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
       .asJava
   }
 
+  override def boxesPage(boxType: JOptional[Class[_ <: Box[_ <: Proposition]]], minValue: Long,
+                         cursor: JOptional[Array[Byte]], pageSize: Int): WalletBoxesPage = {
+    val (walletBoxes, nextCursor) = walletBoxStorage.getPage(boxType.asScala, minValue,
+      cursor.asScala.map(new ByteArrayWrapper(_)), pageSize)
+    new WalletBoxesPage(walletBoxes.map(_.box).asJava, nextCursor.map(_.data).asJava)
+  }
+
   override def boxesBalance(boxType: Class[_ <: Box[_ <: Proposition]]): java.lang.Long = {
     walletBoxStorage.getBoxesBalance(boxType)
   }
 
   override def secretByPublicKey(publicKey: Proposition): JOptional[Secret] = {
-    secretStorage.get(publicKey) match {
+    secret(publicKey) match {
       case Some(secret) => JOptional.of(secret)
       case None => JOptional.empty()
     }
   }
 
   override def allSecrets(): JList[Secret] = {
-    secretStorage.getAll.asJava
+    (secretStorage.getAll ++ derivedSecrets()).asJava
   }
 
   override def secretsOfType(secretType: Class[_ <: Secret]): JList[Secret] = {
-    secretStorage.getAll.filter(_.getClass.equals(secretType)).asJava
+    val derived = if (secretType.equals(classOf[PrivateKey25519])) derivedSecrets() else List()
+    (secretStorage.getAll ++ derived).filter(_.getClass.equals(secretType)).asJava
   }
 
   override def allBoxesBalance(): lang.Long = {
     walletBoxStorage.getAll.map(_.box.value()).sum
   }
 
+  override def transactionsHistory(proposition: Proposition, fromTimestamp: Long, toTimestamp: Long,
+                                   cursor: JOptional[Array[Byte]], pageSize: Int): WalletTransactionsPage = {
+    require(!cursor.isPresent || cursor.get().length == Ints.BYTES, "Cursor must be " + Ints.BYTES + " bytes long.")
+    val (entries, nextPosition) = walletTransactionStorage.getHistory(proposition, fromTimestamp, toTimestamp,
+      cursor.asScala.map(Ints.fromByteArray), pageSize)
+
+    val transactions = entries.flatMap(entry => walletTransactionStorage.get(idToBytes(entry.transactionId))
+      .map(tx => new Pair[lang.Long, SidechainTypes#SCBT](entry.blockTimestamp, tx)))
+
+    new WalletTransactionsPage(transactions.asJava, nextPosition.map(Ints.toByteArray).asJava)
+  }
+
   override def walletSeed(): Array[Byte] = seed
 
+  override def lastDerivedKeyIndex(): Int = secretStorage.getLastDerivedKeyIndex
+
+  // Merkle paths calculation runs in background while the state applies the switch block,
+  // then the wallet scan of the same block waits for the result and stores it.
   def applyConsensusEpochInfo(epochInfo: ConsensusEpochInfo): SidechainWallet = {
-    val merkleTreeLeaves = epochInfo.forgersBoxIds.leaves().asScala.map(leaf => new ByteArrayWrapper(leaf))
-
-    // Calculate merkle path for all delegated forgerBoxes
-    val forgerBoxMerklePathInfoSeq = forgingBoxesInfoStorage.getForgerBoxes.getOrElse(Seq()).map(forgerBox => {
-      ForgerBoxMerklePathInfo(
-        forgerBox,
-        epochInfo.forgersBoxIds.getMerklePathForLeaf(merkleTreeLeaves.indexOf(new ByteArrayWrapper(forgerBox.id())))
-      )
-    })
+    val forgerBoxes = forgingBoxesInfoStorage.getForgerBoxes.getOrElse(Seq())
 
-    forgingBoxesInfoStorage.updateForgerBoxMerklePathInfo(epochInfo.epoch, forgerBoxMerklePathInfoSeq).get
+    pendingForgerBoxMerklePathInfo.put(epochInfo.epoch, Future {
+      epochInfo.getForgerBoxMerklePathInfo(forgerBoxes)
+    }(SidechainWallet.forgerBoxMerklePathExecutionContext))
     this
   }
 
+  // Wait for the pending merkle paths calculations and take their results in order of epochs.
+  private def takeForgerBoxMerklePathInfo(): Seq[(ConsensusEpochNumber, Seq[ForgerBoxMerklePathInfo])] = {
+    val pending = pendingForgerBoxMerklePathInfo.toList
+    pendingForgerBoxMerklePathInfo.clear()
+
+    pending.flatMap { case (epoch, forgerBoxMerklePathInfoFuture) =>
+      Try(Await.result(forgerBoxMerklePathInfoFuture, Duration.Inf)) match {
+        case Success(forgerBoxMerklePathInfoSeq) =>
+          Some((epoch, forgerBoxMerklePathInfoSeq))
+        case Failure(exception) =>
+          log.error(s"Error while forger boxes merkle paths calculation for epoch $epoch.", exception)
+          None
+      }
+    }
+  }
+
   def getForgerBoxMerklePathInfoOpt(requestedEpoch: ConsensusEpochNumber): Option[Seq[ForgerBoxMerklePathInfo]] = {
     // For given epoch N we should get data from the ending of the epoch N-2.
     // genesis block is the single and the last block of epoch 1 - that is a special case:
@@ -236,15 +458,33 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
 
 object SidechainWallet
 {
+  // Number of consecutive not used derived keys, which wallet looks for in the blocks
+  val DEFAULT_DERIVED_KEYS_GAP_LIMIT: Int = 20
+
+  // Max number of derived secrets kept in memory after lookup
+  val DERIVED_SECRETS_CACHE_SIZE: Int = 256
+
+  // Merkle paths are calculated on a dedicated thread, so the calculation doesn't compete with the other tasks of the node.
+  private lazy val forgerBoxMerklePathExecutionContext: ExecutionContext = ExecutionContext.fromExecutorService(
+    Executors.newSingleThreadExecutor(new ThreadFactory {
+      override def newThread(r: Runnable): Thread = {
+        val thread = new Thread(r, "wallet-forger-box-merkle-paths")
+        thread.setDaemon(true)
+        thread
+      }
+    }))
+
   private[horizen] def restoreWallet(seed: Array[Byte],
                                      walletBoxStorage: SidechainWalletBoxStorage,
                                      secretStorage: SidechainSecretStorage,
                                      walletTransactionStorage: SidechainWalletTransactionStorage,
                                      forgingBoxesInfoStorage: ForgingBoxesInfoStorage,
-                                     applicationWallet: ApplicationWallet) : Option[SidechainWallet] = {
+                                     applicationWallet: ApplicationWallet,
+                                     derivedKeysGapLimit: Int) : Option[SidechainWallet] = {
 
     if (!walletBoxStorage.isEmpty)
-      Some(new SidechainWallet(seed, walletBoxStorage, secretStorage, walletTransactionStorage, forgingBoxesInfoStorage, applicationWallet))
+      Some(new SidechainWallet(seed, walletBoxStorage, secretStorage, walletTransactionStorage, forgingBoxesInfoStorage, applicationWallet,
+        derivedKeysGapLimit))
     else
       None
   }
@@ -255,13 +495,17 @@ object SidechainWallet
                                            walletTransactionStorage: SidechainWalletTransactionStorage,
                                            forgingBoxesInfoStorage: ForgingBoxesInfoStorage,
                                            applicationWallet: ApplicationWallet,
+                                           derivedKeysGapLimit: Int,
                                            genesisBlock: SidechainBlock,
                                            consensusEpochInfo: ConsensusEpochInfo
                                     ) : Try[SidechainWallet] = Try {
 
     if (walletBoxStorage.isEmpty) {
-      val genesisWallet = new SidechainWallet(seed, walletBoxStorage, secretStorage, walletTransactionStorage, forgingBoxesInfoStorage, applicationWallet)
-      genesisWallet.scanPersistent(genesisBlock).applyConsensusEpochInfo(consensusEpochInfo)
+      val genesisWallet = new SidechainWallet(seed, walletBoxStorage, secretStorage, walletTransactionStorage, forgingBoxesInfoStorage, applicationWallet,
+        derivedKeysGapLimit)
+      // Genesis block is the only block of the first consensus epoch. Its merkle paths are stored with the block,
+      // so forging of the next block doesn't depend on the background calculation surviving the node restart.
+      genesisWallet.scanPersistent(genesisBlock, Some(consensusEpochInfo))
     }
     else
       throw new RuntimeException("WalletBox storage is not empty!")
@@ -130,7 +130,8 @@ case class SidechainBlockApiRoute(override val settings: RESTApiSettings, sidech
     val future = forgerRef ? GetForgingInfo
     val result = Await.result(future, timeout.duration).asInstanceOf[Try[ForgingInfo]]
     result match {
-      case Success(forgingInfo) => ApiResponseUtil.toResponse(RespForgingInfo(forgingInfo.consensusSecondsInSlot, forgingInfo.consensusSlotsInEpoch, forgingInfo.currentBestEpochAndSlot.epochNumber, forgingInfo.currentBestEpochAndSlot.slotNumber))
+      case Success(forgingInfo) => ApiResponseUtil.toResponse(RespForgingInfo(forgingInfo.consensusSecondsInSlot, forgingInfo.consensusSlotsInEpoch, forgingInfo.currentBestEpochAndSlot.epochNumber, forgingInfo.currentBestEpochAndSlot.slotNumber,
+        forgingInfo.upcomingForgingSlots.map(epochAndSlot => ForgingSlot(epochAndSlot.epochNumber, epochAndSlot.slotNumber))))
       case Failure(ex) => ApiResponseUtil.toResponse(ErrorGetForgingInfo(s"Failed to get forging info: ${ex.getMessage}", None))
     }
   }
@@ -177,7 +178,11 @@ object SidechainBlockRestSchema {
   private[api] object RespStopForging extends SuccessResponse
 
   @JsonView(Array(classOf[Views.Default]))
-  private[api] case class RespForgingInfo(consensusSecondsInSlot: Int, consensusSlotsInEpoch: Int, bestEpochNumber: Int, bestSlotNumber: Int) extends SuccessResponse
+  private[api] case class ForgingSlot(epochNumber: Int, slotNumber: Int)
+
+  @JsonView(Array(classOf[Views.Default]))
+  private[api] case class RespForgingInfo(consensusSecondsInSlot: Int, consensusSlotsInEpoch: Int, bestEpochNumber: Int, bestSlotNumber: Int,
+                                          upcomingForgingSlots: Seq[ForgingSlot]) extends SuccessResponse
 
   @JsonView(Array(classOf[Views.Default]))
   private[api] case class ReqSubmit(blockHex: String) {
@@ -1,31 +1,44 @@
 package com.horizen.api.http
 
+import java.util.{Optional => JOptional}
+
 import akka.actor.{ActorRef, ActorRefFactory}
+import akka.http.scaladsl.model.{ContentTypes, HttpEntity}
 import akka.http.scaladsl.server.Route
 import akka.pattern.ask
+import akka.stream.scaladsl.Source
+import akka.util.ByteString
 import com.fasterxml.jackson.annotation.JsonView
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize
+import com.google.common.primitives.Ints
 import com.horizen.SidechainNodeViewHolder.ReceivableMessages
-import com.horizen.SidechainNodeViewHolder.ReceivableMessages.LocallyGeneratedSecret
+import com.horizen.SidechainNodeViewHolder.ReceivableMessages.{LocallyGeneratedSecret, LocallyImportedSecrets}
 import com.horizen.SidechainTypes
+import com.horizen.companion.SidechainSecretsCompanion
+import com.horizen.node.NodeWallet
 import com.horizen.api.http.JacksonSupport._
-import com.horizen.api.http.SidechainWalletErrorResponse.ErrorSecretNotAdded
+import com.horizen.api.http.SidechainWalletErrorResponse.{ErrorInvalidPageRequest, ErrorInvalidSecret, ErrorSecretNotAdded}
 import com.horizen.api.http.SidechainWalletRestScheme._
 import com.horizen.box.Box
-import com.horizen.proposition.{Proposition, VrfPublicKey}
+import com.horizen.proposition.{Proposition, PublicKey25519PropositionSerializer, VrfPublicKey}
 import com.horizen.secret.{PrivateKey25519Creator, VrfKeyGenerator}
-import com.horizen.serialization.Views
+import com.horizen.node.util.WalletBoxesPage
+import com.horizen.serialization.{ApplicationJsonSerializer, Views}
+import com.horizen.utils.BytesUtils
 import scorex.core.settings.RESTApiSettings
 
 import scala.collection.JavaConverters._
-import scala.concurrent.{Await, ExecutionContext}
+import scala.compat.java8.OptionConverters._
+import scala.concurrent.{Await, ExecutionContext, Future}
 import scala.util.{Failure, Success, Try}
 
 case class SidechainWalletApiRoute(override val settings: RESTApiSettings,
-                                   sidechainNodeViewHolderRef: ActorRef)(implicit val context: ActorRefFactory, override val ec: ExecutionContext)
+                                   sidechainNodeViewHolderRef: ActorRef,
+                                   sidechainSecretsCompanion: SidechainSecretsCompanion)(implicit val context: ActorRefFactory, override val ec: ExecutionContext)
   extends SidechainApiRoute {
 
   override val route: Route = (pathPrefix("wallet")) {
-    allBoxes ~ balance ~ createPrivateKey25519 ~ createVrfSecret ~ allPublicKeys
+    allBoxes ~ allBoxesPaged ~ allBoxesStream ~ balance ~ createPrivateKey25519 ~ createVrfSecret ~ importSecrets ~ allPublicKeys ~ transactionsHistory
   }
 
   /**
@@ -49,6 +62,74 @@ case class SidechainWalletApiRoute(override val settings: RESTApiSettings,
     }
   }
 
+  /**
+    * Return a page of boxes sorted from the oldest to the newest, starting right after the given cursor.
+    * Filter boxes of a given type and with a value not less than a given minimum.
+    */
+  def allBoxesPaged: Route = (post & path("allBoxesPaged")) {
+    entity(as[ReqAllBoxesPaged]) { body =>
+      withNodeView { sidechainNodeView =>
+        val pageSize = body.pageSize.getOrElse(DEFAULT_PAGE_SIZE)
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE)
+          ApiResponseUtil.toResponse(ErrorInvalidPageRequest(s"Page size must be in range [1, $MAX_PAGE_SIZE], actual value is $pageSize", None))
+        else Try(body.cursor.map(BytesUtils.fromHexString)) match {
+          case Success(cursor) =>
+            val boxTypeClass = body.boxTypeClass.map(getClassByBoxClassName)
+            val page = getBoxesPage(sidechainNodeView.getNodeWallet, boxTypeClass, body.minValue.getOrElse(0L), cursor, pageSize)
+            ApiResponseUtil.toResponse(RespAllBoxesPaged(page.getBoxes.asScala.toList, page.getNextCursor.asScala.map(BytesUtils.toHexString)))
+          case Failure(e) =>
+            ApiResponseUtil.toResponse(ErrorInvalidPageRequest("Invalid cursor.", Some(e)))
+        }
+      }
+    }
+  }
+
+  /**
+    * Return all boxes sorted from the oldest to the newest as a chunked JSON stream.
+    * Filter boxes of a given type and with a value not less than a given minimum.
+    * Boxes are retrieved from the wallet page by page, so memory usage is bounded by the page size.
+    */
+  def allBoxesStream: Route = (post & path("allBoxesStream")) {
+    entity(as[ReqAllBoxesStream]) { body =>
+      val boxTypeClass = body.boxTypeClass.map(getClassByBoxClassName)
+      val minValue = body.minValue.getOrElse(0L)
+      val serializer = ApplicationJsonSerializer.getInstance()
+
+      // Every page is retrieved from the actual node view, None state means that the last page was already emitted
+      val boxes = Source.unfoldAsync[Option[Option[Array[Byte]]], Seq[Box[Proposition]]](Some(None)) {
+        case Some(cursor) =>
+          viewAsync().map(sidechainNodeView => {
+            val page = getBoxesPage(sidechainNodeView.getNodeWallet, boxTypeClass, minValue, cursor, DEFAULT_PAGE_SIZE)
+            val nextState: Option[Option[Array[Byte]]] = page.getNextCursor.asScala.map(nextCursor => Some(nextCursor))
+            Some((nextState, page.getBoxes.asScala))
+          })
+        case None => Future.successful(None)
+      }.mapConcat(_.toList)
+
+      val boxesJson = boxes.zipWithIndex.map {
+        case (box, index) => ByteString((if (index > 0) "," else "") + serializer.serialize(box))
+      }
+
+      val response = Source.single(ByteString("{\"result\":{\"boxes\":["))
+        .concat(boxesJson)
+        .concat(Source.single(ByteString("]}}")))
+
+      complete(HttpEntity.Chunked.fromData(ContentTypes.`application/json`, response))
+    }
+  }
+
+  private def getBoxesPage(wallet: NodeWallet,
+                           boxTypeClass: Option[java.lang.Class[_ <: SidechainTypes#SCB]],
+                           minValue: Long,
+                           cursor: Option[Array[Byte]],
+                           pageSize: Int): WalletBoxesPage = {
+    val boxType: JOptional[java.lang.Class[_ <: Box[_ <: Proposition]]] = boxTypeClass match {
+      case Some(clazz) => JOptional.of(clazz)
+      case None => JOptional.empty()
+    }
+    wallet.boxesPage(boxType, minValue, cursor.asJava, pageSize)
+  }
+
   /**
     * Returns the balance for given box type, or all types of boxes
     */
@@ -105,6 +186,27 @@ case class SidechainWalletApiRoute(override val settings: RESTApiSettings,
     }
   }
 
+  /**
+    * Import secrets in a single batch. Secrets already known by the wallet and repeated ones are skipped.
+    * Return public keys of the secrets actually added to the wallet.
+    */
+  def importSecrets: Route = (post & path("importSecrets")) {
+    entity(as[ReqImportSecrets]) { body =>
+      Try(body.secrets.map(secretHex => sidechainSecretsCompanion.parseBytes(BytesUtils.fromHexString(secretHex)))) match {
+        case Success(secrets) =>
+          val future = sidechainNodeViewHolderRef ? LocallyImportedSecrets(secrets)
+          Await.result(future, timeout.duration).asInstanceOf[Try[Seq[SidechainTypes#SCS]]] match {
+            case Success(importedSecrets) =>
+              ApiResponseUtil.toResponse(RespImportSecrets(importedSecrets.map(_.publicImage())))
+            case Failure(e) =>
+              ApiResponseUtil.toResponse(ErrorSecretNotAdded("Failed to import secrets.", Some(e)))
+          }
+        case Failure(e) =>
+          ApiResponseUtil.toResponse(ErrorInvalidSecret("Invalid secret.", Some(e)))
+      }
+    }
+  }
+
   /**
     * Returns the list of all wallet’s propositions (public keys). Filter propositions of the given type
     */
@@ -127,6 +229,34 @@ case class SidechainWalletApiRoute(override val settings: RESTApiSettings,
     }
   }
 
+  /**
+    * Return a page of transactions related to the given public key, included into blocks with timestamp in the given range.
+    * Transactions are sorted by block timestamp from the oldest to the newest, starting from the given cursor.
+    */
+  def transactionsHistory: Route = (post & path("transactionsHistory")) {
+    entity(as[ReqTransactionsHistory]) { body =>
+      withNodeView { sidechainNodeView =>
+        val pageSize = body.pageSize.getOrElse(DEFAULT_PAGE_SIZE)
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE)
+          ApiResponseUtil.toResponse(ErrorInvalidPageRequest(s"Page size must be in range [1, $MAX_PAGE_SIZE], actual value is $pageSize", None))
+        else Try {
+          val cursor = body.cursor.map(BytesUtils.fromHexString)
+          // Cursor is the position in the history of the public key
+          cursor.foreach(bytes => require(bytes.length == Ints.BYTES, s"Cursor must be ${Ints.BYTES} bytes long, actual length is ${bytes.length}"))
+          (PublicKey25519PropositionSerializer.getSerializer.parseBytes(BytesUtils.fromHexString(body.publicKey)), cursor)
+        } match {
+          case Success((proposition, cursor)) =>
+            val page = sidechainNodeView.getNodeWallet.transactionsHistory(proposition,
+              body.fromTimestamp.getOrElse(0L), body.toTimestamp.getOrElse(Long.MaxValue), cursor.asJava, pageSize)
+            val transactions = page.getTransactions.asScala.map(entry => TransactionHistoryEntry(entry.getKey, entry.getValue)).toList
+            ApiResponseUtil.toResponse(RespTransactionsHistory(transactions, page.getNextCursor.asScala.map(BytesUtils.toHexString)))
+          case Failure(e) =>
+            ApiResponseUtil.toResponse(ErrorInvalidPageRequest("Invalid public key or cursor.", Some(e)))
+        }
+      }
+    }
+  }
+
   def getClassBySecretClassName(className: String): java.lang.Class[_ <: SidechainTypes#SCS] = {
     Try{Class.forName(className).asSubclass(classOf[SidechainTypes#SCS])}.
       getOrElse(Class.forName("com.horizen.secret." + className).asSubclass(classOf[SidechainTypes#SCS]))
@@ -140,12 +270,42 @@ case class SidechainWalletApiRoute(override val settings: RESTApiSettings,
 
 object SidechainWalletRestScheme {
 
+  val DEFAULT_PAGE_SIZE: Int = 100
+
+  val MAX_PAGE_SIZE: Int = 1000
+
   @JsonView(Array(classOf[Views.Default]))
   private[api] case class ReqAllBoxes(boxTypeClass: Option[String], excludeBoxIds: Option[Seq[String]])
 
   @JsonView(Array(classOf[Views.Default]))
   private[api] case class RespAllBoxes(boxes: List[Box[Proposition]]) extends SuccessResponse
 
+  @JsonView(Array(classOf[Views.Default]))
+  private[api] case class ReqAllBoxesPaged(boxTypeClass: Option[String],
+                                           @JsonDeserialize(contentAs = classOf[java.lang.Long]) minValue: Option[Long],
+                                           cursor: Option[String],
+                                           @JsonDeserialize(contentAs = classOf[java.lang.Integer]) pageSize: Option[Int])
+
+  @JsonView(Array(classOf[Views.Default]))
+  private[api] case class RespAllBoxesPaged(boxes: List[Box[Proposition]], nextCursor: Option[String]) extends SuccessResponse
+
+  @JsonView(Array(classOf[Views.Default]))
+  private[api] case class ReqAllBoxesStream(boxTypeClass: Option[String],
+                                            @JsonDeserialize(contentAs = classOf[java.lang.Long]) minValue: Option[Long])
+
+  @JsonView(Array(classOf[Views.Default]))
+  private[api] case class ReqTransactionsHistory(publicKey: String,
+                                                 @JsonDeserialize(contentAs = classOf[java.lang.Long]) fromTimestamp: Option[Long],
+                                                 @JsonDeserialize(contentAs = classOf[java.lang.Long]) toTimestamp: Option[Long],
+                                                 cursor: Option[String],
+                                                 @JsonDeserialize(contentAs = classOf[java.lang.Integer]) pageSize: Option[Int])
+
+  @JsonView(Array(classOf[Views.Default]))
+  private[api] case class TransactionHistoryEntry(blockTimestamp: Long, transaction: SidechainTypes#SCBT)
+
+  @JsonView(Array(classOf[Views.Default]))
+  private[api] case class RespTransactionsHistory(transactions: List[TransactionHistoryEntry], nextCursor: Option[String]) extends SuccessResponse
+
   @JsonView(Array(classOf[Views.Default]))
   private[api] case class ReqBalance(boxType: Option[String])
 
@@ -158,6 +318,12 @@ object SidechainWalletRestScheme {
   @JsonView(Array(classOf[Views.Default]))
   private[api] case class RespCreateVrfSecret(proposition: VrfPublicKey) extends SuccessResponse
 
+  @JsonView(Array(classOf[Views.Default]))
+  private[api] case class ReqImportSecrets(secrets: Seq[String])
+
+  @JsonView(Array(classOf[Views.Default]))
+  private[api] case class RespImportSecrets(propositions: Seq[Proposition]) extends SuccessResponse
+
   @JsonView(Array(classOf[Views.Default]))
   private[api] case class ReqAllPropositions(proptype: Option[String])
 
@@ -172,4 +338,12 @@ object SidechainWalletErrorResponse {
     override val code: String = "0301"
   }
 
+  case class ErrorInvalidPageRequest(description: String, exception: Option[Throwable]) extends ErrorResponse {
+    override val code: String = "0302"
+  }
+
+  case class ErrorInvalidSecret(description: String, exception: Option[Throwable]) extends ErrorResponse {
+    override val code: String = "0303"
+  }
+
 }
\ No newline at end of file
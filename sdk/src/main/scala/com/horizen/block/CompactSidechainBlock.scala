@@ -0,0 +1,136 @@
+package com.horizen.block
+
+import com.google.common.primitives.{Bytes, Longs}
+import com.horizen.SidechainTypes
+import com.horizen.box.NoncedBox
+import com.horizen.companion.SidechainTransactionsCompanion
+import com.horizen.proposition.Proposition
+import com.horizen.transaction.SidechainTransaction
+import com.horizen.utils.{BytesUtils, ListSerializer}
+import scorex.core.serialization.ScorexSerializer
+import scorex.crypto.hash.Blake2b256
+import scorex.util.serialization.{Reader, Writer}
+import scorex.util.{ModifierId, idToBytes}
+
+import scala.collection.JavaConverters._
+import scala.util.Try
+
+// SidechainBlock relayed without the SidechainTransactions the receiver most likely has in its memory pool.
+// Transactions are referenced by the short ids in the block order, except the prefilled ones, which are sent in full.
+// Short ids are bound to the block, so the collisions can't be prepared in advance for all the blocks.
+case class CompactSidechainBlock(header: SidechainBlockHeader,
+                                 shortTransactionIds: Seq[Long],
+                                 prefilledTransactions: Seq[(Int, SidechainTransaction[Proposition, NoncedBox[Proposition]])],
+                                 mainchainBlockReferencesData: Seq[MainchainBlockReferenceData],
+                                 mainchainHeaders: Seq[MainchainHeader],
+                                 ommers: Seq[Ommer]) {
+
+  def id: ModifierId = header.id
+
+  def transactionsNumber: Int = shortTransactionIds.size + prefilledTransactions.size
+
+  // Places the known transactions in the block order: prefilled ones and the candidates with the matching short ids.
+  // Positions with the unknown or ambiguous short ids stay empty.
+  def matchTransactions(candidates: Iterable[SidechainTypes#SCBT]): IndexedSeq[Option[SidechainTransaction[Proposition, NoncedBox[Proposition]]]] = {
+    val candidatesByShortId: Map[Long, Iterable[SidechainTransaction[Proposition, NoncedBox[Proposition]]]] = candidates
+      .collect { case tx: SidechainTransaction[_, _] => tx.asInstanceOf[SidechainTransaction[Proposition, NoncedBox[Proposition]]] }
+      .groupBy(tx => CompactSidechainBlock.shortTransactionId(id, tx.id))
+
+    val transactions = Array.fill[Option[SidechainTransaction[Proposition, NoncedBox[Proposition]]]](transactionsNumber)(None)
+    prefilledTransactions.foreach { case (index, tx) => transactions(index) = Some(tx) }
+
+    val shortIds = shortTransactionIds.iterator
+    for (index <- transactions.indices if transactions(index).isEmpty) {
+      transactions(index) = candidatesByShortId.get(shortIds.next()).filter(_.size == 1).map(_.head)
+    }
+    transactions.toIndexedSeq
+  }
+
+  // Builds the block with the given transactions, which must be consistent to the header.
+  def toBlock(transactions: Seq[SidechainTransaction[Proposition, NoncedBox[Proposition]]],
+              companion: SidechainTransactionsCompanion): Try[SidechainBlock] = Try {
+    require(transactions.size == transactionsNumber, s"Different number of transactions expected for block $id.")
+    require(SidechainBlock.calculateTransactionsMerkleRootHash(transactions).sameElements(header.sidechainTransactionsMerkleRootHash),
+      s"Transactions are inconsistent to the block $id header.")
+
+    new SidechainBlock(header, transactions, mainchainBlockReferencesData, mainchainHeaders, ommers, companion)
+  }
+}
+
+object CompactSidechainBlock {
+  val SHORT_TRANSACTION_ID_LENGTH: Int = 6
+
+  def shortTransactionId(blockId: ModifierId, transactionId: String): Long = {
+    val hash = Blake2b256(Bytes.concat(idToBytes(blockId), BytesUtils.fromHexString(transactionId)))
+    Longs.fromByteArray(Bytes.concat(new Array[Byte](Longs.BYTES - SHORT_TRANSACTION_ID_LENGTH), hash.take(SHORT_TRANSACTION_ID_LENGTH)))
+  }
+
+  // Transactions selected by `prefill` are sent in full, the rest are referenced by the short ids.
+  def apply(block: SidechainBlock, prefill: SidechainTransaction[Proposition, NoncedBox[Proposition]] => Boolean): CompactSidechainBlock = {
+    val (prefilled, referenced) = block.sidechainTransactions.zipWithIndex.partition { case (tx, _) => prefill(tx) }
+    CompactSidechainBlock(
+      block.header,
+      referenced.map { case (tx, _) => shortTransactionId(block.id, tx.id) },
+      prefilled.map { case (tx, index) => (index, tx) },
+      block.mainchainBlockReferencesData,
+      block.mainchainHeaders,
+      block.ommers
+    )
+  }
+}
+
+class CompactSidechainBlockSerializer(companion: SidechainTransactionsCompanion) extends ScorexSerializer[CompactSidechainBlock] with SidechainTypes {
+  private val mcBlocksDataSerializer: ListSerializer[MainchainBlockReferenceData] = new ListSerializer[MainchainBlockReferenceData](
+    MainchainBlockReferenceDataSerializer,
+    SidechainBlock.MAX_MC_BLOCKS_NUMBER
+  )
+
+  private val sidechainTransactionsSerializer: ListSerializer[SidechainTypes#SCBT] = new ListSerializer[SidechainTypes#SCBT](
+    companion,
+    SidechainBlock.MAX_SIDECHAIN_TXS_NUMBER
+  )
+
+  private val mainchainHeadersSerializer: ListSerializer[MainchainHeader] = new ListSerializer[MainchainHeader](MainchainHeaderSerializer)
+
+  private val ommersSerializer: ListSerializer[Ommer] = new ListSerializer[Ommer](OmmerSerializer)
+
+  override def serialize(obj: CompactSidechainBlock, w: Writer): Unit = {
+    SidechainBlockHeaderSerializer.serialize(obj.header, w)
+    w.putInt(obj.shortTransactionIds.size)
+    obj.shortTransactionIds.foreach(shortId => w.putBytes(Longs.toByteArray(shortId).drop(Longs.BYTES - CompactSidechainBlock.SHORT_TRANSACTION_ID_LENGTH)))
+    w.putInt(obj.prefilledTransactions.size)
+    obj.prefilledTransactions.foreach { case (index, _) => w.putInt(index) }
+    sidechainTransactionsSerializer.serialize(obj.prefilledTransactions.map(_._2).asJava, w)
+    mcBlocksDataSerializer.serialize(obj.mainchainBlockReferencesData.asJava, w)
+    mainchainHeadersSerializer.serialize(obj.mainchainHeaders.asJava, w)
+    ommersSerializer.serialize(obj.ommers.asJava, w)
+  }
+
+  override def parse(r: Reader): CompactSidechainBlock = {
+    require(r.remaining <= SidechainBlock.MAX_BLOCK_SIZE)
+
+    val header = SidechainBlockHeaderSerializer.parse(r)
+
+    val shortIdsNumber = r.getInt()
+    require(shortIdsNumber >= 0 && shortIdsNumber <= SidechainBlock.MAX_SIDECHAIN_TXS_NUMBER, s"Short transaction ids number $shortIdsNumber is out of bounds.")
+    val shortIds = (0 until shortIdsNumber).map(_ =>
+      Longs.fromByteArray(Bytes.concat(new Array[Byte](Longs.BYTES - CompactSidechainBlock.SHORT_TRANSACTION_ID_LENGTH),
+        r.getBytes(CompactSidechainBlock.SHORT_TRANSACTION_ID_LENGTH))))
+
+    val prefilledNumber = r.getInt()
+    val transactionsNumber = shortIdsNumber + prefilledNumber
+    require(prefilledNumber >= 0 && transactionsNumber <= SidechainBlock.MAX_SIDECHAIN_TXS_NUMBER, s"Prefilled transactions number $prefilledNumber is out of bounds.")
+    val prefilledIndexes = (0 until prefilledNumber).map(_ => r.getInt())
+    require(prefilledIndexes.forall(index => index >= 0 && index < transactionsNumber) && prefilledIndexes.distinct.size == prefilledNumber,
+      "Prefilled transactions indexes are invalid.")
+    val prefilledTransactions = sidechainTransactionsSerializer.parse(r)
+      .asScala.map(t => t.asInstanceOf[SidechainTransaction[Proposition, NoncedBox[Proposition]]])
+    require(prefilledTransactions.size == prefilledNumber, "Different number of prefilled transactions expected.")
+
+    val mainchainBlockReferencesData = mcBlocksDataSerializer.parse(r).asScala
+    val mainchainHeaders = mainchainHeadersSerializer.parse(r).asScala
+    val ommers = ommersSerializer.parse(r).asScala
+
+    CompactSidechainBlock(header, shortIds, prefilledIndexes.zip(prefilledTransactions), mainchainBlockReferencesData, mainchainHeaders, ommers)
+  }
+}
@@ -0,0 +1,321 @@
+package com.horizen.block
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.function.{Function => JFunction}
+
+// Allocation-light Equihash solution verifier.
+// Gives the same result as Equihash.checkEquihashSolution, but:
+// 1. Blake2b is computed by the own implementation: the message midstate is calculated once per solution,
+//    and every index hash continues from it using primitive arrays only.
+// 2. Wagner tree is verified in place on a flat byte array of expanded hashes: the rows are XORed pairwise level by level,
+//    instead of allocating a new FullStepRow for every merge.
+// 3. Indices of the merged rows are always kept in solution order, so ordering check is a comparison of the first indices,
+//    and distinct indices check is done once for the whole solution.
+// All the working buffers are allocated once per thread, so the instance can be shared between threads.
+class EquihashVerifier(val N: Int, val K: Int) {
+
+  val IndicesPerHashOutput: Int = 512 / N
+  val HashOutputLength: Int = IndicesPerHashOutput * N / 8
+  val CollisionBitLength: Int = N / (K + 1)
+  val CollisionByteLength: Int = (CollisionBitLength + 7) / 8
+  val HashLength: Int = (K + 1) * CollisionByteLength
+  val SolutionWidth: Int = (1 << K) * (CollisionBitLength + 1) / 8
+  val IndicesNumber: Int = 1 << K
+
+  private val IndexBitLength: Int = CollisionBitLength + 1
+
+  // Blake2b initial state with Horizen Mainchain personalization bytes: "ZcashPoW" + N + K in little endian.
+  private val initialState: Array[Long] = {
+    val state = EquihashVerifier.Blake2bIV.clone()
+    state(0) ^= 0x01010000L ^ HashOutputLength
+    state(6) ^= 0x576f50687361635aL // "ZcashPoW"
+    state(7) ^= (N & 0xFFFFFFFFL) | ((K & 0xFFFFFFFFL) << 32)
+    state
+  }
+
+  private class Workspace {
+    val midState: Array[Long] = new Array[Long](8)
+    val state: Array[Long] = new Array[Long](8)
+    val vector: Array[Long] = new Array[Long](16)
+    val messageBlock: Array[Long] = new Array[Long](16)
+    // Message tail and the index bytes, can exceed one Blake2b block.
+    val lastBlocks: Array[Byte] = new Array[Byte](2 * EquihashVerifier.Blake2bBlockLength)
+    val hashOutput: Array[Byte] = new Array[Byte](HashOutputLength)
+    val rows: Array[Byte] = new Array[Byte](IndicesNumber * HashLength)
+    val indices: Array[Int] = new Array[Int](IndicesNumber)
+    val sortedIndices: Array[Int] = new Array[Int](IndicesNumber)
+  }
+
+  private val workspace: ThreadLocal[Workspace] = new ThreadLocal[Workspace] {
+    override def initialValue(): Workspace = new Workspace
+  }
+
+  def checkEquihashSolution(msgBytes: Array[Byte], solution: Array[Byte]): Boolean = {
+    if(msgBytes == null)
+      throw new IllegalArgumentException("Invalid parameters!")
+    checkEquihashSolution(msgBytes, 0, msgBytes.length, solution)
+  }
+
+  // Checks the solution for the message located in msgBytes from msgOffset with msgLength bytes (usually header bytes without solution)
+  def checkEquihashSolution(msgBytes: Array[Byte], msgOffset: Int, msgLength: Int, solution: Array[Byte]): Boolean = {
+    if(msgBytes == null || solution == null || msgOffset < 0 || msgLength < 0 || msgOffset + msgLength > msgBytes.length)
+      throw new IllegalArgumentException("Invalid parameters!")
+    if (solution.length != SolutionWidth)
+      return false
+
+    val ws = workspace.get()
+
+    readIndices(solution, ws.indices)
+    if (!areIndicesDistinct(ws))
+      return false
+
+    calculateMidState(msgBytes, msgOffset, msgLength, ws)
+    var i: Int = 0
+    while (i < IndicesNumber) {
+      val index = ws.indices(i)
+      calculateHash(index / IndicesPerHashOutput, msgLength, ws)
+      expandHash(ws.hashOutput, (index % IndicesPerHashOutput) * N / 8, ws.rows, i * HashLength)
+      i += 1
+    }
+
+    verifyRows(ws)
+  }
+
+  // Indices are stored in the solution as the sequence of big-endian (CollisionBitLength + 1) bit values.
+  private def readIndices(solution: Array[Byte], indices: Array[Int]): Unit = {
+    val indexMask: Long = (1L << IndexBitLength) - 1
+    var acc: Long = 0
+    var accBits: Int = 0
+    var pos: Int = 0
+    var i: Int = 0
+    while (i < IndicesNumber) {
+      while (accBits < IndexBitLength) {
+        acc = (acc << 8) | (solution(pos) & 0xFF)
+        accBits += 8
+        pos += 1
+      }
+      accBits -= IndexBitLength
+      indices(i) = ((acc >>> accBits) & indexMask).toInt
+      i += 1
+    }
+  }
+
+  private def areIndicesDistinct(ws: Workspace): Boolean = {
+    System.arraycopy(ws.indices, 0, ws.sortedIndices, 0, IndicesNumber)
+    java.util.Arrays.sort(ws.sortedIndices)
+    var i: Int = 1
+    while (i < IndicesNumber) {
+      if (ws.sortedIndices(i) == ws.sortedIndices(i - 1))
+        return false
+      i += 1
+    }
+    true
+  }
+
+  // Compresses all the full message blocks, the rest of the message is kept to be finalized together with the index bytes.
+  // Note: full blocks are never the last ones, because the index bytes are always appended.
+  private def calculateMidState(msgBytes: Array[Byte], msgOffset: Int, msgLength: Int, ws: Workspace): Unit = {
+    System.arraycopy(initialState, 0, ws.midState, 0, 8)
+    val fullBlocksLength = msgLength / EquihashVerifier.Blake2bBlockLength * EquihashVerifier.Blake2bBlockLength
+    var blockOffset: Int = 0
+    while (blockOffset < fullBlocksLength) {
+      EquihashVerifier.compress(ws.midState, ws.vector, ws.messageBlock, msgBytes, msgOffset + blockOffset,
+        blockOffset + EquihashVerifier.Blake2bBlockLength, isLastBlock = false)
+      blockOffset += EquihashVerifier.Blake2bBlockLength
+    }
+    java.util.Arrays.fill(ws.lastBlocks, 0.toByte)
+    System.arraycopy(msgBytes, msgOffset + fullBlocksLength, ws.lastBlocks, 0, msgLength - fullBlocksLength)
+  }
+
+  // Blake2b(message || LE(hashIndex)) starting from the message midstate.
+  private def calculateHash(hashIndex: Int, msgLength: Int, ws: Workspace): Unit = {
+    val blockLength = EquihashVerifier.Blake2bBlockLength
+    val tailLength = msgLength % blockLength
+    val fullBlocksLength = msgLength - tailLength
+    ws.lastBlocks(tailLength) = hashIndex.toByte
+    ws.lastBlocks(tailLength + 1) = (hashIndex >> 8).toByte
+    ws.lastBlocks(tailLength + 2) = (hashIndex >> 16).toByte
+    ws.lastBlocks(tailLength + 3) = (hashIndex >> 24).toByte
+
+    System.arraycopy(ws.midState, 0, ws.state, 0, 8)
+    if (tailLength + 4 > blockLength) {
+      EquihashVerifier.compress(ws.state, ws.vector, ws.messageBlock, ws.lastBlocks, 0, fullBlocksLength + blockLength, isLastBlock = false)
+      EquihashVerifier.compress(ws.state, ws.vector, ws.messageBlock, ws.lastBlocks, blockLength, msgLength + 4L, isLastBlock = true)
+    } else {
+      EquihashVerifier.compress(ws.state, ws.vector, ws.messageBlock, ws.lastBlocks, 0, msgLength + 4L, isLastBlock = true)
+    }
+
+    var i: Int = 0
+    while (i < HashOutputLength) {
+      ws.hashOutput(i) = (ws.state(i >> 3) >>> (8 * (i & 7))).toByte
+      i += 1
+    }
+  }
+
+  // Splits N / 8 bytes of the hash into (K + 1) big-endian CollisionBitLength bit values, each one stored in CollisionByteLength bytes.
+  private def expandHash(hash: Array[Byte], hashOffset: Int, rows: Array[Byte], rowOffset: Int): Unit = {
+    val collisionMask: Long = (1L << CollisionBitLength) - 1
+    var acc: Long = 0
+    var accBits: Int = 0
+    var pos: Int = hashOffset
+    var out: Int = rowOffset
+    var chunk: Int = 0
+    while (chunk <= K) {
+      while (accBits < CollisionBitLength) {
+        acc = (acc << 8) | (hash(pos) & 0xFF)
+        accBits += 8
+        pos += 1
+      }
+      accBits -= CollisionBitLength
+      val value: Int = ((acc >>> accBits) & collisionMask).toInt
+      var x: Int = 0
+      while (x < CollisionByteLength) {
+        rows(out) = (value >>> (8 * (CollisionByteLength - x - 1))).toByte
+        out += 1
+        x += 1
+      }
+      chunk += 1
+    }
+  }
+
+  // On level l the row of each subtree is the XOR of its leaves, so the subtrees collide if their l-th collision chunks are equal.
+  // The merged row is stored in place of the left subtree one.
+  private def verifyRows(ws: Workspace): Boolean = {
+    val rows = ws.rows
+    var level: Int = 0
+    while (level < K) {
+      val step = 1 << level
+      val collisionStart = level * CollisionByteLength
+      val collisionEnd = collisionStart + CollisionByteLength
+      var i: Int = 0
+      while (i < IndicesNumber) {
+        val left = i * HashLength
+        val right = (i + step) * HashLength
+
+        var x: Int = collisionStart
+        while (x < collisionEnd) {
+          if (rows(left + x) != rows(right + x))
+            return false
+          x += 1
+        }
+
+        // Left subtree indices must go before the right subtree ones.
+        if (ws.indices(i) >= ws.indices(i + step))
+          return false
+
+        x = collisionEnd
+        while (x < HashLength) {
+          rows(left + x) = (rows(left + x) ^ rows(right + x)).toByte
+          x += 1
+        }
+        i += 2 * step
+      }
+      level += 1
+    }
+
+    var x: Int = K * CollisionByteLength
+    while (x < HashLength) {
+      if (rows(x) != 0)
+        return false
+      x += 1
+    }
+    true
+  }
+}
+
+
+object EquihashVerifier {
+  private val verifiers = new ConcurrentHashMap[(Int, Int), EquihashVerifier]()
+
+  // Verifiers are stateless except the per thread buffers, so one instance per (N, K) is enough.
+  def apply(N: Int, K: Int): EquihashVerifier = {
+    verifiers.computeIfAbsent((N, K), new JFunction[(Int, Int), EquihashVerifier] {
+      override def apply(params: (Int, Int)): EquihashVerifier = new EquihashVerifier(params._1, params._2)
+    })
+  }
+
+  // Checks the solutions of the independent messages in parallel. Result is in the same order as the input.
+  def checkEquihashSolutions(N: Int, K: Int, msgsAndSolutions: Seq[(Array[Byte], Array[Byte])]): Seq[Boolean] = {
+    val verifier = EquihashVerifier(N, K)
+    msgsAndSolutions.par.map {
+      case (msgBytes, solution) => verifier.checkEquihashSolution(msgBytes, solution)
+    }.seq
+  }
+
+  private val Blake2bBlockLength: Int = 128
+
+  private val Blake2bIV: Array[Long] = Array(
+    0x6a09e667f3bcc908L, 0xbb67ae8584caa73bL, 0x3c6ef372fe94f82bL, 0xa54ff53a5f1d36f1L,
+    0x510e527fade682d1L, 0x9b05688c2b3e6c1fL, 0x1f83d9abfb41bd6bL, 0x5be0cd19137e2179L)
+
+  private val Blake2bSigma: Array[Array[Int]] = Array(
+    Array(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15),
+    Array(14, 10, 4, 8, 9, 15, 13, 6, 1, 12, 0, 2, 11, 7, 5, 3),
+    Array(11, 8, 12, 0, 5, 2, 15, 13, 10, 14, 3, 6, 7, 1, 9, 4),
+    Array(7, 9, 3, 1, 13, 12, 11, 14, 2, 6, 5, 10, 4, 0, 15, 8),
+    Array(9, 0, 5, 7, 2, 4, 10, 15, 14, 1, 11, 12, 6, 8, 3, 13),
+    Array(2, 12, 6, 10, 0, 11, 8, 3, 4, 13, 7, 5, 15, 14, 1, 9),
+    Array(12, 5, 1, 15, 14, 13, 4, 10, 0, 7, 6, 3, 9, 2, 8, 11),
+    Array(13, 11, 7, 14, 12, 1, 3, 9, 5, 0, 15, 4, 8, 6, 2, 10),
+    Array(6, 15, 14, 9, 11, 3, 0, 8, 12, 2, 13, 7, 1, 4, 10, 5),
+    Array(10, 2, 8, 4, 7, 6, 1, 5, 15, 11, 9, 14, 3, 12, 13, 0))
+
+  // Blake2b compression function (RFC 7693), processedBytes - message bytes number including the current block.
+  private def compress(state: Array[Long], v: Array[Long], m: Array[Long], block: Array[Byte], blockOffset: Int,
+                       processedBytes: Long, isLastBlock: Boolean): Unit = {
+    var i: Int = 0
+    while (i < 16) {
+      m(i) = readLongLE(block, blockOffset + 8 * i)
+      i += 1
+    }
+    System.arraycopy(state, 0, v, 0, 8)
+    System.arraycopy(Blake2bIV, 0, v, 8, 8)
+    v(12) ^= processedBytes
+    if (isLastBlock)
+      v(14) = ~v(14)
+
+    var round: Int = 0
+    while (round < 12) {
+      val s = Blake2bSigma(round % 10)
+      mix(v, m, 0, 4, 8, 12, s(0), s(1))
+      mix(v, m, 1, 5, 9, 13, s(2), s(3))
+      mix(v, m, 2, 6, 10, 14, s(4), s(5))
+      mix(v, m, 3, 7, 11, 15, s(6), s(7))
+      mix(v, m, 0, 5, 10, 15, s(8), s(9))
+      mix(v, m, 1, 6, 11, 12, s(10), s(11))
+      mix(v, m, 2, 7, 8, 13, s(12), s(13))
+      mix(v, m, 3, 4, 9, 14, s(14), s(15))
+      round += 1
+    }
+
+    i = 0
+    while (i < 8) {
+      state(i) ^= v(i) ^ v(i + 8)
+      i += 1
+    }
+  }
+
+  @inline
+  private def mix(v: Array[Long], m: Array[Long], a: Int, b: Int, c: Int, d: Int, x: Int, y: Int): Unit = {
+    v(a) = v(a) + v(b) + m(x)
+    v(d) = java.lang.Long.rotateRight(v(d) ^ v(a), 32)
+    v(c) = v(c) + v(d)
+    v(b) = java.lang.Long.rotateRight(v(b) ^ v(c), 24)
+    v(a) = v(a) + v(b) + m(y)
+    v(d) = java.lang.Long.rotateRight(v(d) ^ v(a), 16)
+    v(c) = v(c) + v(d)
+    v(b) = java.lang.Long.rotateRight(v(b) ^ v(c), 63)
+  }
+
+  @inline
+  private def readLongLE(bytes: Array[Byte], offset: Int): Long = {
+    (bytes(offset) & 0xFFL) |
+      ((bytes(offset + 1) & 0xFFL) << 8) |
+      ((bytes(offset + 2) & 0xFFL) << 16) |
+      ((bytes(offset + 3) & 0xFFL) << 24) |
+      ((bytes(offset + 4) & 0xFFL) << 32) |
+      ((bytes(offset + 5) & 0xFFL) << 40) |
+      ((bytes(offset + 6) & 0xFFL) << 48) |
+      ((bytes(offset + 7) & 0xFFL) << 56)
+  }
+}
@@ -2,6 +2,7 @@ package com.horizen.block
 
 import java.util
 import java.util.Arrays
+import java.nio.ByteBuffer
 
 import com.fasterxml.jackson.annotation.{JsonIgnoreProperties, JsonView}
 import com.horizen.box.Box
@@ -18,6 +19,7 @@ import com.horizen.validation.{InconsistentMainchainBlockReferenceDataException,
 import scorex.util.ScorexLogging
 
 import scala.collection.JavaConverters._
+import scala.collection.mutable.ArrayBuffer
 import scala.util.{Failure, Success, Try}
 
 
@@ -150,11 +152,28 @@ object MainchainBlockReference extends ScorexLogging {
   val MAX_MAINCHAIN_BLOCK_SIZE: Int = 2048 * 1024 //2048K
   val SC_CERT_BLOCK_VERSION = 3
 
+  def create(mainchainBlockBuffer: ByteBuffer, params: NetworkParams): Try[MainchainBlockReference] = {
+    // Parse backing array in place if present, copy bytes otherwise.
+    if (mainchainBlockBuffer.hasArray) {
+      create(mainchainBlockBuffer.array(), mainchainBlockBuffer.arrayOffset() + mainchainBlockBuffer.position(), mainchainBlockBuffer.remaining(), params)
+    } else {
+      val mainchainBlockBytes = new Array[Byte](mainchainBlockBuffer.remaining())
+      mainchainBlockBuffer.duplicate().get(mainchainBlockBytes)
+      create(mainchainBlockBytes, params)
+    }
+  }
+
   def create(mainchainBlockBytes: Array[Byte], params: NetworkParams): Try[MainchainBlockReference] = {
-    require(mainchainBlockBytes.length < MAX_MAINCHAIN_BLOCK_SIZE)
+    create(mainchainBlockBytes, 0, mainchainBlockBytes.length, params)
+  }
+
+  // Create reference from the block, that occupies `length` bytes of the array starting from `offset`.
+  private def create(mainchainBlockBytes: Array[Byte], offset: Int, length: Int, params: NetworkParams): Try[MainchainBlockReference] = {
+    require(length < MAX_MAINCHAIN_BLOCK_SIZE)
+    require(offset >= 0 && offset + length <= mainchainBlockBytes.length)
     require(params.sidechainId.length == 32)
 
-    val tryBlock: Try[MainchainBlockReference] = parseMainchainBlockBytes(mainchainBlockBytes) match {
+    val tryBlock: Try[MainchainBlockReference] = parseMainchainBlockBytes(mainchainBlockBytes, offset, offset + length) match {
       case Success((header, mainchainTxs, certificates)) =>
         // Calculate ScTxsCommitment
         var scIds: Set[ByteArrayWrapper] = Set[ByteArrayWrapper]()
@@ -220,10 +239,12 @@ object MainchainBlockReference extends ScorexLogging {
     })
   }
 
-  // Try to parse Mainchain block and return MainchainHeader, SCMap and MainchainTransactions sequence.
-  private def parseMainchainBlockBytes(mainchainBlockBytes: Array[Byte]):
+  // Try to parse Mainchain block located in [blockOffset, blockEnd) range of the array
+  // and return MainchainHeader, sidechain related MainchainTransactions and certificates sequences.
+  // Transactions that can't contain crosschain outputs are skipped without being materialized.
+  private def parseMainchainBlockBytes(mainchainBlockBytes: Array[Byte], blockOffset: Int, blockEnd: Int):
     Try[(MainchainHeader, Seq[MainchainTransaction], Seq[WithdrawalEpochCertificate])] = Try {
-    var offset: Int = 0
+    var offset: Int = blockOffset
 
     MainchainHeader.create(mainchainBlockBytes, offset) match {
       case Success(header) =>
@@ -232,13 +253,19 @@ object MainchainBlockReference extends ScorexLogging {
         val transactionsCount: VarInt = BytesUtils.getReversedVarInt(mainchainBlockBytes, offset)
         offset += transactionsCount.size()
 
-        // parse transactions
-        var transactions: Seq[MainchainTransaction] = Seq[MainchainTransaction]()
+        // parse sidechain related transactions, skip the others
+        val transactions: ArrayBuffer[MainchainTransaction] = ArrayBuffer[MainchainTransaction]()
 
-        while (transactions.size < transactionsCount.value()) {
-          val tx: MainchainTransaction = MainchainTransaction.create(mainchainBlockBytes, offset).get
-          transactions = transactions :+ tx
-          offset += tx.size
+        var transactionIndex: Long = 0
+        while (transactionIndex < transactionsCount.value()) {
+          if (MainchainTransaction.isSidechainRelated(mainchainBlockBytes, offset)) {
+            val tx: MainchainTransaction = MainchainTransaction.create(mainchainBlockBytes, offset).get
+            transactions += tx
+            offset += tx.size
+          } else {
+            offset = MainchainTransaction.skip(mainchainBlockBytes, offset)
+          }
+          transactionIndex += 1
         }
 
         var certificates: Seq[WithdrawalEpochCertificate] = Seq[WithdrawalEpochCertificate]()
@@ -249,15 +276,17 @@ object MainchainBlockReference extends ScorexLogging {
             offset += certificatesCount.size()
 
             while (certificates.size < certificatesCount.value()) {
-              log.debug(s"Parse Mainchain certificate: ${BytesUtils.toHexString(util.Arrays.copyOfRange(mainchainBlockBytes, offset, mainchainBlockBytes.length))}")
+              log.debug(s"Parse Mainchain certificate: ${BytesUtils.toHexString(util.Arrays.copyOfRange(mainchainBlockBytes, offset, blockEnd))}")
               val c: WithdrawalEpochCertificate = WithdrawalEpochCertificate.parse(mainchainBlockBytes, offset)
               certificates = certificates :+ c
               offset += c.size
             }
         }
 
-        if(offset < mainchainBlockBytes.length)
-          throw new IllegalArgumentException("Input data corrupted. There are unprocessed %d bytes.".format(mainchainBlockBytes.length - offset))
+        if(offset < blockEnd)
+          throw new IllegalArgumentException("Input data corrupted. There are unprocessed %d bytes.".format(blockEnd - offset))
+        if(offset > blockEnd)
+          throw new IllegalArgumentException("Input data corrupted. Block data is out of bounds.")
 
         (header, transactions, certificates)
 
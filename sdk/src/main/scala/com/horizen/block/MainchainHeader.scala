@@ -58,11 +58,7 @@ class MainchainHeader(
     if (!ProofOfWorkVerifier.checkProofOfWork(this, params))
       throw new InvalidMainchainHeaderException(s"MainchainHeader $hashHex PoW is invalid.")
 
-    // check equihash for header bytes without solution part
-    if (!new Equihash(params.EquihashN, params.EquihashK).checkEquihashSolution(
-      mainchainHeaderBytes.slice(0, mainchainHeaderBytes.length - params.EquihashVarIntLength - params.EquihashSolutionLength),
-      solution)
-    )
+    if (!isEquihashSolutionValid(params))
       throw new InvalidMainchainHeaderException(s"MainchainHeader $hashHex Equihash solution is invalid.")
 
     // Check if timestamp is not too far in the future
@@ -70,6 +66,20 @@ class MainchainHeader(
       throw new MainchainHeaderTimestampInFutureException(s"MainchainHeader $hashHex time $time is too far in future.")
   }
 
+  // Equihash verification is the most expensive part of the header validation, so its result is kept.
+  // Note: Equihash (N, K) params are the same for all the headers of the network.
+  @volatile private var equihashSolutionValidity: Option[Boolean] = None
+
+  // check equihash for header bytes without solution part
+  private[block] def isEquihashSolutionValid(params: NetworkParams): Boolean = {
+    equihashSolutionValidity.getOrElse {
+      val isValid = EquihashVerifier(params.EquihashN, params.EquihashK).checkEquihashSolution(
+        mainchainHeaderBytes, 0, mainchainHeaderBytes.length - params.EquihashVarIntLength - params.EquihashSolutionLength, solution)
+      equihashSolutionValidity = Some(isValid)
+      isValid
+    }
+  }
+
   def isParentOf(header: MainchainHeader): Boolean = header.hashPrevBlock.sameElements(hash)
 
   override def hashCode(): Int = java.util.Arrays.hashCode(mainchainHeaderBytes)
@@ -89,6 +99,15 @@ class MainchainHeader(
 object MainchainHeader {
   val HEADER_MIN_SIZE: Int = 140 // HEADER_SIZE = 140 + equihash size
 
+  // Verifies Equihash solutions of the headers in parallel, so the following semanticValidity checks take the ready results.
+  // Headers with corrupted data are skipped: semanticValidity will report them.
+  def verifyEquihashSolutions(headers: Seq[MainchainHeader], params: NetworkParams): Unit = {
+    headers.par.foreach(header => {
+      if (header.solution != null && header.solution.length == params.EquihashSolutionLength)
+        Try(header.isEquihashSolutionValid(params))
+    })
+  }
+
   def create(headerBytes: Array[Byte], offset: Int): Try[MainchainHeader] = Try {
     if(offset < 0 || headerBytes.length - offset < HEADER_MIN_SIZE)
       throw new IllegalArgumentException("Input data corrupted.")
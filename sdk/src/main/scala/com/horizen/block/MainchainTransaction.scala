@@ -44,21 +44,8 @@ object MainchainTransaction {
     val version = BytesUtils.getReversedInt(transactionBytes, currentOffset)
     currentOffset += 4
 
-    // parse inputs
-    val inputsNumber: VarInt = BytesUtils.getReversedVarInt(transactionBytes, currentOffset)
-    currentOffset += inputsNumber.size()
-
-    for (_ <- 1 to inputsNumber.value().intValue()) {
-      currentOffset += MainchainTransactionInput.parse(transactionBytes, currentOffset).size
-    }
-
-    // parse outputs
-    val outputsNumber: VarInt = BytesUtils.getReversedVarInt(transactionBytes, currentOffset)
-    currentOffset += outputsNumber.size()
-
-    for (_ <- 1 to outputsNumber.value().intValue()) {
-      currentOffset += MainchainTransactionOutput.parse(transactionBytes, currentOffset).size
-    }
+    // inputs and outputs are not important for us, so skip them without parsing
+    currentOffset = skipInputsAndOutputs(transactionBytes, currentOffset)
 
     val sidechainCreationOutputsData = ListBuffer[MainchainTxSidechainCreationCrosschainOutputData]()
     val forwardTransferOutputs  = ListBuffer[MainchainTxForwardTransferCrosschainOutput]()
@@ -93,33 +80,98 @@ object MainchainTransaction {
     if (version >= PHGR_TX_VERSION || version == GROTH_TX_VERSION) {
       val joinSplitsNumber: VarInt = BytesUtils.getVarInt(transactionBytes, currentOffset)
       currentOffset += joinSplitsNumber.size()
-      if(joinSplitsNumber.value().intValue() != 0) {
-        var joinSplitsOffset: Int = 8 + // int64_t vpub_old
-          8 + // int64_t vpub_new
-          32 + // uint256 anchor
-          32 * 2 + // std::array<uint256, ZC_NUM_JS_INPUTS> nullifiers, where ZC_NUM_JS_INPUTS = 2
-          32 * 2 + // std::array<uint256, ZC_NUM_JS_OUTPUTS> commitments, where ZC_NUM_JS_OUTPUTS = 2
-          32 + // uint256 ephemeralKey
-          32 + // uint256 randomSeed
-          32 * 2 // std::array<uint256, ZC_NUM_JS_INPUTS> macs
+      currentOffset += getJoinSplitsSize(version, joinSplitsNumber.value().intValue())
+    }
 
-        if (version >= PHGR_TX_VERSION) // parse PHGRProof
-          joinSplitsOffset += 33 * 7 + 65 // PHGRProof consists of 7 CompressedG1  (33 bytes each) + 1 CompressedG2 (65 bytes)
-        else // version == GROTH_TX_VERSION -> parse GrothProof
-          joinSplitsOffset += 192 // typedef std::array<unsigned char, GROTH_PROOF_SIZE> GrothProof, where GROTH_PROOF_SIZE = 48 + 96 + 48
+    val thisMainchainTransactionBytes = transactionBytes.slice(offset, currentOffset)
+    new MainchainTransaction(thisMainchainTransactionBytes, version, sidechainCreationOutputsData, forwardTransferOutputs)
+  }
 
-        joinSplitsOffset += 601 * 2 // std::array<ZCNoteEncryption::Ciphertext, ZC_NUM_JS_OUTPUTS>, where typedef std::array<unsigned char, CLEN> Ciphertext and CLEN = 1 + 8 + 32 + 32 + 512 + 16
+  // Only transactions of SC_TX_VERSION may contain crosschain outputs.
+  def isSidechainRelated(transactionBytes: Array[Byte], offset: Int): Boolean = {
+    BytesUtils.getReversedInt(transactionBytes, offset) == SC_TX_VERSION
+  }
 
-        joinSplitsOffset *= joinSplitsNumber.value().intValue()
+  // Get the offset right after the transaction, that starts at given offset, moving the cursor field by field.
+  // Is used to skip transactions not related to sidechains: no copies of the inputs, outputs and joinsplits are made.
+  def skip(transactionBytes: Array[Byte], offset: Int): Int = {
+    var currentOffset: Int = offset
 
-        joinSplitsOffset += 32 + 64 // uint256 joinSplitPubKey;  +  typedef boost::array<unsigned char, 64> joinsplit_sig_t
+    val version = BytesUtils.getReversedInt(transactionBytes, currentOffset)
+    currentOffset += 4
+    if (version == SC_TX_VERSION)
+      throw new IllegalArgumentException("Transaction with crosschain outputs can't be skipped.")
 
+    currentOffset = skipInputsAndOutputs(transactionBytes, currentOffset)
 
-        currentOffset += joinSplitsOffset
-      }
+    // skip lockTime
+    currentOffset += 4
+
+    if (version >= PHGR_TX_VERSION || version == GROTH_TX_VERSION) {
+      val joinSplitsNumber: VarInt = BytesUtils.getReversedVarInt(transactionBytes, currentOffset)
+      currentOffset += joinSplitsNumber.size()
+      currentOffset += getJoinSplitsSize(version, joinSplitsNumber.value().toInt)
     }
 
-    val thisMainchainTransactionBytes = transactionBytes.slice(offset, currentOffset)
-    new MainchainTransaction(thisMainchainTransactionBytes, version, sidechainCreationOutputsData, forwardTransferOutputs)
+    if (currentOffset > transactionBytes.length)
+      throw new IllegalArgumentException("Input data corrupted. Transaction is out of bounds.")
+
+    currentOffset
+  }
+
+  private def skipInputsAndOutputs(transactionBytes: Array[Byte], offset: Int): Int = {
+    var currentOffset: Int = offset
+
+    // skip inputs: prev tx hash, prev tx output index, script, sequence
+    val inputsNumber: VarInt = BytesUtils.getReversedVarInt(transactionBytes, currentOffset)
+    currentOffset += inputsNumber.size()
+    var input: Long = 0
+    while (input < inputsNumber.value()) {
+      currentOffset += 32 + 4
+      val scriptLength: VarInt = BytesUtils.getReversedVarInt(transactionBytes, currentOffset)
+      currentOffset += scriptLength.size() + scriptLength.value().toInt + 4
+      input += 1
+    }
+
+    // skip outputs: value, script
+    val outputsNumber: VarInt = BytesUtils.getReversedVarInt(transactionBytes, currentOffset)
+    currentOffset += outputsNumber.size()
+    var output: Long = 0
+    while (output < outputsNumber.value()) {
+      currentOffset += 8
+      val scriptLength: VarInt = BytesUtils.getReversedVarInt(transactionBytes, currentOffset)
+      currentOffset += scriptLength.size() + scriptLength.value().toInt
+      output += 1
+    }
+
+    currentOffset
+  }
+
+  private def getJoinSplitsSize(version: Int, joinSplitsNumber: Int): Int = {
+    if(joinSplitsNumber == 0)
+      0
+    else {
+      var joinSplitsOffset: Int = 8 + // int64_t vpub_old
+        8 + // int64_t vpub_new
+        32 + // uint256 anchor
+        32 * 2 + // std::array<uint256, ZC_NUM_JS_INPUTS> nullifiers, where ZC_NUM_JS_INPUTS = 2
+        32 * 2 + // std::array<uint256, ZC_NUM_JS_OUTPUTS> commitments, where ZC_NUM_JS_OUTPUTS = 2
+        32 + // uint256 ephemeralKey
+        32 + // uint256 randomSeed
+        32 * 2 // std::array<uint256, ZC_NUM_JS_INPUTS> macs
+
+      if (version >= PHGR_TX_VERSION) // parse PHGRProof
+        joinSplitsOffset += 33 * 7 + 65 // PHGRProof consists of 7 CompressedG1  (33 bytes each) + 1 CompressedG2 (65 bytes)
+      else // version == GROTH_TX_VERSION -> parse GrothProof
+        joinSplitsOffset += 192 // typedef std::array<unsigned char, GROTH_PROOF_SIZE> GrothProof, where GROTH_PROOF_SIZE = 48 + 96 + 48
+
+      joinSplitsOffset += 601 * 2 // std::array<ZCNoteEncryption::Ciphertext, ZC_NUM_JS_OUTPUTS>, where typedef std::array<unsigned char, CLEN> Ciphertext and CLEN = 1 + 8 + 32 + 32 + 512 + 16
+
+      joinSplitsOffset *= joinSplitsNumber
+
+      joinSplitsOffset += 32 + 64 // uint256 joinSplitPubKey;  +  typedef boost::array<unsigned char, 64> joinsplit_sig_t
+
+      joinSplitsOffset
+    }
   }
 }
\ No newline at end of file
@@ -16,6 +16,9 @@ trait OmmersContainer {
 
   def score: Long = 1L + ommers.map(_.score).sum
 
+  // MainchainHeaders of the container and of all its Ommers tree.
+  private[block] def allMainchainHeaders: Seq[MainchainHeader] = mainchainHeaders ++ ommers.flatMap(_.allMainchainHeaders)
+
   protected def verifyOmmersSeqData(params: NetworkParams): Try[Unit] = Try {
     // Verify ommers score consistency to SidechainBlockHeader
     if (ommers.map(_.score).sum != header.ommersCumulativeScore)
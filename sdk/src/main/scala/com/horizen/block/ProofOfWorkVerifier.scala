@@ -34,8 +34,43 @@ object ProofOfWorkVerifier {
     if(block.mainchainHeaders.isEmpty)
       return true
 
+    val timeBitsDataSize = params.nPowAveragingWindow + params.nMedianTimeSpan
+
     // Collect information of time and bits for last "params.nPowAveragingWindow + params.nMedianTimeSpan" MainchainBlockReferences
     // already presented in a current chain of SidechainBlocks.
+    // If the parent block is a part of the active chain, take the data from the active chain MainchainHeaders PoW data without blocks reading.
+    val timeBitsData: List[Tuple2[Int, Int]] = sidechainHistoryStorage.getMainchainHeadersPoWDataTill(block.parentId, timeBitsDataSize) match {
+      case Some((lastMainchainHeaderHash, activeChainTimeBitsData)) =>
+        if(!lastMainchainHeaderHash.data.sameElements(block.mainchainHeaders.head.hashPrevBlock))
+          return false
+        // The rest of (time, bits) pairs are from genesis pow data.
+        (params.genesisPoWData.takeRight(timeBitsDataSize - activeChainTimeBitsData.size) ++ activeChainTimeBitsData).toList
+      case None =>
+        collectTimeBitsData(block, sidechainHistoryStorage, params) match {
+          case Some(data) => data
+          case None => return false
+        }
+    }
+
+    // check that we have enough data for next pow verification
+    if(timeBitsData.size != timeBitsDataSize)
+      return false
+
+    // calculate totalBits for last params.nPowAveragingWindow blocks
+    var bitsTotal: BigInteger = BigInteger.ZERO
+    for(i <- timeBitsData.size - params.nPowAveragingWindow until timeBitsData.size) {
+      bitsTotal = bitsTotal.add(Utils.decodeCompactBits(UnsignedInts.toLong(timeBitsData(i)._2)))
+    }
+
+    // verify next work for each MainchainHeader in the requested block
+    if(!checkOmmersContainerNextWorkRequired(block, timeBitsData, bitsTotal, params).isValid)
+      return false
+
+    true
+  }
+
+  // Walk through the SidechainBlocks chain backwards and collect (time, bits) data of the MainchainHeaders.
+  private def collectTimeBitsData(block: SidechainBlock, sidechainHistoryStorage: SidechainHistoryStorage, params: NetworkParams): Option[List[Tuple2[Int, Int]]] = {
     var timeBitsData = List[Tuple2[Int, Int]]()
     // Take firt MC Ref header if exists, else get first nextMCHeader
     var currentHeader = block.mainchainHeaders.head
@@ -55,14 +90,14 @@ object ProofOfWorkVerifier {
         // get previous block
         currentBlock = sidechainHistoryStorage.blockById(currentBlock.parentId) match {
           case b: Some[SidechainBlock] => b.get
-          case _ => return false
+          case _ => return None
         }
 
         // check for mainchain headers and their order, and collect data from them.
         if(currentBlock.mainchainHeaders.nonEmpty) {
           for(header <- currentBlock.mainchainHeaders.reverse) {
             if(!header.hash.sameElements(currentHeader.hashPrevBlock))
-              return false
+              return None
             timeBitsData = Tuple2[Int, Int](header.time, header.bits) :: timeBitsData
             currentHeader = header
             if(timeBitsData.size == params.nPowAveragingWindow + params.nMedianTimeSpan)
@@ -71,22 +106,7 @@ object ProofOfWorkVerifier {
         }
       }
     }
-
-    // check that we have enough data for next pow verification
-    if(timeBitsData.size != params.nPowAveragingWindow + params.nMedianTimeSpan)
-      return false
-
-    // calculate totalBits for last params.nPowAveragingWindow blocks
-    var bitsTotal: BigInteger = BigInteger.ZERO
-    for(i <- timeBitsData.size - params.nPowAveragingWindow until timeBitsData.size) {
-      bitsTotal = bitsTotal.add(Utils.decodeCompactBits(UnsignedInts.toLong(timeBitsData(i)._2)))
-    }
-
-    // verify next work for each MainchainHeader in the requested block
-    if(!checkOmmersContainerNextWorkRequired(block, timeBitsData, bitsTotal, params).isValid)
-      return false
-
-    true
+    Some(timeBitsData)
   }
 
   private def checkOmmersContainerNextWorkRequired(ommersContainer: OmmersContainer,
@@ -175,6 +175,9 @@ class SidechainBlock(override val header: SidechainBlockHeader,
         throw new InvalidSidechainBlockDataException(s"SidechainBlock $id MainchainHeader ${mainchainHeaders(i).hashHex} is not a parent of MainchainHeader ${mainchainHeaders(i+1)}.")
     }
 
+    // Verify Equihash solutions of the block and Ommers MainchainHeaders in advance, all together.
+    MainchainHeader.verifyEquihashSolutions(allMainchainHeaders, params)
+
     // Check that MainchainHeaders are valid.
     for(mainchainHeader <- mainchainHeaders) {
       mainchainHeader.semanticValidity(params) match {
@@ -5,7 +5,7 @@ import scorex.util.ModifierId
 import scala.collection.mutable.ArrayBuffer
 
 
-final class ActiveChain private(sidechainCache: ElementsChain[ModifierId, SidechainBlockInfo],
+final class ActiveChain private(private val sidechainCache: SidechainBlocksChain,
                                 mainchainHeadersCache: ElementsChain[MainchainHeaderHash, MainchainHeaderMetadata],
                                 mainchainReferenceDataCache: ElementsChain[MainchainHeaderHash, MainchainHeaderMetadata],
                                 mainchainCreationBlockHeight: Int = 1) {
@@ -13,12 +13,15 @@ final class ActiveChain private(sidechainCache: ElementsChain[ModifierId, Sidech
   require(mainchainCreationBlockHeight > 0, "Mainchain creation block height height shall be at least 1")
   private val mainchainCreationBlockHeightDifference = mainchainCreationBlockHeight - 1
 
+  // PoW data of the MainchainHeaders, kept in sync with mainchainHeadersCache heights.
+  private val mainchainHeadersPoWData: MainchainHeadersPoWData = new MainchainHeadersPoWData()
+
   // Sidechain data retrieval
   def height: Int = sidechainCache.height
 
   def bestId: Option[ModifierId] = sidechainCache.bestId
 
-  def bestScBlockInfo: Option[SidechainBlockInfo] = sidechainCache.bestData
+  def bestScBlockInfo: Option[SidechainBlockInfo] = sidechainCache.bestBlockInfo
 
   def heightById(id: ModifierId): Option[Int] = sidechainCache.heightById(id)
 
@@ -26,9 +29,15 @@ final class ActiveChain private(sidechainCache: ElementsChain[ModifierId, Sidech
 
   def chainAfter(id: ModifierId): Seq[ModifierId] = sidechainCache.chainAfter(id)
 
-  def blockInfoById(id: ModifierId): Option[SidechainBlockInfo] = sidechainCache.heightById(id).flatMap(sidechainCache.dataByHeight)
+  def idsFromHeight(fromHeight: Int, limit: Int): Seq[ModifierId] = sidechainCache.idsFromHeight(fromHeight, limit)
+
+  def blockInfoById(id: ModifierId): Option[SidechainBlockInfo] = sidechainCache.heightById(id).flatMap(sidechainCache.blockInfoByHeight)
+
+  def blockInfoByHeight(blockHeight: Int): Option[SidechainBlockInfo] = sidechainCache.blockInfoByHeight(blockHeight)
 
-  def blockInfoByHeight(blockHeight: Int): Option[SidechainBlockInfo] = sidechainCache.dataByHeight(blockHeight)
+  def scoreById(id: ModifierId): Option[Long] = sidechainCache.heightById(id).flatMap(sidechainCache.scoreByHeight)
+
+  def timestampById(id: ModifierId): Option[Long] = sidechainCache.heightById(id).flatMap(sidechainCache.timestampByHeight)
 
   def idByHeight(blockHeight: Int): Option[ModifierId] = sidechainCache.idByHeight(blockHeight)
 
@@ -50,6 +59,50 @@ final class ActiveChain private(sidechainCache: ElementsChain[ModifierId, Sidech
 
   def bestMainchainHeaderHash: Option[MainchainHeaderHash] = mainchainHeadersCache.bestId
 
+  // Parent of the mainchain creation block.
+  def mainchainParentHash: Option[MainchainHeaderHash] = mainchainHeadersCache.dataByHeight(1).map(_.getParentId)
+
+  // Entries to restore the blocks from fromHeight till tillHeight inclusive without reading their infos.
+  def snapshotEntries(fromHeight: Int, tillHeight: Int): Seq[ActiveChainSnapshotEntry] = {
+    require(fromHeight > 0 && tillHeight <= height && fromHeight <= tillHeight, s"Heights range ($fromHeight, $tillHeight) is out of bounds.")
+
+    var lastMcHeaderHeight = getLastMainchainHeightTillHeight(mainchainHeadersCache, fromHeight - 1)
+    var lastMcRefDataHeight = getLastMainchainHeightTillHeight(mainchainReferenceDataCache, fromHeight - 1)
+    (fromHeight to tillHeight).map(scHeight => {
+      val mcHeaderHeight = getLastMainchainHeightTillHeight(mainchainHeadersCache, scHeight)
+      val mcRefDataHeight = getLastMainchainHeightTillHeight(mainchainReferenceDataCache, scHeight)
+      val entry = ActiveChainSnapshotEntry(
+        sidechainCache.idByHeight(scHeight).get,
+        sidechainCache.scoreByHeight(scHeight).get,
+        sidechainCache.timestampByHeight(scHeight).get,
+        (lastMcHeaderHeight + 1 to mcHeaderHeight).map(h => mainchainHeadersCache.idByHeight(h).get),
+        mcRefDataHeight - lastMcRefDataHeight)
+      lastMcHeaderHeight = mcHeaderHeight
+      lastMcRefDataHeight = mcRefDataHeight
+      entry
+    })
+  }
+
+  // (time, bits) of the last `count` MainchainHeaders of the active chain till the given sidechain block inclusive, the oldest first,
+  // together with the hash of the last of them.
+  // Note: MainchainHeaders before the mainchain creation block are not a part of the active chain, so less data can be returned.
+  // Returns None if the block is not in the active chain or some data is unknown.
+  def mcHeadersPoWDataTill(id: ModifierId, count: Int): Option[(MainchainHeaderHash, Seq[(Int, Int)])] = {
+    for {
+      scHeight <- heightById(id)
+      lastMcHash <- getLastMainchainHeaderHashTillHeight(scHeight)
+      lastMcHeight <- mainchainHeadersCache.heightById(lastMcHash)
+      powData <- mainchainHeadersPoWData.timeBitsData(Math.max(1, lastMcHeight - count + 1), lastMcHeight)
+    } yield (lastMcHash, powData)
+  }
+
+  // Set PoW data for the MainchainHeader already present in the active chain.
+  def updateMcHeaderPoWData(mainchainHeaderHash: MainchainHeaderHash, time: Int, bits: Int): Unit = {
+    val height = mainchainHeadersCache.heightById(mainchainHeaderHash)
+      .getOrElse(throw new IllegalArgumentException("Mainchain header is not a part of the active chain"))
+    mainchainHeadersPoWData.update(height, time, bits)
+  }
+
   // Mixed data retrieval
   def heightByMcHeader(mainchainHeaderHash: MainchainHeaderHash): Option[Int] = {
     mainchainHeadersCache.dataById(mainchainHeaderHash).map(_.sidechainHeight)
@@ -67,26 +120,39 @@ final class ActiveChain private(sidechainCache: ElementsChain[ModifierId, Sidech
     heightByMcReferenceData(mainchainReferenceDataHeaderHash).flatMap(sidechainCache.idByHeight)
   }
 
-  def setBestBlock(newBestId: ModifierId, newBestData: SidechainBlockInfo, mainchainParentHashOpt: Option[MainchainHeaderHash]): Unit = {
+  // mainchainHeadersTimeBits - (time, bits) of the block MainchainHeaders, if empty - PoW data is considered unknown.
+  def setBestBlock(newBestId: ModifierId,
+                   newBestData: SidechainBlockInfo,
+                   mainchainParentHashOpt: Option[MainchainHeaderHash],
+                   mainchainHeadersTimeBits: Seq[(Int, Int)] = Seq()): Unit = {
+    if (mainchainHeadersTimeBits.nonEmpty && mainchainHeadersTimeBits.size != newBestData.mainchainHeaderHashes.size)
+      throw new IllegalArgumentException("Mainchain headers PoW data is inconsistent to mainchain headers")
+
     if (height == 0) {
-      setGenesisBlock(newBestId, newBestData, mainchainParentHashOpt)
+      setGenesisBlock(newBestId, newBestData, mainchainParentHashOpt, mainchainHeadersTimeBits)
     }
     else {
-      setNonGenesisBlock(newBestId, newBestData, mainchainParentHashOpt)
+      setNonGenesisBlock(newBestId, newBestData, mainchainParentHashOpt, mainchainHeadersTimeBits)
     }
   }
 
-  private def setGenesisBlock(genesisBlockId: ModifierId, genesisBlockInfo: SidechainBlockInfo, mainchainParentHashOpt: Option[MainchainHeaderHash]): Unit = {
+  private def setGenesisBlock(genesisBlockId: ModifierId,
+                              genesisBlockInfo: SidechainBlockInfo,
+                              mainchainParentHashOpt: Option[MainchainHeaderHash],
+                              mainchainHeadersTimeBits: Seq[(Int, Int)]): Unit = {
     if (height != 0) throw new IllegalArgumentException("Try to set genesis block for non-empty active chain")
     if (genesisBlockInfo.mainchainHeaderHashes.isEmpty) throw new IllegalArgumentException("Mainchain block headers must be defined for genesis block")
     if (genesisBlockInfo.mainchainReferenceDataHeaderHashes.isEmpty) throw new IllegalArgumentException("Mainchain block reference data must be defined for genesis block")
     if (mainchainParentHashOpt.isEmpty) throw new IllegalArgumentException ("Parent for mainchain creation block shall be set")
 
     // Parent for both first MainchainBlockReferenceData and MainchainHeader is the same for genesis block
-    addToStorages(genesisBlockId, genesisBlockInfo, mainchainParentHashOpt, mainchainParentHashOpt)
+    addToStorages(genesisBlockId, genesisBlockInfo, mainchainParentHashOpt, mainchainParentHashOpt, mainchainHeadersTimeBits)
   }
 
-  private def setNonGenesisBlock(newBestId: ModifierId, newBestInfo: SidechainBlockInfo, givenMainchainParentHashOpt: Option[MainchainHeaderHash]): Unit = {
+  private def setNonGenesisBlock(newBestId: ModifierId,
+                                 newBestInfo: SidechainBlockInfo,
+                                 givenMainchainParentHashOpt: Option[MainchainHeaderHash],
+                                 mainchainHeadersTimeBits: Seq[(Int, Int)]): Unit = {
     // check sidechain correctness
     val parentHeight = heightById(newBestInfo.getParentId).getOrElse(throw new IllegalArgumentException(s"Try to add unconnected sidechain block with id ${newBestId} to an active chain"))
 
@@ -121,36 +187,86 @@ final class ActiveChain private(sidechainCache: ElementsChain[ModifierId, Sidech
     // cut storages
     sidechainCache.cutToId(newBestInfo.parentId)
     mainchainHeadersCache.cutToId(actualMainchainParentForNewBlock)
+    mainchainHeadersPoWData.cutToHeight(mainchainHeadersCache.height)
     mainchainReferenceDataCache.cutToId(actualMainchainReferenceDataParentForNewBlock)
 
     // add new data
-    addToStorages(newBestId, newBestInfo, Some(actualMainchainParentForNewBlock), Some(actualMainchainReferenceDataParentForNewBlock))
+    addToStorages(newBestId, newBestInfo, Some(actualMainchainParentForNewBlock), Some(actualMainchainReferenceDataParentForNewBlock), mainchainHeadersTimeBits)
   }
 
   private def addToStorages(newTipId: ModifierId,
                             newTipInfo: SidechainBlockInfo,
                             mainchainHeaderParentHashOpt: Option[MainchainHeaderHash],
-                            mainchainRefDataParentHeaderHash: Option[MainchainHeaderHash]): Unit = {
+                            mainchainRefDataParentHeaderHash: Option[MainchainHeaderHash],
+                            newTipMainchainHeadersTimeBits: Seq[(Int, Int)]): Unit = {
     sidechainCache.appendData(newTipId, newTipInfo)
 
-    val addedTipHeight = heightById(newTipId).getOrElse(throw new IllegalStateException("Added tip has no height"))
-    val preparedMainchainHeadersInfo = buildMainchainHeadersInfo(addedTipHeight, newTipInfo.mainchainHeaderHashes, mainchainHeaderParentHashOpt)
+    addMainchainHeadersToStorages(newTipInfo.mainchainHeaderHashes, mainchainHeaderParentHashOpt, newTipMainchainHeadersTimeBits)
+    addMainchainReferenceDataToStorages(newTipInfo.mainchainReferenceDataHeaderHashes, mainchainRefDataParentHeaderHash)
+  }
+
+  private def addSnapshotEntryToStorages(entry: ActiveChainSnapshotEntry, mainchainParentHash: MainchainHeaderHash): Unit = {
+    if (height == 0 && entry.mainchainHeaderHashes.isEmpty)
+      throw new IllegalArgumentException("Incorrect snapshot entry: first block shall contain mainchain headers")
+
+    val mainchainHeaderParentHash = mainchainHeadersCache.bestId.getOrElse(mainchainParentHash)
+    val mainchainRefDataParentHeaderHash = mainchainReferenceDataCache.bestId.getOrElse(mainchainParentHash)
+
+    sidechainCache.appendData(entry.id, entry.score, entry.timestamp)
+    addMainchainHeadersToStorages(entry.mainchainHeaderHashes, Some(mainchainHeaderParentHash), Seq())
+
+    // MainchainReferenceData follows the MainchainHeaders, including the ones just added.
+    val refDataHeaderHashes = (mainchainReferenceDataCache.height + 1 to mainchainReferenceDataCache.height + entry.mainchainReferenceDataCount)
+      .map(h => mainchainHeadersCache.idByHeight(h).getOrElse(throw new IllegalArgumentException("Incorrect snapshot entry: mainchain reference data without header")))
+    addMainchainReferenceDataToStorages(refDataHeaderHashes, Some(mainchainRefDataParentHeaderHash))
+  }
+
+  private def addMainchainHeadersToStorages(mainchainHeaderHashes: Seq[MainchainHeaderHash],
+                                            mainchainHeaderParentHashOpt: Option[MainchainHeaderHash],
+                                            mainchainHeadersTimeBits: Seq[(Int, Int)]): Unit = {
+    val preparedMainchainHeadersInfo = buildMainchainHeadersInfo(height, mainchainHeaderHashes, mainchainHeaderParentHashOpt)
     preparedMainchainHeadersInfo.foreach { case (id, data) => mainchainHeadersCache.appendData(id, data) }
+    preparedMainchainHeadersInfo.indices.foreach(idx => mainchainHeadersPoWData.append(mainchainHeadersTimeBits.lift(idx)))
+  }
 
-    val preparedMainchainRefDataHeadersInfo = buildMainchainHeadersInfo(addedTipHeight, newTipInfo.mainchainReferenceDataHeaderHashes, mainchainRefDataParentHeaderHash)
+  private def addMainchainReferenceDataToStorages(mainchainRefDataHeaderHashes: Seq[MainchainHeaderHash],
+                                                  mainchainRefDataParentHeaderHash: Option[MainchainHeaderHash]): Unit = {
+    val preparedMainchainRefDataHeadersInfo = buildMainchainHeadersInfo(height, mainchainRefDataHeaderHashes, mainchainRefDataParentHeaderHash)
     preparedMainchainRefDataHeadersInfo.foreach { case (id, data) => mainchainReferenceDataCache.appendData(id, data) }
   }
 
   private def getLastMainchainHeaderHashTillHeight(scHeight: Int): Option[MainchainHeaderHash] = {
-    sidechainCache
-      .getLastDataByPredicateTillHeight(scHeight)(_.mainchainHeaderHashes.nonEmpty)
-      .flatMap(scBlockInfo => scBlockInfo.mainchainHeaderHashes.lastOption)
+    getLastMainchainHashTillHeight(mainchainHeadersCache, scHeight)
   }
 
   private def getLastMainchainReferenceDataHeaderHashTillHeight(scHeight: Int): Option[MainchainHeaderHash] = {
-    sidechainCache
-      .getLastDataByPredicateTillHeight(scHeight)(_.mainchainReferenceDataHeaderHashes.nonEmpty)
-      .flatMap(scBlockInfo => scBlockInfo.mainchainReferenceDataHeaderHashes.lastOption)
+    getLastMainchainHashTillHeight(mainchainReferenceDataCache, scHeight)
+  }
+
+  private def getLastMainchainHashTillHeight(mainchainCache: ElementsChain[MainchainHeaderHash, MainchainHeaderMetadata],
+                                             scHeight: Int): Option[MainchainHeaderHash] = {
+    mainchainCache.idByHeight(getLastMainchainHeightTillHeight(mainchainCache, scHeight))
+  }
+
+  // Mainchain data is ordered by the sidechain height of the block it was included in,
+  // so find the last one included till the given sidechain height by binary search instead of reading block infos.
+  // Returns the height in the given cache, 0 if there is no such data.
+  private def getLastMainchainHeightTillHeight(mainchainCache: ElementsChain[MainchainHeaderHash, MainchainHeaderMetadata],
+                                               scHeight: Int): Int = {
+    var low = 1
+    var high = mainchainCache.height
+    var lastHeight = 0
+    while (low <= high) {
+      val middle = (low + high) >>> 1
+      if (mainchainCache.dataByHeight(middle).get.sidechainHeight <= scHeight) {
+        lastHeight = middle
+        low = middle + 1
+      }
+      else {
+        high = middle - 1
+      }
+    }
+    lastHeight
   }
 
   private def buildMainchainHeadersInfo(sidechainHeight: Int,
@@ -172,9 +288,13 @@ final class ActiveChain private(sidechainCache: ElementsChain[ModifierId, Sidech
 
 object ActiveChain {
   // In case of empty storage
-  def apply(mainchainCreationBlockHeight: Int): ActiveChain = {
+  def apply(mainchainCreationBlockHeight: Int): ActiveChain = apply(mainchainCreationBlockHeight, None)
+
+  // blockInfoLoaderOpt - loader of the block infos from the storage. If defined, only the recent block infos are kept in memory.
+  def apply(mainchainCreationBlockHeight: Int,
+            blockInfoLoaderOpt: Option[ModifierId => Option[SidechainBlockInfo]]): ActiveChain = {
     new ActiveChain(
-      new ElementsChain[ModifierId, SidechainBlockInfo](),
+      new SidechainBlocksChain(blockInfoLoaderOpt),
       new ElementsChain[MainchainHeaderHash, MainchainHeaderMetadata](),
       new ElementsChain[MainchainHeaderHash, MainchainHeaderMetadata](),
       mainchainCreationBlockHeight: Int)
@@ -182,13 +302,20 @@ object ActiveChain {
 
   // In case of storage with blocks
   def apply(blocksInfoData: ArrayBuffer[(ModifierId, SidechainBlockInfo)], mainchainParentHash: MainchainHeaderHash, mainchainCreationBlockHeight: Int): ActiveChain = {
+    apply(blocksInfoData, mainchainParentHash, mainchainCreationBlockHeight, None)
+  }
+
+  def apply(blocksInfoData: ArrayBuffer[(ModifierId, SidechainBlockInfo)],
+            mainchainParentHash: MainchainHeaderHash,
+            mainchainCreationBlockHeight: Int,
+            blockInfoLoaderOpt: Option[ModifierId => Option[SidechainBlockInfo]]): ActiveChain = {
     require(blocksInfoData.head._2.mainchainHeaderHashes.nonEmpty, "Incorrect data for creation Active chain: first block shall contains mainchain block references")
 
-    val activeChain = ActiveChain(mainchainCreationBlockHeight)
+    val activeChain = ActiveChain(mainchainCreationBlockHeight, blockInfoLoaderOpt)
 
     blocksInfoData.foldLeft((Option(mainchainParentHash), Option(mainchainParentHash))) {
       case ((mainchainHeaderParentHashOpt, mainchainRefDataParentHeaderHashOpt), (id, data)) =>
-        activeChain.addToStorages(id, data, mainchainHeaderParentHashOpt, mainchainRefDataParentHeaderHashOpt)
+        activeChain.addToStorages(id, data, mainchainHeaderParentHashOpt, mainchainRefDataParentHeaderHashOpt, Seq())
 
         val newMainchainHeaderParentHashOpt = data.mainchainHeaderHashes.lastOption.orElse(mainchainHeaderParentHashOpt)
         val newMainchainRefDataParentHeaderHashOpt = data.mainchainReferenceDataHeaderHashes.lastOption.orElse(mainchainRefDataParentHeaderHashOpt)
@@ -196,4 +323,16 @@ object ActiveChain {
     }
     activeChain
   }
-}
\ No newline at end of file
+
+  // Restore the active chain from the snapshot entries, block infos are loaded on demand by the given loader.
+  // PoW data of the restored MainchainHeaders is unknown.
+  def restore(snapshotEntries: Iterator[ActiveChainSnapshotEntry],
+              mainchainParentHash: MainchainHeaderHash,
+              mainchainCreationBlockHeight: Int,
+              blockInfoLoader: ModifierId => Option[SidechainBlockInfo]): ActiveChain = {
+    val activeChain = ActiveChain(mainchainCreationBlockHeight, Some(blockInfoLoader))
+    snapshotEntries.foreach(entry => activeChain.addSnapshotEntryToStorages(entry, mainchainParentHash))
+    activeChain.sidechainCache.loadRecentBlockInfos()
+    activeChain
+  }
+}
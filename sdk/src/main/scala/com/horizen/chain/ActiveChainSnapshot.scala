@@ -0,0 +1,83 @@
+package com.horizen.chain
+
+import com.horizen.utils.ByteArrayWrapper
+import scorex.core.NodeViewModifier
+import scorex.core.block.Block.Timestamp
+import scorex.core.serialization.ScorexSerializer
+import scorex.util.serialization.{Reader, Writer}
+import scorex.util.{ModifierId, bytesToId, idToBytes}
+
+// Data of the active chain block required to restore the active chain without reading the block infos.
+// MainchainReferenceData hashes are not kept: they follow the MainchainHeaders ones, so only their number is needed.
+case class ActiveChainSnapshotEntry(id: ModifierId,
+                                    score: Long,
+                                    timestamp: Timestamp,
+                                    mainchainHeaderHashes: Seq[MainchainHeaderHash],
+                                    mainchainReferenceDataCount: Int)
+
+// Active chain entries of the consecutive heights.
+case class ActiveChainSnapshotChunk(entries: Seq[ActiveChainSnapshotEntry])
+
+// Description of the active chain snapshot: the chain till the given height split into the chunks of the fixed size.
+// Chunks are stored separately, so only the modified ones are rewritten on the next snapshot.
+// Chunk hashes are used to check the chunks integrity on restore.
+case class ActiveChainSnapshotHeader(height: Int,
+                                     bestId: ModifierId,
+                                     mainchainParentHash: MainchainHeaderHash,
+                                     chunkHashes: Seq[ByteArrayWrapper])
+
+object ActiveChainSnapshotChunkSerializer extends ScorexSerializer[ActiveChainSnapshotChunk] {
+  override def serialize(obj: ActiveChainSnapshotChunk, w: Writer): Unit = {
+    w.putInt(obj.entries.size)
+    obj.entries.foreach(entry => {
+      w.putBytes(idToBytes(entry.id))
+      w.putLong(entry.score)
+      w.putLong(entry.timestamp)
+      w.putInt(entry.mainchainHeaderHashes.size)
+      entry.mainchainHeaderHashes.foreach(hash => w.putBytes(hash.data))
+      w.putInt(entry.mainchainReferenceDataCount)
+    })
+  }
+
+  override def parse(r: Reader): ActiveChainSnapshotChunk = {
+    val entriesNumber = r.getInt()
+    val entries = (0 until entriesNumber).map(_ => {
+      val id = bytesToId(r.getBytes(NodeViewModifier.ModifierIdSize))
+      val score = r.getLong()
+      val timestamp = r.getLong()
+      val mainchainHeaderHashesNumber = r.getInt()
+      val mainchainHeaderHashes = (0 until mainchainHeaderHashesNumber).map(_ => byteArrayToMainchainHeaderHash(r.getBytes(mainchainHeaderHashSize)))
+      val mainchainReferenceDataCount = r.getInt()
+      ActiveChainSnapshotEntry(id, score, timestamp, mainchainHeaderHashes, mainchainReferenceDataCount)
+    })
+    ActiveChainSnapshotChunk(entries)
+  }
+}
+
+object ActiveChainSnapshotHeaderSerializer extends ScorexSerializer[ActiveChainSnapshotHeader] {
+  // Increase on any change of the snapshot format: snapshot of the unknown version is ignored.
+  val SNAPSHOT_FORMAT_VERSION: Byte = 1
+  val CHUNK_HASH_LENGTH: Int = 32
+
+  override def serialize(obj: ActiveChainSnapshotHeader, w: Writer): Unit = {
+    w.put(SNAPSHOT_FORMAT_VERSION)
+    w.putInt(obj.height)
+    w.putBytes(idToBytes(obj.bestId))
+    w.putBytes(obj.mainchainParentHash.data)
+    w.putInt(obj.chunkHashes.size)
+    obj.chunkHashes.foreach(hash => w.putBytes(hash.data))
+  }
+
+  override def parse(r: Reader): ActiveChainSnapshotHeader = {
+    val version = r.getByte()
+    if (version != SNAPSHOT_FORMAT_VERSION)
+      throw new IllegalArgumentException(s"Unsupported active chain snapshot format version $version")
+
+    val height = r.getInt()
+    val bestId = bytesToId(r.getBytes(NodeViewModifier.ModifierIdSize))
+    val mainchainParentHash = byteArrayToMainchainHeaderHash(r.getBytes(mainchainHeaderHashSize))
+    val chunksNumber = r.getInt()
+    val chunkHashes = (0 until chunksNumber).map(_ => new ByteArrayWrapper(r.getBytes(CHUNK_HASH_LENGTH)))
+    ActiveChainSnapshotHeader(height, bestId, mainchainParentHash, chunkHashes)
+  }
+}
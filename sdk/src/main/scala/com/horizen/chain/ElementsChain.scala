@@ -72,18 +72,20 @@ class ElementsChain[ID, DATA <: LinkedElement[ID]](private var lastId: Option[ID
   }
 
   def chainAfter(id: ID): Seq[ID] = {
-    if (contains(id) && height > 0) {
-      var res: Seq[ID] = Seq()
+    heightById(id) match {
+      case Some(fromHeight) => idsFromHeight(fromHeight, Int.MaxValue)
+      case _ => Seq()
+    }
+  }
 
-      var currentHeight = heightById(id).get
-      while (currentHeight < height) {
-        currentHeight += 1
-        res = res :+ dataByHeight(currentHeight).get.getParentId
-      }
-      res :+ bestId.get
+  // Up to `limit` ids starting from the given height in the height order.
+  def idsFromHeight(fromHeight: Int, limit: Int): Seq[ID] = {
+    if (fromHeight < 1 || fromHeight > height || limit <= 0) {
+      Seq()
     }
     else {
-      Seq()
+      val count = Math.min(limit, height - fromHeight + 1)
+      (fromHeight until fromHeight + count).map(h => idByHeight(h).get)
     }
   }
 
@@ -0,0 +1,48 @@
+package com.horizen.chain
+
+import scorex.util.ModifierId
+
+import scala.collection.mutable
+
+// In-memory index of the recently stored block infos, both from the active chain and from the forks.
+// Only the blocks not deeper than keepDepth below the best height are kept: the forks from the deeper blocks
+// can't become active anymore, so the fork point search and the sync comparisons don't need the storage access.
+class ForkTreeIndex(keepDepth: Int) {
+  require(keepDepth >= 0, "Depth of the kept blocks shall be non negative.")
+
+  private val blockInfos: mutable.HashMap[ModifierId, SidechainBlockInfo] = mutable.HashMap()
+  private val idsByHeight: mutable.HashMap[Int, List[ModifierId]] = mutable.HashMap()
+  private var lowestHeight: Int = Int.MaxValue
+
+  def size: Int = blockInfos.size
+
+  def contains(id: ModifierId): Boolean = blockInfos.contains(id)
+
+  def blockInfoById(id: ModifierId): Option[SidechainBlockInfo] = blockInfos.get(id)
+
+  def heightById(id: ModifierId): Option[Int] = blockInfos.get(id).map(_.height)
+
+  def parentId(id: ModifierId): Option[ModifierId] = blockInfos.get(id).map(_.parentId)
+
+  // Adds the block info or updates it, for example on the semantic validity change.
+  def put(id: ModifierId, blockInfo: SidechainBlockInfo): Unit = {
+    blockInfos.put(id, blockInfo) match {
+      case Some(oldInfo) =>
+        require(oldInfo.height == blockInfo.height, s"Block $id height is changed.")
+      case None =>
+        idsByHeight.put(blockInfo.height, id :: idsByHeight.getOrElse(blockInfo.height, List()))
+        lowestHeight = Math.min(lowestHeight, blockInfo.height)
+    }
+  }
+
+  // Removes the blocks which are too deep below the best one.
+  def prune(bestHeight: Int): Unit = {
+    val minHeightToKeep = bestHeight - keepDepth
+    while (lowestHeight < minHeightToKeep && idsByHeight.nonEmpty) {
+      idsByHeight.remove(lowestHeight).foreach(ids => blockInfos --= ids)
+      lowestHeight += 1
+    }
+    if (idsByHeight.isEmpty)
+      lowestHeight = Int.MaxValue
+  }
+}
@@ -0,0 +1,42 @@
+package com.horizen.chain
+
+import scala.collection.mutable.ArrayBuffer
+
+// PoW related data (time, bits) of the MainchainHeaders by their height in the mainchain headers chain.
+// Data can be unknown for some heights, for example for the ones loaded on startup without reading the blocks.
+// Unknown data is stored with time 0, because MainchainHeader time is always positive.
+class MainchainHeadersPoWData {
+  private val times: ArrayBuffer[Int] = ArrayBuffer[Int]()
+  private val bits: ArrayBuffer[Int] = ArrayBuffer[Int]()
+
+  def height: Int = times.size
+
+  def append(timeBitsOpt: Option[(Int, Int)]): Unit = {
+    val (time, nBits) = timeBitsOpt.getOrElse((0, 0))
+    times.append(time)
+    bits.append(nBits)
+  }
+
+  def update(height: Int, time: Int, nBits: Int): Unit = {
+    require(height > 0 && height <= this.height, s"Height $height is out of bounds.")
+    times(height - 1) = time
+    bits(height - 1) = nBits
+  }
+
+  def cutToHeight(newHeight: Int): Unit = {
+    require(newHeight >= 0, "Height can't be negative.")
+    if (newHeight < height) {
+      times.reduceToSize(newHeight)
+      bits.reduceToSize(newHeight)
+    }
+  }
+
+  // Data from fromHeight till tillHeight inclusive, the oldest first. None if some data is unknown.
+  def timeBitsData(fromHeight: Int, tillHeight: Int): Option[Seq[(Int, Int)]] = {
+    require(fromHeight > 0 && tillHeight <= height && fromHeight <= tillHeight + 1, s"Heights range ($fromHeight, $tillHeight) is out of bounds.")
+    if ((fromHeight to tillHeight).exists(h => times(h - 1) == 0))
+      None
+    else
+      Some((fromHeight to tillHeight).map(h => (times(h - 1), bits(h - 1))))
+  }
+}
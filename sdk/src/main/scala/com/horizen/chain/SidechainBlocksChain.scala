@@ -0,0 +1,235 @@
+package com.horizen.chain
+
+import scorex.util.{ModifierId, bytesToId, idToBytes}
+
+import scala.collection.mutable
+
+// Compact storage of the sidechain blocks chain, designed to keep millions of blocks with a low memory footprint.
+// Block ids are kept one after another in a single byte array and indexed by the open addressing hash table of heights.
+// Most used SidechainBlockInfo fields are kept in the primitive arrays by height, the parent of the block is the previous one.
+// If the loader is defined, full SidechainBlockInfo objects are kept only for the recent blocks and loaded on demand
+// for the older ones. Otherwise all of them are kept.
+class SidechainBlocksChain(blockInfoLoaderOpt: Option[ModifierId => Option[SidechainBlockInfo]] = None,
+                           recentBlockInfosNumber: Int = SidechainBlocksChain.DEFAULT_RECENT_BLOCK_INFOS_NUMBER) {
+  import SidechainBlocksChain._
+
+  require(recentBlockInfosNumber > 0, "Number of the recent block infos to keep shall be positive.")
+
+  private var currentHeight: Int = 0
+  private var ids: Array[Byte] = new Array[Byte](INITIAL_CAPACITY * ID_LENGTH)
+  private var scores: Array[Long] = new Array[Long](INITIAL_CAPACITY)
+  private var timestamps: Array[Long] = new Array[Long](INITIAL_CAPACITY)
+  // Heights of the blocks placed by the id hash with linear probing. 0 is for the empty cell.
+  // Table size is a power of 2 and at least twice bigger than the chain height.
+  private var heightsTable: Array[Int] = new Array[Int](INITIAL_CAPACITY * 2)
+  private val blockInfos: mutable.HashMap[Int, SidechainBlockInfo] = mutable.HashMap()
+
+  def height: Int = currentHeight
+
+  def bestId: Option[ModifierId] = idByHeight(currentHeight)
+
+  def bestBlockInfo: Option[SidechainBlockInfo] = blockInfoByHeight(currentHeight)
+
+  def contains(id: ModifierId): Boolean = heightById(id).isDefined
+
+  def heightById(id: ModifierId): Option[Int] = {
+    val idBytes = idToBytes(id)
+    if (idBytes.length != ID_LENGTH) {
+      None
+    }
+    else {
+      val height = heightsTable(findCell(idBytes, 0))
+      if (height == 0) None else Some(height)
+    }
+  }
+
+  def idByHeight(requestedHeight: Int): Option[ModifierId] = {
+    if (requestedHeight < 1 || requestedHeight > currentHeight)
+      None
+    else
+      Some(bytesToId(java.util.Arrays.copyOfRange(ids, idOffset(requestedHeight), idOffset(requestedHeight) + ID_LENGTH)))
+  }
+
+  def scoreByHeight(requestedHeight: Int): Option[Long] = {
+    if (requestedHeight < 1 || requestedHeight > currentHeight) None else Some(scores(requestedHeight - 1))
+  }
+
+  def timestampByHeight(requestedHeight: Int): Option[Long] = {
+    if (requestedHeight < 1 || requestedHeight > currentHeight) None else Some(timestamps(requestedHeight - 1))
+  }
+
+  def blockInfoByHeight(requestedHeight: Int): Option[SidechainBlockInfo] = {
+    if (requestedHeight < 1 || requestedHeight > currentHeight) {
+      None
+    }
+    else {
+      blockInfos.get(requestedHeight).orElse {
+        for {
+          loader <- blockInfoLoaderOpt
+          id <- idByHeight(requestedHeight)
+          blockInfo <- loader(id)
+        } yield blockInfo
+      }
+    }
+  }
+
+  // Ids of the chain starting from the given one till the best one inclusive.
+  def chainAfter(id: ModifierId): Seq[ModifierId] = {
+    heightById(id) match {
+      case Some(fromHeight) => idsFromHeight(fromHeight, Int.MaxValue)
+      case None => Seq()
+    }
+  }
+
+  // Up to `limit` ids of the chain starting from the given height in the height order.
+  // Taken directly by heights, so the cost depends on the result size only.
+  def idsFromHeight(fromHeight: Int, limit: Int): Seq[ModifierId] = {
+    if (fromHeight < 1 || fromHeight > currentHeight || limit <= 0) {
+      Seq()
+    }
+    else {
+      val count = Math.min(limit, currentHeight - fromHeight + 1)
+      (fromHeight until fromHeight + count).map(h => idByHeight(h).get)
+    }
+  }
+
+  def appendData(newId: ModifierId, newBlockInfo: SidechainBlockInfo): Unit = {
+    if (currentHeight > 0 && !heightById(newBlockInfo.parentId).contains(currentHeight)) {
+      throw new IllegalArgumentException("Try to append block with incorrect parent")
+    }
+
+    if (newBlockInfo.parentId == newId) {
+      throw new IllegalArgumentException("Try to add incorrect data: element has himself as a parent")
+    }
+
+    append(newId, newBlockInfo.score, newBlockInfo.timestamp)
+
+    blockInfos.put(currentHeight, newBlockInfo)
+    if (blockInfoLoaderOpt.isDefined)
+      blockInfos.remove(currentHeight - recentBlockInfosNumber)
+  }
+
+  // Appends the block on top of the best one without its info, for example restored from the snapshot.
+  // Info of such block is always loaded on demand, so the loader is required.
+  def appendData(newId: ModifierId, score: Long, timestamp: Long): Unit = {
+    if (blockInfoLoaderOpt.isEmpty) {
+      throw new IllegalStateException("Try to append block without info to the chain without block info loader")
+    }
+    append(newId, score, timestamp)
+  }
+
+  // Load the infos of the recent blocks appended without them, so the requests around the tip are served from memory.
+  def loadRecentBlockInfos(): Unit = {
+    blockInfoLoaderOpt.foreach(loader => {
+      for (h <- Math.max(1, currentHeight - recentBlockInfosNumber + 1) to currentHeight if !blockInfos.contains(h)) {
+        val id = idByHeight(h).get
+        blockInfos.put(h, loader(id).getOrElse(throw new IllegalStateException(s"No block info for block $id")))
+      }
+    })
+  }
+
+  def cutToId(newBestId: ModifierId): Unit = {
+    if (currentHeight > 0 && !bestId.contains(newBestId)) {
+      // we get an id, that is a part of another chain
+      val newHeight = heightById(newBestId).getOrElse(throw new IllegalArgumentException("Parent id is not a part of chain. Failed to reorganize chain."))
+      while (currentHeight > newHeight) {
+        removeFromTable(currentHeight)
+        blockInfos.remove(currentHeight)
+        currentHeight -= 1
+      }
+    }
+  }
+
+  private def append(newId: ModifierId, score: Long, timestamp: Long): Unit = {
+    val idBytes = idToBytes(newId)
+    if (idBytes.length != ID_LENGTH) {
+      throw new IllegalArgumentException(s"Try to add block with id of incorrect length ${idBytes.length}")
+    }
+
+    ensureCapacity(currentHeight + 1)
+    val cell = findCell(idBytes, 0)
+    if (heightsTable(cell) != 0) {
+      throw new IllegalArgumentException(s"Try to add block $newId which is already a part of the chain")
+    }
+
+    val newHeight = currentHeight + 1
+    System.arraycopy(idBytes, 0, ids, idOffset(newHeight), ID_LENGTH)
+    heightsTable(cell) = newHeight
+    scores(newHeight - 1) = score
+    timestamps(newHeight - 1) = timestamp
+    currentHeight = newHeight
+  }
+
+  private def idOffset(height: Int): Int = (height - 1) * ID_LENGTH
+
+  // Returns the cell with the given id or the empty cell where it should be placed.
+  private def findCell(idArray: Array[Byte], offset: Int): Int = {
+    val mask = heightsTable.length - 1
+    var cell = idHash(idArray, offset) & mask
+    while (heightsTable(cell) != 0 && !idEquals(heightsTable(cell), idArray, offset))
+      cell = (cell + 1) & mask
+    cell
+  }
+
+  private def idEquals(height: Int, idArray: Array[Byte], offset: Int): Boolean = {
+    val storedIdOffset = idOffset(height)
+    var i = 0
+    while (i < ID_LENGTH) {
+      if (ids(storedIdOffset + i) != idArray(offset + i))
+        return false
+      i += 1
+    }
+    true
+  }
+
+  // Removes the block of the given height from the table and shifts back the following entries of the probing sequence,
+  // so no tombstones are needed.
+  private def removeFromTable(height: Int): Unit = {
+    val mask = heightsTable.length - 1
+    var hole = findCell(ids, idOffset(height))
+    heightsTable(hole) = 0
+
+    var next = (hole + 1) & mask
+    while (heightsTable(next) != 0) {
+      val desiredCell = idHash(ids, idOffset(heightsTable(next))) & mask
+      // Entry can be moved to the hole if the hole is between its desired cell and its current position.
+      if (((next - desiredCell) & mask) >= ((next - hole) & mask)) {
+        heightsTable(hole) = heightsTable(next)
+        heightsTable(next) = 0
+        hole = next
+      }
+      next = (next + 1) & mask
+    }
+  }
+
+  private def ensureCapacity(requiredHeight: Int): Unit = {
+    if (requiredHeight > scores.length) {
+      val newCapacity = Math.max(requiredHeight, scores.length * 2)
+      ids = java.util.Arrays.copyOf(ids, newCapacity * ID_LENGTH)
+      scores = java.util.Arrays.copyOf(scores, newCapacity)
+      timestamps = java.util.Arrays.copyOf(timestamps, newCapacity)
+    }
+
+    if (requiredHeight * 2 > heightsTable.length) {
+      heightsTable = new Array[Int](heightsTable.length * 2)
+      for (h <- 1 to currentHeight)
+        heightsTable(findCell(ids, idOffset(h))) = h
+    }
+  }
+}
+
+object SidechainBlocksChain {
+  val ID_LENGTH: Int = 32
+  // Enough to serve the most of the requests around the tip without loading from the storage.
+  val DEFAULT_RECENT_BLOCK_INFOS_NUMBER: Int = 2048
+
+  private val INITIAL_CAPACITY: Int = 1024
+
+  // Block ids are hashes already, but mix the bits to not to depend on the id generation.
+  private def idHash(idArray: Array[Byte], offset: Int): Int = {
+    val h = ((idArray(offset) & 0xFF) << 24) | ((idArray(offset + 1) & 0xFF) << 16) |
+      ((idArray(offset + 2) & 0xFF) << 8) | (idArray(offset + 3) & 0xFF)
+    val mixed = h * 0x9E3779B9
+    mixed ^ (mixed >>> 16)
+  }
+}
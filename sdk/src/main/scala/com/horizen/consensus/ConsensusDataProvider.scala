@@ -7,7 +7,7 @@ import com.horizen.block.SidechainBlockHeader
 import com.horizen.chain.SidechainBlockInfo
 import com.horizen.params.{NetworkParams, NetworkParamsUtils}
 import com.horizen.storage.SidechainBlockInfoProvider
-import com.horizen.utils.{LruCache, Utils}
+import com.horizen.utils.LruCache
 import com.horizen.vrf.VrfOutput
 import io.iohk.iodb.ByteArrayWrapper
 import scorex.core.block.Block
@@ -82,9 +82,7 @@ trait ConsensusDataProvider {
     // ensure that the stake distribution, determined at the beginning of the epoch, is stable, and likewise
     // that the nonce is stable before the next epoch begins.)
     // https://eprint.iacr.org/2017/573.pdf p.23
-    val quietSlotsNumber = params.consensusSlotsInEpoch / 3
-    val eligibleSlotsRangeStart = quietSlotsNumber + 1
-    val eligibleSlotsRangeEnd = params.consensusSlotsInEpoch - quietSlotsNumber - 1
+    val (eligibleSlotsRangeStart, eligibleSlotsRangeEnd) = ConsensusDataProvider.nonceEligibleSlotsRange(params)
 
     val nonceMessageDigest: MessageDigest = createNonceMessageDigest(lastBlockIdInEpoch, lastBlockInfoInEpoch, eligibleSlotsRangeStart, eligibleSlotsRangeEnd, initialNonceData)
 
@@ -115,16 +113,23 @@ trait ConsensusDataProvider {
         digest.update(vrfOutput.bytes())
     }
 
-    var nextBlockId = initialBlockId
-    var nextBlockInfo = initialBlockInfo
-    var nextBlockSlot = timeStampToSlotNumber(initialBlockInfo.timestamp)
-    while (nextBlockId != initialBlockInfo.lastBlockInPreviousConsensusEpoch && nextBlockSlot >= eligibleSlotsRangeStart) {
-      if (eligibleSlotsRangeEnd >= nextBlockSlot) {
-        digest.update(nextBlockInfo.vrfOutputOpt.getOrElse(throw new IllegalStateException("Try to calculate nonce by using block with incorrect Vrf proof")).bytes())
-      }
-      nextBlockId = nextBlockInfo.parentId
-      nextBlockInfo = storage.blockInfoById(nextBlockId)
-      nextBlockSlot = timeStampToSlotNumber(nextBlockInfo.timestamp)
+    storage.nonceAccumulatorById(initialBlockId) match {
+      // VRF outputs were accumulated while blocks had been added to the history.
+      case Some(nonceAccumulator) =>
+        nonceAccumulator.vrfOutputs.foreach(vrfOutput => digest.update(vrfOutput.bytes()))
+      // Otherwise walk back through the blocks of the epoch.
+      case None =>
+        var nextBlockId = initialBlockId
+        var nextBlockInfo = initialBlockInfo
+        var nextBlockSlot = timeStampToSlotNumber(initialBlockInfo.timestamp)
+        while (nextBlockId != initialBlockInfo.lastBlockInPreviousConsensusEpoch && nextBlockSlot >= eligibleSlotsRangeStart) {
+          if (eligibleSlotsRangeEnd >= nextBlockSlot) {
+            digest.update(nextBlockInfo.vrfOutputOpt.getOrElse(throw new IllegalStateException("Try to calculate nonce by using block with incorrect Vrf proof")).bytes())
+          }
+          nextBlockId = nextBlockInfo.parentId
+          nextBlockInfo = storage.blockInfoById(nextBlockId)
+          nextBlockSlot = timeStampToSlotNumber(nextBlockInfo.timestamp)
+        }
     }
 
     digest
@@ -145,17 +150,14 @@ trait ConsensusDataProvider {
 
   def getVrfOutput(blockHeader: SidechainBlockHeader, nonceConsensusEpochInfo: NonceConsensusEpochInfo): Option[VrfOutput] = {
     //try to get cached value, if no in cache then calculate
-    val key = ConsensusDataProvider.blockIdAndNonceToKey(blockHeader.id, nonceConsensusEpochInfo)
-    val cachedValue = ConsensusDataProvider.vrfOutputCache.get(key)
-    if (cachedValue == null) {
+    val key = ConsensusDataProvider.VrfOutputCacheKey(blockHeader.id, new ByteArrayWrapper(nonceConsensusEpochInfo.consensusNonce))
+    ConsensusDataProvider.getCachedVrfOutput(key).orElse {
+      // Calculate out of the cache lock, so VRF outputs of different blocks can be calculated in parallel.
       calculateVrfOutput(blockHeader, nonceConsensusEpochInfo).map{vrfOutput =>
-        ConsensusDataProvider.vrfOutputCache.put(key, vrfOutput)
+        ConsensusDataProvider.cacheVrfOutput(key, vrfOutput)
         vrfOutput
       }
     }
-    else {
-      Some(cachedValue)
-    }
   }
 
   private def calculateVrfOutput(blockHeader: SidechainBlockHeader, nonceConsensusEpochInfo: NonceConsensusEpochInfo): Option[VrfOutput] = {
@@ -167,11 +169,27 @@ trait ConsensusDataProvider {
 }
 
 object ConsensusDataProvider {
-  private def blockIdAndNonceToKey(blockId: ModifierId, nonceConsensusEpochInfo: NonceConsensusEpochInfo): ByteArrayWrapper = {
-    new ByteArrayWrapper(Utils.doubleSHA256HashOfConcatenation(blockId.getBytes, nonceConsensusEpochInfo.consensusNonce))
+  // The same block can be verified against different nonces, for example as an ommer after the epoch switch.
+  private case class VrfOutputCacheKey(blockId: ModifierId, nonce: ByteArrayWrapper)
+
+  // Enough to keep VRF outputs of the recent blocks together with the ommers trees they carry.
+  val VRF_OUTPUT_CACHE_SIZE: Int = 4096
+
+  private val vrfOutputCache: LruCache[VrfOutputCacheKey, VrfOutput] = new LruCache[VrfOutputCacheKey, VrfOutput](VRF_OUTPUT_CACHE_SIZE)
+
+  private def getCachedVrfOutput(key: VrfOutputCacheKey): Option[VrfOutput] = vrfOutputCache.synchronized {
+    Option(vrfOutputCache.get(key))
+  }
+
+  private def cacheVrfOutput(key: VrfOutputCacheKey, vrfOutput: VrfOutput): Unit = vrfOutputCache.synchronized {
+    vrfOutputCache.put(key, vrfOutput)
   }
 
-  private val vrfOutputCache: LruCache[ByteArrayWrapper, VrfOutput] = new LruCache[ByteArrayWrapper, VrfOutput](32) //check cache size
+  // Slots of the consensus epoch, which blocks VRF outputs are used for the nonce calculation. Both ends are included.
+  def nonceEligibleSlotsRange(params: NetworkParams): (Int, Int) = {
+    val quietSlotsNumber = params.consensusSlotsInEpoch / 3
+    (quietSlotsNumber + 1, params.consensusSlotsInEpoch - quietSlotsNumber - 1)
+  }
 
   def calculateNonceForGenesisBlock(params: NetworkParams): NonceConsensusEpochInfo = {
     NonceConsensusEpochInfo(ConsensusNonce(Longs.toByteArray(params.sidechainGenesisBlockTimestamp)))
@@ -1,11 +1,27 @@
 package com.horizen.consensus
 
 
+import com.horizen.box.ForgerBox
 import com.horizen.utils._
 
+import scala.collection.JavaConverters._
+
 
 //@TODO move classes to consensus package object
 
-case class ConsensusEpochInfo(epoch: ConsensusEpochNumber, forgersBoxIds: MerkleTree, forgersStake: Long)
+case class ConsensusEpochInfo(epoch: ConsensusEpochNumber, forgersBoxIds: MerkleTree, forgersStake: Long) {
+  // Forger box id -> leaf index in the forgers boxes tree, built once per epoch on the first request
+  lazy val forgerBoxLeafIndexes: Map[ByteArrayWrapper, Int] =
+    forgersBoxIds.leaves().asScala.zipWithIndex.map { case (leaf, index) => new ByteArrayWrapper(leaf) -> index }.toMap
+
+  // Merkle paths of the given forger boxes, calculated in a single traversal of the tree.
+  // Boxes missing in the tree are skipped.
+  def getForgerBoxMerklePathInfo(forgerBoxes: Seq[ForgerBox]): Seq[ForgerBoxMerklePathInfo] = {
+    val boxesInTree = forgerBoxes.flatMap(forgerBox => forgerBoxLeafIndexes.get(new ByteArrayWrapper(forgerBox.id())).map(index => (forgerBox, index)))
+    val merklePaths = forgersBoxIds.getMerklePathsForLeaves(boxesInTree.map { case (_, index) => Int.box(index) }.asJava).asScala
+
+    boxesInTree.zip(merklePaths).map { case ((forgerBox, _), merklePath) => ForgerBoxMerklePathInfo(forgerBox, merklePath) }
+  }
+}
 
 case class FullConsensusEpochInfo(stakeConsensusEpochInfo: StakeConsensusEpochInfo, nonceConsensusEpochInfo: NonceConsensusEpochInfo)
@@ -0,0 +1,69 @@
+package com.horizen.consensus
+
+import com.horizen.chain.SidechainBlockInfo
+import com.horizen.params.NetworkParams
+import com.horizen.vrf.VrfOutput
+import scorex.util.ModifierId
+
+import scala.collection.mutable
+
+// VRF outputs of the consensus epoch blocks from the nonce eligible slots, collected from the beginning of the epoch
+// till some block. The most recent output goes first: the same order the nonce message digest is updated in.
+// Accumulators of the blocks from the same chain share the common part, so to keep one per block is cheap.
+case class NonceAccumulator(epochNumber: ConsensusEpochNumber, vrfOutputs: List[VrfOutput])
+
+// Nonce accumulators of the recent blocks, both from the active chain and from the forks.
+// Accumulator is defined for the block only if the accumulator of its parent is known or if the block starts the epoch.
+class NonceAccumulators(val params: NetworkParams) extends TimeToEpochSlotConverter {
+  private val accumulators: mutable.HashMap[ModifierId, NonceAccumulator] = mutable.HashMap()
+  private var lastEpochNumber: Int = 0
+
+  private val (eligibleSlotsRangeStart, eligibleSlotsRangeEnd) = ConsensusDataProvider.nonceEligibleSlotsRange(params)
+
+  def get(blockId: ModifierId): Option[NonceAccumulator] = synchronized {
+    accumulators.get(blockId)
+  }
+
+  def add(blockId: ModifierId, blockInfo: SidechainBlockInfo): Unit = synchronized {
+    // Block before the genesis one is not a part of the consensus at all.
+    if (blockInfo.timestamp >= params.sidechainGenesisBlockTimestamp) {
+      val epochAndSlot: ConsensusEpochAndSlot = timestampToEpochAndSlot(blockInfo.timestamp)
+      calculateAccumulator(blockId, blockInfo, epochAndSlot).foreach(accumulator => accumulators.put(blockId, accumulator))
+
+      if (epochAndSlot.epochNumber > lastEpochNumber) {
+        lastEpochNumber = epochAndSlot.epochNumber
+        accumulators.retain((_, accumulator) => accumulator.epochNumber > lastEpochNumber - NonceAccumulators.EPOCHS_TO_KEEP)
+      }
+    }
+  }
+
+  // Whether the accumulators of the block with the given timestamp are kept after the block with lastTimestamp.
+  def isKeptEpoch(timestamp: Long, lastTimestamp: Long): Boolean = {
+    timeStampToEpochNumber(timestamp) > timeStampToEpochNumber(lastTimestamp) - NonceAccumulators.EPOCHS_TO_KEEP
+  }
+
+  private def calculateAccumulator(blockId: ModifierId, blockInfo: SidechainBlockInfo, epochAndSlot: ConsensusEpochAndSlot): Option[NonceAccumulator] = {
+    if (blockInfo.lastBlockInPreviousConsensusEpoch == blockId) {
+      // Genesis block doesn't take part in nonce calculation.
+      Some(NonceAccumulator(epochAndSlot.epochNumber, List()))
+    } else {
+      val previousVrfOutputsOpt: Option[List[VrfOutput]] =
+        if (blockInfo.parentId == blockInfo.lastBlockInPreviousConsensusEpoch) Some(List()) // first block in the epoch
+        else accumulators.get(blockInfo.parentId).map(_.vrfOutputs)
+
+      val isEligibleSlot = epochAndSlot.slotNumber >= eligibleSlotsRangeStart && epochAndSlot.slotNumber <= eligibleSlotsRangeEnd
+      previousVrfOutputsOpt.flatMap(previousVrfOutputs => {
+        if (isEligibleSlot)
+          // Block without VRF output can't be used for nonce calculation, so keep accumulator undefined.
+          blockInfo.vrfOutputOpt.map(vrfOutput => NonceAccumulator(epochAndSlot.epochNumber, vrfOutput :: previousVrfOutputs))
+        else
+          Some(NonceAccumulator(epochAndSlot.epochNumber, previousVrfOutputs))
+      })
+    }
+  }
+}
+
+object NonceAccumulators {
+  // Nonce is calculated for the previous epoch, keep one more for the blocks with the ommers from the previous epoch.
+  val EPOCHS_TO_KEEP: Int = 3
+}
@@ -0,0 +1,42 @@
+package com.horizen.forge
+
+import java.util.{Arrays => JArrays}
+
+import com.horizen.consensus.{ConsensusEpochAndSlot, ConsensusEpochNumber, ConsensusSlotNumber, NonceConsensusEpochInfo}
+import com.horizen.utils.ByteArrayWrapper
+
+// Data needed to run the VRF lottery for all the slots of the consensus epoch.
+// VRF message depends only on the slot number and the epoch nonce, so the whole epoch can be evaluated in advance.
+case class EpochForgingData(epochNumber: ConsensusEpochNumber,
+                            nonceConsensusEpochInfo: NonceConsensusEpochInfo,
+                            totalStake: Long,
+                            candidates: IndexedSeq[ForgingCandidate]) {
+  lazy val forgerBoxIds: Seq[ByteArrayWrapper] = candidates.map(candidate => new ByteArrayWrapper(candidate.forgerBox.id()))
+}
+
+// Precomputed VRF lottery results of the consensus epoch: the highest stake eligible owned forger box for each winning slot.
+// Failed slots are the ones the lottery was not run for in time, they are evaluated again at forging.
+case class EpochForgingSchedule(forgingData: EpochForgingData,
+                                winningSlots: Map[ConsensusSlotNumber, EligibleForgingCandidate],
+                                failedSlots: Set[ConsensusSlotNumber] = Set()) {
+
+  def epochNumber: ConsensusEpochNumber = forgingData.epochNumber
+
+  def isEvaluated(slot: ConsensusSlotNumber): Boolean = !failedSlots.contains(slot)
+
+  // Schedule can be used only if the lottery was run with the same nonce, total stake and owned forger boxes.
+  def isValidFor(data: EpochForgingData): Boolean = {
+    forgingData.epochNumber == data.epochNumber &&
+      forgingData.totalStake == data.totalStake &&
+      JArrays.equals(forgingData.nonceConsensusEpochInfo.consensusNonce, data.nonceConsensusEpochInfo.consensusNonce) &&
+      forgingData.forgerBoxIds == data.forgerBoxIds
+  }
+
+  // Winning slots after the given one, in increasing order.
+  def upcomingSlots(after: ConsensusEpochAndSlot): Seq[ConsensusEpochAndSlot] = {
+    winningSlots.keys.toSeq
+      .map(slot => ConsensusEpochAndSlot(epochNumber, slot))
+      .filter(_ > after)
+      .sortWith(_ < _)
+  }
+}
@@ -1,5 +1,7 @@
 package com.horizen.forge
 
+import java.util.concurrent.{Executors, ThreadFactory, TimeUnit}
+
 import com.horizen.block._
 import com.horizen.box.{ForgerBox, NoncedBox}
 import com.horizen.chain.{MainchainHeaderHash, SidechainBlockInfo}
@@ -15,18 +17,43 @@ import com.horizen.{SidechainHistory, SidechainMemoryPool, SidechainState, Sidec
 import scorex.core.NodeViewHolder.ReceivableMessages.GetDataFromCurrentView
 import scorex.util.{ModifierId, ScorexLogging}
 import com.horizen.chain._
-import com.horizen.vrf.VrfOutput
 
+import scala.collection.concurrent.TrieMap
+import scala.concurrent.{ExecutionContext, ExecutionContextExecutorService, Future}
+import scala.concurrent.duration.FiniteDuration
 import scala.util.{Failure, Success, Try}
 
 class ForgeMessageBuilder(mainchainSynchronizer: MainchainSynchronizer,
                           companion: SidechainTransactionsCompanion,
                           val params: NetworkParams,
-                          allowNoWebsocketConnectionInRegtest: Boolean) extends ScorexLogging with TimeToEpochSlotConverter {
+                          allowNoWebsocketConnectionInRegtest: Boolean,
+                          vrfProvingThreads: Int = ForgeMessageBuilder.DEFAULT_VRF_PROVING_THREADS) extends ScorexLogging with TimeToEpochSlotConverter {
   type ForgeMessageType = GetDataFromCurrentView[SidechainHistory, SidechainState, SidechainWallet, SidechainMemoryPool, ForgeResult]
+  type EpochForgingDataMessageType = GetDataFromCurrentView[SidechainHistory, SidechainState, SidechainWallet, SidechainMemoryPool, Try[EpochForgingData]]
+
+  private val vrfProver: ForgerVrfProver = new ForgerVrfProver(vrfProvingThreads)
+  // Eligibility for the slot must be known well before the slot ends, so that there is still time to build and broadcast the block.
+  private val vrfProvingTimeout: FiniteDuration = FiniteDuration(params.consensusSecondsInSlot * 1000L / 2, TimeUnit.MILLISECONDS)
+
+  // VRF lottery results precomputed for the whole consensus epochs: the current and the next one at most.
+  private val forgingSchedules: TrieMap[ConsensusEpochNumber, EpochForgingSchedule] = TrieMap()
+  // Schedules are precomputed on a dedicated thread, which waits for the VRF prover, so no shared pool thread is blocked.
+  private val scheduleExecutionContext: ExecutionContextExecutorService = ExecutionContext.fromExecutorService(
+    Executors.newSingleThreadExecutor(new ThreadFactory {
+      override def newThread(r: Runnable): Thread = {
+        val thread = new Thread(r, "forger-schedule")
+        thread.setDaemon(true)
+        thread
+      }
+    }))
 
   case class BranchPointInfo(branchPointId: ModifierId, referenceDataToInclude: Seq[MainchainHeaderHash], headersToInclude: Seq[MainchainHeaderHash])
 
+  def stop(): Unit = {
+    scheduleExecutionContext.shutdownNow()
+    vrfProver.shutdown()
+  }
+
   def buildForgeMessageForEpochAndSlot(consensusEpochNumber: ConsensusEpochNumber, consensusSlotNumber: ConsensusSlotNumber): ForgeMessageType = {
       val forgingFunctionForEpochAndSlot: View => ForgeResult = tryToForgeNextBlock(consensusEpochNumber, consensusSlotNumber)
 
@@ -36,6 +63,62 @@ class ForgeMessageBuilder(mainchainSynchronizer: MainchainSynchronizer,
       forgeMessage
   }
 
+  def buildEpochForgingDataMessage(consensusEpochNumber: ConsensusEpochNumber): EpochForgingDataMessageType = {
+    GetDataFromCurrentView[SidechainHistory, SidechainState, SidechainWallet, SidechainMemoryPool, Try[EpochForgingData]](getEpochForgingData(consensusEpochNumber))
+  }
+
+  // Run the VRF lottery for every slot of the epoch in background and keep the result till the epoch ends.
+  // Slot the lottery failed for is logged and left to be evaluated at forging, the rest of the schedule is kept.
+  def precomputeForgingSchedule(forgingData: EpochForgingData): Future[EpochForgingSchedule] = Future {
+    val slotResults: Seq[(ConsensusSlotNumber, Try[Option[EligibleForgingCandidate]])] = (1 to params.consensusSlotsInEpoch)
+      .map(slot => intToConsensusSlotNumber(slot))
+      .map(slot => {
+        val vrfMessage = buildVrfMessage(slot, forgingData.nonceConsensusEpochInfo)
+        slot -> Try(vrfProver.findFirstEligible(forgingData.candidates, vrfMessage, forgingData.totalStake, vrfProvingTimeout))
+      })
+
+    val winningSlots = slotResults.collect { case (slot, Success(Some(eligible))) => slot -> eligible }.toMap
+    val failedSlots = slotResults.collect { case (slot, Failure(ex)) =>
+      log.warn(s"VRF lottery for epoch ${forgingData.epochNumber} slot $slot was not run in advance: ${ex.getMessage}")
+      slot
+    }.toSet
+
+    val schedule = EpochForgingSchedule(forgingData, winningSlots, failedSlots)
+    forgingSchedules.put(forgingData.epochNumber, schedule)
+    forgingSchedules.keys.filter(_ < forgingData.epochNumber - 1).foreach(forgingSchedules.remove)
+    log.info(s"Forging schedule for epoch ${forgingData.epochNumber} was precomputed: ${winningSlots.size} winning slots found, ${failedSlots.size} slots failed.")
+    schedule
+  }(scheduleExecutionContext)
+
+  def hasForgingScheduleFor(epochNumber: ConsensusEpochNumber): Boolean = forgingSchedules.contains(epochNumber)
+
+  def getUpcomingForgingSlots(after: ConsensusEpochAndSlot): Seq[ConsensusEpochAndSlot] = {
+    forgingSchedules.values.toSeq.sortBy(_.epochNumber).flatMap(_.upcomingSlots(after))
+  }
+
+  private def getEpochForgingData(consensusEpochNumber: ConsensusEpochNumber)(nodeView: View): Try[EpochForgingData] = Try {
+    val bestBlockId = nodeView.history.bestBlockId
+    val bestBlockEpochNumber = timeStampToEpochNumber(nodeView.history.bestBlockInfo.timestamp)
+    if (bestBlockEpochNumber > consensusEpochNumber)
+      throw new IllegalArgumentException(s"Forging data can't be retrieved for epoch $consensusEpochNumber which is before the best block epoch $bestBlockEpochNumber")
+
+    // Consensus epoch info depends only on the epoch of the timestamp, so take the one of the first slot.
+    val epochTimestamp = getTimeStampForEpochAndSlot(consensusEpochNumber, intToConsensusSlotNumber(1))
+    val consensusInfo: FullConsensusEpochInfo = nodeView.history.getFullConsensusEpochInfoForBlock(epochTimestamp, bestBlockId)
+
+    EpochForgingData(consensusEpochNumber, consensusInfo.nonceConsensusEpochInfo, consensusInfo.stakeConsensusEpochInfo.totalStake,
+      getForgingCandidates(nodeView.vault, consensusEpochNumber))
+  }
+
+  // Get ForgerBoxes and MerklePaths from wallet and order them by stake decreasing.
+  // Secrets are retrieved here, because the wallet must not be accessed outside the NodeViewHolder thread.
+  private def getForgingCandidates(wallet: SidechainWallet, consensusEpochNumber: ConsensusEpochNumber): IndexedSeq[ForgingCandidate] = {
+    wallet.getForgerBoxMerklePathInfoOpt(consensusEpochNumber).getOrElse(Seq())
+      .sortWith(_.forgerBox.value() > _.forgerBox.value())
+      .flatMap(d => getForgingCandidate(wallet, d.forgerBox, d.merklePath))
+      .toIndexedSeq
+  }
+
   protected def tryToForgeNextBlock(nextConsensusEpochNumber: ConsensusEpochNumber, nextConsensusSlotNumber: ConsensusSlotNumber)(nodeView: View): ForgeResult = Try {
     log.info(s"Try to forge block for epoch $nextConsensusEpochNumber with slot $nextConsensusSlotNumber")
 
@@ -54,24 +137,20 @@ class ForgeMessageBuilder(mainchainSynchronizer: MainchainSynchronizer,
     val totalStake = consensusInfo.stakeConsensusEpochInfo.totalStake
     val vrfMessage = buildVrfMessage(nextConsensusSlotNumber, consensusInfo.nonceConsensusEpochInfo)
 
-    val sidechainWallet = nodeView.vault
-
-    // Get ForgerBoxes and MerklePaths from wallet and order them by stake decreasing.
-    val forgerBoxMerklePathInfoSeq: Seq[(ForgerBox, MerklePath)]
-    = sidechainWallet.getForgerBoxMerklePathInfoOpt(nextConsensusEpochNumber).getOrElse(Seq())
-      .sortWith(_.forgerBox.value() > _.forgerBox.value())
-      .map(d => (d.forgerBox, d.merklePath))
-
-    val ownedForgingDataView: Seq[(ForgerBox, MerklePath, PrivateKey25519, VrfProof, VrfOutput)]
-    = forgerBoxMerklePathInfoSeq.view.flatMap{case (forgerBox, merklePath) => getSecretsAndProof(sidechainWallet, vrfMessage, forgerBox, merklePath)}
-
-    val eligibleForgingDataView: Seq[(ForgerBox, MerklePath, PrivateKey25519, VrfProof, VrfOutput)] =
-      ownedForgingDataView.filter{case(forgerBox, merklePath, privateKey25519, vrfProof, vrfOutput) => vrfProofCheckAgainstStake(vrfOutput, forgerBox.value(), totalStake)}
+    val forgingData = EpochForgingData(nextConsensusEpochNumber, consensusInfo.nonceConsensusEpochInfo, totalStake,
+      getForgingCandidates(nodeView.vault, nextConsensusEpochNumber))
 
-    val eligibleForgerOpt = eligibleForgingDataView.headOption //force all forging related calculations
+    val eligibleForgerOpt: Option[EligibleForgingCandidate] = forgingSchedules.get(nextConsensusEpochNumber)
+      .filter(schedule => schedule.isValidFor(forgingData) && schedule.isEvaluated(nextConsensusSlotNumber)) match {
+      // VRF lottery for the slot was already run in advance.
+      case Some(schedule) => schedule.winningSlots.get(nextConsensusSlotNumber)
+      // Forging runs on the NodeViewHolder thread, which must not wait for the prover threads: evaluate VRF proofs
+      // sequentially, stopping as soon as the highest stake eligible forger box is found or the proving time is over.
+      case None => vrfProver.findFirstEligibleSequentially(forgingData.candidates, vrfMessage, totalStake, vrfProvingTimeout.fromNow)
+    }
 
     val forgingResult = eligibleForgerOpt
-      .map{case (forgerBox, merklePath, privateKey25519, vrfProof, vrfOutput) =>
+      .map{case EligibleForgingCandidate(ForgingCandidate(forgerBox, merklePath, privateKey25519, _), vrfProof, _) =>
         forgeBlock(nodeView, nextBlockTimestamp, branchPointInfo, forgerBox, merklePath, privateKey25519, vrfProof)}
       .getOrElse(SkipSlot)
 
@@ -86,16 +165,11 @@ class ForgeMessageBuilder(mainchainSynchronizer: MainchainSynchronizer,
     }
   }
 
-  private def getSecretsAndProof(wallet: SidechainWallet, vrfMessage: VrfMessage, forgerBox: ForgerBox, merklePath: MerklePath): Option[(ForgerBox, MerklePath, PrivateKey25519, VrfProof, VrfOutput)] = {
+  private def getForgingCandidate(wallet: SidechainWallet, forgerBox: ForgerBox, merklePath: MerklePath): Option[ForgingCandidate] = {
     for {
       rewardPrivateKey <- wallet.secret(forgerBox.blockSignProposition()).asInstanceOf[Option[PrivateKey25519]]
       vrfSecret <- wallet.secret(forgerBox.vrfPubKey()).asInstanceOf[Option[VrfSecretKey]]
-      vrfProofAndHash <- Some(vrfSecret.prove(vrfMessage))
-    } yield {
-      val vrfProof = vrfProofAndHash.getKey
-      val vrfOutput = vrfProofAndHash.getValue
-      (forgerBox, merklePath, rewardPrivateKey, vrfProof, vrfOutput)
-    }
+    } yield ForgingCandidate(forgerBox, merklePath, rewardPrivateKey, vrfSecret)
   }
 
   private def checkNextEpochAndSlot(parentBlockTimestamp: Long,
@@ -251,6 +325,6 @@ class ForgeMessageBuilder(mainchainSynchronizer: MainchainSynchronizer,
   }
 }
 
-
-
-
+object ForgeMessageBuilder {
+  val DEFAULT_VRF_PROVING_THREADS: Int = Runtime.getRuntime.availableProcessors()
+}
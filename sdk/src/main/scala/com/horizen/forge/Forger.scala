@@ -4,29 +4,32 @@ import java.time.Instant
 import java.util.{Timer, TimerTask}
 
 import akka.actor.{Actor, ActorRef, ActorSystem, Props}
-import akka.pattern.ask
+import akka.pattern.{ask, pipe}
 import akka.util.Timeout
 import com.horizen._
 import com.horizen.block.SidechainBlock
 import com.horizen.companion.SidechainTransactionsCompanion
-import com.horizen.consensus.{ConsensusEpochAndSlot, ConsensusEpochNumber, ConsensusSlotNumber, TimeToEpochSlotConverter}
-import com.horizen.forge.Forger.ReceivableMessages.{GetForgingInfo, StartForging, StopForging, TryForgeNextBlockForEpochAndSlot}
+import com.horizen.consensus.{ConsensusDataProvider, ConsensusEpochAndSlot, ConsensusEpochNumber, ConsensusSlotNumber, TimeToEpochSlotConverter, intToConsensusEpochNumber}
+import com.horizen.forge.Forger.ForgingSchedulePrecomputed
+import com.horizen.forge.Forger.ReceivableMessages.{GetForgingInfo, PrecomputeForgingSchedule, StartForging, StopForging, TryForgeNextBlockForEpochAndSlot}
 import com.horizen.params.NetworkParams
 import scorex.core.NodeViewHolder.ReceivableMessages
 import scorex.core.NodeViewHolder.ReceivableMessages.LocallyGeneratedModifier
+import scorex.core.network.NodeViewSynchronizer.ReceivableMessages.SemanticallySuccessfulModifier
 import scorex.util.ScorexLogging
 
 import scala.concurrent.ExecutionContext.Implicits.global
 import scala.concurrent.Future
 import scala.concurrent.duration.FiniteDuration
-import scala.util.{Failure, Success}
+import scala.util.{Failure, Success, Try}
 
 class Forger(settings: SidechainSettings,
              viewHolderRef: ActorRef,
              mainchainSynchronizer: MainchainSynchronizer,
              companion: SidechainTransactionsCompanion,
              val params: NetworkParams) extends Actor with ScorexLogging with TimeToEpochSlotConverter {
-  val forgeMessageBuilder: ForgeMessageBuilder = new ForgeMessageBuilder(mainchainSynchronizer, companion, params, settings.websocket.allowNoConnectionInRegtest)
+  val forgeMessageBuilder: ForgeMessageBuilder = new ForgeMessageBuilder(mainchainSynchronizer, companion, params,
+    settings.websocket.allowNoConnectionInRegtest, settings.forger.vrfProvingThreads)
   val timeoutDuration: FiniteDuration = settings.scorexSettings.restApi.timeout
   implicit val timeout: Timeout = Timeout(timeoutDuration)
 
@@ -34,6 +37,10 @@ class Forger(settings: SidechainSettings,
   private val consensusMillisecondsInSlot: Int = params.consensusSecondsInSlot * 1000
   private def forgingInitiatorTimerTask: TimerTask = new TimerTask {override def run(): Unit = tryToCreateBlockNow()}
   private var timerOpt: Option[Timer] = None
+  // Epoch for which the forging schedule is being precomputed at the moment.
+  private var precomputingEpochOpt: Option[ConsensusEpochNumber] = None
+  // Nonce of the next epoch depends only on the blocks up to the end of this slots range.
+  private val nonceEligibleSlotsRangeEnd: Int = ConsensusDataProvider.nonceEligibleSlotsRange(params)._2
 
   private def startTimer(): Unit = {
     this.timerOpt match {
@@ -58,10 +65,23 @@ class Forger(settings: SidechainSettings,
     }
   }
 
+  override def preStart(): Unit = {
+    context.system.eventStream.subscribe(self, classOf[SemanticallySuccessfulModifier[SidechainBlock]])
+  }
+
+  override def postStop(): Unit = {
+    stopTimer()
+    forgeMessageBuilder.stop()
+    super.postStop()
+  }
+
   override def receive: Receive = {
     processStartForgingMessage orElse
     processStopForgingMessage orElse
     processTryForgeNextBlockForEpochAndSlotMessage orElse
+    processPrecomputeForgingScheduleMessage orElse
+    processForgingSchedulePrecomputedMessage orElse
+    processSemanticallySuccessfulModifier orElse
     processGetForgeInfo orElse {
       case message: Any => log.error(s"Forger received strange message: ${message} from ${sender().path.name}")
     }
@@ -71,6 +91,7 @@ class Forger(settings: SidechainSettings,
     case StartForging => {
       log.info("Receive StartForging message")
       startTimer()
+      self ! PrecomputeForgingSchedule(timeStampToEpochNumber(Instant.now.getEpochSecond))
       sender() ! Success()
     }
   }
@@ -94,6 +115,49 @@ class Forger(settings: SidechainSettings,
     tryToCreateBlockForEpochAndSlot(epochAndSlot.epochNumber, epochAndSlot.slotNumber, None)
   }
 
+  protected def processPrecomputeForgingScheduleMessage: Receive = {
+    case PrecomputeForgingSchedule(epochNumber) => precomputeForgingSchedule(epochNumber)
+  }
+
+  protected def processForgingSchedulePrecomputedMessage: Receive = {
+    case ForgingSchedulePrecomputed(epochNumber) =>
+      if (precomputingEpochOpt.contains(epochNumber))
+        precomputingEpochOpt = None
+  }
+
+  // Schedule of the next epoch is precomputed as soon as the applied block fixes the next epoch nonce.
+  // Schedule of the current epoch is precomputed on forging start or on the first block seen in the epoch.
+  protected def processSemanticallySuccessfulModifier: Receive = {
+    case SemanticallySuccessfulModifier(block: SidechainBlock) =>
+      if (timerOpt.isDefined) {
+        val blockEpochAndSlot = timestampToEpochAndSlot(block.timestamp)
+        val currentEpochNumber = timeStampToEpochNumber(Instant.now.getEpochSecond)
+        if (blockEpochAndSlot.epochNumber == currentEpochNumber)
+          self ! PrecomputeForgingSchedule(blockEpochAndSlot.epochNumber)
+        if (blockEpochAndSlot.slotNumber > nonceEligibleSlotsRangeEnd && blockEpochAndSlot.epochNumber + 1 >= currentEpochNumber)
+          self ! PrecomputeForgingSchedule(intToConsensusEpochNumber(blockEpochAndSlot.epochNumber + 1))
+      }
+  }
+
+  // Run VRF lottery for all the slots of the epoch in advance, so forging at the slot boundary reduces to the block assembling.
+  // Schedule is computed once per epoch: forging falls back to proving on demand, if the nonce or owned forger boxes were changed since.
+  // Completion is reported back to the actor, so the precomputation state is changed by the actor thread only.
+  protected def precomputeForgingSchedule(epochNumber: ConsensusEpochNumber): Unit = {
+    if (precomputingEpochOpt.isEmpty && !forgeMessageBuilder.hasForgingScheduleFor(epochNumber)) {
+      precomputingEpochOpt = Some(epochNumber)
+      val forgingDataAsFuture = (viewHolderRef ? forgeMessageBuilder.buildEpochForgingDataMessage(epochNumber)).asInstanceOf[Future[Try[EpochForgingData]]]
+      forgingDataAsFuture.flatMap {
+        case Success(forgingData) =>
+          forgeMessageBuilder.precomputeForgingSchedule(forgingData).map(_ => ())
+        case Failure(ex) =>
+          log.debug(s"Forging schedule for epoch $epochNumber can't be precomputed: ${ex.getMessage}")
+          Future.successful(())
+      }.recover {
+        case ex => log.error(s"Failed to precompute forging schedule for epoch $epochNumber", ex)
+      }.map(_ => ForgingSchedulePrecomputed(epochNumber)).pipeTo(self)
+    }
+  }
+
   protected def tryToCreateBlockForEpochAndSlot(epochNumber: ConsensusEpochNumber, slot: ConsensusSlotNumber, respondsToOpt: Option[ActorRef]): Unit = {
     val forgeMessage: ForgeMessageBuilder#ForgeMessageType = forgeMessageBuilder.buildForgeMessageForEpochAndSlot(epochNumber, slot)
     val forgedBlockAsFuture = (viewHolderRef ? forgeMessage).asInstanceOf[Future[ForgeResult]]
@@ -130,7 +194,9 @@ class Forger(settings: SidechainSettings,
       val epochAndSlotFut = (viewHolderRef ? getInfoMessage).asInstanceOf[Future[ConsensusEpochAndSlot]]
       epochAndSlotFut.onComplete{
         case Success(epochAndSlot: ConsensusEpochAndSlot) => {
-          forgerInfoRequester ! Success(ForgingInfo(params.consensusSecondsInSlot, params.consensusSlotsInEpoch, epochAndSlot))
+          val currentEpochAndSlot = timestampToEpochAndSlot(Instant.now.getEpochSecond)
+          forgerInfoRequester ! Success(ForgingInfo(params.consensusSecondsInSlot, params.consensusSlotsInEpoch, epochAndSlot,
+            forgeMessageBuilder.getUpcomingForgingSlots(currentEpochAndSlot)))
         }
         case failure @ Failure(ex) => {
           forgerInfoRequester ! failure
@@ -146,11 +212,15 @@ class Forger(settings: SidechainSettings,
 }
 
 object Forger extends ScorexLogging {
+  // Sent by the forger to itself, when the schedule precomputation is over, either successfully or not.
+  private[forge] case class ForgingSchedulePrecomputed(consensusEpochNumber: ConsensusEpochNumber)
+
   object ReceivableMessages {
     case object StartForging
     case object StopForging
     case class  TryForgeNextBlockForEpochAndSlot(consensusEpochNumber: ConsensusEpochNumber, consensusSlotNumber: ConsensusSlotNumber)
     case object GetForgingInfo
+    case class  PrecomputeForgingSchedule(consensusEpochNumber: ConsensusEpochNumber)
   }
 }
 
@@ -0,0 +1,111 @@
+package com.horizen.forge
+
+import java.util.concurrent.atomic.{AtomicInteger, AtomicReferenceArray}
+import java.util.concurrent.{ConcurrentHashMap, ExecutorService, Executors, ThreadFactory, TimeUnit, TimeoutException}
+import java.util.function.{Function => JFunction}
+
+import com.horizen.box.ForgerBox
+import com.horizen.consensus._
+import com.horizen.proof.VrfProof
+import com.horizen.proposition.VrfPublicKey
+import com.horizen.secret.{PrivateKey25519, VrfSecretKey}
+import com.horizen.utils.{MerklePath, Pair => JPair}
+import com.horizen.vrf.VrfOutput
+import scorex.util.ScorexLogging
+
+import scala.collection.mutable
+import scala.concurrent.duration.{Deadline, FiniteDuration}
+import scala.concurrent.{Await, ExecutionContext, ExecutionContextExecutorService, Future}
+
+
+case class ForgingCandidate(forgerBox: ForgerBox, merklePath: MerklePath, blockSignPrivateKey: PrivateKey25519, vrfSecret: VrfSecretKey)
+
+case class EligibleForgingCandidate(candidate: ForgingCandidate, vrfProof: VrfProof, vrfOutput: VrfOutput)
+
+// Evaluates VRF proofs of the owned forger boxes on a dedicated thread pool, or sequentially on the calling thread,
+// if the caller must not wait for the other threads.
+// Candidates are expected to be ordered by stake decreasing, so the first eligible candidate is the highest-stake one.
+// Workers take candidates in order and stop as soon as a preceding candidate has been found eligible.
+class ForgerVrfProver(threadsNumber: Int) extends ScorexLogging {
+  require(threadsNumber > 0, "VRF proving threads number must be positive.")
+
+  private val executorService: ExecutorService = Executors.newFixedThreadPool(threadsNumber, new ThreadFactory {
+    private val threadsCounter = new AtomicInteger(0)
+    override def newThread(r: Runnable): Thread = {
+      val thread = new Thread(r, s"forger-vrf-prover-${threadsCounter.incrementAndGet()}")
+      thread.setDaemon(true)
+      thread
+    }
+  })
+
+  private implicit val executionContext: ExecutionContextExecutorService = ExecutionContext.fromExecutorService(executorService)
+
+  def findFirstEligible(candidates: IndexedSeq[ForgingCandidate],
+                        vrfMessage: VrfMessage,
+                        totalStake: Long,
+                        timeout: FiniteDuration): Option[EligibleForgingCandidate] = {
+    if (candidates.isEmpty)
+      return None
+
+    val results = new AtomicReferenceArray[EligibleForgingCandidate](candidates.size)
+    val nextCandidateIndex = new AtomicInteger(0)
+    val firstEligibleIndex = new AtomicInteger(Int.MaxValue)
+    // Several forger boxes may be delegated to the same VRF key: VRF output doesn't depend on the box, so prove once per key.
+    val vrfProofs = new ConcurrentHashMap[VrfPublicKey, JPair[VrfProof, VrfOutput]]()
+
+    def worker(): Unit = {
+      var index = nextCandidateIndex.getAndIncrement()
+      // Candidates are taken in increasing order, so all the candidates before the first eligible one are always evaluated.
+      while (index < candidates.size && index < firstEligibleIndex.get()) {
+        val candidate = candidates(index)
+        val vrfProofAndOutput = vrfProofs.computeIfAbsent(candidate.forgerBox.vrfPubKey(), new JFunction[VrfPublicKey, JPair[VrfProof, VrfOutput]] {
+          override def apply(key: VrfPublicKey): JPair[VrfProof, VrfOutput] = candidate.vrfSecret.prove(vrfMessage)
+        })
+
+        if (vrfProofCheckAgainstStake(vrfProofAndOutput.getValue, candidate.forgerBox.value(), totalStake)) {
+          results.set(index, EligibleForgingCandidate(candidate, vrfProofAndOutput.getKey, vrfProofAndOutput.getValue))
+          var currentFirstIndex = firstEligibleIndex.get()
+          while (index < currentFirstIndex && !firstEligibleIndex.compareAndSet(currentFirstIndex, index))
+            currentFirstIndex = firstEligibleIndex.get()
+        }
+        index = nextCandidateIndex.getAndIncrement()
+      }
+    }
+
+    val workers = (1 to Math.min(threadsNumber, candidates.size)).map(_ => Future(worker()))
+    try {
+      Await.result(Future.sequence(workers), timeout)
+    } finally {
+      // In case of timeout or proving failure prevent the workers from taking the rest of candidates.
+      nextCandidateIndex.set(candidates.size)
+    }
+
+    val firstIndex = firstEligibleIndex.get()
+    if (firstIndex == Int.MaxValue)
+      None
+    else
+      Some(results.get(firstIndex))
+  }
+
+  // Prove the candidates one by one till the first eligible one. Proving stops with TimeoutException,
+  // if the deadline is passed before the first eligible candidate is found.
+  def findFirstEligibleSequentially(candidates: IndexedSeq[ForgingCandidate],
+                                    vrfMessage: VrfMessage,
+                                    totalStake: Long,
+                                    deadline: Deadline): Option[EligibleForgingCandidate] = {
+    val vrfProofs = new mutable.HashMap[VrfPublicKey, JPair[VrfProof, VrfOutput]]()
+
+    candidates.view.map(candidate => {
+      if (deadline.isOverdue())
+        throw new TimeoutException("VRF proving deadline is passed.")
+      val vrfProofAndOutput = vrfProofs.getOrElseUpdate(candidate.forgerBox.vrfPubKey(), candidate.vrfSecret.prove(vrfMessage))
+      EligibleForgingCandidate(candidate, vrfProofAndOutput.getKey, vrfProofAndOutput.getValue)
+    }).find(eligible => vrfProofCheckAgainstStake(eligible.vrfOutput, eligible.candidate.forgerBox.value(), totalStake))
+  }
+
+  def shutdown(): Unit = {
+    executionContext.shutdownNow()
+    if (!executionContext.awaitTermination(1, TimeUnit.SECONDS))
+      log.warn("VRF proving threads were not terminated in time.")
+  }
+}
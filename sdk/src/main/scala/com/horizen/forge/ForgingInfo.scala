@@ -3,4 +3,5 @@ package com.horizen.forge
 import com.horizen.consensus.ConsensusEpochAndSlot
 
 case class ForgingInfo(consensusSecondsInSlot: Int, consensusSlotsInEpoch: Int,
-                       currentBestEpochAndSlot: ConsensusEpochAndSlot)
+                       currentBestEpochAndSlot: ConsensusEpochAndSlot,
+                       upcomingForgingSlots: Seq[ConsensusEpochAndSlot] = Seq())
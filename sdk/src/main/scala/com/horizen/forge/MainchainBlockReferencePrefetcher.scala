@@ -0,0 +1,82 @@
+package com.horizen.forge
+
+import java.util.concurrent.{Executors, ThreadFactory}
+
+import com.horizen.block.MainchainBlockReference
+import com.horizen.chain.{MainchainHeaderHash, byteArrayToMainchainHeaderHash}
+import com.horizen.params.NetworkParams
+import com.horizen.utils.{BytesUtils, LruCache}
+import com.horizen.websocket.{MainchainNodeChannel, OnUpdateTipEventHandler, OnUpdateTipEventPayload}
+import scorex.util.ScorexLogging
+
+import scala.concurrent.{ExecutionContext, Future}
+import scala.util.{Failure, Success, Try}
+
+// Keeps MainchainBlockReferences of the most recent MC blocks parsed and ready for the block assembly.
+// On every new MC tip the tip block is taken from the event itself, then its ancestors are fetched in background
+// up to `prefetchDepth` blocks or until an already cached one is met (MC fork case included).
+class MainchainBlockReferencePrefetcher(mainchainNodeChannel: MainchainNodeChannel,
+                                        params: NetworkParams,
+                                        cacheSize: Int = MainchainBlockReferencePrefetcher.DEFAULT_CACHE_SIZE,
+                                        prefetchDepth: Int = MainchainBlockReferencePrefetcher.DEFAULT_PREFETCH_DEPTH)
+  extends OnUpdateTipEventHandler with ScorexLogging {
+  require(cacheSize > 0, "Cache size must be positive.")
+  require(prefetchDepth >= 0 && prefetchDepth < cacheSize, "Prefetch depth must be non negative and less than cache size.")
+
+  private val references: LruCache[MainchainHeaderHash, MainchainBlockReference] = new LruCache[MainchainHeaderHash, MainchainBlockReference](cacheSize)
+
+  override def onEvent(eventPayload: OnUpdateTipEventPayload): Unit = {
+    // Don't block the websocket client thread. Tip events are processed one by one by the prefetching thread,
+    // to not to request the same ancestors several times.
+    implicit val executionContext: ExecutionContext = MainchainBlockReferencePrefetcher.prefetchExecutionContext
+    Future {
+      prefetch(eventPayload)
+    }.failed.foreach(ex => log.warn(s"Failed to prefetch MainchainBlockReferences for the MC tip ${eventPayload.hash}: ${ex.getMessage}"))
+  }
+
+  def getReference(hash: MainchainHeaderHash): Option[MainchainBlockReference] = references.synchronized {
+    Option(references.get(hash))
+  }
+
+  private def addReference(reference: MainchainBlockReference): Unit = references.synchronized {
+    references.put(byteArrayToMainchainHeaderHash(reference.header.hash), reference)
+  }
+
+  private[forge] def prefetch(eventPayload: OnUpdateTipEventPayload): Unit = {
+    val tipHash = byteArrayToMainchainHeaderHash(BytesUtils.fromHexString(eventPayload.hash))
+    if (getReference(tipHash).isDefined)
+      return
+
+    // Tip block data is a part of the event, so no need to request it.
+    val tipReference: MainchainBlockReference = Try(BytesUtils.fromHexString(eventPayload.block))
+      .flatMap(blockBytes => MainchainBlockReference.create(blockBytes, params)) match {
+      case Success(reference) => reference
+      case Failure(_) => mainchainNodeChannel.getBlockByHash(eventPayload.hash).get
+    }
+    addReference(tipReference)
+
+    var parentHash = byteArrayToMainchainHeaderHash(tipReference.header.hashPrevBlock)
+    var depth = 0
+    while (depth < prefetchDepth && getReference(parentHash).isEmpty) {
+      val parentReference = mainchainNodeChannel.getBlockByHash(BytesUtils.toHexString(parentHash.data)).get
+      addReference(parentReference)
+      parentHash = byteArrayToMainchainHeaderHash(parentReference.header.hashPrevBlock)
+      depth += 1
+    }
+  }
+}
+
+object MainchainBlockReferencePrefetcher {
+  val DEFAULT_CACHE_SIZE: Int = MainchainSynchronizer.MAX_BLOCKS_REQUEST
+  val DEFAULT_PREFETCH_DEPTH: Int = 10
+
+  // Prefetching waits for the MC node responses, so it runs on a dedicated thread instead of the shared pool.
+  private lazy val prefetchExecutionContext: ExecutionContext = ExecutionContext.fromExecutorService(
+    Executors.newSingleThreadExecutor(new ThreadFactory {
+      override def newThread(r: Runnable): Thread = {
+        val thread = new Thread(r, "mainchain-references-prefetcher")
+        thread.setDaemon(true)
+        thread
+      }
+    }))
+}
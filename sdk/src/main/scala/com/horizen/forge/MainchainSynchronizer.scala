@@ -7,10 +7,10 @@ import com.horizen.utils.BytesUtils
 import com.horizen.websocket.MainchainNodeChannel
 import com.horizen.utils._
 
-import scala.collection.mutable.ListBuffer
 import scala.util.{Failure, Success, Try}
 
-class MainchainSynchronizer(mainchainNodeChannel: MainchainNodeChannel) {
+class MainchainSynchronizer(mainchainNodeChannel: MainchainNodeChannel,
+                            referencesPrefetcherOpt: Option[MainchainBlockReferencePrefetcher] = None) {
   // Get divergent mainchain suffix between SC Node and MC Node
   // Return last common header with height + divergent suffix
   def getMainchainDivergentSuffix(history: SidechainHistory, limit: Int): Try[(Int, Seq[MainchainHeaderHash])] = Try {
@@ -48,16 +48,25 @@ class MainchainSynchronizer(mainchainNodeChannel: MainchainNodeChannel) {
   }
 
   def getMainchainBlockReferences(history: SidechainHistory, hashes: Seq[MainchainHeaderHash]): Try[Seq[MainchainBlockReference]] = Try {
-    val references = ListBuffer[MainchainBlockReference]()
-    for(hash <- hashes) {
-      mainchainNodeChannel.getBlockByHash(BytesUtils.toHexString(hash.data)) match {
-        case Success(ref) =>
-          references.append(ref)
-        case Failure(ex) =>
-          throw new IllegalStateException(s"Can't retrieve MainchainBlockReference for hash $hash. Connection error.", ex)
-      }
+    // Take prefetched references if present to not to wait on the network during the block assembly.
+    val prefetchedReferences: Map[MainchainHeaderHash, MainchainBlockReference] = referencesPrefetcherOpt match {
+      case Some(prefetcher) => hashes.flatMap(hash => prefetcher.getReference(hash).map(ref => hash -> ref)).toMap
+      case None => Map()
     }
-    references
+
+    // Request all the missing references at once.
+    val missedHashes: Seq[MainchainHeaderHash] = hashes.filterNot(prefetchedReferences.contains).distinct
+    val requestedReferences: Map[MainchainHeaderHash, MainchainBlockReference] =
+      if (missedHashes.isEmpty)
+        Map()
+      else
+        mainchainNodeChannel.getBlocksByHashes(missedHashes.map(hash => BytesUtils.toHexString(hash.data))) match {
+          case Success(refs) => missedHashes.zip(refs).toMap
+          case Failure(ex) =>
+            throw new IllegalStateException(s"Can't retrieve MainchainBlockReferences for hashes ${missedHashes.mkString(", ")}. Connection error.", ex)
+        }
+
+    hashes.map(hash => prefetchedReferences.getOrElse(hash, requestedReferences(hash)))
   }
 }
 
@@ -0,0 +1,81 @@
+package com.horizen.network
+
+import com.horizen.SidechainTypes
+import com.horizen.block.{CompactSidechainBlock, CompactSidechainBlockSerializer, SidechainBlock}
+import com.horizen.box.NoncedBox
+import com.horizen.companion.SidechainTransactionsCompanion
+import com.horizen.proposition.Proposition
+import com.horizen.transaction.SidechainTransaction
+import com.horizen.utils.ListSerializer
+import scorex.core.NodeViewModifier
+import scorex.core.network.message.Message.MessageCode
+import scorex.core.network.message.MessageSpecV1
+import scorex.util.serialization.{Reader, Writer}
+import scorex.util.{ModifierId, bytesToId, idToBytes}
+
+import scala.collection.JavaConverters._
+
+// Block relayed with the short transaction ids instead of the transactions.
+class CompactSidechainBlockSpec(companion: SidechainTransactionsCompanion) extends MessageSpecV1[CompactSidechainBlock] {
+  private val serializer = new CompactSidechainBlockSerializer(companion)
+
+  override val messageCode: MessageCode = CompactSidechainBlockSpec.MessageCode
+  override val messageName: String = "CompactSidechainBlock"
+
+  override def serialize(obj: CompactSidechainBlock, w: Writer): Unit = serializer.serialize(obj, w)
+
+  override def parse(r: Reader): CompactSidechainBlock = serializer.parse(r)
+}
+
+object CompactSidechainBlockSpec {
+  val MessageCode: MessageCode = 102: Byte
+}
+
+// Request of the block transactions missed by the receiver of the compact block. Indexes are in the block order.
+case class GetSidechainBlockTransactionsData(blockId: ModifierId, indexes: Seq[Int])
+
+object GetSidechainBlockTransactionsSpec extends MessageSpecV1[GetSidechainBlockTransactionsData] {
+  override val messageCode: MessageCode = 103: Byte
+  override val messageName: String = "GetSidechainBlockTransactions"
+
+  override def serialize(obj: GetSidechainBlockTransactionsData, w: Writer): Unit = {
+    w.putBytes(idToBytes(obj.blockId))
+    w.putInt(obj.indexes.size)
+    obj.indexes.foreach(index => w.putInt(index))
+  }
+
+  override def parse(r: Reader): GetSidechainBlockTransactionsData = {
+    val blockId = bytesToId(r.getBytes(NodeViewModifier.ModifierIdSize))
+    val indexesNumber = r.getInt()
+    if (indexesNumber < 0 || indexesNumber > SidechainBlock.MAX_SIDECHAIN_TXS_NUMBER)
+      throw new IllegalArgumentException(s"Requested transactions number $indexesNumber is out of bounds.")
+    GetSidechainBlockTransactionsData(blockId, (0 until indexesNumber).map(_ => r.getInt()))
+  }
+}
+
+// Requested block transactions in the order of the request indexes.
+case class SidechainBlockTransactionsData(blockId: ModifierId, transactions: Seq[SidechainTransaction[Proposition, NoncedBox[Proposition]]])
+
+class SidechainBlockTransactionsSpec(companion: SidechainTransactionsCompanion) extends MessageSpecV1[SidechainBlockTransactionsData] {
+  private val transactionsSerializer: ListSerializer[SidechainTypes#SCBT] =
+    new ListSerializer[SidechainTypes#SCBT](companion, SidechainBlock.MAX_SIDECHAIN_TXS_NUMBER)
+
+  override val messageCode: MessageCode = SidechainBlockTransactionsSpec.MessageCode
+  override val messageName: String = "SidechainBlockTransactions"
+
+  override def serialize(obj: SidechainBlockTransactionsData, w: Writer): Unit = {
+    w.putBytes(idToBytes(obj.blockId))
+    transactionsSerializer.serialize(obj.transactions.asJava, w)
+  }
+
+  override def parse(r: Reader): SidechainBlockTransactionsData = {
+    val blockId = bytesToId(r.getBytes(NodeViewModifier.ModifierIdSize))
+    val transactions = transactionsSerializer.parse(r)
+      .asScala.map(t => t.asInstanceOf[SidechainTransaction[Proposition, NoncedBox[Proposition]]])
+    SidechainBlockTransactionsData(blockId, transactions)
+  }
+}
+
+object SidechainBlockTransactionsSpec {
+  val MessageCode: MessageCode = 104: Byte
+}
@@ -0,0 +1,55 @@
+package com.horizen.network
+
+import com.horizen.block.{SidechainBlockHeader, SidechainBlockHeaderSerializer}
+import scorex.core.NodeViewModifier
+import scorex.core.network.message.Message.MessageCode
+import scorex.core.network.message.MessageSpecV1
+import scorex.util.serialization.{Reader, Writer}
+import scorex.util.{ModifierId, bytesToId, idToBytes}
+
+// Request of the active chain headers following the first known block of the locator.
+// Locator is ordered backward from the most recent block, the same way as SidechainSyncInfo.knownBlockIds.
+case class GetSidechainBlockHeadersData(locator: Seq[ModifierId], limit: Int)
+
+object GetSidechainBlockHeadersSpec extends MessageSpecV1[GetSidechainBlockHeadersData] {
+  val MAX_LOCATOR_SIZE: Int = 1000
+
+  override val messageCode: MessageCode = 100: Byte
+  override val messageName: String = "GetSidechainBlockHeaders"
+
+  override def serialize(obj: GetSidechainBlockHeadersData, w: Writer): Unit = {
+    w.putInt(obj.locator.size)
+    obj.locator.foreach(id => w.putBytes(idToBytes(id)))
+    w.putInt(obj.limit)
+  }
+
+  override def parse(r: Reader): GetSidechainBlockHeadersData = {
+    val locatorSize = r.getInt()
+    if (locatorSize < 0 || locatorSize > MAX_LOCATOR_SIZE)
+      throw new IllegalArgumentException(s"Headers request locator size $locatorSize is out of bounds.")
+    val locator = (0 until locatorSize).map(_ => bytesToId(r.getBytes(NodeViewModifier.ModifierIdSize)))
+    val limit = r.getInt()
+    GetSidechainBlockHeadersData(locator, limit)
+  }
+}
+
+// Consecutive headers of the active chain, the answer to GetSidechainBlockHeaders.
+object SidechainBlockHeadersSpec extends MessageSpecV1[Seq[SidechainBlockHeader]] {
+  // Enough to keep the message far below the max packet size.
+  val MAX_HEADERS_NUMBER: Int = 500
+
+  override val messageCode: MessageCode = 101: Byte
+  override val messageName: String = "SidechainBlockHeaders"
+
+  override def serialize(obj: Seq[SidechainBlockHeader], w: Writer): Unit = {
+    w.putInt(obj.size)
+    obj.foreach(header => SidechainBlockHeaderSerializer.serialize(header, w))
+  }
+
+  override def parse(r: Reader): Seq[SidechainBlockHeader] = {
+    val headersNumber = r.getInt()
+    if (headersNumber < 0 || headersNumber > MAX_HEADERS_NUMBER)
+      throw new IllegalArgumentException(s"Headers number $headersNumber is out of bounds.")
+    (0 until headersNumber).map(_ => SidechainBlockHeaderSerializer.parse(r))
+  }
+}
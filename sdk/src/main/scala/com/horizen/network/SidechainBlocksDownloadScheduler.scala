@@ -0,0 +1,108 @@
+package com.horizen.network
+
+import scorex.core.network.ConnectedPeer
+import scorex.util.ModifierId
+
+import scala.collection.mutable
+
+// Plans the parallel download of the blocks, which headers are already validated by the headers-first sync.
+// Blocks are requested from several peers at once in the chain order, but not more than maxBlocksInWindow
+// are requested or received and not applied yet. So the downloaded blocks fit the NodeViewHolder modifiers cache,
+// which keeps them till their parents are applied, and the download speed is limited by the apply speed only.
+// Requests not answered in time are moved back to the queue and planned for the other peers.
+// With the peers latency known, the blocks go to the peers which are expected to deliver them first,
+// and the stalled requests are retried as soon as they are late for the peer, not after the whole request timeout.
+class SidechainBlocksDownloadScheduler(maxBlocksInWindow: Int, maxBlocksPerPeer: Int, requestTimeoutMillis: Long) {
+  require(maxBlocksInWindow > 0, "Download window size shall be positive.")
+  require(maxBlocksPerPeer > 0, "Number of blocks requested from peer shall be positive.")
+
+  private case class BlockRequest(peer: ConnectedPeer, time: Long)
+
+  // Ids to request in the chain order.
+  private val pending: mutable.LinkedHashSet[ModifierId] = mutable.LinkedHashSet()
+  // Kept in the request order, so the expired ones are requested again in the chain order.
+  private val requested: mutable.LinkedHashMap[ModifierId, BlockRequest] = mutable.LinkedHashMap()
+  // Received, but not applied yet.
+  private val received: mutable.HashSet[ModifierId] = mutable.HashSet()
+  // Expired and not processed yet.
+  private val retried: mutable.HashSet[ModifierId] = mutable.HashSet()
+
+  def pendingNumber: Int = pending.size
+
+  def windowSize: Int = requested.size + received.size
+
+  def isEmpty: Boolean = pending.isEmpty && windowSize == 0
+
+  def contains(id: ModifierId): Boolean = pending.contains(id) || requested.contains(id) || received.contains(id)
+
+  def isRetried(id: ModifierId): Boolean = retried.contains(id)
+
+  def enqueue(ids: Seq[ModifierId]): Unit = {
+    ids.foreach(id => if (!contains(id)) pending.add(id))
+  }
+
+  // Plans the next requests for the given peers. The next id is taken by the peer, which is expected to deliver it first
+  // with its requests in flight, so with the same latency the least loaded peer takes the next id first.
+  // Pending ids, which are not wanted anymore (for example, requested by the other flow), are dropped.
+  def schedule(peers: Seq[ConnectedPeer], isWanted: ModifierId => Boolean, now: Long,
+               expectedLatency: ConnectedPeer => Long = _ => 1L): Map[ConnectedPeer, Seq[ModifierId]] = {
+    val peerLoad: mutable.Map[ConnectedPeer, Int] = mutable.Map(peers.map(peer => peer -> 0): _*)
+    requested.values.foreach(request => peerLoad.get(request.peer).foreach(load => peerLoad(request.peer) = load + 1))
+
+    val planned: mutable.Map[ConnectedPeer, Seq[ModifierId]] = mutable.Map()
+    val taken = mutable.ArrayBuffer[ModifierId]()
+    val iterator = pending.iterator
+    var peersAvailable = peerLoad.nonEmpty
+    while (iterator.hasNext && peersAvailable && windowSize < maxBlocksInWindow) {
+      val id = iterator.next()
+      if (!isWanted(id)) {
+        taken += id
+      }
+      else {
+        val availablePeers = peerLoad.filter { case (_, load) => load < maxBlocksPerPeer }
+        if (availablePeers.isEmpty) {
+          peersAvailable = false
+        }
+        else {
+          val (peer, load) = availablePeers.minBy { case (availablePeer, availablePeerLoad) => (availablePeerLoad + 1) * expectedLatency(availablePeer) }
+          requested.put(id, BlockRequest(peer, now))
+          planned(peer) = planned.getOrElse(peer, Seq()) :+ id
+          peerLoad(peer) = load + 1
+          taken += id
+        }
+      }
+    }
+    pending --= taken
+    planned.toMap
+  }
+
+  def onReceived(id: ModifierId): Unit = {
+    if (requested.remove(id).isDefined)
+      received.add(id)
+  }
+
+  // Block is applied or rejected, so it leaves the window.
+  def onProcessed(id: ModifierId): Unit = {
+    pending.remove(id)
+    requested.remove(id)
+    received.remove(id)
+    retried.remove(id)
+  }
+
+  // Moves the expired requests back to the head of the queue and returns the peers which didn't answer in time.
+  // Request expires after the peer stall timeout, but not later than the request timeout.
+  def expire(now: Long, stallTimeout: ConnectedPeer => Long = _ => requestTimeoutMillis): Set[ConnectedPeer] = {
+    val expired = requested.filter { case (_, request) => now - request.time >= Math.min(requestTimeoutMillis, stallTimeout(request.peer)) }
+    if (expired.isEmpty) {
+      Set()
+    }
+    else {
+      requested --= expired.keys
+      retried ++= expired.keys
+      val rest = pending.toSeq
+      pending.clear()
+      pending ++= expired.keys.toSeq ++ rest
+      expired.values.map(_.peer).toSet
+    }
+  }
+}
@@ -1,10 +1,16 @@
 package com.horizen.network
 
+import java.net.InetSocketAddress
+
 import akka.actor.{ActorRef, ActorSystem}
+import com.horizen.block.SidechainBlock
+import scorex.core.ModifierTypeId
 import scorex.core.network.ModifiersStatus.{Received, Requested}
 import scorex.core.network.{ConnectedPeer, DeliveryTracker, ModifiersStatus}
 import scorex.util.ModifierId
 
+import scala.collection.mutable
+import scala.concurrent.ExecutionContext
 import scala.concurrent.duration.FiniteDuration
 
 class SidechainDeliveryTracker(system: ActorSystem,
@@ -13,6 +19,13 @@ class SidechainDeliveryTracker(system: ActorSystem,
                                nvsRef: ActorRef)
   extends DeliveryTracker(system, deliveryTimeout, maxDeliveryChecks, nvsRef) {
 
+  // Per peer delivery statistics: moving average of the delivery latency and the number of stalls in a row.
+  // Latency grows on every stall, so the slow peers get less requests and their requests are retried sooner.
+  private case class PeerDeliveryInfo(var latencyMillis: Double, var stalls: Int)
+
+  private val peersDeliveryInfo: mutable.HashMap[InetSocketAddress, PeerDeliveryInfo] = mutable.HashMap()
+  private val requestTimes: mutable.HashMap[ModifierId, (InetSocketAddress, Long)] = mutable.HashMap()
+
   def peerInfo(id: ModifierId): Option[ConnectedPeer] = {
     val modifierStatus: ModifiersStatus = status(id)
     modifierStatus match {
@@ -24,4 +37,72 @@ class SidechainDeliveryTracker(system: ActorSystem,
         None
     }
   }
+
+  override def setRequested(ids: Seq[ModifierId], typeId: ModifierTypeId, supplierOpt: Option[ConnectedPeer])
+                           (implicit ec: ExecutionContext): Unit = {
+    super.setRequested(ids, typeId, supplierOpt)
+    // Statistics are collected for the blocks only: the other modifiers are not always delivered,
+    // so their requests could stay recorded forever.
+    supplierOpt.filter(_ => typeId == SidechainBlock.ModifierTypeId).foreach(peer => {
+      val address = peer.connectionId.remoteAddress
+      // The same peer asked again means the previous request was not delivered in time.
+      if (ids.exists(id => requestTimes.get(id).exists(_._1 == address)))
+        onStalled(peer)
+      val now = System.currentTimeMillis()
+      ids.foreach(id => requestTimes.put(id, (address, now)))
+    })
+  }
+
+  override def setReceived(id: ModifierId, sender: ConnectedPeer): Unit = {
+    super.setReceived(id, sender)
+    val address = sender.connectionId.remoteAddress
+    requestTimes.remove(id).filter(_._1 == address).foreach { case (_, requestTime) =>
+      val info = peersDeliveryInfo.getOrElseUpdate(address, PeerDeliveryInfo(SidechainDeliveryTracker.INITIAL_LATENCY_MILLIS, 0))
+      val latency = System.currentTimeMillis() - requestTime
+      info.latencyMillis += SidechainDeliveryTracker.LATENCY_SMOOTHING * (latency - info.latencyMillis)
+      info.stalls = 0
+    }
+  }
+
+  override def setUnknown(id: ModifierId): Unit = {
+    super.setUnknown(id)
+    requestTimes.remove(id)
+  }
+
+  override def setInvalid(id: ModifierId): Option[ConnectedPeer] = {
+    requestTimes.remove(id)
+    super.setInvalid(id)
+  }
+
+  // Expected time of the modifier delivery by the peer. Unknown peers are treated optimistically to be tried out.
+  def expectedLatency(peer: ConnectedPeer): Long = {
+    peersDeliveryInfo.get(peer.connectionId.remoteAddress)
+      .map(_.latencyMillis.toLong)
+      .getOrElse(SidechainDeliveryTracker.INITIAL_LATENCY_MILLIS.toLong)
+  }
+
+  // Request to the peer is treated as stalled much earlier than the delivery timeout, if the peer is usually fast.
+  def stallTimeout(peer: ConnectedPeer): Long = {
+    val timeout = Math.max(SidechainDeliveryTracker.MIN_STALL_TIMEOUT_MILLIS, SidechainDeliveryTracker.STALL_TIMEOUT_FACTOR * expectedLatency(peer))
+    Math.min(timeout, deliveryTimeout.toMillis)
+  }
+
+  // Returns the number of stalls of the peer in a row.
+  def onStalled(peer: ConnectedPeer): Int = {
+    val info = peersDeliveryInfo.getOrElseUpdate(peer.connectionId.remoteAddress, PeerDeliveryInfo(SidechainDeliveryTracker.INITIAL_LATENCY_MILLIS, 0))
+    info.latencyMillis = Math.min(info.latencyMillis * 2, deliveryTimeout.toMillis.toDouble)
+    info.stalls += 1
+    info.stalls
+  }
+
+  def removePeer(remoteAddress: InetSocketAddress): Unit = {
+    peersDeliveryInfo.remove(remoteAddress)
+  }
+}
+
+object SidechainDeliveryTracker {
+  val INITIAL_LATENCY_MILLIS: Double = 1000
+  val LATENCY_SMOOTHING: Double = 0.2
+  val MIN_STALL_TIMEOUT_MILLIS: Long = 2000
+  val STALL_TIMEOUT_FACTOR: Long = 4
 }
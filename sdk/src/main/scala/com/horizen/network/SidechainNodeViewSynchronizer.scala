@@ -1,17 +1,32 @@
 package com.horizen.network
 
-import akka.actor.{ActorRef, ActorRefFactory, Props}
+import akka.actor.{ActorRef, ActorRefFactory, Cancellable, Props}
 import com.horizen._
-import com.horizen.block.SidechainBlock
+import com.horizen.block.{CompactSidechainBlock, SidechainBlock, SidechainBlockHeader}
+import com.horizen.box.NoncedBox
+import com.horizen.companion.SidechainTransactionsCompanion
+import com.horizen.network.SidechainNodeViewSynchronizer.ReceivableMessages.{CheckBlocksDownload, RelayTransactions}
+import com.horizen.proposition.Proposition
+import com.horizen.transaction.{BoxTransaction, SidechainTransaction}
+import com.horizen.utils.LruCache
 import com.horizen.validation.{BlockInFutureException, InconsistentDataException}
-import scorex.core.network.NodeViewSynchronizer
-import scorex.core.network.NodeViewSynchronizer.ReceivableMessages.SyntacticallyFailedModification
+import scorex.core.NodeViewHolder.ReceivableMessages.ModifiersFromRemote
+import scorex.core.network.NetworkController.ReceivableMessages.{RegisterMessageSpecs, SendToNetwork}
+import scorex.core.network.NodeViewSynchronizer.ReceivableMessages.{DataFromPeer, DisconnectedPeer, HandshakedPeer, SemanticallyFailedModification, SemanticallySuccessfulModifier, SuccessfulTransaction, SyntacticallyFailedModification}
+import scorex.core.network.message.{InvData, InvSpec, Message, MessageSpec, ModifiersData, ModifiersSpec}
+import scorex.core.network.{Broadcast, ConnectedPeer, ModifiersStatus, NodeViewSynchronizer, SendToPeer}
 import scorex.core.serialization.ScorexSerializer
 import scorex.core.settings.NetworkSettings
+import scorex.core.transaction.Transaction
 import scorex.core.utils.NetworkTimeProvider
 import scorex.core.{ModifierTypeId, NodeViewModifier}
+import scorex.util.ModifierId
 
+import scala.collection.JavaConverters._
+import scala.collection.mutable
 import scala.concurrent.ExecutionContext
+import scala.concurrent.duration._
+import scala.util.{Failure, Success}
 
 class SidechainNodeViewSynchronizer(networkControllerRef: ActorRef,
                                     viewHolderRef: ActorRef,
@@ -24,8 +39,68 @@ class SidechainNodeViewSynchronizer(networkControllerRef: ActorRef,
 
   override protected val deliveryTracker = new SidechainDeliveryTracker(context.system, deliveryTimeout, maxDeliveryChecks, self)
 
+  // Headers-first sync: the headers chain is fetched from a single peer ahead of us and validated,
+  // then the blocks are downloaded in parallel from all the peers ahead of us, see SidechainBlocksDownloadScheduler.
+  // Blocks are passed to the NodeViewHolder in the usual way, its modifiers cache reorders them for the history append.
+  private val blocksDownloadScheduler = new SidechainBlocksDownloadScheduler(
+    Math.max(1, networkSettings.maxModifiersCacheSize),
+    SidechainNodeViewSynchronizer.MAX_BLOCKS_IN_FLIGHT_PER_PEER,
+    networkSettings.deliveryTimeout.toMillis)
+  // Peers, which have the blocks we don't know.
+  private val syncPeers: mutable.LinkedHashSet[ConnectedPeer] = mutable.LinkedHashSet()
+  private var headersSyncPeerOpt: Option[ConnectedPeer] = None
+  private var headersRequestTimeOpt: Option[Long] = None
+  private var lastValidatedHeaderOpt: Option[SidechainBlockHeader] = None
+  // Periodic tasks, cancelled when the actor stops.
+  private var scheduledTasks: Seq[Cancellable] = Seq()
+  // Blocks retried from the other peers to the stalled peers, to not treat the late delivery as a spam.
+  private val retriedBlocks: LruCache[ModifierId, ConnectedPeer] = new LruCache[ModifierId, ConnectedPeer](Math.max(1, networkSettings.maxModifiersCacheSize))
+
+  // Compact blocks relay: the recent blocks are sent to the peers without the transactions, which are most likely
+  // in their memory pools already, see CompactSidechainBlock. Receiver requests the missed transactions only.
+  // Relay is enabled if the transactions companion is known to parse the messages.
+  private val transactionsCompanionOpt: Option[SidechainTransactionsCompanion] =
+    modifierSerializers.get(Transaction.ModifierTypeId).collect { case companion: SidechainTransactionsCompanion => companion }
+  private val compactBlockSpecOpt: Option[CompactSidechainBlockSpec] = transactionsCompanionOpt.map(new CompactSidechainBlockSpec(_))
+  private val blockTransactionsSpecOpt: Option[SidechainBlockTransactionsSpec] = transactionsCompanionOpt.map(new SidechainBlockTransactionsSpec(_))
+
+  private case class PartialBlock(compactBlock: CompactSidechainBlock,
+                                  transactions: IndexedSeq[Option[SidechainTransaction[Proposition, NoncedBox[Proposition]]]],
+                                  missedIndexes: Seq[Int],
+                                  peer: ConnectedPeer,
+                                  requestTime: Long)
+  // Compact blocks waiting for the missed transactions.
+  private val partialBlocks: mutable.HashMap[ModifierId, PartialBlock] = mutable.HashMap()
+
+  // Transactions are announced in batches on the relay interval instead of the immediate broadcast of each one.
+  private val transactionsRelayScheduler = new SidechainTransactionsRelayScheduler(
+    SidechainNodeViewSynchronizer.MAX_TRANSACTIONS_RELAY_QUEUE_SIZE,
+    networkSettings.maxInvObjects,
+    SidechainNodeViewSynchronizer.KNOWN_TRANSACTIONS_PER_PEER)
+
+  override def preStart(): Unit = {
+    super.preStart()
+    val compactBlockSpecs: Seq[MessageSpec[_]] =
+      if (transactionsCompanionOpt.isDefined) compactBlockSpecOpt.toSeq ++ Seq(GetSidechainBlockTransactionsSpec) ++ blockTransactionsSpecOpt
+      else Seq()
+    networkControllerRef ! RegisterMessageSpecs(Seq(GetSidechainBlockHeadersSpec, SidechainBlockHeadersSpec) ++ compactBlockSpecs, self)
+    // Checked often enough to retry the stalled requests long before the delivery timeout.
+    val blocksDownloadCheckInterval = networkSettings.deliveryTimeout.min((SidechainDeliveryTracker.MIN_STALL_TIMEOUT_MILLIS / 2).millis)
+    scheduledTasks = Seq(
+      context.system.scheduler.schedule(blocksDownloadCheckInterval, blocksDownloadCheckInterval, self, CheckBlocksDownload),
+      context.system.scheduler.schedule(SidechainNodeViewSynchronizer.TRANSACTIONS_RELAY_INTERVAL,
+        SidechainNodeViewSynchronizer.TRANSACTIONS_RELAY_INTERVAL, self, RelayTransactions))
+  }
+
+  override def postStop(): Unit = {
+    scheduledTasks.foreach(_.cancel())
+    scheduledTasks = Seq()
+    super.postStop()
+  }
+
   private val onSyntacticallyFailedModifier: Receive = {
     case SyntacticallyFailedModification(mod, exception) =>
+      blocksDownloadScheduler.onProcessed(mod.id)
       exception match {
         case _: BlockInFutureException =>
           // When next time NodeViewSynchronizer.processInv will be emitted for mod.id it will be processed again.
@@ -42,12 +117,290 @@ class SidechainNodeViewSynchronizer(networkControllerRef: ActorRef,
       }
   }
 
-  override protected def viewHolderEvents: Receive = onSyntacticallyFailedModifier orElse super.viewHolderEvents
-}
+  // Applied or rejected block frees the place in the download window, so continue the download.
+  private val onBlockProcessed: Receive = {
+    case event @ SemanticallySuccessfulModifier(mod) =>
+      blocksDownloadScheduler.onProcessed(mod.id)
+      requestBlocks()
+      mod match {
+        case block: SidechainBlock => relayCompactBlock(block)
+        case _ =>
+      }
+      super.viewHolderEvents(event)
+
+    case event @ SemanticallyFailedModification(mod, _) =>
+      blocksDownloadScheduler.onProcessed(mod.id)
+      requestBlocks()
+      super.viewHolderEvents(event)
+  }
+
+  // Accepted transaction is held as usual, but queued for the next relay instead of the immediate broadcast.
+  private val onTransactionAccepted: Receive = {
+    case SuccessfulTransaction(tx: BoxTransaction[_, _]) =>
+      deliveryTracker.setHeld(tx.id)
+      transactionsRelayScheduler.enqueue(tx.id, tx.fee())
+  }
+
+  override protected def viewHolderEvents: Receive =
+    onSyntacticallyFailedModifier orElse onBlockProcessed orElse onTransactionAccepted orElse super.viewHolderEvents
+
+  private val headersSyncEvents: Receive = {
+    case message @ DataFromPeer(spec, syncInfo: SidechainSyncInfo @unchecked, remote) if spec.messageCode == syncInfoSpec.messageCode =>
+      onSyncInfo(syncInfo, remote)
+      super.receive(message)
+
+    case DataFromPeer(spec, request: GetSidechainBlockHeadersData @unchecked, remote) if spec.messageCode == GetSidechainBlockHeadersSpec.messageCode =>
+      historyReaderOpt.foreach(history => {
+        val limit = Math.min(request.limit, SidechainBlockHeadersSpec.MAX_HEADERS_NUMBER)
+        val headers = history.blockHeadersAfter(request.locator, limit)
+        networkControllerRef ! SendToNetwork(Message(SidechainBlockHeadersSpec, Right(headers), None), SendToPeer(remote))
+      })
+
+    case DataFromPeer(spec, headers: Seq[SidechainBlockHeader] @unchecked, remote) if spec.messageCode == SidechainBlockHeadersSpec.messageCode =>
+      onHeaders(headers, remote)
+
+    case message @ DataFromPeer(spec, data: ModifiersData @unchecked, remote) if spec.messageCode == ModifiersSpec.MessageCode =>
+      data.modifiers.keys.foreach(id => blocksDownloadScheduler.onReceived(id))
+      if (data.typeId == Transaction.ModifierTypeId)
+        transactionsRelayScheduler.markKnown(remote, data.modifiers.keys.toSeq)
+      if (isLateDelivery(data, remote))
+        log.debug(s"Peer $remote delivered blocks already received from the other peers")
+      else
+        super.receive(message)
+
+    case CheckBlocksDownload =>
+      checkBlocksDownload()
+
+    case event @ DisconnectedPeer(remoteAddress) =>
+      // Disconnected peer is not asked for the blocks and the headers anymore.
+      syncPeers.retain(_.connectionId.remoteAddress != remoteAddress)
+      headersSyncPeerOpt.filter(_.connectionId.remoteAddress == remoteAddress).foreach(resetHeadersSync)
+      transactionsRelayScheduler.removePeer(remoteAddress)
+      deliveryTracker.removePeer(remoteAddress)
+      super.receive(event)
+  }
+
+  private val compactBlockEvents: Receive = {
+    case DataFromPeer(spec, compactBlock: CompactSidechainBlock @unchecked, remote) if spec.messageCode == CompactSidechainBlockSpec.MessageCode =>
+      onCompactBlock(compactBlock, remote)
+
+    case DataFromPeer(spec, request: GetSidechainBlockTransactionsData @unchecked, remote) if spec.messageCode == GetSidechainBlockTransactionsSpec.messageCode =>
+      for (history <- historyReaderOpt; transactionsSpec <- blockTransactionsSpecOpt; block <- history.modifierById(request.blockId)) {
+        val transactions = request.indexes.flatMap(index => block.sidechainTransactions.lift(index))
+        networkControllerRef ! SendToNetwork(Message(transactionsSpec, Right(SidechainBlockTransactionsData(request.blockId, transactions)), None), SendToPeer(remote))
+      }
+
+    case DataFromPeer(spec, data: SidechainBlockTransactionsData @unchecked, remote) if spec.messageCode == SidechainBlockTransactionsSpec.MessageCode =>
+      onBlockTransactions(data, remote)
+  }
+
+  private val transactionsRelayEvents: Receive = {
+    case message @ DataFromPeer(spec, invData: InvData @unchecked, remote)
+      if spec.messageCode == InvSpec.MessageCode && invData.typeId == Transaction.ModifierTypeId =>
+      transactionsRelayScheduler.markKnown(remote, invData.ids)
+      super.receive(message)
+
+    case event @ HandshakedPeer(remote) =>
+      transactionsRelayScheduler.addPeer(remote)
+      super.receive(event)
+
+    case RelayTransactions =>
+      mempoolReaderOpt.foreach(mempool => {
+        transactionsRelayScheduler.schedule(mempool.contains).foreach { case (peer, ids) =>
+          networkControllerRef ! SendToNetwork(Message(invSpec, Right(InvData(Transaction.ModifierTypeId, ids)), None), SendToPeer(peer))
+        }
+      })
+  }
+
+  override def receive: Receive = headersSyncEvents orElse compactBlockEvents orElse transactionsRelayEvents orElse super.receive
+
+  // Only the fresh blocks are relayed: the old ones are downloaded during the sync, when the memory pool can't help.
+  private def relayCompactBlock(block: SidechainBlock): Unit = {
+    for (compactBlockSpec <- compactBlockSpecOpt)
+      if (timeProvider.time() / 1000 - block.timestamp <= SidechainNodeViewSynchronizer.MAX_COMPACT_BLOCK_AGE_SECONDS)
+        networkControllerRef ! SendToNetwork(Message(compactBlockSpec, Right(CompactSidechainBlock(block, _ => false)), None), Broadcast)
+  }
 
+  private def onCompactBlock(compactBlock: CompactSidechainBlock, remote: ConnectedPeer): Unit = {
+    for (history <- historyReaderOpt; mempool <- mempoolReaderOpt) {
+      val id = compactBlock.id
+      // Blocks with the unknown parent are left for the usual sync.
+      if (!history.contains(id) && deliveryTracker.status(id) == ModifiersStatus.Unknown && history.contains(compactBlock.header.parentId)) {
+        deliveryTracker.setRequested(Seq(id), SidechainBlock.ModifierTypeId, Some(remote))
+        val transactions = compactBlock.matchTransactions(mempool.getTransactions.asScala)
+        val missedIndexes = transactions.indices.filter(index => transactions(index).isEmpty)
+        if (missedIndexes.isEmpty) {
+          completeCompactBlock(compactBlock, transactions.flatten, remote)
+        }
+        else {
+          partialBlocks.put(id, PartialBlock(compactBlock, transactions, missedIndexes, remote, timeProvider.time()))
+          val request = GetSidechainBlockTransactionsData(id, missedIndexes)
+          networkControllerRef ! SendToNetwork(Message(GetSidechainBlockTransactionsSpec, Right(request), None), SendToPeer(remote))
+        }
+      }
+    }
+  }
+
+  private def onBlockTransactions(data: SidechainBlockTransactionsData, remote: ConnectedPeer): Unit = {
+    partialBlocks.get(data.blockId).filter(_.peer == remote).foreach(partialBlock => {
+      partialBlocks.remove(data.blockId)
+      // Block may be already received in full by the delivery check.
+      if (deliveryTracker.status(data.blockId) == ModifiersStatus.Requested) {
+        if (data.transactions.size == partialBlock.missedIndexes.size) {
+          val transactions = partialBlock.transactions.toArray
+          partialBlock.missedIndexes.zip(data.transactions).foreach { case (index, tx) => transactions(index) = Some(tx) }
+          completeCompactBlock(partialBlock.compactBlock, transactions.flatten.toSeq, remote)
+        }
+        else {
+          requestFullBlock(data.blockId, remote)
+        }
+      }
+    })
+  }
+
+  // Block is passed to the NodeViewHolder as if it was received in full from the remote.
+  // If the short ids matched the wrong transactions, the block is downloaded in full.
+  private def completeCompactBlock(compactBlock: CompactSidechainBlock,
+                                   transactions: Seq[SidechainTransaction[Proposition, NoncedBox[Proposition]]],
+                                   remote: ConnectedPeer): Unit = {
+    transactionsCompanionOpt.foreach(companion => {
+      compactBlock.toBlock(transactions, companion) match {
+        case Success(block) =>
+          deliveryTracker.setReceived(block.id, remote)
+          viewHolderRef ! ModifiersFromRemote(Seq(block))
+        case Failure(exception) =>
+          log.debug(s"Failed to build block ${compactBlock.id} from compact block of peer $remote", exception)
+          requestFullBlock(compactBlock.id, remote)
+      }
+    })
+  }
+
+  private def requestFullBlock(id: ModifierId, peer: ConnectedPeer): Unit = {
+    networkControllerRef ! SendToNetwork(Message(requestModifierSpec, Right(InvData(SidechainBlock.ModifierTypeId, Seq(id))), None), SendToPeer(peer))
+  }
+
+  // Peer with the unknown best block is ahead of us: use it for the blocks download and start the headers sync if not yet.
+  private def onSyncInfo(syncInfo: SidechainSyncInfo, remote: ConnectedPeer): Unit = {
+    historyReaderOpt.foreach(history => {
+      syncInfo.knownBlockIds.headOption.filterNot(id => history.contains(id)).foreach(remoteBestId => {
+        syncPeers.add(remote)
+        if (headersSyncPeerOpt.isEmpty && !blocksDownloadScheduler.contains(remoteBestId)) {
+          // Continue from the last validated header, if the remote chain contains it.
+          requestHeaders(remote, lastValidatedHeaderOpt.map(_.id).toSeq ++ history.syncInfo.knownBlockIds)
+        }
+      })
+    })
+  }
+
+  private def requestHeaders(peer: ConnectedPeer, locator: Seq[ModifierId]): Unit = {
+    headersSyncPeerOpt = Some(peer)
+    headersRequestTimeOpt = Some(timeProvider.time())
+    val request = GetSidechainBlockHeadersData(locator.take(GetSidechainBlockHeadersSpec.MAX_LOCATOR_SIZE), SidechainBlockHeadersSpec.MAX_HEADERS_NUMBER)
+    networkControllerRef ! SendToNetwork(Message(GetSidechainBlockHeadersSpec, Right(request), None), SendToPeer(peer))
+  }
+
+  private def onHeaders(headers: Seq[SidechainBlockHeader], remote: ConnectedPeer): Unit = {
+    if (headersSyncPeerOpt.contains(remote) && headersRequestTimeOpt.isDefined) {
+      headersRequestTimeOpt = None
+      historyReaderOpt.foreach(history => {
+        // Headers may start from the block already known, if our chain was changed since the request.
+        val newHeaders = headers.dropWhile(header => history.contains(header.id))
+        history.validateHeadersChain(newHeaders, lastValidatedHeaderOpt) match {
+          case Success(_) =>
+            newHeaders.lastOption.foreach(header => lastValidatedHeaderOpt = Some(header))
+            blocksDownloadScheduler.enqueue(newHeaders.map(_.id))
+            if (headers.size < SidechainBlockHeadersSpec.MAX_HEADERS_NUMBER) {
+              // Peer has no more headers: headers sync is over till the next sync info from the peer ahead.
+              headersSyncPeerOpt = None
+            }
+            requestBlocks()
+
+          case Failure(exception) =>
+            log.info(s"Headers chain received from peer $remote is invalid", exception)
+            exception match {
+              case _: BlockInFutureException => // no ban, headers will be requested again later
+              case _ => penalizeMisbehavingPeer(remote)
+            }
+            resetHeadersSync(remote)
+        }
+      })
+    }
+  }
+
+  private def resetHeadersSync(peer: ConnectedPeer): Unit = {
+    syncPeers.remove(peer)
+    headersSyncPeerOpt = None
+    headersRequestTimeOpt = None
+    lastValidatedHeaderOpt = None
+  }
+
+  // Requests the blocks in the free part of the download window and continues the headers sync,
+  // when the downloaded part of the headers chain is almost over.
+  private def requestBlocks(): Unit = {
+    historyReaderOpt.foreach(history => {
+      // Stalled requests are retried from the other peers, while still requested from the slow one.
+      val isWanted: ModifierId => Boolean = id => !history.contains(id) && (deliveryTracker.status(id) match {
+        case ModifiersStatus.Unknown => true
+        case ModifiersStatus.Requested => blocksDownloadScheduler.isRetried(id)
+        case _ => false
+      })
+      blocksDownloadScheduler.schedule(syncPeers.toSeq, isWanted, timeProvider.time(), deliveryTracker.expectedLatency).foreach { case (peer, ids) =>
+        ids.filter(blocksDownloadScheduler.isRetried).foreach(id => deliveryTracker.peerInfo(id).foreach(stalledPeer => retriedBlocks.put(id, stalledPeer)))
+        deliveryTracker.setRequested(ids, SidechainBlock.ModifierTypeId, Some(peer))
+        networkControllerRef ! SendToNetwork(Message(requestModifierSpec, Right(InvData(SidechainBlock.ModifierTypeId, ids)), None), SendToPeer(peer))
+      }
+
+      for (peer <- headersSyncPeerOpt; lastHeader <- lastValidatedHeaderOpt)
+        if (headersRequestTimeOpt.isEmpty && blocksDownloadScheduler.pendingNumber < SidechainBlockHeadersSpec.MAX_HEADERS_NUMBER)
+          requestHeaders(peer, Seq(lastHeader.id))
+
+      if (headersSyncPeerOpt.isEmpty && blocksDownloadScheduler.isEmpty)
+        lastValidatedHeaderOpt = None
+    })
+  }
+
+  // Blocks of the stalled request are retried together, so they all came late or none of them.
+  private def isLateDelivery(data: ModifiersData, remote: ConnectedPeer): Boolean = {
+    data.typeId == SidechainBlock.ModifierTypeId && data.modifiers.nonEmpty && data.modifiers.keys.forall(id =>
+      remote == retriedBlocks.get(id) && deliveryTracker.status(id) != ModifiersStatus.Requested)
+  }
+
+  // Stalled requests are retried from the other peers, the peers stalled too many times in a row are not used for the download anymore.
+  private def checkBlocksDownload(): Unit = {
+    val now = timeProvider.time()
+    blocksDownloadScheduler.expire(now, deliveryTracker.stallTimeout).foreach(peer => {
+      if (deliveryTracker.onStalled(peer) >= SidechainNodeViewSynchronizer.MAX_PEER_STALLS)
+        syncPeers.remove(peer)
+    })
+    // Delivery check of the block requests the full block, so just forget the compact one.
+    partialBlocks.retain { case (_, partialBlock) => now - partialBlock.requestTime < networkSettings.deliveryTimeout.toMillis }
+    for (peer <- headersSyncPeerOpt; requestTime <- headersRequestTimeOpt)
+      if (now - requestTime >= networkSettings.deliveryTimeout.toMillis)
+        resetHeadersSync(peer)
+    requestBlocks()
+  }
+}
 
 
 object SidechainNodeViewSynchronizer {
+  // Small enough for the blocks of a single request to fit the modifiers message.
+  val MAX_BLOCKS_IN_FLIGHT_PER_PEER: Int = 16
+  // Peer stalled so many times in a row is not used for the blocks download anymore.
+  val MAX_PEER_STALLS: Int = 3
+
+  // Blocks older than this are not relayed as compact blocks.
+  val MAX_COMPACT_BLOCK_AGE_SECONDS: Long = 600
+
+  // Transactions relay batching.
+  val TRANSACTIONS_RELAY_INTERVAL: FiniteDuration = 1.second
+  val MAX_TRANSACTIONS_RELAY_QUEUE_SIZE: Int = 10000
+  val KNOWN_TRANSACTIONS_PER_PEER: Int = 20000
+
+  object ReceivableMessages {
+    case object CheckBlocksDownload
+    case object RelayTransactions
+  }
+
   def props(networkControllerRef: ActorRef,
             viewHolderRef: ActorRef,
             syncInfoSpec: SidechainSyncInfoMessageSpec.type,
@@ -0,0 +1,70 @@
+package com.horizen.network
+
+import java.net.InetSocketAddress
+
+import com.horizen.utils.RollingBloomFilter
+import scorex.core.network.ConnectedPeer
+import scorex.util.{ModifierId, idToBytes}
+
+import scala.collection.mutable
+
+// Batches the transactions announcements: new transactions are queued and announced to the peers periodically,
+// the ones with the highest fee first. Every peer keeps the filter of the ids announced to it or by it,
+// so the same transaction is never announced twice to the same peer and never back to its sender.
+class SidechainTransactionsRelayScheduler(maxQueueSize: Int, maxInvSize: Int, knownIdsPerPeer: Int) {
+  require(maxQueueSize > 0, "Relay queue size shall be positive.")
+  require(maxInvSize > 0, "Number of announced ids shall be positive.")
+
+  private case class PeerRelayInfo(peer: ConnectedPeer, knownIds: RollingBloomFilter)
+
+  // Transaction id to fee.
+  private val queued: mutable.HashMap[ModifierId, Long] = mutable.HashMap()
+  private val peers: mutable.HashMap[InetSocketAddress, PeerRelayInfo] = mutable.HashMap()
+
+  def queueSize: Int = queued.size
+
+  def addPeer(peer: ConnectedPeer): Unit = {
+    peers.getOrElseUpdate(peer.connectionId.remoteAddress,
+      PeerRelayInfo(peer, new RollingBloomFilter(knownIdsPerPeer, SidechainTransactionsRelayScheduler.FALSE_POSITIVE_RATE)))
+  }
+
+  def removePeer(remoteAddress: InetSocketAddress): Unit = {
+    peers.remove(remoteAddress)
+  }
+
+  // Peer announced or sent us the transactions, so it doesn't need them.
+  def markKnown(peer: ConnectedPeer, ids: Seq[ModifierId]): Unit = {
+    peers.get(peer.connectionId.remoteAddress).foreach(info => ids.foreach(id => info.knownIds.put(idToBytes(id))))
+  }
+
+  // When the queue is full, the lowest fee transaction is not relayed.
+  def enqueue(id: ModifierId, fee: Long): Unit = {
+    if (!queued.contains(id)) {
+      queued.put(id, fee)
+      if (queued.size > maxQueueSize)
+        queued.remove(queued.minBy(_._2)._1)
+    }
+  }
+
+  // Plans the announcements to all the peers. Queued ids, which are not relevant anymore
+  // (for example, removed from the memory pool), are dropped, the ones known to all the peers as well.
+  def schedule(isRelevant: ModifierId => Boolean): Map[ConnectedPeer, Seq[ModifierId]] = {
+    queued.retain { case (id, _) => isRelevant(id) }
+    val idsByFee = queued.toSeq.sortBy(-_._2).map(_._1)
+
+    val planned = peers.values.flatMap(info => {
+      val ids = idsByFee.iterator.filterNot(id => info.knownIds.mightContain(idToBytes(id))).take(maxInvSize).toList
+      ids.foreach(id => info.knownIds.put(idToBytes(id)))
+      if (ids.isEmpty) None else Some(info.peer -> ids)
+    }).toMap
+
+    // Keep the queue for the peers to come, if no peers are connected.
+    if (peers.nonEmpty)
+      queued.retain { case (id, _) => peers.values.exists(info => !info.knownIds.mightContain(idToBytes(id))) }
+    planned
+  }
+}
+
+object SidechainTransactionsRelayScheduler {
+  val FALSE_POSITIVE_RATE: Double = 0.000001
+}
@@ -8,7 +8,7 @@ import scorex.crypto.hash.Blake2b256
 
 import scala.collection.JavaConverters._
 import scala.compat.java8.OptionConverters._
-import scala.util.{Failure, Random, Success, Try}
+import scala.util.{Failure, Success, Try}
 import java.util.{ArrayList => JArrayList}
 
 import com.horizen.box.{ForgerBox, ForgerBoxSerializer}
@@ -25,39 +25,17 @@ class ForgingBoxesInfoStorage(storage: Storage) extends SidechainTypes with Scor
   private[horizen] val forgerBoxMerklePathInfoListSerializer = new ListSerializer[ForgerBoxMerklePathInfo](ForgerBoxMerklePathInfoSerializer)
   private[horizen] val forgerBoxListSerializer = new ListSerializer[ForgerBox](ForgerBoxSerializer.getSerializer)
 
-  private def nextVersion: ByteArrayWrapper = {
-    val version = new Array[Byte](32)
-    lastVersionId match {
-      case Some(lastVersion) => new Random(lastVersion.hashCode()).nextBytes(version)
-      case None => Random.nextBytes(version)
-    }
-
-    new ByteArrayWrapper(version)
-  }
-
-  // Current storage is updated with consensus epoch info between block modifiers application.
-  // The random version here is not used as a point to rollback.
-  def updateForgerBoxMerklePathInfo(epoch: ConsensusEpochNumber, boxMerklePathInfoSeq: Seq[ForgerBoxMerklePathInfo]): Try[ForgingBoxesInfoStorage] = Try {
-    require(boxMerklePathInfoSeq != null, "Seq of boxMerklePathInfoSeq to append must be NOT NULL. Use empty Seq instead.")
-
-    // remove data of the epoch with number (epoch - maxNumberOfStoredEpochs) if exists.
-    val removeList = new JArrayList[ByteArrayWrapper]()
-    removeList.add(epochKey(ConsensusEpochNumber @@ (epoch - maxNumberOfStoredEpochs)))
-
-    val updateList = new JArrayList[Pair[ByteArrayWrapper, ByteArrayWrapper]]()
-    updateList.add(new Pair(epochKey(epoch), new ByteArrayWrapper(forgerBoxMerklePathInfoListSerializer.toBytes(boxMerklePathInfoSeq.asJava))))
-
-    storage.update(nextVersion, updateList, removeList)
-
-    this
-  }
-
   // When new block applied we anchor the new version to its id.
   // This version can be used as a rollback point during rollback process.
+  // Forger boxes merkle paths calculated for the consensus epochs by the moment of the block application are stored
+  // under the same version, while the data of the epochs older than maxNumberOfStoredEpochs is removed.
   def updateForgerBoxes(version: ByteArrayWrapper,
                         forgerBoxesToAppendSeq: Seq[ForgerBox],
-                        boxIdsRemoveSeq: Seq[Array[Byte]]): Try[ForgingBoxesInfoStorage] = Try {
+                        boxIdsRemoveSeq: Seq[Array[Byte]],
+                        forgerBoxMerklePathInfoToAppendSeq: Seq[(ConsensusEpochNumber, Seq[ForgerBoxMerklePathInfo])] = Seq()): Try[ForgingBoxesInfoStorage] = Try {
+    require(!forgerBoxMerklePathInfoToAppendSeq.exists(_._2 == null), "Seq of boxMerklePathInfoSeq to append must be NOT NULL. Use empty Seq instead.")
     val toUpdate: JArrayList[Pair[ByteArrayWrapper, ByteArrayWrapper]] = new JArrayList()
+    val toRemove: JArrayList[ByteArrayWrapper] = new JArrayList()
 
     val currentForgerBoxSeq: Seq[ForgerBox] = getForgerBoxes.getOrElse(Seq())
     val existentForgerBoxSeq: Seq[ForgerBox] = currentForgerBoxSeq.filterNot(box => boxIdsRemoveSeq.exists(removedId => box.id().sameElements(removedId)))
@@ -67,7 +45,18 @@ class ForgingBoxesInfoStorage(storage: Storage) extends SidechainTypes with Scor
     if(existentForgerBoxSeq.size != currentForgerBoxSeq.size || forgerBoxesToAppendSeq.nonEmpty)
       toUpdate.add(new Pair(forgerBoxesKey, new ByteArrayWrapper(forgerBoxListSerializer.toBytes(newForgerBoxSeq.asJava))))
 
-    storage.update(version, toUpdate, new JArrayList())
+    val epochKeysToUpdate = forgerBoxMerklePathInfoToAppendSeq.map { case (epoch, boxMerklePathInfoSeq) =>
+      toUpdate.add(new Pair(epochKey(epoch), new ByteArrayWrapper(forgerBoxMerklePathInfoListSerializer.toBytes(boxMerklePathInfoSeq.asJava))))
+      epochKey(epoch)
+    }.toSet
+    // remove data of the epoch with number (epoch - maxNumberOfStoredEpochs) if exists.
+    forgerBoxMerklePathInfoToAppendSeq
+      .map { case (epoch, _) => epochKey(ConsensusEpochNumber @@ (epoch - maxNumberOfStoredEpochs)) }
+      .distinct
+      .filterNot(epochKeysToUpdate.contains)
+      .foreach(toRemove.add)
+
+    storage.update(version, toUpdate, toRemove)
     this
   }
 
@@ -5,6 +5,7 @@ import java.util.{ArrayList => JArrayList, List => JList}
 import com.horizen.block._
 import com.horizen.chain.{MainchainBlockReferenceDataInfo, _}
 import com.horizen.companion.SidechainTransactionsCompanion
+import com.horizen.consensus.{NonceAccumulator, NonceAccumulators}
 import com.horizen.node.util.MainchainBlockReferenceInfo
 import com.horizen.params.NetworkParams
 import com.horizen.utils._
@@ -20,9 +21,20 @@ import scala.util.{Failure, Random, Success, Try}
 
 trait SidechainBlockInfoProvider {
   def blockInfoById(blockId: ModifierId): SidechainBlockInfo
+
+  // Accumulated data for the nonce calculation of the consensus epoch till the given block, if known.
+  def nonceAccumulatorById(blockId: ModifierId): Option[NonceAccumulator] = None
 }
 
-class SidechainHistoryStorage(storage: Storage, sidechainTransactionsCompanion: SidechainTransactionsCompanion, params: NetworkParams)
+// activeChainSnapshotInterval - number of the active chain blocks after which the active chain snapshot is updated.
+// activeChainSnapshotChunkSize - number of the active chain blocks stored together in the snapshot.
+// recentBlocksMaxSize - max total serialized size of the recently stored blocks kept parsed in memory.
+class SidechainHistoryStorage(storage: Storage,
+                              sidechainTransactionsCompanion: SidechainTransactionsCompanion,
+                              params: NetworkParams,
+                              activeChainSnapshotInterval: Int = SidechainHistoryStorage.ACTIVE_CHAIN_SNAPSHOT_INTERVAL,
+                              activeChainSnapshotChunkSize: Int = SidechainHistoryStorage.ACTIVE_CHAIN_SNAPSHOT_CHUNK_SIZE,
+                              recentBlocksMaxSize: Long = SidechainHistoryStorage.RECENT_BLOCKS_MAX_SIZE)
   extends SidechainBlockInfoProvider
   with ScorexLogging {
   // Version - RandomBytes(32)
@@ -30,16 +42,46 @@ class SidechainHistoryStorage(storage: Storage, sidechainTransactionsCompanion:
   require(storage != null, "Storage must be NOT NULL.")
   require(sidechainTransactionsCompanion != null, "SidechainTransactionsCompanion must be NOT NULL.")
   require(params != null, "params must be NOT NULL.")
+  require(activeChainSnapshotInterval > 0, "Active chain snapshot interval must be positive.")
+  require(activeChainSnapshotChunkSize > 0, "Active chain snapshot chunk size must be positive.")
 
   private val bestBlockIdKey: ByteArrayWrapper = new ByteArrayWrapper(Array.fill(32)(-1: Byte))
 
+  private val activeChainSnapshotKey: ByteArrayWrapper = new ByteArrayWrapper(Blake2b256("activeChainSnapshot"))
+
+  // Recent blocks infos, so the forks which still can become active are processed without the storage access.
+  // Filled with the blocks stored after the startup. Must be initialized before the active chain, whose loading reads the block infos.
+  private val forkTreeIndex: ForkTreeIndex = new ForkTreeIndex(params.maxHistoryRewritingLength)
+
+  // Parsed recently stored blocks, limited by their serialized size, so the usual short chain switch
+  // takes the blocks to remove and to apply without parsing them from the storage.
+  // Must be initialized before the active chain, whose loading reads the blocks.
+  private val recentBlocks: SizeBoundedLruCache[ModifierId, SidechainBlock] =
+    new SizeBoundedLruCache[ModifierId, SidechainBlock](recentBlocksMaxSize)
+
+  // Must be initialized before the active chain, because it is filled during the active chain loading.
+  private val nonceAccumulators: NonceAccumulators = new NonceAccumulators(params)
+
+  // State of the stored active chain snapshot, set during the active chain loading as well:
+  // hashes of the stored chunks, height of the snapshot and the lowest active chain height modified after it.
+  private val snapshotChunkHashes: ArrayBuffer[ByteArrayWrapper] = ArrayBuffer()
+  private var snapshotHeight: Int = 0
+  private var snapshotLowestModifiedHeight: Int = 1
+
   private val activeChain: ActiveChain = loadActiveChain()
 
   private def loadActiveChain(): ActiveChain = {
     if (height == 0) {
-      return ActiveChain(params.mainchainCreationBlockHeight)
+      return ActiveChain(params.mainchainCreationBlockHeight, Some(loadBlockInfo _))
     }
 
+    val chain = loadActiveChainFromSnapshot().getOrElse(loadActiveChainFromBlockInfos())
+    loadNonceAccumulators(chain)
+    loadMainchainHeadersPoWData(chain)
+    chain
+  }
+
+  private def loadActiveChainFromBlockInfos(): ActiveChain = {
     val activeChainBlocksInfo: ArrayBuffer[(ModifierId, SidechainBlockInfo)] = new ArrayBuffer(height)
 
     activeChainBlocksInfo.append((bestBlockId, blockInfoById(bestBlockId)))
@@ -56,13 +98,148 @@ class SidechainHistoryStorage(storage: Storage, sidechainTransactionsCompanion:
       firstMainchainHeader <- firstSidechainBlock.mainchainHeaders.headOption
     } yield byteArrayToMainchainHeaderHash(firstMainchainHeader.hashPrevBlock)
 
-    ActiveChain(orderedChainBlocks, mainchainBlockParent.getOrElse(throw new IllegalStateException("Loaded active chain miss mainchain parent")), params.mainchainCreationBlockHeight)
+    ActiveChain(orderedChainBlocks, mainchainBlockParent.getOrElse(throw new IllegalStateException("Loaded active chain miss mainchain parent")),
+      params.mainchainCreationBlockHeight, Some(loadBlockInfo _))
+  }
+
+  // Restore the active chain from the snapshot and apply the blocks which became best after it.
+  // If the snapshot is absent or inconsistent to the storage, the active chain is loaded from the block infos.
+  private def loadActiveChainFromSnapshot(): Option[ActiveChain] = {
+    storage.get(activeChainSnapshotKey).asScala.flatMap(snapshotBytes => {
+      val tryChain = Try {
+        val snapshotHeader = ActiveChainSnapshotHeaderSerializer.parseBytes(snapshotBytes.data)
+        val chain = ActiveChain.restore(readActiveChainSnapshotEntries(snapshotHeader), snapshotHeader.mainchainParentHash,
+          params.mainchainCreationBlockHeight, loadBlockInfo _)
+        validateActiveChainSnapshotTip(chain, snapshotHeader)
+        val lowestAppliedHeight = applyBlocksAfterActiveChainSnapshot(chain)
+
+        snapshotChunkHashes ++= snapshotHeader.chunkHashes
+        snapshotHeight = snapshotHeader.height
+        snapshotLowestModifiedHeight = Math.min(lowestAppliedHeight, snapshotHeight + 1)
+        chain
+      }
+
+      tryChain match {
+        case Failure(e) => log.warn("SidechainHistoryStorage: Failed to restore active chain from the snapshot, load it from the block infos.", e)
+        case Success(chain) => log.info(s"SidechainHistoryStorage: Active chain restored from the snapshot of height $snapshotHeight, current height ${chain.height}.")
+      }
+      tryChain.toOption
+    })
+  }
+
+  private def readActiveChainSnapshotEntries(snapshotHeader: ActiveChainSnapshotHeader): Iterator[ActiveChainSnapshotEntry] = {
+    snapshotHeader.chunkHashes.indices.iterator.flatMap(chunkIndex => {
+      val chunkBytes = storage.get(activeChainSnapshotChunkKey(chunkIndex)).asScala
+        .getOrElse(throw new IllegalStateException(s"Active chain snapshot chunk $chunkIndex is missed")).data
+      if (!java.util.Arrays.equals(Blake2b256(chunkBytes), snapshotHeader.chunkHashes(chunkIndex).data))
+        throw new IllegalStateException(s"Active chain snapshot chunk $chunkIndex is corrupted")
+      ActiveChainSnapshotChunkSerializer.parseBytes(chunkBytes).entries
+    })
+  }
+
+  // Check the restored snapshot against the block info stored for its tip.
+  private def validateActiveChainSnapshotTip(chain: ActiveChain, snapshotHeader: ActiveChainSnapshotHeader): Unit = {
+    if (chain.height != snapshotHeader.height || !chain.bestId.contains(snapshotHeader.bestId))
+      throw new IllegalStateException("Active chain snapshot content is inconsistent to its header")
+
+    val tipInfo = loadBlockInfo(snapshotHeader.bestId).getOrElse(throw new IllegalStateException("Active chain snapshot tip is missed in the storage"))
+    if (tipInfo.height != snapshotHeader.height || !chain.scoreById(snapshotHeader.bestId).contains(tipInfo.score))
+      throw new IllegalStateException("Active chain snapshot tip is inconsistent to the storage")
+  }
+
+  // Set the best chain blocks missed in the snapshot. The best block is always set, so the snapshot blocks
+  // which are not a part of the best chain anymore are removed. Returns the height of the first set block.
+  private def applyBlocksAfterActiveChainSnapshot(chain: ActiveChain): Int = {
+    val blocksAfterSnapshot: ArrayBuffer[(ModifierId, SidechainBlockInfo)] = ArrayBuffer()
+    val bestId = bestBlockId
+    blocksAfterSnapshot.append((bestId, loadBlockInfo(bestId).getOrElse(throw new IllegalStateException(s"No block info for block $bestId"))))
+    while (!chain.contains(blocksAfterSnapshot.last._2.parentId)) {
+      val id = blocksAfterSnapshot.last._2.parentId
+      blocksAfterSnapshot.append((id, loadBlockInfo(id).getOrElse(throw new IllegalStateException(s"No block info for block $id"))))
+    }
+
+    blocksAfterSnapshot.reverseIterator.foreach { case (id, info) =>
+      val mainchainParent: Option[MainchainHeaderHash] =
+        if (info.mainchainHeaderHashes.isEmpty)
+          None
+        else
+          blockById(id).getOrElse(throw new IllegalStateException("Active chain block is missed in the storage"))
+            .mainchainHeaders.headOption.map(header => byteArrayToMainchainHeaderHash(header.hashPrevBlock))
+      chain.setBestBlock(id, info, mainchainParent)
+    }
+    blocksAfterSnapshot.last._2.height
+  }
+
+  // Nonce accumulators are used for the recent consensus epochs only, so add the blocks of these epochs.
+  private def loadNonceAccumulators(chain: ActiveChain): Unit = {
+    def timestampByHeight(blockHeight: Int): Long = chain.idByHeight(blockHeight).flatMap(chain.timestampById).get
+
+    val lastTimestamp = timestampByHeight(chain.height)
+    var fromHeight = chain.height
+    while (fromHeight > 1 && nonceAccumulators.isKeptEpoch(timestampByHeight(fromHeight - 1), lastTimestamp))
+      fromHeight -= 1
+
+    (fromHeight to chain.height).foreach(blockHeight =>
+      nonceAccumulators.add(chain.idByHeight(blockHeight).get, chain.blockInfoByHeight(blockHeight).get))
+  }
+
+  // Load PoW data of the last MainchainHeaders required to verify the difficulty of the next ones.
+  private def loadMainchainHeadersPoWData(chain: ActiveChain): Unit = {
+    val powDataWindowSize = params.nPowAveragingWindow + params.nMedianTimeSpan
+    var loadedHeadersNumber = 0
+    var blockIdOpt = chain.bestMainchainHeaderHash.flatMap(chain.idByMcHeader)
+    while (loadedHeadersNumber < powDataWindowSize && blockIdOpt.isDefined) {
+      val block = blockById(blockIdOpt.get).getOrElse(throw new IllegalStateException("Active chain block is missed in the storage"))
+      block.mainchainHeaders.foreach(header => chain.updateMcHeaderPoWData(byteArrayToMainchainHeaderHash(header.hash), header.time, header.bits))
+      loadedHeadersNumber += block.mainchainHeaders.size
+      // Continue with the block containing the previous MainchainHeader, if it is a part of the active chain.
+      blockIdOpt = block.mainchainHeaders.headOption.flatMap(header => chain.idByMcHeader(byteArrayToMainchainHeaderHash(header.hashPrevBlock)))
+    }
+  }
+
+  // Store the chunks of the active chain modified since the last snapshot together with the new snapshot header.
+  // At most ACTIVE_CHAIN_SNAPSHOT_CHUNKS_PER_UPDATE chunks are written at once, so a long chain without the snapshot
+  // (e.g. on the first start after the upgrade) doesn't delay the best block update: the snapshot then covers
+  // the written chunks only, and the rest is written with the next best block updates.
+  private def writeActiveChainSnapshot(): Unit = {
+    val chainHeight = activeChain.height
+    val firstModifiedChunk = Math.min((snapshotLowestModifiedHeight - 1) / activeChainSnapshotChunkSize, snapshotChunkHashes.size)
+    val lastChunk = Math.min((chainHeight - 1) / activeChainSnapshotChunkSize,
+      firstModifiedChunk + SidechainHistoryStorage.ACTIVE_CHAIN_SNAPSHOT_CHUNKS_PER_UPDATE - 1)
+    val newSnapshotHeight = Math.min((lastChunk + 1) * activeChainSnapshotChunkSize, chainHeight)
+
+    val toUpdate: JList[JPair[ByteArrayWrapper, ByteArrayWrapper]] = new JArrayList()
+    val newChunkHashes: ArrayBuffer[ByteArrayWrapper] = snapshotChunkHashes.take(firstModifiedChunk)
+    for (chunkIndex <- firstModifiedChunk to lastChunk) {
+      val entries = activeChain.snapshotEntries(chunkIndex * activeChainSnapshotChunkSize + 1,
+        Math.min((chunkIndex + 1) * activeChainSnapshotChunkSize, newSnapshotHeight))
+      val chunkBytes = ActiveChainSnapshotChunkSerializer.toBytes(ActiveChainSnapshotChunk(entries))
+      toUpdate.add(new JPair(activeChainSnapshotChunkKey(chunkIndex), new ByteArrayWrapper(chunkBytes)))
+      newChunkHashes.append(new ByteArrayWrapper(Blake2b256(chunkBytes)))
+    }
+
+    val snapshotHeader = ActiveChainSnapshotHeader(newSnapshotHeight, activeChain.idByHeight(newSnapshotHeight).get,
+      activeChain.mainchainParentHash.get, newChunkHashes)
+    toUpdate.add(new JPair(activeChainSnapshotKey, new ByteArrayWrapper(ActiveChainSnapshotHeaderSerializer.toBytes(snapshotHeader))))
+
+    storage.update(
+      new ByteArrayWrapper(nextVersion),
+      toUpdate,
+      new JArrayList[ByteArrayWrapper]())
+
+    snapshotChunkHashes.clear()
+    snapshotChunkHashes ++= newChunkHashes
+    snapshotHeight = newSnapshotHeight
+    // The part of the chain above the snapshot is still to be written.
+    snapshotLowestModifiedHeight = if (newSnapshotHeight < chainHeight) newSnapshotHeight + 1 else Int.MaxValue
   }
 
   private def validityKey(blockId: ModifierId): ByteArrayWrapper = new ByteArrayWrapper(Blake2b256(s"validity$blockId"))
 
   private def blockInfoKey(blockId: ModifierId): ByteArrayWrapper = new ByteArrayWrapper(Blake2b256(s"blockInfo$blockId"))
 
+  private def activeChainSnapshotChunkKey(chunkIndex: Int): ByteArrayWrapper = new ByteArrayWrapper(Blake2b256(s"activeChainSnapshotChunk$chunkIndex"))
+
   private def nextVersion: Array[Byte] = {
     val version = new Array[Byte](32)
     Random.nextBytes(version)
@@ -72,7 +249,10 @@ class SidechainHistoryStorage(storage: Storage, sidechainTransactionsCompanion:
   def height: Int = heightOf(bestBlockId).getOrElse(0)
 
   def heightOf(blockId: ModifierId): Option[Int] = {
-    blockInfoOptionById(blockId).map(_.height)
+    if (activeChain != null && activeChain.contains(blockId))
+      activeChain.heightById(blockId)
+    else
+      blockInfoOptionById(blockId).map(_.height)
   }
 
   def bestBlockId: ModifierId = storage.get(bestBlockIdKey).asScala.map(d => bytesToId(d.data)).getOrElse(params.sidechainGenesisBlockId)
@@ -88,6 +268,12 @@ class SidechainHistoryStorage(storage: Storage, sidechainTransactionsCompanion:
   }
 
   def blockById(blockId: ModifierId): Option[SidechainBlock] = {
+    getRecentBlock(blockId).orElse(loadBlock(blockId))
+  }
+
+  private def getRecentBlock(blockId: ModifierId): Option[SidechainBlock] = recentBlocks.get(blockId)
+
+  private def loadBlock(blockId: ModifierId): Option[SidechainBlock] = {
     storage.get(new ByteArrayWrapper(idToBytes(blockId))).asScala.flatMap { baw =>
       val tryBlock = new SidechainBlockSerializer(sidechainTransactionsCompanion).parseBytesTry(baw.data)
       tryBlock match {
@@ -98,6 +284,18 @@ class SidechainHistoryStorage(storage: Storage, sidechainTransactionsCompanion:
     }
   }
 
+  // Block is stored with its header first, so parse the header only without the body.
+  def blockHeaderById(blockId: ModifierId): Option[SidechainBlockHeader] = {
+    storage.get(new ByteArrayWrapper(idToBytes(blockId))).asScala.flatMap { baw =>
+      val tryHeader = SidechainBlockHeaderSerializer.parseBytesTry(baw.data)
+      tryHeader match {
+        case Failure(e) => log.warn("SidechainHistoryStorage: Failed to parse block header bytes from storage.", e)
+        case _ =>
+      }
+      tryHeader.toOption
+    }
+  }
+
   //Block info shall be in history storage, otherwise something going totally wrong
   def blockInfoById(blockId: ModifierId): SidechainBlockInfo = {
     blockInfoOptionById(blockId).getOrElse(throw new IllegalStateException(s"No block info for block ${blockId}"))
@@ -106,8 +304,17 @@ class SidechainHistoryStorage(storage: Storage, sidechainTransactionsCompanion:
   //@TODO rework to return Try() or Either() for getting error description
   def blockInfoOptionById(blockId: ModifierId): Option[SidechainBlockInfo] = {
     if (activeChain != null && activeChain.contains(blockId))
-      return activeChain.blockInfoById(blockId)
+      activeChain.blockInfoById(blockId)
+    else if (forkTreeIndex.contains(blockId))
+      forkTreeIndex.blockInfoById(blockId)
+    else
+      loadBlockInfo(blockId)
+  }
+
+  // Height of the block from the active chain or from the recent forks, without the storage access.
+  def recentHeightOf(blockId: ModifierId): Option[Int] = activeChain.heightById(blockId).orElse(forkTreeIndex.heightById(blockId))
 
+  private def loadBlockInfo(blockId: ModifierId): Option[SidechainBlockInfo] = {
     storage.get(blockInfoKey(blockId)).asScala match {
       case Some(baw) => SidechainBlockInfoSerializer.parseBytesTry(baw.data) match {
         case Failure(e) =>
@@ -121,7 +328,9 @@ class SidechainHistoryStorage(storage: Storage, sidechainTransactionsCompanion:
 
   def parentBlockId(blockId: ModifierId): Option[ModifierId] = blockInfoOptionById(blockId).map(_.parentId)
 
-  def chainScoreFor(blockId: ModifierId): Option[Long] = blockInfoOptionById(blockId).map(_.score)
+  def chainScoreFor(blockId: ModifierId): Option[Long] = activeChain.scoreById(blockId).orElse(blockInfoOptionById(blockId).map(_.score))
+
+  override def nonceAccumulatorById(blockId: ModifierId): Option[NonceAccumulator] = nonceAccumulators.get(blockId)
 
   def isInActiveChain(blockId: ModifierId): Boolean = activeChain.contains(blockId)
 
@@ -129,6 +338,8 @@ class SidechainHistoryStorage(storage: Storage, sidechainTransactionsCompanion:
 
   def activeChainAfter(blockId: ModifierId): Seq[ModifierId] = activeChain.chainAfter(blockId)
 
+  def activeChainBlockIds(fromHeight: Int, limit: Int): Seq[ModifierId] = activeChain.idsFromHeight(fromHeight, limit)
+
   def getSidechainBlockContainingMainchainHeader(mainchainHeaderHash: Array[Byte]): Option[SidechainBlock] = {
     activeChain.idByMcHeader(byteArrayToMainchainHeaderHash(mainchainHeaderHash)).flatMap(blockById)
   }
@@ -180,6 +391,10 @@ class SidechainHistoryStorage(storage: Storage, sidechainTransactionsCompanion:
     new MainchainBlockReferenceInfo(mcHash, referenceInfo.getParentId, mcBlockHeight, idToBytes(mainchainHeaderSidechainBlockId), idToBytes(mainchainReferenceDataSidechainBlockId))
   }
 
+  def getMainchainHeadersPoWDataTill(blockId: ModifierId, count: Int): Option[(MainchainHeaderHash, Seq[(Int, Int)])] = {
+    activeChain.mcHeadersPoWDataTill(blockId, count)
+  }
+
   def getMainchainHashesForIndexes(mainchainHeights: Seq[Int]): Seq[MainchainHeaderHash] = {
     mainchainHeights.flatMap(mainchainHeight => activeChain.mcHashByMcHeight(mainchainHeight))
   }
@@ -231,16 +446,25 @@ class SidechainHistoryStorage(storage: Storage, sidechainTransactionsCompanion:
     toUpdate.add(new JPair(new ByteArrayWrapper(blockInfoKey(block.id)), new ByteArrayWrapper(blockInfo.bytes)))
 
     // add block
-    toUpdate.add(new JPair(new ByteArrayWrapper(idToBytes(block.id)), new ByteArrayWrapper(block.bytes)))
+    val blockBytes = block.bytes
+    toUpdate.add(new JPair(new ByteArrayWrapper(idToBytes(block.id)), new ByteArrayWrapper(blockBytes)))
 
     storage.update(
       new ByteArrayWrapper(nextVersion),
       toUpdate,
       new JArrayList[ByteArrayWrapper]())
 
+    nonceAccumulators.add(block.id, blockInfo)
+    addToForkTreeIndex(block.id, blockInfo)
+    recentBlocks.put(block.id, block, blockBytes.length)
     this
   }
 
+  private def addToForkTreeIndex(blockId: ModifierId, blockInfo: SidechainBlockInfo): Unit = {
+    if (blockInfo.height >= activeChain.height - params.maxHistoryRewritingLength)
+      forkTreeIndex.put(blockId, blockInfo)
+  }
+
   def semanticValidity(blockId: ModifierId): ModifierSemanticValidity = {
     blockInfoOptionById(blockId) match {
       case Some(info) => info.semanticValidity
@@ -259,6 +483,8 @@ class SidechainHistoryStorage(storage: Storage, sidechainTransactionsCompanion:
       new JArrayList()
     )
     //activeChain.updateSemanticValidity(block.id, status)
+    if (forkTreeIndex.contains(block.id))
+      forkTreeIndex.put(block.id, blockInfo)
     this
   }
 
@@ -270,9 +496,25 @@ class SidechainHistoryStorage(storage: Storage, sidechainTransactionsCompanion:
     )
 
     val mainchainParent: Option[MainchainHeaderHash] = block.mainchainHeaders.headOption.map(header => byteArrayToMainchainHeaderHash(header.hashPrevBlock))
-    activeChain.setBestBlock(block.id, blockInfo, mainchainParent)
+    activeChain.setBestBlock(block.id, blockInfo, mainchainParent, block.mainchainHeaders.map(header => (header.time, header.bits)))
+
+    forkTreeIndex.prune(activeChain.height)
+    snapshotLowestModifiedHeight = Math.min(snapshotLowestModifiedHeight, activeChain.height)
+    // Snapshot is used to speed up the startup only, so its failure doesn't affect the best block update.
+    // A partially written snapshot stays below the chain height by more than the interval until the rest of
+    // the chain is at most the interval long, so it is continued with each following update till then.
+    if (activeChain.height >= snapshotHeight + activeChainSnapshotInterval)
+      Try(writeActiveChainSnapshot()).failed.foreach(e => log.warn("SidechainHistoryStorage: Failed to store active chain snapshot.", e))
     this
   }
 
   def isEmpty: Boolean = storage.isEmpty
 }
+
+object SidechainHistoryStorage {
+  val ACTIVE_CHAIN_SNAPSHOT_INTERVAL: Int = 1000
+  val ACTIVE_CHAIN_SNAPSHOT_CHUNK_SIZE: Int = 10000
+  val ACTIVE_CHAIN_SNAPSHOT_CHUNKS_PER_UPDATE: Int = 2
+  // Four blocks of SidechainBlock.MAX_BLOCK_SIZE, or many more of the usual size. Blocks evicted from it are parsed from the storage.
+  val RECENT_BLOCKS_MAX_SIZE: Long = 8 * 1024 * 1024
+}
@@ -2,9 +2,11 @@ package com.horizen.storage
 
 import java.util.{ArrayList => JArrayList}
 
+import com.google.common.primitives.{Bytes, Ints}
 import com.horizen.SidechainTypes
 import com.horizen.companion.SidechainSecretsCompanion
-import com.horizen.utils.{ByteArrayWrapper, Pair => JPair}
+import com.horizen.proposition.PublicKey25519Proposition
+import com.horizen.utils.{ByteArrayWrapper, BytesUtils, Pair => JPair}
 import scorex.crypto.hash.Blake2b256
 import scorex.util.ScorexLogging
 
@@ -18,23 +20,41 @@ class SidechainSecretStorage(storage: Storage, sidechainSecretsCompanion: Sidech
 {
   // Version - RandomBytes(32)
   // Key - Blake2b256 hash from public key bytes
+  //
+  // PrivateKey25519 keys derived from the wallet seed are not stored as secrets, but as compact records,
+  // which are looked up by the public key and are not kept in memory:
+  // Key - Blake2b256 hash from "derivedKey" and public key bytes -> derivation index and public key bytes
+  // Key - Blake2b256 hash from "lastDerivedKeyIndex" -> the highest derivation index among the derived keys
 
   require(storage != null, "Storage must be NOT NULL.")
   require(sidechainSecretsCompanion != null, "SidechainSecretsCompanion must be NOT NULL.")
 
   private val secrets = new mutable.LinkedHashMap[ByteArrayWrapper, SidechainTypes#SCS]()
 
+  private var lastDerivedKeyIndex: Int = -1
+
+  private val lastDerivedKeyIndexKey = new ByteArrayWrapper(Blake2b256.hash("lastDerivedKeyIndex".getBytes()))
+
   loadSecrets()
 
   def calculateKey(proposition: SidechainTypes#SCP): ByteArrayWrapper = new ByteArrayWrapper(Blake2b256.hash(proposition.bytes))
 
+  private def calculateDerivedKeyKey(publicKeyBytes: Array[Byte]): ByteArrayWrapper =
+    new ByteArrayWrapper(Blake2b256.hash(Bytes.concat("derivedKey".getBytes(), publicKeyBytes)))
+
+  // Derived key records are recognized by the key, which is the hash of the public key kept in the record.
+  private def isDerivedKeyRecord(key: ByteArrayWrapper, value: ByteArrayWrapper): Boolean = {
+    value.data.length == SidechainSecretStorage.DERIVED_KEY_RECORD_LENGTH &&
+      calculateDerivedKeyKey(java.util.Arrays.copyOfRange(value.data, 4, value.data.length)) == key
+  }
+
   private def loadSecrets(): Unit = {
     secrets.clear()
+    lastDerivedKeyIndex = storage.get(lastDerivedKeyIndexKey).asScala.map(value => Ints.fromByteArray(value.data)).getOrElse(-1)
 
-    val storageData = storage.getAll.asScala
-    storageData.view
-      .map(keyToSecretBytes => keyToSecretBytes.getValue.data)
-      .map(secretBytes => sidechainSecretsCompanion.parseBytes(secretBytes))
+    storage.getAll.asScala.view
+      .filter(entry => entry.getKey != lastDerivedKeyIndexKey && !isDerivedKeyRecord(entry.getKey, entry.getValue))
+      .map(entry => sidechainSecretsCompanion.parseBytes(entry.getValue.data))
       .foreach(secret => secrets.put(calculateKey(secret.publicImage()), secret))
   }
 
@@ -49,7 +69,7 @@ class SidechainSecretStorage(storage: Storage, sidechainSecretsCompanion: Sidech
     val version = new Array[Byte](32)
     val key = calculateKey(secret.publicImage())
 
-    require(!secrets.contains(key), "Key already exists - " + secret)
+    require(!secrets.contains(key) && !isDerivedKey(secret.publicImage()), "Key already exists - " + secret)
 
     val value = new ByteArrayWrapper(sidechainSecretsCompanion.toBytes(secret))
 
@@ -64,27 +84,7 @@ class SidechainSecretStorage(storage: Storage, sidechainSecretsCompanion: Sidech
     this
   }
 
-  def add (secretList: List[SidechainTypes#SCS]): Try[SidechainSecretStorage] = Try {
-    require(!secretList.contains(null), "Secret must be NOT NULL.")
-    val updateList = new JArrayList[JPair[ByteArrayWrapper,ByteArrayWrapper]]()
-    val version = new Array[Byte](32)
-
-    scala.util.Random.nextBytes(version)
-
-    for (s <- secretList) {
-      val key = calculateKey(s.publicImage())
-      require(!secrets.contains(key), "Key already exists - " + s)
-      secrets.put(key, s)
-      updateList.add(new JPair[ByteArrayWrapper, ByteArrayWrapper](key,
-        new ByteArrayWrapper(sidechainSecretsCompanion.toBytes(s))))
-    }
-
-    storage.update(new ByteArrayWrapper(version),
-      updateList,
-      List[ByteArrayWrapper]().asJava)
-
-    this
-  }
+  def add (secretList: List[SidechainTypes#SCS]): Try[SidechainSecretStorage] = add(secretList, Seq())
 
   def remove (proposition: SidechainTypes#SCP): Try[SidechainSecretStorage] = Try {
     require(proposition != null, "Proposition must be NOT NULL.")
@@ -122,6 +122,99 @@ class SidechainSecretStorage(storage: Storage, sidechainSecretsCompanion: Sidech
     this
   }
 
+  private def isDerivedKey(proposition: SidechainTypes#SCP): Boolean = proposition match {
+    case publicKey: PublicKey25519Proposition => getDerivedKeyIndex(publicKey).isDefined
+    case _ => false
+  }
+
+  // Derivation index of the key derived from the wallet seed, if the key was already added to the storage
+  def getDerivedKeyIndex(publicKey: PublicKey25519Proposition): Option[Int] =
+    storage.get(calculateDerivedKeyKey(publicKey.pubKeyBytes())).asScala.map(value => Ints.fromByteArray(value.data))
+
+  // The highest derivation index among the derived keys added to the storage, -1 if there is no derived key yet
+  def getLastDerivedKeyIndex: Int = lastDerivedKeyIndex
+
+  def addDerivedKeys (derivedKeyList: Seq[(PublicKey25519Proposition, Int)]): Try[SidechainSecretStorage] = add(List(), derivedKeyList)
+
+  // Add secrets and derived keys records in a single storage update.
+  // The whole batch is checked before the update, so either all of it is added or nothing.
+  def add (secretList: List[SidechainTypes#SCS], derivedKeyList: Seq[(PublicKey25519Proposition, Int)]): Try[SidechainSecretStorage] = Try {
+    require(!secretList.contains(null), "Secret must be NOT NULL.")
+    require(!derivedKeyList.exists(_._1 == null), "Public key must be NOT NULL.")
+    require(derivedKeyList.forall(_._2 >= 0), "Derivation index must be not negative.")
+
+    val newSecrets = secretList.map(s => (calculateKey(s.publicImage()), s))
+    for ((key, s) <- newSecrets)
+      require(!secrets.contains(key) && !isDerivedKey(s.publicImage()), "Key already exists - " + s)
+    require(newSecrets.map(_._1).distinct.size == newSecrets.size, "Secrets must be unique.")
+
+    val newDerivedKeys = derivedKeyList.map { case (publicKey, index) => (new ByteArrayWrapper(publicKey.pubKeyBytes()), index) }
+    for ((publicKey, _) <- derivedKeyList)
+      require(getDerivedKeyIndex(publicKey).isEmpty, "Key already exists - " + BytesUtils.toHexString(publicKey.pubKeyBytes()))
+    require(newDerivedKeys.map(_._1).distinct.size == newDerivedKeys.size, "Derived keys must be unique.")
+    require(!newSecrets.exists { case (_, s) => s.publicImage() match {
+      case publicKey: PublicKey25519Proposition => newDerivedKeys.exists(_._1 == new ByteArrayWrapper(publicKey.pubKeyBytes()))
+      case _ => false
+    }}, "Secrets and derived keys must be different.")
+
+    val updateList = new JArrayList[JPair[ByteArrayWrapper,ByteArrayWrapper]]()
+    for ((key, s) <- newSecrets)
+      updateList.add(new JPair[ByteArrayWrapper, ByteArrayWrapper](key, new ByteArrayWrapper(sidechainSecretsCompanion.toBytes(s))))
+
+    for ((publicKeyBytes, index) <- newDerivedKeys)
+      updateList.add(new JPair(calculateDerivedKeyKey(publicKeyBytes.data), new ByteArrayWrapper(Bytes.concat(Ints.toByteArray(index), publicKeyBytes.data))))
+
+    val newLastDerivedKeyIndex = (newDerivedKeys.map(_._2) :+ lastDerivedKeyIndex).max
+    if (newLastDerivedKeyIndex != lastDerivedKeyIndex)
+      updateList.add(new JPair(lastDerivedKeyIndexKey, new ByteArrayWrapper(Ints.toByteArray(newLastDerivedKeyIndex))))
+
+    val version = new Array[Byte](32)
+    scala.util.Random.nextBytes(version)
+
+    storage.update(new ByteArrayWrapper(version),
+      updateList,
+      List[ByteArrayWrapper]().asJava)
+
+    newSecrets.foreach { case (key, s) => secrets.put(key, s) }
+    lastDerivedKeyIndex = newLastDerivedKeyIndex
+
+    this
+  }
+
+  // Replace the stored secrets of the keys with derived keys records in a single storage update
+  def replaceWithDerivedKeys (derivedKeyList: Seq[(PublicKey25519Proposition, Int)]): Try[SidechainSecretStorage] = Try {
+    require(!derivedKeyList.exists(_._1 == null), "Public key must be NOT NULL.")
+    require(derivedKeyList.forall(_._2 >= 0), "Derivation index must be not negative.")
+    for ((publicKey, _) <- derivedKeyList)
+      require(secrets.contains(calculateKey(publicKey)), "Key doesn't exist - " + BytesUtils.toHexString(publicKey.pubKeyBytes()))
+    require(derivedKeyList.map(_._1).distinct.size == derivedKeyList.size, "Derived keys must be unique.")
+
+    val updateList = new JArrayList[JPair[ByteArrayWrapper,ByteArrayWrapper]]()
+    for ((publicKey, index) <- derivedKeyList)
+      updateList.add(new JPair(calculateDerivedKeyKey(publicKey.pubKeyBytes()), new ByteArrayWrapper(Bytes.concat(Ints.toByteArray(index), publicKey.pubKeyBytes()))))
+
+    val newLastDerivedKeyIndex = (derivedKeyList.map(_._2) :+ lastDerivedKeyIndex).max
+    if (newLastDerivedKeyIndex != lastDerivedKeyIndex)
+      updateList.add(new JPair(lastDerivedKeyIndexKey, new ByteArrayWrapper(Ints.toByteArray(newLastDerivedKeyIndex))))
+
+    val version = new Array[Byte](32)
+    scala.util.Random.nextBytes(version)
+
+    storage.update(new ByteArrayWrapper(version),
+      updateList,
+      derivedKeyList.map { case (publicKey, _) => calculateKey(publicKey) }.asJava)
+
+    derivedKeyList.foreach { case (publicKey, _) => secrets.remove(calculateKey(publicKey)) }
+    lastDerivedKeyIndex = newLastDerivedKeyIndex
+
+    this
+  }
+
   def isEmpty: Boolean = storage.isEmpty
 
 }
+
+object SidechainSecretStorage {
+  // Derivation index followed by public key bytes
+  val DERIVED_KEY_RECORD_LENGTH: Int = 4 + PublicKey25519Proposition.KEY_LENGTH
+}
@@ -18,7 +18,10 @@ import scala.collection.mutable.ListBuffer
 import scala.compat.java8.OptionConverters._
 import scala.util._
 
-class SidechainStateStorage(storage: Storage, sidechainBoxesCompanion: SidechainBoxesCompanion)
+// stateSnapshotChunkSize - number of the state records put together in the state snapshot chunk.
+class SidechainStateStorage(storage: Storage,
+                            sidechainBoxesCompanion: SidechainBoxesCompanion,
+                            stateSnapshotChunkSize: Int = SidechainStateStorage.STATE_SNAPSHOT_CHUNK_SIZE)
   extends ScorexLogging
   with SidechainTypes
 {
@@ -27,6 +30,7 @@ class SidechainStateStorage(storage: Storage, sidechainBoxesCompanion: Sidechain
 
   require(storage != null, "Storage must be NOT NULL.")
   require(sidechainBoxesCompanion != null, "SidechainBoxesCompanion must be NOT NULL.")
+  require(stateSnapshotChunkSize > 0, "State snapshot chunk size must be positive.")
 
   private[horizen] val withdrawalEpochInformationKey = calculateKey("withdrawalEpochInformation".getBytes)
   private val withdrawalRequestSerializer = new ListSerializer[WithdrawalRequestBox](WithdrawalRequestBoxSerializer.getSerializer)
@@ -248,6 +252,16 @@ class SidechainStateStorage(storage: Storage, sidechainBoxesCompanion: Sidechain
     this
   }
 
+  // Chunked, hash-committed snapshot of all the state records: boxes, withdrawal epoch data, withdrawal requests
+  // and forging stakes, taken at the current version. Reads the whole state, so it is taken on demand only.
+  def takeStateSnapshot(): Option[StateSnapshot] = {
+    for {
+      version <- lastVersionId
+      withdrawalEpochInfo <- getWithdrawalEpochInfo
+    } yield StateSnapshot.build(version, withdrawalEpochInfo.epoch,
+      storage.getAll.asScala.map(pair => (pair.getKey, pair.getValue)), stateSnapshotChunkSize)
+  }
+
   private def applyForgingStakesChanges(boxIdsToRemove: Set[ByteArrayWrapper], forgingStakesToAppendSeq: Seq[ForgingStakeInfo]): (Seq[ForgingStakeInfo], Long) = {
     getForgingStakesInfo match {
       case Some(currentStakesInfoSeq) =>
@@ -280,3 +294,7 @@ class SidechainStateStorage(storage: Storage, sidechainBoxesCompanion: Sidechain
   def isEmpty: Boolean = storage.isEmpty
 
 }
+
+object SidechainStateStorage {
+  val STATE_SNAPSHOT_CHUNK_SIZE: Int = 1000
+}
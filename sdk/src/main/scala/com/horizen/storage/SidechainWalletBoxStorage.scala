@@ -1,7 +1,8 @@
 package com.horizen.storage
 
-import java.util.{Optional, ArrayList => JArrayList}
+import java.util.{Comparator, Optional, ArrayList => JArrayList, TreeMap => JTreeMap}
 
+import com.google.common.primitives.{Bytes, Longs, UnsignedBytes}
 import com.horizen.utils.{Pair => JPair}
 import com.horizen.utils.ByteArrayWrapper
 import com.horizen.{SidechainTypes, WalletBox, WalletBoxSerializer}
@@ -29,7 +30,14 @@ class SidechainWalletBoxStorage (storage : Storage, sidechainBoxesCompanion: Sid
   private val _walletBoxes = new mutable.LinkedHashMap[ByteArrayWrapper, WalletBox]()
   private val _walletBoxesByType = new mutable.LinkedHashMap[Class[_ <: Box[_ <: Proposition]], mutable.Map[ByteArrayWrapper, WalletBox]]()
   private val _walletBoxesBalances = new mutable.LinkedHashMap[Class[_ <: Box[_ <: Proposition]], Long]()
+  // Ordered index of wallet boxes used for pagination: order key -> WalletBox
+  private val _walletBoxesOrdered = new JTreeMap[ByteArrayWrapper, WalletBox](SidechainWalletBoxStorage.orderKeyComparator)
+  private val _walletBoxesOrderedByType = new mutable.HashMap[Class[_ <: Box[_ <: Proposition]], JTreeMap[ByteArrayWrapper, WalletBox]]()
   private val _walletBoxSerializer = new WalletBoxSerializer(sidechainBoxesCompanion)
+  // Undo data of the recent updates, from the oldest to the newest one: the version of the update, the keys it touched
+  // and the wallet boxes it removed or replaced. Rollback to one of these versions reverts the in-memory wallet boxes
+  // with it instead of loading all of them from the storage again.
+  private val _walletBoxesUndo = new mutable.ArrayBuffer[(ByteArrayWrapper, Seq[ByteArrayWrapper], Seq[WalletBox])]()
 
   loadWalletBoxes()
 
@@ -37,6 +45,12 @@ class SidechainWalletBoxStorage (storage : Storage, sidechainBoxesCompanion: Sid
     new ByteArrayWrapper(Blake2b256.hash(boxId))
   }
 
+  // Order key consists of box creation time (always positive, so big-endian bytes keep the order) followed by box id.
+  // Lexicographical order of the keys is the order of boxes from the oldest to the newest.
+  def calculateOrderKey(walletBox : WalletBox) : ByteArrayWrapper = {
+    new ByteArrayWrapper(Bytes.concat(Longs.toByteArray(walletBox.createdAt), walletBox.box.id()))
+  }
+
   private def calculateBoxesBalances() : Unit = {
     for (bc <-_walletBoxesByType.keys)
       _walletBoxesBalances.put(bc, _walletBoxesByType(bc).map(_._2.box.value()).sum)
@@ -70,14 +84,31 @@ class SidechainWalletBoxStorage (storage : Storage, sidechainBoxesCompanion: Sid
       _walletBoxesByType(bc).remove(boxIdToRemove)
   }
 
+  private def addWalletBoxOrdered(walletBox : WalletBox) : Unit = {
+    val orderKey = calculateOrderKey(walletBox)
+    _walletBoxesOrdered.put(orderKey, walletBox)
+    _walletBoxesOrderedByType.getOrElseUpdate(walletBox.box.getClass,
+      new JTreeMap[ByteArrayWrapper, WalletBox](SidechainWalletBoxStorage.orderKeyComparator)).put(orderKey, walletBox)
+  }
+
+  private def removeWalletBoxOrdered(walletBox : WalletBox) : Unit = {
+    val orderKey = calculateOrderKey(walletBox)
+    _walletBoxesOrdered.remove(orderKey)
+    _walletBoxesOrderedByType.get(walletBox.box.getClass).foreach(_.remove(orderKey))
+  }
+
   private def loadWalletBoxes() : Unit = {
+    _walletBoxesUndo.clear()
     _walletBoxes.clear()
     _walletBoxesByType.clear()
+    _walletBoxesOrdered.clear()
+    _walletBoxesOrderedByType.clear()
     for (wb <- storage.getAll.asScala){
       val walletBox = _walletBoxSerializer.parseBytesTry(wb.getValue.data)
       if (walletBox.isSuccess) {
         _walletBoxes.put(calculateKey(walletBox.get.box.id()), walletBox.get)
         addWalletBoxByType(walletBox.get)
+        addWalletBoxOrdered(walletBox.get)
       } else
         log.error("Error while WalletBox parsing.", walletBox)
     }
@@ -103,6 +134,32 @@ class SidechainWalletBoxStorage (storage : Storage, sidechainBoxesCompanion: Sid
     }
   }
 
+  // Return at most pageSize boxes of given type (of any type if None) with value not less than minValue,
+  // in order from the oldest to the newest, starting right after the box with the given order key.
+  // Order key of the last box of the page is returned as well, if there are more boxes that satisfy the conditions.
+  def getPage (boxType: Option[Class[_ <: Box[_ <: Proposition]]], minValue: Long,
+               afterOrderKey: Option[ByteArrayWrapper], pageSize: Int) : (List[WalletBox], Option[ByteArrayWrapper]) = {
+    require(pageSize > 0, "Page size must be positive value, actual value is %d".format(pageSize))
+
+    val orderedBoxes: JTreeMap[ByteArrayWrapper, WalletBox] = boxType match {
+      case Some(bt) => _walletBoxesOrderedByType.getOrElse(bt, new JTreeMap[ByteArrayWrapper, WalletBox](SidechainWalletBoxStorage.orderKeyComparator))
+      case None => _walletBoxesOrdered
+    }
+
+    val entries = afterOrderKey match {
+      case Some(key) => orderedBoxes.tailMap(key, false).entrySet().iterator().asScala
+      case None => orderedBoxes.entrySet().iterator().asScala
+    }
+
+    // Take one more box to know whether the page is the last one
+    val pageEntries = entries.filter(_.getValue.box.value() >= minValue).take(pageSize + 1).toList
+
+    if (pageEntries.size > pageSize)
+      (pageEntries.take(pageSize).map(_.getValue), Some(pageEntries(pageSize - 1).getKey))
+    else
+      (pageEntries.map(_.getValue), None)
+  }
+
   def getBoxesBalance (boxType: Class[_ <: Box[_ <: Proposition]]): Long = {
     _walletBoxesBalances.getOrElse(boxType, 0L)
   }
@@ -127,17 +184,19 @@ class SidechainWalletBoxStorage (storage : Storage, sidechainBoxesCompanion: Sid
       updateList,
       removeList)
 
-    for (key <- removeList.asScala) {
-      val btr = _walletBoxes.remove(key)
-      removeWalletBoxByType(key)
-      if (btr.isDefined)
-        updateBoxesBalance(null, btr.get)
-    }
+    val touchedKeys = (removeList.asScala ++ updateList.asScala.map(_.getKey)).distinct
+    _walletBoxesUndo.append((version, touchedKeys, touchedKeys.flatMap(_walletBoxes.get)))
+    if (_walletBoxesUndo.size > SidechainWalletBoxStorage.UNDO_VERSIONS_COUNT)
+      _walletBoxesUndo.remove(0)
+
+    removeList.asScala.foreach(removeWalletBox)
 
     for (wba <- walletBoxUpdateList) {
       val key = calculateKey(wba.box.id())
       val bta = _walletBoxes.put(key, wba)
       addWalletBoxByType(wba)
+      bta.foreach(removeWalletBoxOrdered)
+      addWalletBoxOrdered(wba)
       if (bta.isEmpty)
         updateBoxesBalance(wba, null)
     }
@@ -145,6 +204,37 @@ class SidechainWalletBoxStorage (storage : Storage, sidechainBoxesCompanion: Sid
     this
   }
 
+  private def removeWalletBox(key : ByteArrayWrapper) : Unit = {
+    val btr = _walletBoxes.remove(key)
+    removeWalletBoxByType(key)
+    if (btr.isDefined) {
+      removeWalletBoxOrdered(btr.get)
+      updateBoxesBalance(null, btr.get)
+    }
+  }
+
+  private def addWalletBox(walletBox : WalletBox) : Unit = {
+    _walletBoxes.put(calculateKey(walletBox.box.id()), walletBox)
+    addWalletBoxByType(walletBox)
+    addWalletBoxOrdered(walletBox)
+    updateBoxesBalance(walletBox, null)
+  }
+
+  // Revert the in-memory wallet boxes to the given version with the undo data, from the newest update to the oldest one.
+  // Return false if there is no undo data for some of the updates after the version.
+  private def undoWalletBoxes(version : ByteArrayWrapper) : Boolean = {
+    val versionIndex = _walletBoxesUndo.lastIndexWhere(_._1 == version)
+    if (versionIndex < 0)
+      return false
+
+    while (_walletBoxesUndo.size > versionIndex + 1) {
+      val (_, touchedKeys, previousBoxes) = _walletBoxesUndo.remove(_walletBoxesUndo.size - 1)
+      touchedKeys.foreach(removeWalletBox)
+      previousBoxes.foreach(addWalletBox)
+    }
+    true
+  }
+
   def lastVersionId : Optional[ByteArrayWrapper] = {
     storage.lastVersionID()
   }
@@ -156,10 +246,22 @@ class SidechainWalletBoxStorage (storage : Storage, sidechainBoxesCompanion: Sid
   def rollback (version : ByteArrayWrapper) : Try[SidechainWalletBoxStorage] = Try {
     require(version != null, "Version to rollback to must be NOT NULL.")
     storage.rollback(version)
-    loadWalletBoxes()
+    if (!undoWalletBoxes(version))
+      loadWalletBoxes()
     this
   }
 
   def isEmpty: Boolean = storage.isEmpty
 
 }
+
+object SidechainWalletBoxStorage {
+  // Number of the recent updates with the undo data kept in memory, the same as the max rollback depth of the history.
+  val UNDO_VERSIONS_COUNT: Int = 100
+
+  val orderKeyComparator: Comparator[ByteArrayWrapper] = new Comparator[ByteArrayWrapper] {
+    private val bytesComparator = UnsignedBytes.lexicographicalComparator()
+
+    override def compare(key1: ByteArrayWrapper, key2: ByteArrayWrapper): Int = bytesComparator.compare(key1.data, key2.data)
+  }
+}
@@ -3,6 +3,7 @@ package com.horizen.storage
 import java.util.Optional
 import java.util.{ArrayList => JArrayList, List => JList}
 
+import com.google.common.primitives.{Bytes, Ints, Longs}
 import com.horizen.utils.{Pair => JPair}
 
 import scala.collection.JavaConverters._
@@ -10,8 +11,10 @@ import com.horizen.SidechainTypes
 import com.horizen.companion.SidechainTransactionsCompanion
 import com.horizen.utils.ByteArrayWrapper
 import scorex.crypto.hash.Blake2b256
-import scorex.util.{ModifierId, ScorexLogging, idToBytes}
+import scorex.core.NodeViewModifier
+import scorex.util.{ModifierId, ScorexLogging, bytesToId, idToBytes}
 
+import scala.collection.mutable
 import scala.util.{Failure, Success, Try}
 
 class SidechainWalletTransactionStorage (storage : Storage, sidechainTransactionsCompanion: SidechainTransactionsCompanion)
@@ -22,9 +25,21 @@ with ScorexLogging
   // Key - byte array transaction Id
   // No remove operation
 
+  // Transactions history index per proposition.
+  // Entries (block timestamp, transaction Id) are appended in order of blocks application, so they are sorted by block timestamp.
+  // Entries are stored in chunks of fixed size, so appending new entries rewrites only the last chunk of the proposition.
+  // Key - Blake2b256 hash of prefixed proposition bytes with chunk index
+  // Value - concatenation of the entries
+  // Number of entries for the proposition is stored separately.
+  // Key - Blake2b256 hash of prefixed proposition bytes
+  // Value - Int number of entries
+  // Index is updated with the same version as the transactions, so it is rolled back together with them.
+
   require(storage != null, "Storage must be NOT NULL.")
   require(sidechainTransactionsCompanion != null, "SidechainTransactionsCompanion must be NOT NULL.")
 
+  import SidechainWalletTransactionStorage.HISTORY_CHUNK_SIZE
+
   def calculateKey(transactionId : Array[Byte]) : ByteArrayWrapper = {
     new ByteArrayWrapper(Blake2b256.hash(transactionId))
   }
@@ -45,9 +60,103 @@ with ScorexLogging
   }
 
 
-  def update (version : ByteArrayWrapper, transactionUpdateList : Seq[SidechainTypes#SCBT]) : Try[SidechainWalletTransactionStorage] = Try {
+  def calculateHistoryCountKey(proposition: SidechainTypes#SCP) : ByteArrayWrapper = {
+    new ByteArrayWrapper(Blake2b256.hash(Bytes.concat("historyCount".getBytes, proposition.bytes)))
+  }
+
+  def calculateHistoryChunkKey(proposition: SidechainTypes#SCP, chunkIndex: Int) : ByteArrayWrapper = {
+    new ByteArrayWrapper(Blake2b256.hash(Bytes.concat("historyChunk".getBytes, proposition.bytes, Ints.toByteArray(chunkIndex))))
+  }
+
+  def getHistoryEntriesCount(proposition: SidechainTypes#SCP) : Int = {
+    storage.get(calculateHistoryCountKey(proposition)) match {
+      case v if v.isPresent => Ints.fromByteArray(v.get().data)
+      case _ => 0
+    }
+  }
+
+  private def getHistoryChunk(proposition: SidechainTypes#SCP, chunkIndex: Int) : Seq[WalletTransactionHistoryEntry] = {
+    storage.get(calculateHistoryChunkKey(proposition, chunkIndex)) match {
+      case v if v.isPresent =>
+        v.get().data.grouped(WalletTransactionHistoryEntry.ENTRY_LENGTH).map(WalletTransactionHistoryEntry.parseBytes).toSeq
+      case _ => Seq()
+    }
+  }
+
+  // Return at most limit history entries of the proposition with block timestamp in range [fromTimestamp, toTimestamp],
+  // sorted by block timestamp, starting from the entry with given position (or from the first entry in range if None).
+  // Position of the next entry in range is returned as well, if there are more entries that satisfy the conditions.
+  def getHistory (proposition: SidechainTypes#SCP, fromTimestamp: Long, toTimestamp: Long,
+                  fromPosition: Option[Int], limit: Int) : (Seq[WalletTransactionHistoryEntry], Option[Int]) = {
+    require(limit > 0, "Limit must be positive value, actual value is %d".format(limit))
+
+    val entriesCount = getHistoryEntriesCount(proposition)
+    val chunksCount = (entriesCount + HISTORY_CHUNK_SIZE - 1) / HISTORY_CHUNK_SIZE
+
+    // Find the position of the first entry with block timestamp not less than fromTimestamp using binary search over chunks.
+    def firstPositionInRange: Int = {
+      var low = 0
+      var high = chunksCount - 1
+      // Last chunk which first entry is before the range
+      var chunkBeforeRange = -1
+      while (low <= high) {
+        val middle = (low + high) >>> 1
+        if (getHistoryChunk(proposition, middle).head.blockTimestamp < fromTimestamp) {
+          chunkBeforeRange = middle
+          low = middle + 1
+        } else
+          high = middle - 1
+      }
+
+      if (chunkBeforeRange == -1)
+        0
+      else {
+        val chunk = getHistoryChunk(proposition, chunkBeforeRange)
+        // All entries of the chunk may be before the range, then the range starts from the next chunk
+        val indexInChunk = chunk.indexWhere(_.blockTimestamp >= fromTimestamp)
+        chunkBeforeRange * HISTORY_CHUNK_SIZE + (if (indexInChunk == -1) chunk.size else indexInChunk)
+      }
+    }
+
+    val entries = new mutable.ArrayBuffer[WalletTransactionHistoryEntry]()
+    var position = fromPosition.getOrElse(firstPositionInRange)
+    var finished = false
+
+    // Take one more entry to know whether there are more entries in range
+    while (!finished && position < entriesCount && entries.size <= limit) {
+      val chunkIndex = position / HISTORY_CHUNK_SIZE
+      val chunkEntries = getHistoryChunk(proposition, chunkIndex).iterator.drop(position - chunkIndex * HISTORY_CHUNK_SIZE)
+      if (!chunkEntries.hasNext)
+        finished = true
+      while (!finished && chunkEntries.hasNext && entries.size <= limit) {
+        val entry = chunkEntries.next()
+        if (entry.blockTimestamp > toTimestamp)
+          finished = true
+        else {
+          if (entry.blockTimestamp >= fromTimestamp)
+            entries.append(entry)
+          position += 1
+        }
+      }
+    }
+
+    if (entries.size > limit)
+      (entries.take(limit), Some(position - 1))
+    else
+      (entries, None)
+  }
+
+  def update (version : ByteArrayWrapper, transactionUpdateList : Seq[SidechainTypes#SCBT]) : Try[SidechainWalletTransactionStorage] = {
+    update(version, transactionUpdateList, Seq())
+  }
+
+  // History entries must be sorted by block timestamp and must not be before the already stored entries of the same proposition.
+  def update (version : ByteArrayWrapper,
+              transactionUpdateList : Seq[SidechainTypes#SCBT],
+              historyUpdateList : Seq[(SidechainTypes#SCP, WalletTransactionHistoryEntry)]) : Try[SidechainWalletTransactionStorage] = Try {
     require(transactionUpdateList != null, "List of Transactions to add/update must be NOT NULL. Use empty List instead.")
     require(!transactionUpdateList.contains(null), "Transactions to add/update must be NOT NULL.")
+    require(historyUpdateList != null, "List of history entries to append must be NOT NULL. Use empty List instead.")
 
     val updateList = new JArrayList[JPair[ByteArrayWrapper,ByteArrayWrapper]]()
 
@@ -55,6 +164,27 @@ with ScorexLogging
       updateList.add(new JPair[ByteArrayWrapper, ByteArrayWrapper](calculateKey(idToBytes(ModifierId @@ tx.id)),
         new ByteArrayWrapper(sidechainTransactionsCompanion.toBytes(tx))))
 
+    // Group entries by proposition keeping their order
+    val historyUpdates = historyUpdateList.foldLeft(mutable.LinkedHashMap[ByteArrayWrapper, (SidechainTypes#SCP, Seq[WalletTransactionHistoryEntry])]()) {
+      case (acc, (proposition, entry)) =>
+        val key = calculateHistoryCountKey(proposition)
+        acc.put(key, (proposition, acc.get(key).map(_._2).getOrElse(Seq()) :+ entry))
+        acc
+    }
+
+    for ((countKey, (proposition, newEntries)) <- historyUpdates) {
+      val entriesCount = getHistoryEntriesCount(proposition)
+      val lastChunkIndex = entriesCount / HISTORY_CHUNK_SIZE
+      // Rewrite the last incomplete chunk and append the new ones
+      val entriesToWrite = getHistoryChunk(proposition, lastChunkIndex) ++ newEntries
+      for ((chunkEntries, i) <- entriesToWrite.grouped(HISTORY_CHUNK_SIZE).zipWithIndex)
+        updateList.add(new JPair[ByteArrayWrapper, ByteArrayWrapper](calculateHistoryChunkKey(proposition, lastChunkIndex + i),
+          new ByteArrayWrapper(chunkEntries.flatMap(_.bytes).toArray)))
+
+      updateList.add(new JPair[ByteArrayWrapper, ByteArrayWrapper](countKey,
+        new ByteArrayWrapper(Ints.toByteArray(entriesCount + newEntries.size))))
+    }
+
     storage.update(version,
       updateList,
       new JArrayList[ByteArrayWrapper]())
@@ -79,3 +209,20 @@ with ScorexLogging
   def isEmpty: Boolean = storage.isEmpty
 
 }
+
+object SidechainWalletTransactionStorage {
+  val HISTORY_CHUNK_SIZE: Int = 256
+}
+
+case class WalletTransactionHistoryEntry(blockTimestamp: Long, transactionId: ModifierId) {
+  def bytes: Array[Byte] = Bytes.concat(Longs.toByteArray(blockTimestamp), idToBytes(transactionId))
+}
+
+object WalletTransactionHistoryEntry {
+  val ENTRY_LENGTH: Int = 8 + NodeViewModifier.ModifierIdSize
+
+  def parseBytes(bytes: Array[Byte]): WalletTransactionHistoryEntry = {
+    require(bytes.length == ENTRY_LENGTH, "Expected entry length is %d, actual length is %d".format(ENTRY_LENGTH, bytes.length))
+    WalletTransactionHistoryEntry(Longs.fromByteArray(bytes), bytesToId(bytes.slice(8, ENTRY_LENGTH)))
+  }
+}
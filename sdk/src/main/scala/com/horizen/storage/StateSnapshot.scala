@@ -0,0 +1,100 @@
+package com.horizen.storage
+
+import com.google.common.primitives.{Bytes, Ints, UnsignedBytes}
+import com.horizen.utils.ByteArrayWrapper
+import scorex.core.serialization.ScorexSerializer
+import scorex.crypto.hash.Blake2b256
+import scorex.util.serialization.{Reader, Writer}
+
+// State storage records in the order of their keys: boxes, withdrawal epoch data, withdrawal requests and forging stakes.
+case class StateSnapshotChunk(records: Seq[(ByteArrayWrapper, ByteArrayWrapper)])
+
+// Description of the state snapshot: version is the id of the block the state was taken at,
+// chunk hashes commit the snapshot content and root hash commits the whole header.
+// Note: block headers don't commit the state, so the root hash can't be checked against the chain.
+case class StateSnapshotHeader(version: ByteArrayWrapper, withdrawalEpoch: Int, chunkHashes: Seq[ByteArrayWrapper]) {
+
+  lazy val rootHash: ByteArrayWrapper = new ByteArrayWrapper(Blake2b256(Bytes.concat(
+    (version.data +: Ints.toByteArray(withdrawalEpoch) +: chunkHashes.map(_.data)): _*)))
+
+  def verifyChunk(index: Int, chunk: StateSnapshotChunk): Boolean = {
+    index >= 0 && index < chunkHashes.size &&
+      java.util.Arrays.equals(StateSnapshotChunkSerializer.hash(chunk).data, chunkHashes(index).data)
+  }
+}
+
+// State snapshot with its content: state records sorted by key and split into the chunks of the fixed size.
+case class StateSnapshot(header: StateSnapshotHeader, chunks: IndexedSeq[StateSnapshotChunk])
+
+object StateSnapshot {
+  def build(version: ByteArrayWrapper, withdrawalEpoch: Int, records: Seq[(ByteArrayWrapper, ByteArrayWrapper)], chunkSize: Int): StateSnapshot = {
+    require(chunkSize > 0, "State snapshot chunk size must be positive.")
+    val keysComparator = UnsignedBytes.lexicographicalComparator()
+    val chunks: IndexedSeq[StateSnapshotChunk] = records
+      .sortWith { case ((firstKey, _), (secondKey, _)) => keysComparator.compare(firstKey.data, secondKey.data) < 0 }
+      .grouped(chunkSize)
+      .map(chunkRecords => StateSnapshotChunk(chunkRecords))
+      .toIndexedSeq
+    StateSnapshot(StateSnapshotHeader(version, withdrawalEpoch, chunks.map(StateSnapshotChunkSerializer.hash)), chunks)
+  }
+}
+
+object StateSnapshotChunkSerializer extends ScorexSerializer[StateSnapshotChunk] {
+  val MAX_RECORD_SIZE: Int = 1024 * 1024
+
+  def hash(chunk: StateSnapshotChunk): ByteArrayWrapper = new ByteArrayWrapper(Blake2b256(toBytes(chunk)))
+
+  override def serialize(obj: StateSnapshotChunk, w: Writer): Unit = {
+    w.putInt(obj.records.size)
+    obj.records.foreach { case (key, value) =>
+      w.putInt(key.data.length)
+      w.putBytes(key.data)
+      w.putInt(value.data.length)
+      w.putBytes(value.data)
+    }
+  }
+
+  override def parse(r: Reader): StateSnapshotChunk = {
+    val recordsNumber = r.getInt()
+    if (recordsNumber < 0)
+      throw new IllegalArgumentException(s"State snapshot chunk records number $recordsNumber is invalid")
+    val records = (0 until recordsNumber).map(_ => (readBytes(r), readBytes(r)))
+    StateSnapshotChunk(records)
+  }
+
+  private def readBytes(r: Reader): ByteArrayWrapper = {
+    val length = r.getInt()
+    if (length < 0 || length > MAX_RECORD_SIZE || length > r.remaining)
+      throw new IllegalArgumentException(s"State snapshot record length $length is invalid")
+    new ByteArrayWrapper(r.getBytes(length))
+  }
+}
+
+object StateSnapshotHeaderSerializer extends ScorexSerializer[StateSnapshotHeader] {
+  // Increase on any change of the snapshot format: snapshot of the unknown version is ignored.
+  val SNAPSHOT_FORMAT_VERSION: Byte = 1
+  val VERSION_LENGTH: Int = 32
+  val CHUNK_HASH_LENGTH: Int = 32
+
+  override def serialize(obj: StateSnapshotHeader, w: Writer): Unit = {
+    w.put(SNAPSHOT_FORMAT_VERSION)
+    w.putBytes(obj.version.data)
+    w.putInt(obj.withdrawalEpoch)
+    w.putInt(obj.chunkHashes.size)
+    obj.chunkHashes.foreach(hash => w.putBytes(hash.data))
+  }
+
+  override def parse(r: Reader): StateSnapshotHeader = {
+    val formatVersion = r.getByte()
+    if (formatVersion != SNAPSHOT_FORMAT_VERSION)
+      throw new IllegalArgumentException(s"Unsupported state snapshot format version $formatVersion")
+
+    val version = new ByteArrayWrapper(r.getBytes(VERSION_LENGTH))
+    val withdrawalEpoch = r.getInt()
+    val chunksNumber = r.getInt()
+    if (chunksNumber < 0 || chunksNumber * CHUNK_HASH_LENGTH > r.remaining)
+      throw new IllegalArgumentException(s"State snapshot chunks number $chunksNumber is invalid")
+    val chunkHashes = (0 until chunksNumber).map(_ => new ByteArrayWrapper(r.getBytes(CHUNK_HASH_LENGTH)))
+    StateSnapshotHeader(version, withdrawalEpoch, chunkHashes)
+  }
+}
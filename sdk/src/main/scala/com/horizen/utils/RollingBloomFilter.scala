@@ -0,0 +1,27 @@
+package com.horizen.utils
+
+import com.google.common.hash.{BloomFilter, Funnels}
+
+// Bloom filter of the most recent elements: remembers at least the last `capacity` elements.
+// Two generations are kept, when the current one is full, the previous one is dropped.
+class RollingBloomFilter(capacity: Int, falsePositiveRate: Double) {
+  require(capacity > 0, "Bloom filter capacity shall be positive.")
+
+  private var current: BloomFilter[Array[Byte]] = newFilter()
+  private var previous: BloomFilter[Array[Byte]] = newFilter()
+  private var currentSize: Int = 0
+
+  private def newFilter(): BloomFilter[Array[Byte]] = BloomFilter.create[Array[Byte]](Funnels.byteArrayFunnel(), capacity, falsePositiveRate)
+
+  def put(element: Array[Byte]): Unit = {
+    if (currentSize >= capacity) {
+      previous = current
+      current = newFilter()
+      currentSize = 0
+    }
+    if (current.put(element))
+      currentSize += 1
+  }
+
+  def mightContain(element: Array[Byte]): Boolean = current.mightContain(element) || previous.mightContain(element)
+}
@@ -0,0 +1,33 @@
+package com.horizen.utils
+
+// Cache of the recently put values, limited by the total size of the values instead of their number.
+// Size of the value is given by the caller, for example the length of its serialized bytes.
+// The least recently put values are evicted first. Values larger than the whole limit are not cached.
+class SizeBoundedLruCache[K, V](val maxSize: Long) {
+  require(maxSize > 0, "Cache size limit must be positive.")
+
+  private val entries = new java.util.LinkedHashMap[K, (V, Int)]()
+  private var totalSize: Long = 0
+
+  def size: Int = synchronized(entries.size())
+
+  def currentSize: Long = synchronized(totalSize)
+
+  def get(key: K): Option[V] = synchronized {
+    Option(entries.get(key)).map(_._1)
+  }
+
+  def put(key: K, value: V, valueSize: Int): Unit = synchronized {
+    require(valueSize >= 0, "Value size must be non negative.")
+    Option(entries.remove(key)).foreach { case (_, oldSize) => totalSize -= oldSize }
+    if (valueSize <= maxSize) {
+      entries.put(key, (value, valueSize))
+      totalSize += valueSize
+      val eldest = entries.entrySet().iterator()
+      while (totalSize > maxSize) {
+        totalSize -= eldest.next().getValue._2
+        eldest.remove()
+      }
+    }
+  }
+}
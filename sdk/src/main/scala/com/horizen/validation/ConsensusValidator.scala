@@ -9,8 +9,11 @@ import com.horizen.vrf.VrfOutput
 import scorex.core.block.Block
 import scorex.util.{ScorexLogging, ModifierId}
 
+import scala.collection.mutable.ArrayBuffer
 import scala.util.Try
 
+private case class OmmerVerificationTask(header: SidechainBlockHeader, fullConsensusEpochInfo: FullConsensusEpochInfo)
+
 class ConsensusValidator extends HistoryBlockValidator with ScorexLogging {
   override def validate(block: SidechainBlock, history: SidechainHistory): Try[Unit] = Try {
     if (history.isGenesisBlock(block.id)) {
@@ -97,13 +100,43 @@ class ConsensusValidator extends HistoryBlockValidator with ScorexLogging {
                                     history: SidechainHistory,
                                     previousEpochOmmersInfoAccumulator: Seq[(VrfOutput, ConsensusSlotNumber)]
                                    ): Unit = {
+    if(ommersContainer.ommers.isEmpty)
+      return
+
+    // First define the consensus epoch info for every ommer in the tree, then do the VRF and forger box checks in parallel.
+    val verificationPlan = ArrayBuffer[OmmerVerificationTask]()
+    planOmmersVerification(ommersContainer, currentFullConsensusEpochInfo, previousFullConsensusEpochInfoOpt,
+      bestKnownParentId, bestKnownParentInfo, history,
+      previousEpochOmmersInfoAccumulator.map { case (vrfOutput, slotNumber) => (() => vrfOutput, slotNumber) },
+      verificationPlan)
+
+    val results: Seq[Try[Unit]] = verificationPlan.par.map(task => Try {
+      val ommerVrfOutput: VrfOutput = getOmmerVrfOutput(task.header, task.fullConsensusEpochInfo.nonceConsensusEpochInfo, history)
+      verifyForgerBox(task.header, task.fullConsensusEpochInfo.stakeConsensusEpochInfo, ommerVrfOutput)
+    }).seq
+
+    // Report the failure of the first ommer in the tree traversal order.
+    results.foreach(_.get)
+  }
+
+  // Walks through the ommers tree and collects the consensus epoch info to verify each ommer with.
+  // VRF outputs of the previous epoch ommers are calculated only if nonce recalculation is needed.
+  private def planOmmersVerification(ommersContainer: OmmersContainer,
+                                     currentFullConsensusEpochInfo: FullConsensusEpochInfo,
+                                     previousFullConsensusEpochInfoOpt: Option[FullConsensusEpochInfo],
+                                     bestKnownParentId: ModifierId,
+                                     bestKnownParentInfo: SidechainBlockInfo,
+                                     history: SidechainHistory,
+                                     previousEpochOmmersInfoAccumulator: Seq[(() => VrfOutput, ConsensusSlotNumber)],
+                                     verificationPlan: ArrayBuffer[OmmerVerificationTask]
+                                    ): Unit = {
     val ommers = ommersContainer.ommers
     if(ommers.isEmpty)
       return
 
     val ommersContainerEpochNumber: ConsensusEpochNumber = history.timeStampToEpochNumber(ommersContainer.header.timestamp)
 
-    var accumulator: Seq[(VrfOutput, ConsensusSlotNumber)] = previousEpochOmmersInfoAccumulator
+    var accumulator: Seq[(() => VrfOutput, ConsensusSlotNumber)] = previousEpochOmmersInfoAccumulator
     var previousOmmerEpochNumber: ConsensusEpochNumber = ommersContainerEpochNumber
     var ommerCurrentFullConsensusEpochInfo = currentFullConsensusEpochInfo
     var ommerPreviousFullConsensusEpochInfoOpt = previousFullConsensusEpochInfoOpt
@@ -122,27 +155,32 @@ class ConsensusValidator extends HistoryBlockValidator with ScorexLogging {
         // Ommer switched the consensus epoch (previous ommer was from previous epoch).
         // It means, that bestKnownParentId (parent of verified block) is also from previous epoch.
         // So calculate the nonce again with passing info of all Ommers from previous epoch as well.
-        val nonce = history.calculateNonceForNonGenesisEpoch(bestKnownParentId, bestKnownParentInfo, accumulator)
+        val accumulatedOmmersInfo = accumulator.map { case (vrfOutput, slotNumber) => (vrfOutput(), slotNumber) }
+        val nonce = history.calculateNonceForNonGenesisEpoch(bestKnownParentId, bestKnownParentInfo, accumulatedOmmersInfo)
         ommerCurrentFullConsensusEpochInfo = FullConsensusEpochInfo(currentFullConsensusEpochInfo.stakeConsensusEpochInfo, nonce)
         ommerPreviousFullConsensusEpochInfoOpt = previousFullConsensusEpochInfoOpt
       }
 
-      val ommerVrfOutput: VrfOutput = history.getVrfOutput(ommer.header, ommerCurrentFullConsensusEpochInfo.nonceConsensusEpochInfo)
-        .getOrElse(throw new IllegalStateException(s"VRF check for Ommer ${ommer.header.id} had been failed"))
-      verifyForgerBox(ommer.header, ommerCurrentFullConsensusEpochInfo.stakeConsensusEpochInfo, ommerVrfOutput)
+      verificationPlan += OmmerVerificationTask(ommer.header, ommerCurrentFullConsensusEpochInfo)
 
-      verifyOmmers(ommer, ommerCurrentFullConsensusEpochInfo, ommerPreviousFullConsensusEpochInfoOpt,
-        bestKnownParentId, bestKnownParentInfo, history, accumulator)
+      planOmmersVerification(ommer, ommerCurrentFullConsensusEpochInfo, ommerPreviousFullConsensusEpochInfoOpt,
+        bestKnownParentId, bestKnownParentInfo, history, accumulator, verificationPlan)
 
       // Add previous epoch ommer info to accumulated sequence.
       if(ommerEpochAndSlot.epochNumber < ommersContainerEpochNumber) {
+        val ommerNonceConsensusEpochInfo = ommerCurrentFullConsensusEpochInfo.nonceConsensusEpochInfo
         // prepend accumulator with ommer with more recent slot
-        accumulator = (ommerVrfOutput, ommerEpochAndSlot.slotNumber) +: accumulator
+        accumulator = ((() => getOmmerVrfOutput(ommer.header, ommerNonceConsensusEpochInfo, history)), ommerEpochAndSlot.slotNumber) +: accumulator
       }
       previousOmmerEpochNumber = ommerEpochAndSlot.epochNumber
     }
   }
 
+  private def getOmmerVrfOutput(ommerHeader: SidechainBlockHeader, nonceConsensusEpochInfo: NonceConsensusEpochInfo, history: SidechainHistory): VrfOutput = {
+    history.getVrfOutput(ommerHeader, nonceConsensusEpochInfo)
+      .getOrElse(throw new IllegalStateException(s"VRF check for Ommer ${ommerHeader.id} had been failed"))
+  }
+
   //Verify that forger box in block is correct (including stake), exist in history and had enough stake to be forger
   private[horizen] def verifyForgerBox(header: SidechainBlockHeader, stakeConsensusEpochInfo: StakeConsensusEpochInfo, vrfOutput: VrfOutput): Unit = {
     log.debug(s"Verify Forger box against root hash: ${stakeConsensusEpochInfo.rootHash} by merkle path ${header.forgerBoxMerklePath.bytes().deep.mkString}")
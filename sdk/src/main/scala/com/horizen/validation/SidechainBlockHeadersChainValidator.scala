@@ -0,0 +1,66 @@
+package com.horizen.validation
+
+import java.time.Instant
+
+import com.horizen.block.SidechainBlockHeader
+import com.horizen.consensus.{ConsensusEpochNumber, TimeToEpochSlotConverter}
+import com.horizen.params.NetworkParams
+import scorex.core.block.Block
+import scorex.util.ModifierId
+
+import scala.util.Try
+
+// Checks of the headers chain received during the headers-first sync, which need the headers only:
+// header semantic validity, chain linkage, timestamp rules and the same stake root for the whole consensus epoch.
+// VRF and forger stake checks need the epoch nonce and stake info, so they are done on the block append as usual.
+class SidechainBlockHeadersChainValidator(val params: NetworkParams) extends TimeToEpochSlotConverter {
+
+  def validate(headers: Seq[SidechainBlockHeader], parentId: ModifierId, parentTimestamp: Block.Timestamp): Try[Unit] = Try {
+    // Signatures checks are independent, so do them in parallel and report the first failure in the chain order.
+    headers.par.map(_.semanticValidity(params)).seq.foreach(_.get)
+
+    var expectedParentId: ModifierId = parentId
+    var previousTimestamp: Block.Timestamp = parentTimestamp
+    var epochNumber: ConsensusEpochNumber = timeStampToEpochNumber(parentTimestamp)
+    var epochStakeRootOpt: Option[Array[Byte]] = None
+    val currentSlot = timeStampToAbsoluteSlotNumber(Instant.now.getEpochSecond)
+
+    for (header <- headers) {
+      if (header.parentId != expectedParentId)
+        throw new InconsistentDataException(s"SidechainBlockHeader ${header.id} doesn't follow the previous one in the headers chain.")
+
+      verifyTimestamp(header, previousTimestamp)
+      if (timeStampToAbsoluteSlotNumber(header.timestamp) > currentSlot)
+        throw new SidechainBlockSlotInFutureException(s"SidechainBlockHeader ${header.id} had been generated in the future")
+
+      // All the blocks of the consensus epoch are forged with the same stake distribution.
+      val headerEpochNumber = timeStampToEpochNumber(header.timestamp)
+      val stakeRoot = header.forgerBoxMerklePath.apply(header.forgerBox.id())
+      if (headerEpochNumber != epochNumber) {
+        epochNumber = headerEpochNumber
+        epochStakeRootOpt = Some(stakeRoot)
+      }
+      else epochStakeRootOpt match {
+        case Some(epochStakeRoot) if !epochStakeRoot.sameElements(stakeRoot) =>
+          throw new InvalidSidechainBlockHeaderException(s"SidechainBlockHeader ${header.id} forger box merkle path is inconsistent to the stake root of the epoch.")
+        case Some(_) =>
+        case None => epochStakeRootOpt = Some(stakeRoot)
+      }
+
+      expectedParentId = header.id
+      previousTimestamp = header.timestamp
+    }
+  }
+
+  // The same rules as ConsensusValidator applies to the block timestamp.
+  private def verifyTimestamp(header: SidechainBlockHeader, parentTimestamp: Block.Timestamp): Unit = {
+    if (header.timestamp < parentTimestamp)
+      throw new InvalidSidechainBlockHeaderException(s"SidechainBlockHeader ${header.id} had been generated before parent block had been generated")
+
+    if (timeStampToAbsoluteSlotNumber(header.timestamp) <= timeStampToAbsoluteSlotNumber(parentTimestamp))
+      throw new InvalidSidechainBlockHeaderException(s"SidechainBlockHeader ${header.id} absolute slot number is equal or less than parent block")
+
+    if (timeStampToEpochNumber(header.timestamp) - timeStampToEpochNumber(parentTimestamp) > 1)
+      throw new InvalidSidechainBlockHeaderException(s"SidechainBlockHeader ${header.id} skips the whole epoch after parent block")
+  }
+}
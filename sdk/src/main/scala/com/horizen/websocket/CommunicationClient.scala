@@ -1,5 +1,7 @@
 package com.horizen.websocket
 
+import java.nio.ByteBuffer
+
 import scala.util.Try
 import scala.concurrent.Future
 import scala.concurrent.duration.FiniteDuration
@@ -14,6 +16,11 @@ trait RequestPayload
 
 trait ResponsePayload
 
+// Response payload, which raw data can be sent by the MC node in a binary frame right after the JSON header.
+trait BinaryDataResponsePayload extends ResponsePayload {
+  def withBinaryData(data: ByteBuffer): BinaryDataResponsePayload
+}
+
 trait CommunicationClient {
   def sendRequest[Req <: RequestPayload, Resp <: ResponsePayload](requestType: Int, request: Req, responseClazz: Class[Resp]): Future[Resp]
 
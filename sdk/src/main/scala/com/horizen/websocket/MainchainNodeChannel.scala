@@ -15,6 +15,10 @@ trait MainchainNodeChannel {
   // Get reference for given hash in MC node block storage (any chain)
   def getBlockByHash(hash: String): Try[MainchainBlockReference]
 
+  // Get references for given hashes in MC node block storage (any chain) keeping several requests in flight.
+  // References are returned in the same order as hashes.
+  def getBlocksByHashes(hashes: Seq[String]): Try[Seq[MainchainBlockReference]]
+
   // Get up to `limit` block hashes from MC node active chain after given height.
   def getBlockHashesAfterHeight(height: Int, limit: Int): Try[Seq[String]]
 
@@ -1,10 +1,13 @@
 package com.horizen.websocket
+import java.nio.ByteBuffer
+
 import com.horizen.block.MainchainBlockReference
 import com.horizen.params.NetworkParams
 import com.horizen.utils.BytesUtils
 
 import scala.util.{Failure, Success, Try}
 import scala.concurrent.{Await, Future}
+import scala.concurrent.ExecutionContext.Implicits.global
 
 
 case class GetBlockByHeightRequestPayload(height: Int) extends RequestPayload
@@ -14,12 +17,24 @@ case class GetBlocksAfterHashRequestPayload(afterHash: String, limit: Int) exten
 case class GetNewBlocksRequestPayload(locatorHashes: Seq[String], limit: Int) extends RequestPayload
 
 
-case class BlockResponsePayload(height: Int, hash: String, block: String) extends ResponsePayload
+case class BlockResponsePayload(height: Int, hash: String, block: String) extends BinaryDataResponsePayload {
+  override def withBinaryData(data: ByteBuffer): BlockResponsePayload = new BinaryBlockResponsePayload(height, hash, data)
+
+  def blockBuffer: ByteBuffer = ByteBuffer.wrap(BytesUtils.fromHexString(block))
+}
+// Block response received in a binary frame: raw block bytes instead of the `block` hex.
+private[websocket] class BinaryBlockResponsePayload(height: Int, hash: String, blockData: ByteBuffer)
+  extends BlockResponsePayload(height, hash, null) {
+  override def blockBuffer: ByteBuffer = blockData.duplicate()
+}
 case class BlocksResponsePayload(height: Int, hashes: Seq[String]) extends ResponsePayload
 case class NewBlocksResponsePayload(height: Int, hashes: Seq[String]) extends ResponsePayload
 
 
-class MainchainNodeChannelImpl(client: CommunicationClient, params: NetworkParams) extends MainchainNodeChannel { // to do: define EC inside?
+class MainchainNodeChannelImpl(client: CommunicationClient,
+                               params: NetworkParams,
+                               maxRequestsInFlight: Int = MainchainNodeChannelImpl.DEFAULT_MAX_REQUESTS_IN_FLIGHT) extends MainchainNodeChannel { // to do: define EC inside?
+  require(maxRequestsInFlight > 0, "Max requests in flight number must be positive.")
 
   override def getBlockByHeight(height: Int): Try[MainchainBlockReference] = Try {
     val future: Future[BlockResponsePayload] =
@@ -35,10 +50,25 @@ class MainchainNodeChannelImpl(client: CommunicationClient, params: NetworkParam
     processBlockResponsePayload(future).get
   }
 
+  override def getBlocksByHashes(hashes: Seq[String]): Try[Seq[MainchainBlockReference]] = Try {
+    // Responses are matched by request id, so several requests can be sent at once.
+    // Each block is parsed as soon as its response arrives, in parallel with the other requests.
+    val futures: Array[Future[MainchainBlockReference]] = new Array(hashes.size)
+    for ((hash, index) <- hashes.zipWithIndex) {
+      // Keep no more than `maxRequestsInFlight` not processed requests.
+      if (index >= maxRequestsInFlight)
+        Await.ready(futures(index - maxRequestsInFlight), client.requestTimeoutDuration())
+
+      futures(index) = client.sendRequest(0, GetBlockByHashRequestPayload(hash), classOf[BlockResponsePayload])
+        .map(response => MainchainBlockReference.create(response.blockBuffer, params).get)
+    }
+
+    futures.map(future => Await.result(future, client.requestTimeoutDuration())).toSeq
+  }
+
   private def processBlockResponsePayload(future: Future[BlockResponsePayload]): Try[MainchainBlockReference] = Try {
     val response: BlockResponsePayload = Await.result(future, client.requestTimeoutDuration())
-    val blockBytes = BytesUtils.fromHexString(response.block)
-    MainchainBlockReference.create(blockBytes, params).get
+    MainchainBlockReference.create(response.blockBuffer, params).get
   }
 
   def getBlockHashesAfterHeight(height: Int, limit: Int): Try[Seq[String]] = Try {
@@ -81,3 +111,7 @@ class MainchainNodeChannelImpl(client: CommunicationClient, params: NetworkParam
     client.unregisterEventHandler(0, handler)
   }
 }
+
+object MainchainNodeChannelImpl {
+  val DEFAULT_MAX_REQUESTS_IN_FLIGHT: Int = 10
+}
@@ -1,5 +1,7 @@
 package com.horizen.websocket
 
+import java.nio.ByteBuffer
+
 import scala.concurrent.Future
 import scala.concurrent.duration.FiniteDuration
 import scala.util.Try
@@ -12,6 +14,8 @@ object DisconnectionCode extends Enumeration {
 trait WebSocketMessageHandler {
   def onReceivedMessage(message: String): Unit
 
+  def onReceivedBinaryMessage(message: ByteBuffer): Unit
+
   def onSendMessageErrorOccurred(message: String, cause: Throwable): Unit
 }
 
@@ -1,5 +1,7 @@
 package com.horizen.websocket
 
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
 import java.util.concurrent.atomic.AtomicInteger
 
 import com.fasterxml.jackson.databind.{JsonNode, ObjectMapper}
@@ -12,7 +14,9 @@ import scala.concurrent.{Future, Promise}
 import scala.util.Try
 import scala.concurrent.duration._
 
-class WebSocketCommunicationClient extends WebSocketChannelCommunicationClient with WebSocketMessageHandler with ScorexLogging {
+// In case of binaryFramesEnabled MC node is allowed to respond with a binary frame instead of a text one:
+// [4 bytes big-endian JSON header length][JSON header same as text response, but without raw data][raw data bytes]
+class WebSocketCommunicationClient(binaryFramesEnabled: Boolean = false) extends WebSocketChannelCommunicationClient with WebSocketMessageHandler with ScorexLogging {
 
   private val mapper = new ObjectMapper().registerModule(DefaultScalaModule)
 
@@ -33,6 +37,9 @@ class WebSocketCommunicationClient extends WebSocketChannelCommunicationClient w
       json.put("requestType", requestType)
       json.put("requestId", requestId)
       json.put("requestPayload", mapper.valueToTree[JsonNode](request))
+      // MC node not supporting binary frames ignores the flag and responds with a text frame as usual.
+      if (binaryFramesEnabled && responseClazz != null && classOf[BinaryDataResponsePayload].isAssignableFrom(responseClazz))
+        json.put("binaryResponse", true)
 
       val message = json.toString
       val promise = Promise[Resp]
@@ -85,6 +92,32 @@ class WebSocketCommunicationClient extends WebSocketChannelCommunicationClient w
     }
   }
 
+  override def onReceivedBinaryMessage(message: ByteBuffer): Unit = {
+    try {
+      val headerLength = message.getInt()
+      if (headerLength < 0 || headerLength > message.remaining())
+        throw new IllegalArgumentException(s"Binary message header length $headerLength is inconsistent to message size.")
+
+      val headerBuffer = message.slice()
+      headerBuffer.limit(headerLength)
+      val json = mapper.readTree(StandardCharsets.UTF_8.decode(headerBuffer).toString)
+
+      // Raw data is passed further without copying.
+      message.position(message.position() + headerLength)
+      val data = message.slice()
+
+      json.get("msgType").asInt() match {
+        case 2 => // Response
+          processResponse(json, Some(data))
+        case msgType =>
+          log.error("Unsupported binary message received with type = " + msgType)
+      }
+    } catch {
+      case ex: Throwable =>
+        log.error("On receive binary message processing exception occurred = " + ex.getMessage)
+    }
+  }
+
   private def processError(json: JsonNode): Unit = {
     case class Error(msgType: Int, requestId: String, errorCode: Int, message: String)
     val requestId = json.get("requestId").asText("")
@@ -124,13 +157,17 @@ class WebSocketCommunicationClient extends WebSocketChannelCommunicationClient w
 
   }
 
-  private def processResponse(json: JsonNode): Unit = {
+  private def processResponse(json: JsonNode, binaryDataOpt: Option[ByteBuffer] = None): Unit = {
     val requestId = json.get("requestId").asText("")
     requestsPool.remove(requestId) match {
       case Some((promise, responseClazz)) =>
         try {
           val resp = mapper.convertValue(json.get("responsePayload"), responseClazz)
-          promise.success(resp)
+          (resp, binaryDataOpt) match {
+            case (binaryResp: BinaryDataResponsePayload, Some(data)) => promise.success(binaryResp.withBinaryData(data))
+            case (_, Some(_)) => throw new IllegalArgumentException(s"Binary data is not expected for response with requested id = $requestId")
+            case _ => promise.success(resp)
+          }
         } catch {
           case ex: Throwable => promise.failure(ex)
         }
@@ -1,6 +1,7 @@
 package com.horizen.websocket
 
 import java.net.URI
+import java.nio.ByteBuffer
 
 import javax.websocket.{ClientEndpoint, CloseReason, MessageHandler, SendHandler, SendResult, Session}
 import org.glassfish.tyrus.client.{ClientManager, ClientProperties}
@@ -58,6 +59,13 @@ class WebSocketConnectorImpl(bindAddress: String, connectionTimeout: FiniteDurat
       }
     })
 
+    userSession.addMessageHandler(new MessageHandler.Whole[ByteBuffer]() {
+      override def onMessage(t: ByteBuffer): Unit = {
+        log.debug(s"Binary message of ${t.remaining()} bytes received from server.")
+        messageHandler.onReceivedBinaryMessage(t)
+      }
+    })
+
   }
 
   override def asyncStart(): Future[Try[Unit]] = {
@@ -0,0 +1,98 @@
+package com.horizen.block;
+
+import com.horizen.utils.BytesUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import scala.Tuple2;
+import scala.collection.JavaConverters;
+import scala.collection.Seq;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Compares Equihash (200, 9) solution verification of the reference Equihash implementation and EquihashVerifier.
+// Run from IDE or by: java -cp <test classpath> com.horizen.block.EquihashBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EquihashBenchmark {
+    private static final int N = 200;
+    private static final int K = 9;
+    private static final int SOLUTION_LENGTH = 1344;
+    private static final int SOLUTION_VAR_INT_LENGTH = 3;
+    private static final String[] BLOCK_RESOURCES = {
+            "mcblock473173_mainnet", "mcblock473174_mainnet", "mcblock473175_mainnet", "mcblock473176_mainnet"};
+
+    private Equihash equihash;
+    private EquihashVerifier equihashVerifier;
+    private byte[] message;
+    private byte[] solution;
+    private Seq<Tuple2<byte[], byte[]>> messagesAndSolutions;
+
+    @Setup
+    public void setup() throws IOException {
+        equihash = new Equihash(N, K);
+        equihashVerifier = new EquihashVerifier(N, K);
+
+        // Emulates the verification of the block headers together with the ommers ones.
+        List<Tuple2<byte[], byte[]>> data = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            for (String resource : BLOCK_RESOURCES)
+                data.add(readMessageAndSolution(resource));
+        }
+        messagesAndSolutions = JavaConverters.asScalaBuffer(data);
+
+        message = data.get(0)._1();
+        solution = data.get(0)._2();
+    }
+
+    private Tuple2<byte[], byte[]> readMessageAndSolution(String resource) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(getClass().getClassLoader().getResourceAsStream(resource)))) {
+            byte[] blockBytes = BytesUtils.fromHexString(reader.readLine());
+            int solutionOffset = MainchainHeader.HEADER_MIN_SIZE() + SOLUTION_VAR_INT_LENGTH;
+            return new Tuple2<>(Arrays.copyOfRange(blockBytes, 0, MainchainHeader.HEADER_MIN_SIZE()),
+                    Arrays.copyOfRange(blockBytes, solutionOffset, solutionOffset + SOLUTION_LENGTH));
+        }
+    }
+
+    @Benchmark
+    public boolean equihash() {
+        return equihash.checkEquihashSolution(message, solution);
+    }
+
+    @Benchmark
+    public boolean equihashVerifier() {
+        return equihashVerifier.checkEquihashSolution(message, solution);
+    }
+
+    @Benchmark
+    public boolean equihashBatchSequential() {
+        boolean allValid = true;
+        for (int i = 0; i < messagesAndSolutions.size(); i++)
+            allValid &= equihash.checkEquihashSolution(messagesAndSolutions.apply(i)._1(), messagesAndSolutions.apply(i)._2());
+        return allValid;
+    }
+
+    @Benchmark
+    public Seq<Object> equihashVerifierBatchParallel() {
+        return EquihashVerifier.checkEquihashSolutions(N, K, messagesAndSolutions);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EquihashBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
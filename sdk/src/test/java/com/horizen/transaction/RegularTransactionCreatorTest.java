@@ -9,6 +9,8 @@ import com.horizen.box.data.WithdrawalRequestBoxData;
 import com.horizen.fixtures.BoxFixtureClass;
 import com.horizen.fixtures.SecretFixtureClass;
 import com.horizen.node.NodeWallet;
+import com.horizen.node.util.WalletBoxesPage;
+import com.horizen.node.util.WalletTransactionsPage;
 import com.horizen.proposition.MCPublicKeyHashProposition;
 import com.horizen.proposition.Proposition;
 import com.horizen.proposition.PublicKey25519Proposition;
@@ -97,6 +99,12 @@ class TransactionCreatorNodeWallet implements NodeWallet {
         return filteredBoxes;
     }
 
+    //TODO Implement
+    @Override
+    public WalletBoxesPage boxesPage(Optional<Class<? extends Box<? extends Proposition>>> type, long minValue, Optional<byte[]> cursor, int pageSize) {
+        return new WalletBoxesPage(new ArrayList<>(), Optional.empty());
+    }
+
     //TODO Implement
     @Override
     public Long boxesBalance(Class<? extends Box<? extends Proposition>> type) {
@@ -123,10 +131,20 @@ class TransactionCreatorNodeWallet implements NodeWallet {
         return null;
     }
 
+    @Override
+    public WalletTransactionsPage transactionsHistory(Proposition proposition, long fromTimestamp, long toTimestamp, Optional<byte[]> cursor, int pageSize) {
+        return new WalletTransactionsPage(new ArrayList<>(), Optional.empty());
+    }
+
     @Override
     public byte[] walletSeed() {
         return "seed".getBytes();
     }
+
+    @Override
+    public int lastDerivedKeyIndex() {
+        return -1;
+    }
 }
 
 public class RegularTransactionCreatorTest extends BoxFixtureClass {
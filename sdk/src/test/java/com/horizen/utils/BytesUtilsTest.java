@@ -181,7 +181,7 @@ public class BytesUtilsTest {
         assertEquals("Values expected to by equal", 72057594037993473L, vi.value());
 
 
-        // Test 5: out of bound offset
+        // Test 6: out of bound offset
         boolean exceptionOccurred = false;
         try {
             BytesUtils.getVarInt(bytes, 20);
@@ -223,8 +223,13 @@ public class BytesUtilsTest {
         assertEquals("Value expected to have size 9", 9, vi.size());
         assertEquals("Values expected to by equal", 72058693549555713L, vi.value());
 
+        // Test 5: values of size 3 and 5 are unsigned
+        byte[] maxValuesBytes = {(byte)253, (byte)255, (byte)255, (byte)254, (byte)255, (byte)255, (byte)255, (byte)255};
+        assertEquals("Values expected to by equal", 65535L, BytesUtils.getReversedVarInt(maxValuesBytes, 0).value());
+        assertEquals("Values expected to by equal", 4294967295L, BytesUtils.getReversedVarInt(maxValuesBytes, 3).value());
 
-        // Test 5: out of bound offset
+
+        // Test 6: out of bound offset
         boolean exceptionOccurred = false;
         try {
             BytesUtils.getReversedVarInt(bytes, 20);
@@ -3,6 +3,7 @@ package com.horizen.utils;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -69,5 +70,22 @@ public class MerkleTreeTest {
             MerklePath path = merkleTree.getMerklePathForLeaf(i);
             assertEquals("Merkle path validation failed.", true, merkleTree.validateMerklePath(merkleTree.leaves().get(i), path));
         }
+
+
+        // Test merkle paths construction for several leaves at once:
+        List<Integer> leavesIdx = Arrays.asList(actualLeaves.size() - 1, 0, 3);
+        List<MerklePath> paths = merkleTree.getMerklePathsForLeaves(leavesIdx);
+        assertEquals("Different number of merkle paths expected.", leavesIdx.size(), paths.size());
+        for(int i = 0; i < leavesIdx.size(); i++) {
+            assertArrayEquals("Merkle path expected to be the same as calculated for a single leaf.",
+                    merkleTree.getMerklePathForLeaf(leavesIdx.get(i)).bytes(), paths.get(i).bytes());
+        }
+
+        try {
+            merkleTree.getMerklePathsForLeaves(Arrays.asList(0, actualLeaves.size()));
+            fail("Merkle paths construction for out of bound leaf index expected to fail.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
     }
 }
\ No newline at end of file
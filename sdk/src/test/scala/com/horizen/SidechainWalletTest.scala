@@ -12,7 +12,7 @@ import com.horizen.consensus.{ConsensusEpochInfo, ConsensusEpochNumber}
 import com.horizen.customtypes._
 import com.horizen.fixtures._
 import com.horizen.proposition._
-import com.horizen.secret.{PrivateKey25519, Secret, SecretSerializer}
+import com.horizen.secret.{PrivateKey25519, PrivateKey25519Creator, Secret, SecretSerializer}
 import com.horizen.storage._
 import com.horizen.transaction.{BoxTransaction, RegularTransaction}
 import com.horizen.utils.{ByteArrayWrapper, BytesUtils, ForgerBoxMerklePathInfo, MerklePath, MerkleTree, Pair}
@@ -206,6 +206,7 @@ class SidechainWalletTest
 
     // Prepare mockedSecretStorage1 Secrets
     Mockito.when(mockedSecretStorage.getAll).thenReturn(secretList.toList)
+    Mockito.when(mockedSecretStorage.getDerivedKeyIndex(ArgumentMatchers.any[PublicKey25519Proposition]())).thenReturn(None)
 
 
     // Test:
@@ -276,10 +277,12 @@ class SidechainWalletTest
 
     Mockito.when(mockedWalletTransactionStorage.update(
       ArgumentMatchers.any[ByteArrayWrapper](),
-      ArgumentMatchers.any[List[SidechainTypes#SCBT]]()))
+      ArgumentMatchers.any[List[SidechainTypes#SCBT]](),
+      ArgumentMatchers.any[Seq[(SidechainTypes#SCP, WalletTransactionHistoryEntry)]]()))
       .thenAnswer(answer => {
         val version = answer.getArgument(0).asInstanceOf[ByteArrayWrapper]
         val transactionUpdateList = answer.getArgument(1).asInstanceOf[List[SidechainTypes#SCBT]]
+        val historyUpdateList = answer.getArgument(2).asInstanceOf[Seq[(SidechainTypes#SCP, WalletTransactionHistoryEntry)]]
 
         assertEquals("ScanPersistent on WalletTransactionStorage.update(...) actual version is wrong.", new ByteArrayWrapper(blockId), version)
 
@@ -287,6 +290,13 @@ class SidechainWalletTest
           List(transaction1, transaction2),
           transactionUpdateList)
 
+        assertEquals("ScanPersistent on WalletTransactionStorage.update(...) actual history entries transactions are wrong.",
+          Seq(transaction1.id, transaction2.id),
+          historyUpdateList.map(_._2.transactionId).distinct)
+
+        assertTrue("ScanPersistent on WalletTransactionStorage.update(...) history entries must relate to wallet propositions only.",
+          historyUpdateList.forall(entry => secretList.map(_.publicImage()).contains(entry._1)))
+
         Try {
           mockedWalletTransactionStorage
         }
@@ -295,7 +305,8 @@ class SidechainWalletTest
     Mockito.when(mockedForgingBoxesInfoStorage.updateForgerBoxes(
       ArgumentMatchers.any[ByteArrayWrapper](),
       ArgumentMatchers.any[Seq[ForgerBox]],
-      ArgumentMatchers.any[Seq[Array[Byte]]]))
+      ArgumentMatchers.any[Seq[Array[Byte]]],
+      ArgumentMatchers.any[Seq[(ConsensusEpochNumber, Seq[ForgerBoxMerklePathInfo])]]))
         .thenAnswer(answer => {
           val version = answer.getArgument(0).asInstanceOf[ByteArrayWrapper]
           val forgerBoxesToAppend = answer.getArgument(1).asInstanceOf[Seq[ForgerBox]]
@@ -312,6 +323,7 @@ class SidechainWalletTest
   def testRollback(): Unit = {
     val mockedWalletBoxStorage: SidechainWalletBoxStorage = mock[SidechainWalletBoxStorage]
     val mockedSecretStorage: SidechainSecretStorage = mock[SidechainSecretStorage]
+    Mockito.when(mockedSecretStorage.getDerivedKeyIndex(ArgumentMatchers.any[PublicKey25519Proposition]())).thenReturn(None)
     val mockedWalletTransactionStorage: SidechainWalletTransactionStorage = mock[SidechainWalletTransactionStorage]
     val mockedForgingBoxesMerklePathStorage: ForgingBoxesInfoStorage = mock[ForgingBoxesInfoStorage]
     val mockedApplicationWallet: ApplicationWallet = mock[ApplicationWallet]
@@ -448,6 +460,7 @@ class SidechainWalletTest
   def testSecrets(): Unit = {
     val mockedWalletBoxStorage1: SidechainWalletBoxStorage = mock[SidechainWalletBoxStorage]
     val mockedSecretStorage1: SidechainSecretStorage = mock[SidechainSecretStorage]
+    Mockito.when(mockedSecretStorage1.getDerivedKeyIndex(ArgumentMatchers.any[PublicKey25519Proposition]())).thenReturn(None)
     val mockedWalletTransactionStorage1: SidechainWalletTransactionStorage = mock[SidechainWalletTransactionStorage]
     val mockedForgingBoxesMerklePathStorage1: ForgingBoxesInfoStorage = mock[ForgingBoxesInfoStorage]
     val mockedApplicationWallet: ApplicationWallet = mock[ApplicationWallet]
@@ -469,6 +482,7 @@ class SidechainWalletTest
 
     // Test 2: test secrets(), publicKeys(), allSecrets(), secretsOfType(type)
     Mockito.when(mockedSecretStorage1.getAll).thenReturn(List(secret1, secret2))
+    Mockito.when(mockedSecretStorage1.getDerivedKeyIndex(ArgumentMatchers.any[PublicKey25519Proposition]())).thenReturn(None)
 
     val actualSecrets = sidechainWallet.secrets()
     assertEquals("SidechainWallet failed to retrieve a proper Secrets.", Set(secret1, secret2), actualSecrets)
@@ -544,10 +558,158 @@ class SidechainWalletTest
     assertFalse("ApplicationWallet onRemoveSecret() event should NOT be emitted.", onRemoveSecretEvent)
   }
 
+  @Test
+  def testDerivedSecrets(): Unit = {
+    val seed = "seed".getBytes()
+    val secretStorage = new SidechainSecretStorage(new InMemoryStorageAdapter(), sidechainSecretsCompanion)
+    val sidechainWallet = new SidechainWallet(seed, mock[SidechainWalletBoxStorage], secretStorage,
+      mock[SidechainWalletTransactionStorage], mock[ForgingBoxesInfoStorage], mock[ApplicationWallet], 5)
+    val derivedSecrets = (0 until 10).map(index => PrivateKey25519Creator.getInstance().deriveSecret(seed, index))
+
+
+    // Test 1: derivation is deterministic and consistent with the secret generation for the wallet
+    assertEquals("Derived secret must be the same for the same seed and index.",
+      derivedSecrets(1), PrivateKey25519Creator.getInstance().deriveSecret(seed, 1))
+    assertEquals("Next generated secret must be the first derived one, if no derived keys are used.",
+      derivedSecrets(0), PrivateKey25519Creator.getInstance().generateNextSecret(sidechainWallet))
+
+
+    // Test 2: add the secret from the lookahead window - all the keys up to it must become used derived keys
+    assertTrue("SidechainWallet failed to add derived Secret.", sidechainWallet.addSecret(derivedSecrets(2)).isSuccess)
+    for (index <- 0 to 2)
+      assertEquals("Used derived key expected.", Some(index), secretStorage.getDerivedKeyIndex(derivedSecrets(index).publicImage()))
+    assertEquals("Different last used derived key index expected.", 2, secretStorage.getLastDerivedKeyIndex)
+    assertTrue("Derived secrets must not be stored.", secretStorage.getAll.isEmpty)
+    assertEquals("SidechainWallet failed to retrieve a proper derived Secret.", Some(derivedSecrets(1)),
+      sidechainWallet.secret(derivedSecrets(1).publicImage()))
+    assertEquals("SidechainWallet failed to retrieve a proper derived Secrets.", derivedSecrets.slice(0, 3).asJava,
+      sidechainWallet.secretsOfType(classOf[PrivateKey25519]))
+    assertEquals("Next generated secret must be the first one after used derived keys.",
+      derivedSecrets(3), PrivateKey25519Creator.getInstance().generateNextSecret(sidechainWallet))
+
+
+    // Test 3: try to add already used derived key
+    assertTrue("SidechainWallet failure expected during adding existing derived Secret.", sidechainWallet.addSecret(derivedSecrets(1)).isFailure)
+
+
+    // Test 4: add the derived secret out of the lookahead window (3 to 7) - it must be stored as a regular secret
+    assertTrue("SidechainWallet failed to add Secret.", sidechainWallet.addSecret(derivedSecrets(9)).isSuccess)
+    assertEquals("Secret out of lookahead window must be stored.", List(derivedSecrets(9)), secretStorage.getAll)
+    assertEquals("Used derived keys must not change.", 2, secretStorage.getLastDerivedKeyIndex)
+    assertEquals("Next generated secret must not depend on the regular secrets.",
+      derivedSecrets(3), PrivateKey25519Creator.getInstance().generateNextSecret(sidechainWallet))
+
+
+    // Test 5: the window moves after the last used derived key
+    assertTrue("SidechainWallet failed to add derived Secret.", sidechainWallet.addSecret(derivedSecrets(7)).isSuccess)
+    assertEquals("Used derived keys must cover all indexes up to the last used one.",
+      (0 to 7).map(Some(_)), (0 to 7).map(index => secretStorage.getDerivedKeyIndex(derivedSecrets(index).publicImage())))
+    assertEquals("SidechainWallet failed to retrieve a proper Secrets.", (derivedSecrets(9) +: derivedSecrets.slice(0, 8)).toSet,
+      sidechainWallet.secrets())
+
+
+    // Test 6: secrets of the used derived keys are derived again by the reloaded wallet on lookup
+    val reloadedWallet = new SidechainWallet(seed, mock[SidechainWalletBoxStorage], secretStorage,
+      mock[SidechainWalletTransactionStorage], mock[ForgingBoxesInfoStorage], mock[ApplicationWallet], 5)
+    assertEquals("Reloaded SidechainWallet failed to retrieve a proper derived Secret.", Some(derivedSecrets(5)),
+      reloadedWallet.secret(derivedSecrets(5).publicImage()))
+    assertEquals("Reloaded SidechainWallet failed to retrieve a proper derived Secret from cache.", Some(derivedSecrets(5)),
+      reloadedWallet.secret(derivedSecrets(5).publicImage()))
+    assertEquals("Reloaded SidechainWallet must not know the derived keys, which are not used yet.", None,
+      reloadedWallet.secret(derivedSecrets(8).publicImage()))
+  }
+
+  @Test
+  def testGeneratedSecretsUpgrade(): Unit = {
+    val seed = "seed".getBytes()
+    val secretStorage = new SidechainSecretStorage(new InMemoryStorageAdapter(), sidechainSecretsCompanion)
+    val derivedSecrets = (0 until 6).map(index => PrivateKey25519Creator.getInstance().deriveSecret(seed, index))
+    val otherSecret = getPrivateKey25519("testSeed1".getBytes())
+
+    // Keys generated from the seed by the wallet before the keys derivation are stored as regular secrets, index 3 is missed.
+    assertTrue("SecretStorage add expected to be successful.",
+      secretStorage.add(List(derivedSecrets(0), derivedSecrets(1), derivedSecrets(2), derivedSecrets(4), otherSecret)).isSuccess)
+
+    val sidechainWallet = new SidechainWallet(seed, mock[SidechainWalletBoxStorage], secretStorage,
+      mock[SidechainWalletTransactionStorage], mock[ForgingBoxesInfoStorage], mock[ApplicationWallet], 5)
+
+
+    // Test 1: generated keys of the consecutive indexes from zero must become used derived keys
+    for (index <- 0 to 2)
+      assertEquals("Generated key must become used derived key.", Some(index), secretStorage.getDerivedKeyIndex(derivedSecrets(index).publicImage()))
+    assertEquals("Other secrets must stay stored.", Set(derivedSecrets(4), otherSecret), secretStorage.getAll.toSet)
+    assertEquals("SidechainWallet failed to retrieve a proper Secrets.", Set(derivedSecrets(0), derivedSecrets(1), derivedSecrets(2), derivedSecrets(4), otherSecret),
+      sidechainWallet.secrets())
+
+
+    // Test 2: next generated secret must be the first unknown one and must be added successfully
+    assertEquals("Next generated secret must be the first unknown one.",
+      derivedSecrets(3), PrivateKey25519Creator.getInstance().generateNextSecret(sidechainWallet))
+    assertTrue("SidechainWallet failed to add generated Secret.", sidechainWallet.addSecret(derivedSecrets(3)).isSuccess)
+
+
+    // Test 3: the key already stored as a regular secret must be skipped
+    assertEquals("Next generated secret must skip the known key.",
+      derivedSecrets(5), PrivateKey25519Creator.getInstance().generateNextSecret(sidechainWallet))
+    assertTrue("SidechainWallet failed to add generated Secret.", sidechainWallet.addSecret(derivedSecrets(5)).isSuccess)
+    assertEquals("Different last used derived key index expected.", 5, secretStorage.getLastDerivedKeyIndex)
+
+
+    // Test 4: migration is done once - the reloaded wallet sees the same keys
+    val reloadedWallet = new SidechainWallet(seed, mock[SidechainWalletBoxStorage], secretStorage,
+      mock[SidechainWalletTransactionStorage], mock[ForgingBoxesInfoStorage], mock[ApplicationWallet], 5)
+    assertEquals("Reloaded SidechainWallet failed to retrieve a proper Secrets.", (derivedSecrets :+ otherSecret).toSet,
+      reloadedWallet.secrets())
+  }
+
+  @Test
+  def testImportSecrets(): Unit = {
+    val seed = "seed".getBytes()
+    val storage = new InMemoryStorageAdapter()
+    val secretStorage = new SidechainSecretStorage(storage, sidechainSecretsCompanion)
+    val mockedApplicationWallet: ApplicationWallet = mock[ApplicationWallet]
+    val sidechainWallet = new SidechainWallet(seed, mock[SidechainWalletBoxStorage], secretStorage,
+      mock[SidechainWalletTransactionStorage], mock[ForgingBoxesInfoStorage], mockedApplicationWallet, 5)
+    val secret1 = getPrivateKey25519("testSeed1".getBytes())
+    val secret2 = getPrivateKey25519("testSeed2".getBytes())
+    val derivedSecrets = (0 until 2).map(index => PrivateKey25519Creator.getInstance().deriveSecret(seed, index))
+
+
+    // Test 1: import secrets with repeated ones and a derived key from the lookahead window
+    val importedSecrets = sidechainWallet.importSecrets(Seq(secret1, secret2, secret1, derivedSecrets(1)))
+    assertTrue("SidechainWallet failed to import Secrets.", importedSecrets.isSuccess)
+    assertEquals("Different imported Secrets expected.", Seq(derivedSecrets(0), derivedSecrets(1), secret1, secret2), importedSecrets.get)
+    assertEquals("Secrets must be stored.", List(secret1, secret2), secretStorage.getAll)
+    assertEquals("Derived keys must be used.", Seq(Some(0), Some(1)),
+      derivedSecrets.map(derivedSecret => secretStorage.getDerivedKeyIndex(derivedSecret.publicImage())))
+    Mockito.verify(mockedApplicationWallet, Mockito.times(1)).onAddSecrets(util.Arrays.asList(derivedSecrets(0), derivedSecrets(1), secret1, secret2))
+
+
+    // Test 2: import known secrets only - nothing to add
+    val secondImportedSecrets = sidechainWallet.importSecrets(Seq(secret2, derivedSecrets(0)))
+    assertTrue("SidechainWallet failed to import Secrets.", secondImportedSecrets.isSuccess)
+    assertTrue("No imported Secrets expected.", secondImportedSecrets.get.isEmpty)
+    Mockito.verify(mockedApplicationWallet, Mockito.times(1)).onAddSecrets(ArgumentMatchers.any())
+
+
+    // Test 3: try to import null Secret
+    assertTrue("SidechainWallet failure expected during importing NULL Secret.", sidechainWallet.importSecrets(Seq(secret1, null)).isFailure)
+
+
+    // Test 4: check that secrets were imported in a single storage update
+    val mockedStorage = mock[Storage]
+    Mockito.when(mockedStorage.getAll).thenReturn(new JArrayList[Pair[ByteArrayWrapper, ByteArrayWrapper]]())
+    val batchWallet = new SidechainWallet(seed, mock[SidechainWalletBoxStorage], new SidechainSecretStorage(mockedStorage, sidechainSecretsCompanion),
+      mock[SidechainWalletTransactionStorage], mock[ForgingBoxesInfoStorage], mockedApplicationWallet, 5)
+    assertTrue("SidechainWallet failed to import Secrets.", batchWallet.importSecrets(getPrivateKey25519List(100).asScala).isSuccess)
+    Mockito.verify(mockedStorage, Mockito.times(1)).update(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any())
+  }
+
   @Test
   def testWalletBoxes(): Unit = {
     val mockedWalletBoxStorage1: SidechainWalletBoxStorage = mock[SidechainWalletBoxStorage]
     val mockedSecretStorage1: SidechainSecretStorage = mock[SidechainSecretStorage]
+    Mockito.when(mockedSecretStorage1.getDerivedKeyIndex(ArgumentMatchers.any[PublicKey25519Proposition]())).thenReturn(None)
     val mockedWalletTransactionStorage1: SidechainWalletTransactionStorage = mock[SidechainWalletTransactionStorage]
     val mockedForgingBoxesMerklePathStorage1: ForgingBoxesInfoStorage = mock[ForgingBoxesInfoStorage]
     val sidechainWallet = new SidechainWallet("seed".getBytes(), mockedWalletBoxStorage1, mockedSecretStorage1,
@@ -598,6 +760,7 @@ class SidechainWalletTest
   def testGetForgingBoxMerklePath(): Unit = {
     val mockedWalletBoxStorage: SidechainWalletBoxStorage = mock[SidechainWalletBoxStorage]
     val mockedSecretStorage: SidechainSecretStorage = mock[SidechainSecretStorage]
+    Mockito.when(mockedSecretStorage.getDerivedKeyIndex(ArgumentMatchers.any[PublicKey25519Proposition]())).thenReturn(None)
     val mockedWalletTransactionStorage: SidechainWalletTransactionStorage = mock[SidechainWalletTransactionStorage]
     val mockedForgingBoxesMerklePathStorage: ForgingBoxesInfoStorage = mock[ForgingBoxesInfoStorage]
     val mockedApplicationWallet: ApplicationWallet = mock[ApplicationWallet]
@@ -650,6 +813,7 @@ class SidechainWalletTest
   def testApplyConsensusEpochInfo(): Unit = {
     val mockedWalletBoxStorage: SidechainWalletBoxStorage = mock[SidechainWalletBoxStorage]
     val mockedSecretStorage: SidechainSecretStorage = mock[SidechainSecretStorage]
+    Mockito.when(mockedSecretStorage.getDerivedKeyIndex(ArgumentMatchers.any[PublicKey25519Proposition]())).thenReturn(None)
     val mockedWalletTransactionStorage: SidechainWalletTransactionStorage = mock[SidechainWalletTransactionStorage]
     val mockedForgingBoxesInfoStorage: ForgingBoxesInfoStorage = mock[ForgingBoxesInfoStorage]
     val mockedApplicationWallet: ApplicationWallet = mock[ApplicationWallet]
@@ -677,22 +841,57 @@ class SidechainWalletTest
     Mockito.when(mockedForgingBoxesInfoStorage.getForgerBoxes)
       .thenReturn(Some(Seq(forgerBox1)))
 
-    // Verify epoch number and return predefined merklePathSeq
-    Mockito.when(mockedForgingBoxesInfoStorage.updateForgerBoxMerklePathInfo(
-      ArgumentMatchers.any[ConsensusEpochNumber](),
-      ArgumentMatchers.any[Seq[ForgerBoxMerklePathInfo]]()))
-      .thenAnswer(answer => {
-        val epoch = answer.getArgument(0).asInstanceOf[ConsensusEpochNumber]
-        val boxMerklePathInfoSeq = answer.getArgument(1).asInstanceOf[Seq[ForgerBoxMerklePathInfo]]
+    sidechainWallet.applyConsensusEpochInfo(epochInfo)
 
-        assertEquals("Different epoch number request expected.", epochNumber, epoch)
-        assertEquals("Different merkle path seq size expected.", 1, boxMerklePathInfoSeq.size)
-        assertEquals("Different box id applied.", forgerBox1, boxMerklePathInfoSeq.head.forgerBox)
-        assertArrayEquals("Wrong merkle path applied.", merkleTree.rootHash(), boxMerklePathInfoSeq.head.merklePath.apply(forgerBox1.id()))
+    // Test 1: merkle paths calculated in background are stored together with the switch block
+    val blockId = new Array[Byte](32)
+    Random.nextBytes(blockId)
+    val mockedBlock: SidechainBlock = mock[SidechainBlock]
+    Mockito.when(mockedBlock.transactions).thenReturn(Seq())
+    Mockito.when(mockedBlock.id).thenReturn(bytesToId(blockId))
+    Mockito.when(mockedSecretStorage.getAll).thenReturn(List())
+    Mockito.when(mockedWalletBoxStorage.getAll).thenReturn(List())
+    Mockito.when(mockedWalletBoxStorage.update(
+      ArgumentMatchers.any[ByteArrayWrapper](),
+      ArgumentMatchers.any[List[WalletBox]](),
+      ArgumentMatchers.any[List[Array[Byte]]]())).thenReturn(Success(mockedWalletBoxStorage))
+    Mockito.when(mockedWalletTransactionStorage.update(
+      ArgumentMatchers.any[ByteArrayWrapper](),
+      ArgumentMatchers.any[List[SidechainTypes#SCBT]](),
+      ArgumentMatchers.any[Seq[(SidechainTypes#SCP, WalletTransactionHistoryEntry)]]())).thenReturn(Success(mockedWalletTransactionStorage))
 
+    var storedMerklePathInfo: Seq[(ConsensusEpochNumber, Seq[ForgerBoxMerklePathInfo])] = Seq()
+    Mockito.when(mockedForgingBoxesInfoStorage.updateForgerBoxes(
+      ArgumentMatchers.any[ByteArrayWrapper](),
+      ArgumentMatchers.any[Seq[ForgerBox]],
+      ArgumentMatchers.any[Seq[Array[Byte]]],
+      ArgumentMatchers.any[Seq[(ConsensusEpochNumber, Seq[ForgerBoxMerklePathInfo])]]))
+      .thenAnswer(answer => {
+        assertEquals("Merkle paths must be stored under the switch block version.",
+          new ByteArrayWrapper(blockId), answer.getArgument(0).asInstanceOf[ByteArrayWrapper])
+        storedMerklePathInfo = answer.getArgument(3).asInstanceOf[Seq[(ConsensusEpochNumber, Seq[ForgerBoxMerklePathInfo])]]
         Success(mockedForgingBoxesInfoStorage)
       })
 
+    sidechainWallet.scanPersistent(mockedBlock)
+    assertEquals("Merkle paths of a single epoch expected to be stored.", Seq(epochNumber), storedMerklePathInfo.map(_._1))
+    val boxMerklePathInfoSeq = storedMerklePathInfo.head._2
+    assertEquals("Different merkle path seq size expected.", 1, boxMerklePathInfoSeq.size)
+    assertEquals("Different box id applied.", forgerBox1, boxMerklePathInfoSeq.head.forgerBox)
+    assertArrayEquals("Wrong merkle path applied.", merkleTree.rootHash(), boxMerklePathInfoSeq.head.merklePath.apply(forgerBox1.id()))
+
+    // Merkle paths are stored once only
+    sidechainWallet.scanPersistent(mockedBlock)
+    assertTrue("No merkle paths expected to be stored with the next block.", storedMerklePathInfo.isEmpty)
+
+
+    // Test 2: calculations not stored yet are dropped on rollback
+    Mockito.when(mockedWalletBoxStorage.rollback(ArgumentMatchers.any[ByteArrayWrapper]())).thenReturn(Success(mockedWalletBoxStorage))
+    Mockito.when(mockedWalletTransactionStorage.rollback(ArgumentMatchers.any[ByteArrayWrapper]())).thenReturn(Success(mockedWalletTransactionStorage))
+    Mockito.when(mockedForgingBoxesInfoStorage.rollback(ArgumentMatchers.any[ByteArrayWrapper]())).thenReturn(Success(mockedForgingBoxesInfoStorage))
     sidechainWallet.applyConsensusEpochInfo(epochInfo)
+    assertTrue("SidechainWallet rollback expected to be successful.", sidechainWallet.rollback(VersionTag @@ BytesUtils.toHexString(getVersion.data)).isSuccess)
+    sidechainWallet.scanPersistent(mockedBlock)
+    assertTrue("Merkle paths must not be stored after rollback.", storedMerklePathInfo.isEmpty)
   }
 }
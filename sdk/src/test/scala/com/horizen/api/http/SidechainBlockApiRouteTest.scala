@@ -283,20 +283,29 @@ class SidechainBlockApiRouteTest extends SidechainApiRouteTest {
       val expectedEpochNumber = intToConsensusEpochNumber(5)
       val expectedSlotNumber = intToConsensusSlotNumber(6)
       val expectedBestEpochAndSlot = ConsensusEpochAndSlot(expectedEpochNumber, expectedSlotNumber)
+      val expectedUpcomingForgingSlots = Seq(
+        ConsensusEpochAndSlot(expectedEpochNumber, intToConsensusSlotNumber(8)),
+        ConsensusEpochAndSlot(expectedEpochNumber, intToConsensusSlotNumber(15)))
 
       sidechainApiMockConfiguration.should_blockActor_ForgingInfo_reply =
-        Success(forge.ForgingInfo(expectedConsensusSecondsInSlot, expectedConsensusSlotsInEpoch, expectedBestEpochAndSlot))
+        Success(forge.ForgingInfo(expectedConsensusSecondsInSlot, expectedConsensusSlotsInEpoch, expectedBestEpochAndSlot, expectedUpcomingForgingSlots))
 
       Post(basePath + "forgingInfo") ~> sidechainBlockApiRoute ~> check {
         status.intValue() shouldBe StatusCodes.OK.intValue
         responseEntity.getContentType() shouldEqual ContentTypes.`application/json`
         mapper.readTree(entityAs[String]).get("result") match {
           case result => {
-            assertEquals(4, result.elements().asScala.length)
+            assertEquals(5, result.elements().asScala.length)
             assertEquals(expectedConsensusSecondsInSlot, result.get("consensusSecondsInSlot").asInt())
             assertEquals(expectedConsensusSlotsInEpoch, result.get("consensusSlotsInEpoch").asInt())
             assertEquals(expectedEpochNumber, result.get("bestEpochNumber").asInt())
             assertEquals(expectedSlotNumber, result.get("bestSlotNumber").asInt())
+            val upcomingForgingSlots = result.get("upcomingForgingSlots").elements().asScala.toSeq
+            assertEquals(expectedUpcomingForgingSlots.size, upcomingForgingSlots.size)
+            expectedUpcomingForgingSlots.zip(upcomingForgingSlots).foreach { case (expected, actual) =>
+              assertEquals(expected.epochNumber, actual.get("epochNumber").asInt())
+              assertEquals(expected.slotNumber, actual.get("slotNumber").asInt())
+            }
           }
         }
       }
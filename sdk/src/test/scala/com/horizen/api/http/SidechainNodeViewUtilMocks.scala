@@ -4,17 +4,18 @@ import java.time.Instant
 import java.util
 import java.util.{Optional, ArrayList => JArrayList, List => JList}
 
+import com.google.common.primitives.Ints
 import com.horizen.block.{MainchainBlockReference, SidechainBlock}
 import com.horizen.box.data.{NoncedBoxData, RegularBoxData}
 import com.horizen.box.{Box, ForgerBox, NoncedBox, RegularBox}
 import com.horizen.companion.SidechainTransactionsCompanion
 import com.horizen.fixtures.{BoxFixture, CompanionsFixture, ForgerBoxFixture, MerkleTreeFixture, VrfGenerator}
-import com.horizen.node.util.MainchainBlockReferenceInfo
+import com.horizen.node.util.{MainchainBlockReferenceInfo, WalletBoxesPage, WalletTransactionsPage}
 import com.horizen.node.{NodeHistory, NodeMemoryPool, NodeState, NodeWallet, SidechainNodeView}
 import com.horizen.params.MainNetParams
 import com.horizen.proposition.Proposition
 import com.horizen.secret.{PrivateKey25519, PrivateKey25519Creator}
-import com.horizen.transaction.RegularTransaction
+import com.horizen.transaction.{BoxTransaction, RegularTransaction}
 import com.horizen.utils.{BytesUtils, Pair}
 import org.mockito.{ArgumentMatchers, Mockito}
 import org.scalatest.mockito.MockitoSugar
@@ -184,6 +185,25 @@ class SidechainNodeViewUtilMocks extends MockitoSugar with BoxFixture with Compa
       allBoxes
     })
 
+    Mockito.when(wallet.boxesPage(ArgumentMatchers.any(), ArgumentMatchers.anyLong(), ArgumentMatchers.any(), ArgumentMatchers.anyInt())).thenAnswer(asw => {
+      val cursor = asw.getArgument(2).asInstanceOf[Optional[Array[Byte]]]
+      val pageSize = asw.getArgument(3).asInstanceOf[Int]
+      // In the mock the cursor is just an index of the first box of the next page
+      val from = if (cursor.isPresent) BytesUtils.getInt(cursor.get(), 0) else 0
+      val boxes = allBoxes.asScala.slice(from, from + pageSize)
+      val nextCursor: Optional[Array[Byte]] =
+        if (from + pageSize < allBoxes.size()) Optional.of(Ints.toByteArray(from + pageSize))
+        else Optional.empty()
+      new WalletBoxesPage(boxes.asJava, nextCursor)
+    })
+
+    Mockito.when(wallet.transactionsHistory(ArgumentMatchers.any[Proposition], ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong(),
+      ArgumentMatchers.any(), ArgumentMatchers.anyInt())).thenAnswer(_ => {
+      val transactions = transactionList.asScala.map(tx =>
+        new Pair[java.lang.Long, BoxTransaction[Proposition, Box[Proposition]]](tx.timestamp(), tx.asInstanceOf[BoxTransaction[Proposition, Box[Proposition]]]))
+      new WalletTransactionsPage(transactions.asJava, Optional.empty())
+    })
+
     wallet
   }
 
@@ -2,8 +2,9 @@ package com.horizen.api.http
 
 import akka.http.scaladsl.model.{ContentTypes, HttpMethods, StatusCodes}
 import akka.http.scaladsl.server.{MalformedRequestContentRejection, MethodRejection, Route}
-import com.horizen.api.http.SidechainWalletErrorResponse.ErrorSecretNotAdded
+import com.horizen.api.http.SidechainWalletErrorResponse.{ErrorInvalidPageRequest, ErrorInvalidSecret, ErrorSecretNotAdded}
 import com.horizen.api.http.SidechainWalletRestScheme._
+import com.horizen.secret.PrivateKey25519Creator
 import com.horizen.serialization.SerializationUtil
 import com.horizen.utils.BytesUtils
 import org.junit.Assert._
@@ -101,6 +102,57 @@ class SidechainWalletApiRouteTest extends SidechainApiRouteTest {
       }
     }
 
+    "reply at /allBoxesPaged" in {
+      var nextCursor: String = null
+      Post(basePath + "allBoxesPaged")
+        .withEntity(
+          SerializationUtil.serialize(ReqAllBoxesPaged(None, None, None, Some(3)))) ~> sidechainWalletApiRoute ~> check {
+        status.intValue() shouldBe StatusCodes.OK.intValue
+        responseEntity.getContentType() shouldEqual ContentTypes.`application/json`
+        val result = mapper.readTree(entityAs[String]).get("result")
+        val boxesJson = result.get("boxes").elements().asScala.toList
+        assertEquals(3, boxesJson.size)
+        for (i <- boxesJson.indices)
+          jsonChecker.assertsOnBoxJson(boxesJson(i), allBoxes.get(i))
+        assertTrue(result.get("nextCursor").isTextual)
+        nextCursor = result.get("nextCursor").asText()
+      }
+      // Retrieve the last page using the cursor
+      Post(basePath + "allBoxesPaged")
+        .withEntity(
+          SerializationUtil.serialize(ReqAllBoxesPaged(None, None, Some(nextCursor), Some(3)))) ~> sidechainWalletApiRoute ~> check {
+        status.intValue() shouldBe StatusCodes.OK.intValue
+        val result = mapper.readTree(entityAs[String]).get("result")
+        val boxesJson = result.get("boxes").elements().asScala.toList
+        assertEquals(allBoxes.size() - 3, boxesJson.size)
+        jsonChecker.assertsOnBoxJson(boxesJson.head, allBoxes.get(3))
+        assertNull(result.get("nextCursor"))
+      }
+      Post(basePath + "allBoxesPaged")
+        .withEntity(
+          SerializationUtil.serialize(ReqAllBoxesPaged(None, None, None, Some(0)))) ~> sidechainWalletApiRoute ~> check {
+        status.intValue() shouldBe StatusCodes.OK.intValue
+        assertsOnSidechainErrorResponseSchema(entityAs[String], ErrorInvalidPageRequest("", None).code)
+      }
+      Post(basePath + "allBoxesPaged")
+        .withEntity(
+          SerializationUtil.serialize(ReqAllBoxesPaged(None, None, Some("not_a_hex"), None))) ~> sidechainWalletApiRoute ~> check {
+        status.intValue() shouldBe StatusCodes.OK.intValue
+        assertsOnSidechainErrorResponseSchema(entityAs[String], ErrorInvalidPageRequest("", None).code)
+      }
+    }
+
+    "reply at /allBoxesStream" in {
+      Post(basePath + "allBoxesStream") ~> sidechainWalletApiRoute ~> check {
+        status.intValue() shouldBe StatusCodes.OK.intValue
+        responseEntity.getContentType() shouldEqual ContentTypes.`application/json`
+        val boxesJson = mapper.readTree(entityAs[String]).get("result").get("boxes").elements().asScala.toList
+        assertEquals(allBoxes.size(), boxesJson.size)
+        for (i <- boxesJson.indices)
+          jsonChecker.assertsOnBoxJson(boxesJson(i), allBoxes.get(i))
+      }
+    }
+
     "reply at /balance" in {
       Post(basePath + "balance") ~> sidechainWalletApiRoute ~> check {
         status.intValue() shouldBe StatusCodes.OK.intValue
@@ -176,6 +228,40 @@ class SidechainWalletApiRouteTest extends SidechainApiRouteTest {
       }
     }
 
+    "reply at /importSecrets" in {
+      val secret1 = PrivateKey25519Creator.getInstance().generateSecret("import1".getBytes())
+      val secret2 = PrivateKey25519Creator.getInstance().generateSecret("import2".getBytes())
+      val secretsHex = Seq(secret1, secret2, secret1).map(secret => BytesUtils.toHexString(getDefaultSecretCompanion.toBytes(secret)))
+
+      // secrets are imported, repeated ones are skipped
+      sidechainApiMockConfiguration.setShould_nodeViewHolder_LocallyGeneratedSecret_reply(true)
+      Post(basePath + "importSecrets")
+        .withEntity(SerializationUtil.serialize(ReqImportSecrets(secretsHex))) ~> sidechainWalletApiRoute ~> check {
+        status.intValue() shouldBe StatusCodes.OK.intValue
+        responseEntity.getContentType() shouldEqual ContentTypes.`application/json`
+        val result = mapper.readTree(entityAs[String]).get("result")
+        assertEquals(1, result.findValues("propositions").size())
+        assertTrue(result.get("propositions").isArray)
+        assertEquals(2, result.get("propositions").findValues("publicKey").size())
+      }
+      // secrets are not imported
+      sidechainApiMockConfiguration.setShould_nodeViewHolder_LocallyGeneratedSecret_reply(false)
+      Post(basePath + "importSecrets")
+        .withEntity(SerializationUtil.serialize(ReqImportSecrets(secretsHex))) ~> sidechainWalletApiRoute ~> check {
+        status.intValue() shouldBe StatusCodes.OK.intValue
+        responseEntity.getContentType() shouldEqual ContentTypes.`application/json`
+        assertsOnSidechainErrorResponseSchema(entityAs[String], ErrorSecretNotAdded("", None).code)
+      }
+      // invalid secret
+      sidechainApiMockConfiguration.setShould_nodeViewHolder_LocallyGeneratedSecret_reply(true)
+      Post(basePath + "importSecrets")
+        .withEntity(SerializationUtil.serialize(ReqImportSecrets(Seq("not_a_secret")))) ~> sidechainWalletApiRoute ~> check {
+        status.intValue() shouldBe StatusCodes.OK.intValue
+        responseEntity.getContentType() shouldEqual ContentTypes.`application/json`
+        assertsOnSidechainErrorResponseSchema(entityAs[String], ErrorInvalidSecret("", None).code)
+      }
+    }
+
     "reply at /allPublicKeys" in {
       Post(basePath + "allPublicKeys") ~> sidechainWalletApiRoute ~> check {
         status.intValue() shouldBe StatusCodes.OK.intValue
@@ -200,6 +286,37 @@ class SidechainWalletApiRouteTest extends SidechainApiRouteTest {
       }
     }
 
+    "reply at /transactionsHistory" in {
+      Post(basePath + "transactionsHistory")
+        .withEntity(
+          SerializationUtil.serialize(ReqTransactionsHistory(
+            BytesUtils.toHexString(utilMocks.secret1.publicImage().bytes), None, None, None, None))) ~> sidechainWalletApiRoute ~> check {
+        status.intValue() shouldBe StatusCodes.OK.intValue
+        responseEntity.getContentType() shouldEqual ContentTypes.`application/json`
+        val result = mapper.readTree(entityAs[String]).get("result")
+        val transactionsJson = result.get("transactions").elements().asScala.toList
+        assertEquals(2, transactionsJson.size)
+        transactionsJson.foreach(entry => {
+          assertTrue(entry.get("blockTimestamp").isNumber)
+          assertTrue(entry.get("transaction").isObject)
+        })
+        assertNull(result.get("nextCursor"))
+      }
+      Post(basePath + "transactionsHistory")
+        .withEntity(
+          SerializationUtil.serialize(ReqTransactionsHistory("not_a_public_key", None, None, None, None))) ~> sidechainWalletApiRoute ~> check {
+        status.intValue() shouldBe StatusCodes.OK.intValue
+        assertsOnSidechainErrorResponseSchema(entityAs[String], ErrorInvalidPageRequest("", None).code)
+      }
+      Post(basePath + "transactionsHistory")
+        .withEntity(
+          SerializationUtil.serialize(ReqTransactionsHistory(
+            BytesUtils.toHexString(utilMocks.secret1.publicImage().bytes), None, None, Some("0102"), None))) ~> sidechainWalletApiRoute ~> check {
+        status.intValue() shouldBe StatusCodes.OK.intValue
+        assertsOnSidechainErrorResponseSchema(entityAs[String], ErrorInvalidPageRequest("", None).code)
+      }
+    }
+
   }
 
-}
\ No newline at end of file
+}
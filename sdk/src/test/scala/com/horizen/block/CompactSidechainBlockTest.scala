@@ -0,0 +1,95 @@
+package com.horizen.block
+
+import java.util.Random
+
+import com.horizen.SidechainTypes
+import com.horizen.box.NoncedBox
+import com.horizen.companion.SidechainTransactionsCompanion
+import com.horizen.fixtures._
+import com.horizen.params.{MainNetParams, NetworkParams}
+import com.horizen.proposition.Proposition
+import com.horizen.secret.VrfKeyGenerator
+import com.horizen.transaction.SidechainTransaction
+import org.junit.Assert.{assertEquals, assertFalse, assertTrue}
+import org.junit.Test
+import org.scalatest.junit.JUnitSuite
+import scorex.util.ModifierId
+
+class CompactSidechainBlockTest
+  extends JUnitSuite
+  with CompanionsFixture
+  with TransactionFixture
+  with SidechainBlockFixture
+{
+  val sidechainTransactionsCompanion: SidechainTransactionsCompanion = getDefaultTransactionsCompanion
+  val compactBlockSerializer = new CompactSidechainBlockSerializer(sidechainTransactionsCompanion)
+
+  val random = new Random(456L)
+  val params: NetworkParams = MainNetParams()
+  val seed: Long = 12L
+  val parentId: ModifierId = getRandomBlockId(seed)
+
+  val transactions: Seq[SidechainTransaction[Proposition, NoncedBox[Proposition]]] = Seq(
+    generateRegularTransaction(random, 123000L, 1, 2),
+    generateRegularTransaction(random, 123001L, 2, 1),
+    generateRegularTransaction(random, 123002L, 1, 1)
+  )
+
+  val block: SidechainBlock = {
+    val (forgerBox, forgerMetadata) = ForgerBoxFixture.generateForgerBox(seed)
+    val vrfProof = VrfKeyGenerator.getInstance().generateSecret(Array.fill(32)(seed.toByte)).prove("vrf message".getBytes).getKey
+    SidechainBlock.create(
+      parentId,
+      122444L,
+      Seq(),
+      transactions,
+      Seq(),
+      Seq(),
+      forgerMetadata.blockSignSecret,
+      forgerBox,
+      vrfProof,
+      MerkleTreeFixture.generateRandomMerklePath(seed),
+      sidechainTransactionsCompanion,
+      params
+    ).get
+  }
+
+  @Test
+  def serialization(): Unit = {
+    val compactBlock = CompactSidechainBlock(block, tx => tx.id == transactions(1).id)
+    assertEquals("Different number of short ids expected.", 2, compactBlock.shortTransactionIds.size)
+    assertEquals("Different prefilled transaction index expected.", Seq(1), compactBlock.prefilledTransactions.map(_._1))
+
+    val deserializedTry = compactBlockSerializer.parseBytesTry(compactBlockSerializer.toBytes(compactBlock))
+    assertTrue("Compact block deserialization failed.", deserializedTry.isSuccess)
+
+    val deserialized = deserializedTry.get
+    assertEquals("Deserialized compact block id is different.", compactBlock.id, deserialized.id)
+    assertEquals("Deserialized short ids are different.", compactBlock.shortTransactionIds, deserialized.shortTransactionIds)
+    assertEquals("Deserialized prefilled transactions are different.", compactBlock.prefilledTransactions, deserialized.prefilledTransactions)
+  }
+
+  @Test
+  def reconstruction(): Unit = {
+    val compactBlock = CompactSidechainBlock(block, _ => false)
+    val otherTransaction = generateRegularTransaction(random, 123003L, 1, 1)
+
+    // Memory pool misses the second transaction.
+    val mempoolTransactions: Seq[SidechainTypes#SCBT] = Seq(transactions.head, transactions(2), otherTransaction)
+    val matched = compactBlock.matchTransactions(mempoolTransactions)
+    assertEquals("All block positions expected.", transactions.size, matched.size)
+    assertEquals("Different missed positions expected.", Seq(1), matched.indices.filter(index => matched(index).isEmpty))
+
+    // Missed transaction is received from the peer.
+    val filled = matched.updated(1, Some(transactions(1))).flatten
+    val rebuiltTry = compactBlock.toBlock(filled, sidechainTransactionsCompanion)
+    assertTrue("Block reconstruction failed.", rebuiltTry.isSuccess)
+    assertEquals("Reconstructed block id is different.", block.id, rebuiltTry.get.id)
+    assertEquals("Reconstructed block transactions are different.", block.transactions, rebuiltTry.get.transactions)
+
+    // Wrong transactions are inconsistent to the header.
+    val wrongTransactions = matched.updated(1, Some(otherTransaction)).flatten
+    assertFalse("Block with wrong transactions expected to be rejected.",
+      compactBlock.toBlock(wrongTransactions, sidechainTransactionsCompanion).isSuccess)
+  }
+}
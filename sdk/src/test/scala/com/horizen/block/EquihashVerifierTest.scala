@@ -0,0 +1,91 @@
+package com.horizen.block
+
+import com.horizen.utils.BytesUtils
+import org.junit.Assert.{assertEquals, assertFalse, assertTrue}
+import org.junit.Test
+import org.scalatest.junit.JUnitSuite
+
+import scala.io.Source
+
+class EquihashVerifierTest extends JUnitSuite {
+
+  // Header bytes without solution part and solution of the mainnet blocks.
+  private def getMainnetMessageAndSolution(resource: String): (Array[Byte], Array[Byte]) = {
+    val blockBytes: Array[Byte] = BytesUtils.fromHexString(Source.fromResource(resource).getLines().next())
+    val solutionOffset = MainchainHeader.HEADER_MIN_SIZE + 3 // VarInt of the solution length takes 3 bytes
+    (blockBytes.slice(0, MainchainHeader.HEADER_MIN_SIZE), blockBytes.slice(solutionOffset, solutionOffset + 1344))
+  }
+
+  @Test
+  def checkEquihashSolution(): Unit = {
+    val N: Int = 96
+    val K: Int = 5
+    val biLen: Int = N / (K + 1)
+    val nonce: Array[Byte] = new Array[Byte](32)
+    nonce(0) = 1
+    val msg: Array[Byte] = "Equihash is an asymmetric PoW based on the Generalised Birthday problem.".getBytes("utf-8") ++ nonce
+    val equihash: Equihash = new Equihash(N, K)
+    val verifier: EquihashVerifier = new EquihashVerifier(N, K)
+
+    val validIndices: Array[Int] = Array(2261, 15185, 36112, 104243, 23779, 118390, 118332, 130041, 32642, 69878,
+      76925, 80080, 45858, 116805, 92842, 111026, 15972, 115059, 85191, 90330, 68190, 122819,
+      81830, 91132, 23460, 49807, 52426, 80391, 69567, 114474, 104973, 122568)
+
+    val indicesVariants: Seq[(Array[Int], Boolean)] = Seq(
+      (validIndices, true),
+      (validIndices.updated(0, 2262), false), // changed index
+      (validIndices.slice(1, 2) ++ validIndices.slice(0, 1) ++ validIndices.drop(2), false), // swapped indices
+      (validIndices.slice(16, 32) ++ validIndices.slice(0, 16), false), // swapped halves
+      (validIndices.updated(1, 2261), false), // duplicate index
+      (validIndices.slice(0, 16) ++ validIndices.slice(0, 16), false) // duplicate half
+    )
+
+    for (((indices, isValid), i) <- indicesVariants.zipWithIndex) {
+      val solution = Equihash.getMinimalFromIndices(indices, biLen)
+      assertEquals(s"Variant $i: Equihash result is different.", isValid, equihash.checkEquihashSolution(msg, solution))
+      assertEquals(s"Variant $i: EquihashVerifier result is different.", isValid, verifier.checkEquihashSolution(msg, solution))
+    }
+
+    // Message located in the middle of the data
+    val solution = Equihash.getMinimalFromIndices(validIndices, biLen)
+    val msgWithPrefix: Array[Byte] = new Array[Byte](10) ++ msg ++ new Array[Byte](10)
+    assertTrue("Solution expected to be Valid.", verifier.checkEquihashSolution(msgWithPrefix, 10, msg.length, solution))
+    assertFalse("Solution expected to be Invalid for wrong message.", verifier.checkEquihashSolution(msgWithPrefix, 9, msg.length, solution))
+
+    // Wrong solution length
+    assertFalse("Solution expected to be Invalid.", verifier.checkEquihashSolution(msg, solution.drop(1)))
+  }
+
+  @Test
+  def checkMainnetEquihashSolutions(): Unit = {
+    val verifier: EquihashVerifier = EquihashVerifier(200, 9)
+    val equihash: Equihash = new Equihash(200, 9)
+
+    for (resource <- Seq("mcblock473173_mainnet", "mcblock473174_mainnet", "mcblock473175_mainnet", "mcblock473176_mainnet")) {
+      val (msg, solution) = getMainnetMessageAndSolution(resource)
+      assertTrue(s"Block $resource solution expected to be Valid.", verifier.checkEquihashSolution(msg, solution))
+
+      val corruptedSolution = solution.clone()
+      corruptedSolution(100) = (corruptedSolution(100) ^ 1).toByte
+      assertEquals(s"Block $resource corrupted solution result is different.",
+        equihash.checkEquihashSolution(msg, corruptedSolution), verifier.checkEquihashSolution(msg, corruptedSolution))
+      assertFalse(s"Block $resource corrupted solution expected to be Invalid.", verifier.checkEquihashSolution(msg, corruptedSolution))
+    }
+  }
+
+  @Test
+  def checkEquihashSolutionsInParallel(): Unit = {
+    val validData = Seq("mcblock473173_mainnet", "mcblock473174_mainnet", "mcblock473175_mainnet", "mcblock473176_mainnet")
+      .map(getMainnetMessageAndSolution)
+    // Solution of another block
+    val invalidData = validData.zip(validData.tail).map {
+      case ((msg, _), (_, anotherSolution)) => (msg, anotherSolution)
+    }
+
+    val data = (validData ++ invalidData) ++ (validData ++ invalidData)
+    val expectedResults = (validData.map(_ => true) ++ invalidData.map(_ => false)) ++ (validData.map(_ => true) ++ invalidData.map(_ => false))
+
+    assertEquals("Different results expected.", expectedResults, EquihashVerifier.checkEquihashSolutions(200, 9, data))
+    assertTrue("Empty results expected.", EquihashVerifier.checkEquihashSolutions(200, 9, Seq()).isEmpty)
+  }
+}
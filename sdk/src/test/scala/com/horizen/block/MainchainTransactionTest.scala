@@ -1,11 +1,12 @@
 package com.horizen.block
 
 import com.horizen.utils.{ByteArrayWrapper, BytesUtils}
-import org.junit.Assert.{assertEquals, assertTrue}
+import org.junit.Assert.{assertEquals, assertFalse, assertTrue}
 import org.junit.{Test, Ignore}
 import org.scalatest.junit.JUnitSuite
 
 import scala.io.Source
+import scala.util.Try
 
 // tx data in RPC byte order: https://explorer.zen-solutions.io/api/rawtx/<tx_id>
 class MainchainTransactionTest extends JUnitSuite {
@@ -54,6 +55,25 @@ class MainchainTransactionTest extends JUnitSuite {
     assertEquals("Tx Size is different.", 1953, tx.size)
   }
 
+  @Test
+  def skip(): Unit = {
+    // Transactions not related to sidechains
+    for ((resource, size) <- Seq(("mctx_v1_coinbase", 190), ("mctx_v1", 9150), ("mctx_v2", 1909), ("mctx_v-3", 1953))) {
+      val bytes: Array[Byte] = BytesUtils.fromHexString(Source.fromResource(resource).getLines().next())
+      assertFalse(s"Tx $resource expected to be not sidechain related.", MainchainTransaction.isSidechainRelated(bytes, 0))
+      assertEquals(s"Tx $resource skipped size is different.", size, MainchainTransaction.skip(bytes, 0))
+
+      // Skip the tx located in the middle of the data
+      val prefixedBytes: Array[Byte] = new Array[Byte](10) ++ bytes ++ new Array[Byte](10)
+      assertEquals(s"Tx $resource skipped end offset is different.", 10 + size, MainchainTransaction.skip(prefixedBytes, 10))
+    }
+
+    // Sidechain related transaction can't be skipped
+    val bytes: Array[Byte] = BytesUtils.fromHexString(Source.fromResource("mctx_v-4_without_sc_data").getLines().next())
+    assertTrue("Tx expected to be sidechain related.", MainchainTransaction.isSidechainRelated(bytes, 0))
+    assertTrue("Sidechain related tx skip expected to fail.", Try(MainchainTransaction.skip(bytes, 0)).isFailure)
+  }
+
   @Test
   def tx_vminus4_without_sc_data(): Unit = {
     val hex : String = Source.fromResource("mctx_v-4_without_sc_data").getLines().next()
@@ -3,12 +3,13 @@ package com.horizen.block
 import java.math.BigInteger
 
 import com.google.common.primitives.UnsignedInts
+import com.horizen.chain.byteArrayToMainchainHeaderHash
 import com.horizen.fixtures.{MainchainHeaderFixture, MainchainHeaderForPoWTest}
 import com.horizen.params.{MainNetParams, NetworkParams}
 import com.horizen.proposition.SchnorrProposition
 import com.horizen.storage.SidechainHistoryStorage
 import com.horizen.utils.{BytesUtils, Utils}
-import org.junit.Assert.{assertEquals, assertFalse, assertTrue}
+import org.junit.Assert.{assertEquals, assertFalse, assertTrue, fail => jFail}
 import org.junit.Test
 import org.mockito.{ArgumentMatchers, Mockito}
 import org.scalatest.junit.JUnitSuite
@@ -184,6 +185,9 @@ class ProofOfWorkVerifierTest extends JUnitSuite with MainchainHeaderFixture wit
       .thenAnswer(answer => {
         Some(scblocks.filter(block => block.id.equals(answer.getArgument(0))).head)
       })
+    // Blocks are not a part of the active chain
+    Mockito.when(storage.getMainchainHeadersPoWDataTill(ArgumentMatchers.any[ModifierId](), ArgumentMatchers.anyInt()))
+      .thenReturn(None)
 
     // MainNetParams with Test genesis data
     class PowtestParams extends MainNetParams {
@@ -349,6 +353,36 @@ class ProofOfWorkVerifierTest extends JUnitSuite with MainchainHeaderFixture wit
     block = createSCBlockForPowTest(scblocks.last.id, powRelatedDataList(27).mcblockhash, Seq(powRelatedDataList(28), powRelatedDataList(29), powRelatedDataList(30)), ommers)
     assertFalse("SC block with invalid Ommers expected to have valid PoW Target.",
       ProofOfWorkVerifier.checkNextWorkRequired(block, storage, params))
+
+
+    // Test 9: Check SCBlock, which parent is a part of the active chain: no SidechainBlocks must be read.
+    val activeChainStorage = mock[SidechainHistoryStorage]
+    Mockito.when(activeChainStorage.blockById(ArgumentMatchers.any[ModifierId]()))
+      .thenAnswer(_ => {
+        jFail("No SidechainBlocks expected to be read from the storage.")
+        None
+      })
+    // Active chain contains MainchainHeaders starting from the genesis one.
+    val activeChainPoWData: Seq[(Int, Int)] = powRelatedDataList.slice(21, 28).map(powData => Tuple2(powData.time, powData.bits))
+    Mockito.when(activeChainStorage.getMainchainHeadersPoWDataTill(ArgumentMatchers.any[ModifierId](), ArgumentMatchers.anyInt()))
+      .thenAnswer(answer => {
+        assertEquals("Different PoW data size requested.", params.nPowAveragingWindow + params.nMedianTimeSpan, answer.getArgument(1).asInstanceOf[Int])
+        Some((byteArrayToMainchainHeaderHash(BytesUtils.fromHexString(powRelatedDataList(27).mcblockhash)), activeChainPoWData))
+      })
+
+    block = createSCBlockForPowTest(scblocks.last.id, powRelatedDataList(27).mcblockhash, Seq(powRelatedDataList(28), powRelatedDataList(29)))
+    assertTrue("SC block with 2 valid MainchainHeaders expected to have valid PoW Target.",
+      ProofOfWorkVerifier.checkNextWorkRequired(block, activeChainStorage, params))
+
+    block = createSCBlockForPowTest(scblocks.last.id, powRelatedDataList(27).mcblockhash, Seq(
+      powRelatedDataList(28).copy(bits = 0x1c111ca1) // 0x1c111cab is valid one
+    ))
+    assertFalse("SC block, that contains 1 MainchainHeader with invalid target(bits), expected to have invalid PoW Target.",
+      ProofOfWorkVerifier.checkNextWorkRequired(block, activeChainStorage, params))
+
+    block = createSCBlockForPowTest(scblocks.last.id, powRelatedDataList(26).mcblockhash, Seq(powRelatedDataList(28)))
+    assertFalse("SC block, that contains 1 MainchainHeader that doesn't follow last active chain MainchainHeader, expected to have invalid PoW Target.",
+      ProofOfWorkVerifier.checkNextWorkRequired(block, activeChainStorage, params))
   }
 
   private def createSCBlockForPowTest(prevSCBlockId: String,
@@ -3,7 +3,7 @@ package com.horizen.chain
 import java.io.{PrintWriter, StringWriter}
 
 import com.horizen.fixtures.{SidechainBlockInfoFixture, VrfGenerator}
-import com.horizen.utils.WithdrawalEpochInfo
+import com.horizen.utils.{ByteArrayWrapper, WithdrawalEpochInfo}
 import org.junit.Assert.{assertEquals, assertFalse, assertNotEquals, assertTrue}
 import org.junit.Test
 import org.scalatest.junit.JUnitSuite
@@ -547,6 +547,139 @@ class ActiveChainTest extends JUnitSuite with SidechainBlockInfoFixture {
     addNewBestBlockShallBeFailed(chain, inconsistentBlockId2, inconsistentBlockInfo2, Some(mcHash7))
   }
 
+  @Test
+  def mainchainHeadersPoWData(): Unit = {
+    setSeed(testSeed + 4)
+
+    def generatePoWData(info: SidechainBlockInfo, seed: Int): Seq[(Int, Int)] = {
+      info.mainchainHeaderHashes.indices.map(idx => (1000000 + seed * 100 + idx, 0x1c000000 + seed * 100 + idx))
+    }
+
+    val chain: ActiveChain = ActiveChain(genesisBlockMainchainHeight)
+
+    // Add genesis block
+    val (firstId: ModifierId, firstData: SidechainBlockInfo, firstMainchainParent: Option[MainchainHeaderHash]) = getNewDataForParent(getRandomModifier(), Seq(generateMainchainBlockReference()))
+    val firstPoWData = generatePoWData(firstData, 1)
+    chain.setBestBlock(firstId, firstData, firstMainchainParent, firstPoWData)
+
+    // Add block with MainchainHeaders
+    val (secondId: ModifierId, secondData: SidechainBlockInfo, secondMainchainParent: Option[MainchainHeaderHash]) = getNewDataForParent(firstId, Seq(generateMainchainBlockReference()))
+    val secondPoWData = generatePoWData(secondData, 2)
+    chain.setBestBlock(secondId, secondData, secondMainchainParent, secondPoWData)
+
+    // Add block without MainchainHeaders
+    val (thirdId: ModifierId, thirdData: SidechainBlockInfo, thirdMainchainParent: Option[MainchainHeaderHash]) = getNewDataForParentNoMainchainReferences(secondId)
+    chain.setBestBlock(thirdId, thirdData, thirdMainchainParent)
+
+    assertEquals("Different PoW data expected for the whole chain.",
+      Some((secondData.mainchainHeaderHashes.last, firstPoWData ++ secondPoWData)), chain.mcHeadersPoWDataTill(thirdId, 1000))
+    assertEquals("Different PoW data expected for the last 2 headers.",
+      Some((secondData.mainchainHeaderHashes.last, (firstPoWData ++ secondPoWData).takeRight(2))), chain.mcHeadersPoWDataTill(thirdId, 2))
+    assertEquals("Different PoW data expected till the first block.",
+      Some((firstData.mainchainHeaderHashes.last, firstPoWData)), chain.mcHeadersPoWDataTill(firstId, 1000))
+    assertTrue("No PoW data expected for the block outside the active chain.", chain.mcHeadersPoWDataTill(getRandomModifier(), 1000).isEmpty)
+
+    // Rollback: add fork block after the first one
+    val (forkId: ModifierId, forkData: SidechainBlockInfo, forkMainchainParent: Option[MainchainHeaderHash]) = getNewDataForParent(firstId, Seq(generateMainchainBlockReference()))
+    val forkPoWData = generatePoWData(forkData, 3)
+    chain.setBestBlock(forkId, forkData, forkMainchainParent, forkPoWData)
+
+    assertEquals("Different PoW data expected after the rollback.",
+      Some((forkData.mainchainHeaderHashes.last, firstPoWData ++ forkPoWData)), chain.mcHeadersPoWDataTill(forkId, 1000))
+    assertTrue("No PoW data expected for the block removed from the active chain.", chain.mcHeadersPoWDataTill(secondId, 1000).isEmpty)
+
+    // Add block with unknown PoW data
+    val (unknownId: ModifierId, unknownData: SidechainBlockInfo, unknownMainchainParent: Option[MainchainHeaderHash]) = getNewDataForParent(forkId, Seq(generateMainchainBlockReference()))
+    chain.setBestBlock(unknownId, unknownData, unknownMainchainParent)
+    assertTrue("No PoW data expected if some data is unknown.", chain.mcHeadersPoWDataTill(unknownId, 1000).isEmpty)
+    assertEquals("Different PoW data expected till the block with known data.",
+      Some((forkData.mainchainHeaderHashes.last, firstPoWData ++ forkPoWData)), chain.mcHeadersPoWDataTill(forkId, 1000))
+
+    val unknownPoWData = generatePoWData(unknownData, 4)
+    unknownData.mainchainHeaderHashes.zip(unknownPoWData).foreach {
+      case (hash, (time, bits)) => chain.updateMcHeaderPoWData(hash, time, bits)
+    }
+    assertEquals("Different PoW data expected after the update.",
+      Some((unknownData.mainchainHeaderHashes.last, firstPoWData ++ forkPoWData ++ unknownPoWData)), chain.mcHeadersPoWDataTill(unknownId, 1000))
+
+    // Add block with inconsistent PoW data
+    val (inconsistentId: ModifierId, inconsistentData: SidechainBlockInfo, inconsistentMainchainParent: Option[MainchainHeaderHash]) = getNewDataForParent(unknownId, Seq(generateMainchainBlockReference()))
+    assertTrue("Block with inconsistent PoW data expected to be not added.",
+      Try(chain.setBestBlock(inconsistentId, inconsistentData, inconsistentMainchainParent, generatePoWData(inconsistentData, 5) :+ (1, 1))).isFailure)
+  }
+
+  @Test
+  def restoreFromSnapshot(): Unit = {
+    setSeed(testSeed + 5)
+
+    val chain: ActiveChain = ActiveChain(genesisBlockMainchainHeight)
+    val generatedData = generateDataSequenceWithGenesisBlock(20)
+    generatedData.foreach { case (id, info, mainchainParent) => addNewBestBlockIsSuccessful(chain, id, info, mainchainParent) }
+
+    // Add blocks with MainchainReferenceData following the MainchainHeaders of the previous blocks
+    val lastGeneratedId = generatedData.last._1
+    val mcHash1: MainchainHeaderHash = byteArrayToMainchainHeaderHash(generateBytes())
+    val mcHash2: MainchainHeaderHash = byteArrayToMainchainHeaderHash(generateBytes())
+    val mcHash3: MainchainHeaderHash = byteArrayToMainchainHeaderHash(generateBytes())
+    val blockId1: ModifierId = getRandomModifier()
+    val blockInfo1 = getBlockInfo(lastGeneratedId, Seq(mcHash1, mcHash2), Seq(), 21)
+    addNewBestBlockIsSuccessful(chain, blockId1, blockInfo1, chain.bestMainchainHeaderHash)
+    val blockId2: ModifierId = getRandomModifier()
+    val blockInfo2 = getBlockInfo(blockId1, Seq(), Seq(mcHash1), 22)
+    addNewBestBlockIsSuccessful(chain, blockId2, blockInfo2, None)
+    val blockId3: ModifierId = getRandomModifier()
+    val blockInfo3 = getBlockInfo(blockId2, Seq(mcHash3), Seq(mcHash2, mcHash3), 23)
+    addNewBestBlockIsSuccessful(chain, blockId3, blockInfo3, Some(mcHash2))
+
+    val blocksInfo: Map[ModifierId, SidechainBlockInfo] =
+      generatedData.map { case (id, info, _) => (id, info) }.toMap ++ Map(blockId1 -> blockInfo1, blockId2 -> blockInfo2, blockId3 -> blockInfo3)
+
+    // Snapshot split into chunks
+    val chunks = Seq(chain.snapshotEntries(1, 10), chain.snapshotEntries(11, chain.height)).map(entries =>
+      ActiveChainSnapshotChunkSerializer.parseBytes(ActiveChainSnapshotChunkSerializer.toBytes(ActiveChainSnapshotChunk(entries))))
+    assertEquals("Different snapshot entries number expected.", chain.height, chunks.map(_.entries.size).sum)
+    assertEquals("Different snapshot entries expected.", chain.snapshotEntries(1, chain.height), chunks.flatMap(_.entries))
+
+    val header = ActiveChainSnapshotHeader(chain.height, chain.bestId.get, chain.mainchainParentHash.get,
+      chunks.map(_ => new ByteArrayWrapper(generateBytes())))
+    val headerBytes = ActiveChainSnapshotHeaderSerializer.toBytes(header)
+    assertEquals("Different snapshot header expected.", header, ActiveChainSnapshotHeaderSerializer.parseBytes(headerBytes))
+    assertEquals("Different mainchain parent expected.", generatedData.head._3, chain.mainchainParentHash)
+
+    headerBytes(0) = (ActiveChainSnapshotHeaderSerializer.SNAPSHOT_FORMAT_VERSION + 1).toByte
+    assertTrue("Snapshot of unknown version expected to be rejected.", ActiveChainSnapshotHeaderSerializer.parseBytesTry(headerBytes).isFailure)
+
+    // Restored chain expected to be the same
+    val restoredChain = ActiveChain.restore(chunks.iterator.flatMap(_.entries), header.mainchainParentHash, genesisBlockMainchainHeight, blocksInfo.get)
+
+    val usedIds = (1 to chain.height).map(h => chain.idByHeight(h).get)
+    val mainchainIds = (genesisBlockMainchainHeight to chain.heightOfMcHeaders).map(h => chain.mcHashByMcHeight(h).get)
+    assertEquals("Different height expected.", chain.height, restoredChain.height)
+    assertEquals("Different best id expected.", chain.bestId, restoredChain.bestId)
+    assertEquals("Different best block info expected.", chain.bestScBlockInfo, restoredChain.bestScBlockInfo)
+    assertEquals("Different mainchain headers height expected.", chain.heightOfMcHeaders, restoredChain.heightOfMcHeaders)
+    assertEquals("Different mainchain ref data height expected.", chain.heightOfMcReferencesData, restoredChain.heightOfMcReferencesData)
+    assertFunctionResultsAreEqualsForGivenInput(chain.heightById, restoredChain.heightById, usedIds, "height is different")
+    assertFunctionResultsAreEqualsForGivenInput(chain.scoreById, restoredChain.scoreById, usedIds, "score is different")
+    assertFunctionResultsAreEqualsForGivenInput(chain.timestampById, restoredChain.timestampById, usedIds, "timestamp is different")
+    assertFunctionResultsAreEqualsForGivenInput(chain.blockInfoById, restoredChain.blockInfoById, usedIds, "data is different")
+    assertFunctionResultsAreEqualsForGivenInput(chain.mcHeaderMetadataByMcHash, restoredChain.mcHeaderMetadataByMcHash, mainchainIds, "mainchain header metadata is different")
+    assertFunctionResultsAreEqualsForGivenInput(chain.mcReferenceDataMetadataByMcHash, restoredChain.mcReferenceDataMetadataByMcHash, mainchainIds, "mainchain ref data metadata is different")
+    assertFunctionResultsAreEqualsForGivenInput(chain.idByMcHeader, restoredChain.idByMcHeader, mainchainIds, "sidechain id by mainchain header is different")
+    assertFunctionResultsAreEqualsForGivenInput(chain.idByMcReferenceData, restoredChain.idByMcReferenceData, mainchainIds, "sidechain id by mainchain ref data is different")
+
+    // Restored chain can be continued and reorganized
+    val mcHash4: MainchainHeaderHash = byteArrayToMainchainHeaderHash(generateBytes())
+    val blockId4: ModifierId = getRandomModifier()
+    val blockInfo4 = getBlockInfo(blockId1, Seq(mcHash3, mcHash4), Seq(mcHash1, mcHash2, mcHash3), 22)
+    addNewBestBlockIsSuccessful(restoredChain, blockId4, blockInfo4, Some(mcHash2))
+    assertEquals("Different height expected.", 22, restoredChain.height)
+    assertFalse("Block expected to be removed from the active chain.", restoredChain.contains(blockId3))
+    assertEquals("Different best block info expected.", Some(blockInfo4), restoredChain.bestScBlockInfo)
+    assertEquals("Different mainchain ref data height expected.", chain.heightOfMcReferencesData, restoredChain.heightOfMcReferencesData)
+    assertEquals("Different best mainchain header expected.", Some(mcHash4), restoredChain.bestMainchainHeaderHash)
+  }
+
   private def getBlockInfo(parentId: ModifierId, headers: Seq[MainchainHeaderHash], refData: Seq[MainchainHeaderHash], height: Int): SidechainBlockInfo = {
     SidechainBlockInfo(
       height,
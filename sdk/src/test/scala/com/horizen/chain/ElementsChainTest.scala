@@ -134,6 +134,10 @@ class ElementsChainTest extends JUnitSuite {
     checkStorageElementIsPresent(chainStorage, id4, data4, 4)
     checkBestElementIs(chainStorage, id4, data4, 4)
     assertEquals("Chain from shall be equal", Seq(id4), chainStorage.chainAfter(id4))
+    assertEquals("Ids from height shall be equal", Seq(id2, id3), chainStorage.idsFromHeight(2, 2))
+    assertEquals("Ids from height shall be equal", Seq(id3, id4), chainStorage.idsFromHeight(3, Int.MaxValue))
+    assertEquals("Ids from height shall be empty for zero limit", Seq(), chainStorage.idsFromHeight(1, 0))
+    assertEquals("Ids from height shall be empty for height after the best", Seq(), chainStorage.idsFromHeight(5, 1))
 
     val (newId4, newData4) = dataGenerator.setParentId(3).getNextData
     checkAddNewBestBlockIsSuccessfully(chainStorage, newId4, newData4)
@@ -0,0 +1,59 @@
+package com.horizen.chain
+
+import com.horizen.fixtures.SidechainBlockInfoFixture
+import com.horizen.utils.WithdrawalEpochInfo
+import org.junit.Assert.{assertEquals, assertFalse, assertTrue}
+import org.junit.Test
+import org.scalatest.junit.JUnitSuite
+import scorex.core.consensus.ModifierSemanticValidity
+import scorex.util.ModifierId
+
+class ForkTreeIndexTest extends JUnitSuite with SidechainBlockInfoFixture {
+
+  private def generateBlocks(parentId: ModifierId, fromHeight: Int, count: Int): Seq[(ModifierId, SidechainBlockInfo)] = {
+    var parent = parentId
+    (fromHeight until fromHeight + count).map(height => {
+      val id = getRandomModifier()
+      val info = SidechainBlockInfo(height, height * 10L, parent, height * 100L, ModifierSemanticValidity.Unknown,
+        Seq(), Seq(), WithdrawalEpochInfo(1, 1), None, parent)
+      parent = id
+      (id, info)
+    })
+  }
+
+  @Test
+  def putAndPrune(): Unit = {
+    setSeed(1234L)
+    val index = new ForkTreeIndex(5)
+    val blocks = generateBlocks(getRandomModifier(), 1, 20)
+    // Fork from the block of height 10
+    val forkBlocks = generateBlocks(blocks(9)._1, 11, 5)
+    (blocks ++ forkBlocks).foreach { case (id, info) => index.put(id, info) }
+    assertEquals("Different index size expected.", 25, index.size)
+
+    forkBlocks.foreach { case (id, info) =>
+      assertEquals("Different block info expected.", Some(info), index.blockInfoById(id))
+      assertEquals("Different height expected.", Some(info.height), index.heightById(id))
+      assertEquals("Different parent expected.", Some(info.parentId), index.parentId(id))
+    }
+    assertTrue("Unknown block expected to be absent.", index.heightById(getRandomModifier()).isEmpty)
+
+    // Update of the known block keeps the index size.
+    val (updatedId, updatedInfo) = forkBlocks.head
+    index.put(updatedId, updatedInfo.copy(semanticValidity = ModifierSemanticValidity.Valid))
+    assertEquals("Different index size expected.", 25, index.size)
+    assertEquals("Updated block info expected.", ModifierSemanticValidity.Valid, index.blockInfoById(updatedId).get.semanticValidity)
+
+    // Blocks deeper than 5 below the best height 20 are removed.
+    index.prune(20)
+    assertEquals("Different index size expected.", 6 + 1, index.size)
+    blocks.take(14).foreach { case (id, _) => assertFalse("Deep block expected to be removed.", index.contains(id)) }
+    blocks.drop(14).foreach { case (id, _) => assertTrue("Recent block expected to be kept.", index.contains(id)) }
+    assertEquals("Only the top fork block expected to be kept.", Seq(forkBlocks.last._1), forkBlocks.map(_._1).filter(index.contains))
+
+    index.prune(100)
+    assertEquals("Empty index expected.", 0, index.size)
+    index.put(blocks.last._1, blocks.last._2)
+    assertTrue("Block expected to be added after the full prune.", index.contains(blocks.last._1))
+  }
+}
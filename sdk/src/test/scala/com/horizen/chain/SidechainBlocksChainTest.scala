@@ -0,0 +1,129 @@
+package com.horizen.chain
+
+import com.horizen.fixtures.SidechainBlockInfoFixture
+import com.horizen.utils.WithdrawalEpochInfo
+import org.junit.Assert.{assertEquals, assertFalse, assertTrue}
+import org.junit.Test
+import org.scalatest.junit.JUnitSuite
+import scorex.core.consensus.ModifierSemanticValidity
+import scorex.util.ModifierId
+
+import scala.collection.mutable
+import scala.util.Try
+
+class SidechainBlocksChainTest extends JUnitSuite with SidechainBlockInfoFixture {
+
+  private def generateBlocks(parentId: ModifierId, fromHeight: Int, count: Int): Seq[(ModifierId, SidechainBlockInfo)] = {
+    var parent = parentId
+    (fromHeight until fromHeight + count).map(height => {
+      val id = getRandomModifier()
+      val info = SidechainBlockInfo(height, height * 10L, parent, height * 100L, ModifierSemanticValidity.Valid,
+        Seq(), Seq(), WithdrawalEpochInfo(1, 1), None, parent)
+      parent = id
+      (id, info)
+    })
+  }
+
+  private def checkChain(chain: SidechainBlocksChain, blocks: Seq[(ModifierId, SidechainBlockInfo)]): Unit = {
+    assertEquals("Different chain height expected.", blocks.size, chain.height)
+    assertEquals("Different best id expected.", blocks.lastOption.map(_._1), chain.bestId)
+    for (((id, info), idx) <- blocks.zipWithIndex) {
+      val height = idx + 1
+      assertTrue(s"Block at height $height expected to be present.", chain.contains(id))
+      assertEquals("Different height expected.", Some(height), chain.heightById(id))
+      assertEquals("Different id expected.", Some(id), chain.idByHeight(height))
+      assertEquals("Different score expected.", Some(info.score), chain.scoreByHeight(height))
+      assertEquals("Different timestamp expected.", Some(info.timestamp), chain.timestampByHeight(height))
+    }
+    assertTrue("Id of height 0 expected to be absent.", chain.idByHeight(0).isEmpty)
+    assertTrue("Id after the best one expected to be absent.", chain.idByHeight(blocks.size + 1).isEmpty)
+    assertTrue("Block info after the best one expected to be absent.", chain.blockInfoByHeight(blocks.size + 1).isEmpty)
+  }
+
+  @Test
+  def appendAndCut(): Unit = {
+    setSeed(1234L)
+    val chain = new SidechainBlocksChain()
+    assertEquals("Empty chain expected.", 0, chain.height)
+    assertTrue("Empty chain expected to have no best id.", chain.bestId.isEmpty)
+
+    // Enough blocks to grow the storage several times.
+    val blocks = generateBlocks(getRandomModifier(), 1, 5000)
+    blocks.foreach { case (id, info) => chain.appendData(id, info) }
+    checkChain(chain, blocks)
+    blocks.foreach { case (id, info) => assertEquals("Different block info expected.", Some(info), chain.blockInfoById(id)) }
+    assertFalse("Unknown block expected to be absent.", chain.contains(getRandomModifier()))
+    assertEquals("Different chain after expected.", blocks.drop(4990).map(_._1), chain.chainAfter(blocks(4990)._1))
+    assertTrue("Chain after unknown block expected to be empty.", chain.chainAfter(getRandomModifier()).isEmpty)
+    assertEquals("Different ids from height expected.", blocks.slice(99, 299).map(_._1), chain.idsFromHeight(100, 200))
+    assertEquals("Different ids from height expected.", blocks.drop(4989).map(_._1), chain.idsFromHeight(4990, Int.MaxValue))
+    assertTrue("Ids from height 0 expected to be empty.", chain.idsFromHeight(0, 10).isEmpty)
+    assertTrue("Ids from height after the best expected to be empty.", chain.idsFromHeight(5001, 10).isEmpty)
+
+    // Inconsistent blocks
+    val (_, wrongParentInfo) = generateBlocks(blocks(10)._1, 5001, 1).head
+    assertTrue("Block with wrong parent expected to be rejected.", Try(chain.appendData(getRandomModifier(), wrongParentInfo)).isFailure)
+    val (_, selfParentInfo) = generateBlocks(blocks.last._1, 5001, 1).head
+    assertTrue("Block with itself as a parent expected to be rejected.", Try(chain.appendData(blocks.last._1, selfParentInfo)).isFailure)
+    assertTrue("Block already present expected to be rejected.", Try(chain.appendData(blocks(10)._1, selfParentInfo)).isFailure)
+    checkChain(chain, blocks)
+
+    // Switch to the fork
+    val forkPoint = 3000
+    chain.cutToId(blocks(forkPoint - 1)._1)
+    checkChain(chain, blocks.take(forkPoint))
+    blocks.drop(forkPoint).foreach { case (id, _) => assertFalse("Cut block expected to be absent.", chain.contains(id)) }
+
+    val forkBlocks = generateBlocks(blocks(forkPoint - 1)._1, forkPoint + 1, 2500)
+    forkBlocks.foreach { case (id, info) => chain.appendData(id, info) }
+    checkChain(chain, blocks.take(forkPoint) ++ forkBlocks)
+
+    assertTrue("Cut to unknown block expected to fail.", Try(chain.cutToId(getRandomModifier())).isFailure)
+
+    // Cut to the best one has no effect
+    chain.cutToId(forkBlocks.last._1)
+    checkChain(chain, blocks.take(forkPoint) ++ forkBlocks)
+  }
+
+  @Test
+  def lazyBlockInfosLoading(): Unit = {
+    setSeed(4321L)
+    val storedInfos = mutable.HashMap[ModifierId, SidechainBlockInfo]()
+    var loadedNumber = 0
+    val loader: ModifierId => Option[SidechainBlockInfo] = id => {
+      loadedNumber += 1
+      storedInfos.get(id)
+    }
+
+    val recentInfosNumber = 10
+    val chain = new SidechainBlocksChain(Some(loader), recentInfosNumber)
+    val blocks = generateBlocks(getRandomModifier(), 1, 100)
+    blocks.foreach { case (id, info) =>
+      storedInfos.put(id, info)
+      chain.appendData(id, info)
+    }
+    checkChain(chain, blocks)
+
+    // Recent infos are kept in memory
+    blocks.takeRight(recentInfosNumber).zipWithIndex.foreach { case ((_, info), idx) =>
+      assertEquals("Different block info expected.", Some(info), chain.blockInfoByHeight(blocks.size - recentInfosNumber + idx + 1))
+    }
+    assertEquals("Recent block infos expected to be taken from memory.", 0, loadedNumber)
+    assertEquals("Different best block info expected.", Some(blocks.last._2), chain.bestBlockInfo)
+
+    // Older infos are loaded
+    assertEquals("Different block info expected.", Some(blocks.head._2), chain.blockInfoByHeight(1))
+    assertEquals("Different block info expected.", Some(blocks(50)._2), chain.blockInfoByHeight(51))
+    assertEquals("Old block infos expected to be loaded.", 2, loadedNumber)
+
+    // Cut deeper than the recent infos and continue the chain
+    chain.cutToId(blocks(49)._1)
+    assertEquals("Different best block info expected.", Some(blocks(49)._2), chain.bestBlockInfo)
+    val forkBlocks = generateBlocks(blocks(49)._1, 51, 5)
+    forkBlocks.foreach { case (id, info) => chain.appendData(id, info) }
+    checkChain(chain, blocks.take(50) ++ forkBlocks)
+    (blocks.take(50) ++ forkBlocks).zipWithIndex.foreach { case ((_, info), idx) =>
+      assertEquals("Different block info expected.", Some(info), chain.blockInfoByHeight(idx + 1))
+    }
+  }
+}
@@ -22,7 +22,8 @@ import scala.collection.mutable.ListBuffer
 
 
 class TestedConsensusDataProvider(slotsPresentation: List[List[Int]],
-                                  val params: NetworkParams)
+                                  val params: NetworkParams,
+                                  useNonceAccumulators: Boolean = false)
   extends ConsensusDataProvider
   with TimeToEpochSlotConverter
   with NetworkParamsUtils
@@ -41,7 +42,7 @@ class TestedConsensusDataProvider(slotsPresentation: List[List[Int]],
   val epochIds: Seq[ConsensusEpochId] = blockIdAndInfosPerEpoch.map(epoch => blockIdToEpochId(epoch.last._1))
 
 
-  val storage = new BlocksInfoProvider()
+  val storage = new BlocksInfoProvider(if (useNonceAccumulators) Some(new NonceAccumulators(params)) else None)
   blockIdAndInfosPerEpoch.flatten.foreach{case (id, info) => storage.addBlockInfo(id, info)}
 
   val consensusDataStorage = new ConsensusDataStorage(new InMemoryStorageAdapter())
@@ -119,11 +120,16 @@ class TestedConsensusDataProvider(slotsPresentation: List[List[Int]],
   }
 }
 
-class BlocksInfoProvider extends SidechainBlockInfoProvider {
+class BlocksInfoProvider(nonceAccumulatorsOpt: Option[NonceAccumulators] = None) extends SidechainBlockInfoProvider {
   private val storage = mutable.Map[ModifierId, SidechainBlockInfo]()
 
   override def blockInfoById(blockId: ModifierId): SidechainBlockInfo = storage(blockId)
-  def addBlockInfo(blockId: ModifierId, sidechainBlockInfo: SidechainBlockInfo): Unit = storage.put(blockId, sidechainBlockInfo)
+  def addBlockInfo(blockId: ModifierId, sidechainBlockInfo: SidechainBlockInfo): Unit = {
+    storage.put(blockId, sidechainBlockInfo)
+    nonceAccumulatorsOpt.foreach(_.add(blockId, sidechainBlockInfo))
+  }
+
+  override def nonceAccumulatorById(blockId: ModifierId): Option[NonceAccumulator] = nonceAccumulatorsOpt.flatMap(_.get(blockId))
 }
 
 class ConsensusDataProviderTest extends CompanionsFixture{
@@ -220,6 +226,15 @@ class ConsensusDataProviderTest extends CompanionsFixture{
 
     assertEquals(bytes.deep, nonceConsensusInfoForTenEpoch.bytes.deep)
 
+    // Nonce calculated with the help of the nonce accumulators shall be the same
+    val accumulatedDataProvider = new TestedConsensusDataProvider(slotsPresentationForFirstDataProvider, networkParams, useNonceAccumulators = true)
+    val lastBlockInNinthEpochId = accumulatedDataProvider.blockIdAndInfosPerEpoch(8).last._1
+    assertTrue("Nonce accumulator expected to be present.", accumulatedDataProvider.storage.nonceAccumulatorById(lastBlockInNinthEpochId).isDefined)
+    (2 to 10).foreach(epochNumber =>
+      assertEquals(s"Different consensus info for epoch $epochNumber expected.",
+        firstDataProvider.getInfoForCheckingBlockInEpochNumber(epochNumber), accumulatedDataProvider.getInfoForCheckingBlockInEpochNumber(epochNumber)))
+    assertEquals(bytes.deep, accumulatedDataProvider.getInfoForCheckingBlockInEpochNumber(10).nonceConsensusEpochInfo.bytes.deep)
+
     // Determinism and calculation tests
     val slotsPresentationForSecondDataProvider: List[List[Int]] = List(
       slotsPresentationForFirstDataProvider.head, //2 epoch
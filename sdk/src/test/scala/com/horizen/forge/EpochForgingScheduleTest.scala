@@ -0,0 +1,62 @@
+package com.horizen.forge
+
+import java.util.{ArrayList => JArrayList}
+
+import com.horizen.consensus._
+import com.horizen.fixtures.BoxFixture
+import com.horizen.secret.VrfKeyGenerator
+import com.horizen.utils.MerklePath
+import org.junit.Assert._
+import org.junit.Test
+import org.scalatest.junit.JUnitSuite
+
+class EpochForgingScheduleTest extends JUnitSuite with BoxFixture {
+
+  private def getCandidate(value: Long): ForgingCandidate = {
+    val vrfSecret = VrfKeyGenerator.getInstance().generateSecret(s"vrfSeed$value".getBytes)
+    val blockSignSecret = getPrivateKey25519
+    val forgerBox = getForgerBox(getPrivateKey25519.publicImage(), value, value, blockSignSecret.publicImage(), vrfSecret.publicImage())
+    ForgingCandidate(forgerBox, new MerklePath(new JArrayList()), blockSignSecret, vrfSecret)
+  }
+
+  @Test
+  def testSchedule(): Unit = {
+    val epochNumber = intToConsensusEpochNumber(3)
+    val candidates = IndexedSeq(getCandidate(200), getCandidate(100))
+    val forgingData = EpochForgingData(epochNumber, NonceConsensusEpochInfo(ConsensusNonce @@ "nonce".getBytes), 1000L, candidates)
+
+    val eligible = EligibleForgingCandidate(candidates.head, null, null)
+    val schedule = EpochForgingSchedule(forgingData,
+      Map(intToConsensusSlotNumber(10) -> eligible, intToConsensusSlotNumber(2) -> eligible, intToConsensusSlotNumber(5) -> eligible))
+
+
+    // Test 1: check schedule validity
+    assertTrue("Schedule expected to be valid for the same data.",
+      schedule.isValidFor(forgingData.copy(nonceConsensusEpochInfo = NonceConsensusEpochInfo(ConsensusNonce @@ "nonce".getBytes))))
+    assertFalse("Schedule expected to be invalid for another epoch.",
+      schedule.isValidFor(forgingData.copy(epochNumber = intToConsensusEpochNumber(4))))
+    assertFalse("Schedule expected to be invalid for another nonce.",
+      schedule.isValidFor(forgingData.copy(nonceConsensusEpochInfo = NonceConsensusEpochInfo(ConsensusNonce @@ "nonce2".getBytes))))
+    assertFalse("Schedule expected to be invalid for another total stake.",
+      schedule.isValidFor(forgingData.copy(totalStake = 2000L)))
+    assertFalse("Schedule expected to be invalid for another forger boxes.",
+      schedule.isValidFor(forgingData.copy(candidates = candidates.take(1))))
+
+
+    // Test 2: check upcoming slots
+    assertEquals("Different upcoming slots expected.",
+      Seq(5, 10).map(slot => ConsensusEpochAndSlot(epochNumber, intToConsensusSlotNumber(slot))),
+      schedule.upcomingSlots(ConsensusEpochAndSlot(epochNumber, intToConsensusSlotNumber(2))))
+    assertEquals("All slots expected to be upcoming for the previous epoch.", 3,
+      schedule.upcomingSlots(ConsensusEpochAndSlot(intToConsensusEpochNumber(2), intToConsensusSlotNumber(20))).size)
+    assertTrue("No upcoming slots expected for the next epoch.",
+      schedule.upcomingSlots(ConsensusEpochAndSlot(intToConsensusEpochNumber(4), intToConsensusSlotNumber(1))).isEmpty)
+
+
+    // Test 3: check failed slots
+    assertTrue("All slots expected to be evaluated.", (1 to 10).forall(slot => schedule.isEvaluated(intToConsensusSlotNumber(slot))))
+    val scheduleWithFailedSlot = schedule.copy(failedSlots = Set(intToConsensusSlotNumber(3)))
+    assertFalse("Failed slot expected to be not evaluated.", scheduleWithFailedSlot.isEvaluated(intToConsensusSlotNumber(3)))
+    assertTrue("Other slot expected to be evaluated.", scheduleWithFailedSlot.isEvaluated(intToConsensusSlotNumber(4)))
+  }
+}
@@ -0,0 +1,81 @@
+package com.horizen.forge
+
+import java.util.concurrent.TimeoutException
+import java.util.{ArrayList => JArrayList}
+
+import com.horizen.consensus._
+import com.horizen.fixtures.BoxFixture
+import com.horizen.secret.{VrfKeyGenerator, VrfSecretKey}
+import com.horizen.utils.MerklePath
+import org.junit.Assert._
+import org.junit.Test
+import org.scalatest.junit.JUnitSuite
+
+import scala.concurrent.duration._
+
+class ForgerVrfProverTest extends JUnitSuite with BoxFixture {
+
+  val vrfSecrets: Seq[VrfSecretKey] = (1 to 5).map(i => VrfKeyGenerator.getInstance().generateSecret(s"vrfSeed$i".getBytes))
+
+  // Several boxes are delegated to the same VRF key, ordered by stake decreasing.
+  val candidates: IndexedSeq[ForgingCandidate] = (1 to 20).map(i => {
+    val vrfSecret = vrfSecrets(i % vrfSecrets.size)
+    val blockSignSecret = getPrivateKey25519
+    val forgerBox = getForgerBox(getPrivateKey25519.publicImage(), i, 1000 - i * 10, blockSignSecret.publicImage(), vrfSecret.publicImage())
+    ForgingCandidate(forgerBox, new MerklePath(new JArrayList()), blockSignSecret, vrfSecret)
+  })
+
+  private def findFirstEligibleSequentially(vrfMessage: VrfMessage, totalStake: Long): Option[ForgingCandidate] = {
+    candidates.find(candidate => vrfProofCheckAgainstStake(candidate.vrfSecret.prove(vrfMessage).getValue, candidate.forgerBox.value(), totalStake))
+  }
+
+  @Test
+  def testFindFirstEligible(): Unit = {
+    val prover = new ForgerVrfProver(4)
+    try {
+      for (slot <- 1 to 20; totalStake <- Seq(10000L, 100000L, 10000000L)) {
+        val vrfMessage = buildVrfMessage(intToConsensusSlotNumber(slot), NonceConsensusEpochInfo(ConsensusNonce @@ s"nonce$slot".getBytes))
+        val expectedCandidateOpt = findFirstEligibleSequentially(vrfMessage, totalStake)
+
+        val eligibleOpt = prover.findFirstEligible(candidates, vrfMessage, totalStake, 10.seconds)
+        assertEquals("Parallel proving must choose the same forger box as the sequential one.", expectedCandidateOpt, eligibleOpt.map(_.candidate))
+
+        eligibleOpt.foreach(eligible => {
+          assertEquals("VRF proof must correspond to the VRF output.", eligible.vrfOutput,
+            eligible.vrfProof.proofToVrfOutput(eligible.candidate.forgerBox.vrfPubKey(), vrfMessage).get())
+        })
+      }
+
+      val vrfMessage = buildVrfMessage(intToConsensusSlotNumber(1), NonceConsensusEpochInfo(ConsensusNonce @@ "nonce".getBytes))
+      assertEquals("No eligible forger box expected for empty candidates list.", None,
+        prover.findFirstEligible(IndexedSeq(), vrfMessage, 10000L, 10.seconds))
+    } finally {
+      prover.shutdown()
+    }
+  }
+
+  @Test
+  def testFindFirstEligibleSequentially(): Unit = {
+    val prover = new ForgerVrfProver(1)
+    try {
+      for (slot <- 1 to 20; totalStake <- Seq(10000L, 100000L, 10000000L)) {
+        val vrfMessage = buildVrfMessage(intToConsensusSlotNumber(slot), NonceConsensusEpochInfo(ConsensusNonce @@ s"nonce$slot".getBytes))
+        assertEquals("Sequential proving must choose the first eligible forger box.", findFirstEligibleSequentially(vrfMessage, totalStake),
+          prover.findFirstEligibleSequentially(candidates, vrfMessage, totalStake, 10.seconds.fromNow).map(_.candidate))
+      }
+
+      val vrfMessage = buildVrfMessage(intToConsensusSlotNumber(1), NonceConsensusEpochInfo(ConsensusNonce @@ "nonce".getBytes))
+      assertEquals("No eligible forger box expected for empty candidates list.", None,
+        prover.findFirstEligibleSequentially(IndexedSeq(), vrfMessage, 10000L, 10.seconds.fromNow))
+
+      try {
+        prover.findFirstEligibleSequentially(candidates, vrfMessage, 10000L, Deadline.now - 1.second)
+        fail("Proving must be stopped, if the deadline is passed.")
+      } catch {
+        case _: TimeoutException =>
+      }
+    } finally {
+      prover.shutdown()
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.horizen.forge
+
+import com.horizen.block.MainchainBlockReference
+import com.horizen.chain.byteArrayToMainchainHeaderHash
+import com.horizen.params.MainNetParams
+import com.horizen.utils.BytesUtils
+import com.horizen.websocket.{MainchainNodeChannel, OnUpdateTipEventPayload}
+import org.junit.Assert._
+import org.junit.Test
+import org.mockito.{ArgumentMatchers, Mockito}
+import org.scalatest.junit.JUnitSuite
+import org.scalatest.mockito.MockitoSugar
+
+import scala.io.Source
+import scala.util.{Failure, Success}
+
+class MainchainBlockReferencePrefetcherTest extends JUnitSuite with MockitoSugar {
+  val params = MainNetParams()
+
+  // Mainnet blocks 473173 - 473176 in order
+  val blocksHex: Seq[String] = Seq("mcblock473173_mainnet", "mcblock473174_mainnet", "mcblock473175_mainnet", "mcblock473176_mainnet")
+    .map(resource => Source.fromResource(resource).getLines().next())
+  val references: Seq[MainchainBlockReference] = blocksHex.map(hex => MainchainBlockReference.create(BytesUtils.fromHexString(hex), params).get)
+
+  private def mockedMainchainNodeChannel(): MainchainNodeChannel = {
+    val mainchainNodeChannel = mock[MainchainNodeChannel]
+    Mockito.when(mainchainNodeChannel.getBlockByHash(ArgumentMatchers.any[String]())).thenAnswer(answer => {
+      val hash: String = answer.getArgument(0)
+      references.find(_.header.hashHex == hash) match {
+        case Some(reference) => Success(reference)
+        case None => Failure(new IllegalArgumentException(s"Unknown block $hash"))
+      }
+    })
+    mainchainNodeChannel
+  }
+
+  private def isCached(prefetcher: MainchainBlockReferencePrefetcher, reference: MainchainBlockReference): Boolean =
+    prefetcher.getReference(byteArrayToMainchainHeaderHash(reference.header.hash)).isDefined
+
+  @Test
+  def testPrefetch(): Unit = {
+    val mainchainNodeChannel = mockedMainchainNodeChannel()
+    val prefetcher = new MainchainBlockReferencePrefetcher(mainchainNodeChannel, params, cacheSize = 10, prefetchDepth = 2)
+
+    // Test 1: tip block is taken from the event, its 2 ancestors are requested
+    prefetcher.prefetch(OnUpdateTipEventPayload(473176, references(3).header.hashHex, blocksHex(3)))
+    assertTrue("Tip reference expected to be cached.", isCached(prefetcher, references(3)))
+    assertTrue("Tip parent reference expected to be cached.", isCached(prefetcher, references(2)))
+    assertTrue("Tip grandparent reference expected to be cached.", isCached(prefetcher, references(1)))
+    assertFalse("Reference deeper than prefetch depth expected to be absent.", isCached(prefetcher, references(0)))
+    Mockito.verify(mainchainNodeChannel, Mockito.times(2)).getBlockByHash(ArgumentMatchers.any[String]())
+    Mockito.verify(mainchainNodeChannel).getBlockByHash(references(2).header.hashHex)
+    Mockito.verify(mainchainNodeChannel).getBlockByHash(references(1).header.hashHex)
+
+
+    // Test 2: the same tip again - nothing to request
+    prefetcher.prefetch(OnUpdateTipEventPayload(473176, references(3).header.hashHex, blocksHex(3)))
+    Mockito.verify(mainchainNodeChannel, Mockito.times(2)).getBlockByHash(ArgumentMatchers.any[String]())
+  }
+
+  @Test
+  def testPrefetchWithoutBlockData(): Unit = {
+    val mainchainNodeChannel = mockedMainchainNodeChannel()
+    val prefetcher = new MainchainBlockReferencePrefetcher(mainchainNodeChannel, params, cacheSize = 10, prefetchDepth = 1)
+
+    // Event contains no block data, so the tip block must be requested
+    prefetcher.prefetch(OnUpdateTipEventPayload(473174, references(1).header.hashHex, ""))
+    assertTrue("Tip reference expected to be cached.", isCached(prefetcher, references(1)))
+    assertTrue("Tip parent reference expected to be cached.", isCached(prefetcher, references(0)))
+    Mockito.verify(mainchainNodeChannel, Mockito.times(2)).getBlockByHash(ArgumentMatchers.any[String]())
+
+    // Next tip: parent is already cached
+    prefetcher.prefetch(OnUpdateTipEventPayload(473175, references(2).header.hashHex, blocksHex(2)))
+    assertTrue("Tip reference expected to be cached.", isCached(prefetcher, references(2)))
+    Mockito.verify(mainchainNodeChannel, Mockito.times(2)).getBlockByHash(ArgumentMatchers.any[String]())
+  }
+}
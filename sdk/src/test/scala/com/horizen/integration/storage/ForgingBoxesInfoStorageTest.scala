@@ -34,7 +34,8 @@ class ForgingBoxesInfoStorageTest extends JUnitSuite with IODBStoreFixture with
       forgingBoxesMerklePathStorage.updateForgerBoxes(updateVersion, forgerBoxesToAppend, Seq()).isSuccess)
     assertEquals("Different ForgerBox seq expected.", forgerBoxesToAppend, forgingBoxesMerklePathStorage.getForgerBoxes.get)
 
-    // Test updateForgerBoxMerklePathInfo operation.
+    // Test updateForgerBoxes operation with merkle path info seq.
+    val merklePathUpdateVersion = getVersion
     val epochNumber = ConsensusEpochNumber @@ 2
     val boxMerklePathInfoSeq = Seq(
       ForgerBoxMerklePathInfo(
@@ -42,7 +43,9 @@ class ForgingBoxesInfoStorageTest extends JUnitSuite with IODBStoreFixture with
         new MerklePath(new JArrayList())
       )
     )
-    assertTrue("updateForgerBoxMerklePathInfo must be successful.", forgingBoxesMerklePathStorage.updateForgerBoxMerklePathInfo(epochNumber, boxMerklePathInfoSeq).isSuccess)
+    assertTrue("updateForgerBoxes must be successful.",
+      forgingBoxesMerklePathStorage.updateForgerBoxes(merklePathUpdateVersion, Seq(), Seq(), Seq((epochNumber, boxMerklePathInfoSeq))).isSuccess)
+    assertEquals("Version in storage must be - " + merklePathUpdateVersion, merklePathUpdateVersion, forgingBoxesMerklePathStorage.lastVersionId.get)
 
     // Test retrieving of merkle path info seq for EXISTING epoch
     forgingBoxesMerklePathStorage.getForgerBoxMerklePathInfoForEpoch(epochNumber) match {
@@ -5,16 +5,20 @@ import java.util.{HashMap => JHashMap}
 
 import com.horizen.SidechainTypes
 import com.horizen.block.SidechainBlock
-import com.horizen.chain.SidechainBlockInfo
+import com.horizen.chain.{ActiveChainSnapshotHeaderSerializer, SidechainBlockInfo}
 import com.horizen.companion.SidechainTransactionsCompanion
 import com.horizen.fixtures.{CompanionsFixture, IODBStoreFixture, SidechainBlockFixture, SidechainBlockInfoFixture}
 import com.horizen.params.{MainNetParams, NetworkParams}
 import com.horizen.storage.{IODBStoreAdapter, SidechainHistoryStorage}
 import com.horizen.transaction.TransactionSerializer
+import com.horizen.utils.{ByteArrayWrapper, Pair}
 import org.junit.Assert._
 import org.junit.Test
 import org.scalatest.junit.JUnitSuite
 import scorex.core.consensus.ModifierSemanticValidity
+import scorex.crypto.hash.Blake2b256
+
+import scala.collection.mutable.ArrayBuffer
 
 
 class SidechainHistoryStorageTest extends JUnitSuite with SidechainBlockFixture with IODBStoreFixture with SidechainBlockInfoFixture with CompanionsFixture {
@@ -139,4 +143,121 @@ class SidechainHistoryStorageTest extends JUnitSuite with SidechainBlockFixture
     assertEquals("HistoryStorage different block chain expected form active chain", Seq(genesisBlock.id, forkBlock.id), historyStorage.activeChainAfter(genesisBlock.id))
     assertEquals("HistoryStorage different block chain expected form active chain", Seq(forkBlock.id), historyStorage.activeChainAfter(forkBlock.id))
   }
+
+  @Test
+  def activeChainSnapshot(): Unit = {
+    val (store, dir) = getStoreWithPath()
+    val snapshotInterval = 3
+    val snapshotChunkSize = 2
+    val historyStorage = new SidechainHistoryStorage(new IODBStoreAdapter(store), sidechainTransactionsCompanion, params, snapshotInterval, snapshotChunkSize)
+
+    def addBestBlock(block: SidechainBlock, blockInfo: SidechainBlockInfo): Unit = {
+      assertTrue("HistoryStorage expected to be updated", historyStorage.update(block, blockInfo).isSuccess)
+      assertTrue("HistoryStorage best block expected to be updated", historyStorage.setAsBestBlock(block, blockInfo).isSuccess)
+    }
+
+    // Active chain of 7 blocks, snapshots are stored at heights 3 and 6.
+    val blocks = ArrayBuffer(genesisBlock)
+    val blockInfos = ArrayBuffer(genesisBlockInfo)
+    addBestBlock(genesisBlock, genesisBlockInfo)
+    (2 to 7).foreach(_ => {
+      val block = generateNextSidechainBlock(blocks.last, sidechainTransactionsCompanion, params)
+      val blockInfo = generateBlockInfo(block, blockInfos.last, params, validity = ModifierSemanticValidity.Valid)
+      addBestBlock(block, blockInfo)
+      blocks.append(block)
+      blockInfos.append(blockInfo)
+    })
+
+    // Fork below the last snapshot height becomes the best chain.
+    var forkParent = blocks(4)
+    var forkParentInfo = blockInfos(4)
+    (6 to 8).foreach(_ => {
+      val block = generateNextSidechainBlock(forkParent, sidechainTransactionsCompanion, params, basicSeed = 991919L)
+      val blockInfo = generateBlockInfo(block, forkParentInfo, params, Some(forkParentInfo.score + (100L << 32)), ModifierSemanticValidity.Valid)
+      addBestBlock(block, blockInfo)
+      forkParent = block
+      forkParentInfo = blockInfo
+    })
+    assertEquals("HistoryStorage different height expected", 8, historyStorage.height)
+    assertFalse("HistoryStorage block expected NOT to be a part of active chain", historyStorage.isInActiveChain(blocks(5).id))
+    // Recently stored blocks of both sides of the fork are kept parsed
+    assertTrue("HistoryStorage recent block expected to be taken from memory", historyStorage.blockById(blocks(5).id).exists(_ eq blocks(5)))
+    assertTrue("HistoryStorage recent block expected to be taken from memory", historyStorage.blockById(forkParent.id).exists(_ eq forkParent))
+
+    def checkRestoredActiveChain(restoredStorage: SidechainHistoryStorage): Unit = {
+      assertEquals("Restored HistoryStorage different height expected", historyStorage.height, restoredStorage.height)
+      assertEquals("Restored HistoryStorage different bestBlockId expected", historyStorage.bestBlockId, restoredStorage.bestBlockId)
+      assertEquals("Restored HistoryStorage different active chain expected",
+        historyStorage.activeChainAfter(genesisBlock.id), restoredStorage.activeChainAfter(genesisBlock.id))
+      historyStorage.activeChainAfter(genesisBlock.id).foreach(id => {
+        assertEquals("Restored HistoryStorage different block info expected", historyStorage.blockInfoOptionById(id), restoredStorage.blockInfoOptionById(id))
+        assertEquals("Restored HistoryStorage different chain score expected", historyStorage.chainScoreFor(id), restoredStorage.chainScoreFor(id))
+      })
+      assertFalse("Restored HistoryStorage block expected NOT to be a part of active chain", restoredStorage.isInActiveChain(blocks(5).id))
+      assertEquals("Restored HistoryStorage different fork block expected", blocks(5).id, restoredStorage.blockById(blocks(5).id).get.id)
+      assertEquals("Restored HistoryStorage different best mainchain header expected",
+        historyStorage.getBestMainchainHeaderInfo, restoredStorage.getBestMainchainHeaderInfo)
+      assertEquals("Restored HistoryStorage different best mainchain reference data expected",
+        historyStorage.getBestMainchainBlockReferenceDataInfo, restoredStorage.getBestMainchainBlockReferenceDataInfo)
+    }
+
+    // Restore from the snapshot
+    store.close()
+    val reopenedStorage = new IODBStoreAdapter(getStore(dir))
+    checkRestoredActiveChain(new SidechainHistoryStorage(reopenedStorage, sidechainTransactionsCompanion, params, snapshotInterval, snapshotChunkSize))
+
+    // Corrupted snapshot is ignored
+    reopenedStorage.update(new ByteArrayWrapper(generateBytes()),
+      java.util.Arrays.asList(new Pair(new ByteArrayWrapper(Blake2b256("activeChainSnapshotChunk0")), new ByteArrayWrapper(generateBytes()))),
+      new java.util.ArrayList[ByteArrayWrapper]())
+    checkRestoredActiveChain(new SidechainHistoryStorage(reopenedStorage, sidechainTransactionsCompanion, params, snapshotInterval, snapshotChunkSize))
+  }
+
+  @Test
+  def activeChainSnapshotWrittenIncrementally(): Unit = {
+    val (store, dir) = getStoreWithPath()
+    val storage = new IODBStoreAdapter(store)
+    val snapshotChunkSize = 1
+    // Active chain of 7 blocks stored without the snapshot.
+    var historyStorage = new SidechainHistoryStorage(storage, sidechainTransactionsCompanion, params, 100, snapshotChunkSize)
+
+    def addBestBlock(block: SidechainBlock, blockInfo: SidechainBlockInfo): Unit = {
+      assertTrue("HistoryStorage expected to be updated", historyStorage.update(block, blockInfo).isSuccess)
+      assertTrue("HistoryStorage best block expected to be updated", historyStorage.setAsBestBlock(block, blockInfo).isSuccess)
+    }
+
+    val blocks = ArrayBuffer(genesisBlock)
+    val blockInfos = ArrayBuffer(genesisBlockInfo)
+    def addNextBestBlock(): Unit = {
+      val block = generateNextSidechainBlock(blocks.last, sidechainTransactionsCompanion, params)
+      val blockInfo = generateBlockInfo(block, blockInfos.last, params, validity = ModifierSemanticValidity.Valid)
+      addBestBlock(block, blockInfo)
+      blocks.append(block)
+      blockInfos.append(blockInfo)
+    }
+
+    addBestBlock(genesisBlock, genesisBlockInfo)
+    (2 to 7).foreach(_ => addNextBestBlock())
+
+    def storedSnapshotHeight(): Int = storage.get(new ByteArrayWrapper(Blake2b256("activeChainSnapshot")))
+      .map(bytes => ActiveChainSnapshotHeaderSerializer.parseBytes(bytes.data).height).orElse(0)
+
+    assertEquals("No snapshot expected", 0, storedSnapshotHeight())
+
+    // With the smaller interval each best block update writes the limited number of chunks only.
+    val snapshotInterval = 2
+    val chunksPerUpdate = SidechainHistoryStorage.ACTIVE_CHAIN_SNAPSHOT_CHUNKS_PER_UPDATE
+    historyStorage = new SidechainHistoryStorage(storage, sidechainTransactionsCompanion, params, snapshotInterval, snapshotChunkSize)
+    addNextBestBlock()
+    assertEquals("Partial snapshot expected", chunksPerUpdate * snapshotChunkSize, storedSnapshotHeight())
+    addNextBestBlock()
+    assertEquals("Partial snapshot expected to be continued", 2 * chunksPerUpdate * snapshotChunkSize, storedSnapshotHeight())
+
+    // Active chain is restored from the partial snapshot and the block infos after it.
+    val expectedChain = historyStorage.activeChainAfter(genesisBlock.id)
+    store.close()
+    val restoredStorage = new SidechainHistoryStorage(new IODBStoreAdapter(getStore(dir)), sidechainTransactionsCompanion, params, snapshotInterval, snapshotChunkSize)
+    assertEquals("Restored HistoryStorage different height expected", 9, restoredStorage.height)
+    assertEquals("Restored HistoryStorage different active chain expected", expectedChain, restoredStorage.activeChainAfter(genesisBlock.id))
+  }
 }
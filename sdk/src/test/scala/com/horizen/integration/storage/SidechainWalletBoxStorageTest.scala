@@ -148,4 +148,36 @@ class SidechainWalletBoxStorageTest
     assertEquals("Balance of RegularBoxes should NOT change, so should be %d.".format(walletBox1.box.value()), walletBox1.box.value(), sidechainWalletBoxStorage.getBoxesBalance(classOf[RegularBox]))
   }
 
+  @Test
+  def rollbackWithUndoData(): Unit = {
+    val storage = new IODBStoreAdapter(getStore())
+    val sidechainWalletBoxStorage = new SidechainWalletBoxStorage(storage, sidechainBoxesCompanion)
+
+    val regularBoxes = getWalletBoxList(classOf[RegularBox], 4).asScala.toList
+    val customBoxes = getWalletBoxList(classOf[CustomBox], 2).asScala.toList
+    val version1 = getVersion
+    assertTrue("Add operation must be successful.",
+      sidechainWalletBoxStorage.update(version1, regularBoxes ++ customBoxes, List[Array[Byte]]()).isSuccess)
+
+    def walletBoxesContent(walletBoxStorage: SidechainWalletBoxStorage): (Set[WalletBox], Set[WalletBox], Long, Long, List[WalletBox]) =
+      (walletBoxStorage.getAll.toSet, walletBoxStorage.getByType(classOf[RegularBox]).toSet,
+        walletBoxStorage.getBoxesBalance(classOf[RegularBox]), walletBoxStorage.getBoxesBalance(classOf[CustomBox]),
+        walletBoxStorage.getPage(None, 0, None, 100)._1)
+    val contentOfVersion1 = walletBoxesContent(sidechainWalletBoxStorage)
+
+    // Remove and replace some of the boxes, then add the new ones.
+    val replacedBox = getWalletBox(regularBoxes.head.box)
+    assertTrue("Update operation must be successful.", sidechainWalletBoxStorage.update(getVersion, List(replacedBox),
+      List(regularBoxes(1).box.id(), customBoxes.head.box.id())).isSuccess)
+    assertTrue("Update operation must be successful.", sidechainWalletBoxStorage.update(getVersion,
+      getWalletBoxList(classOf[RegularBox], 2).asScala.toList, List(regularBoxes(2).box.id())).isSuccess)
+    assertEquals("Storage must contain 5 items.", 5, sidechainWalletBoxStorage.getAll.size)
+
+    // In-memory wallet boxes are reverted with the undo data to the same content as loaded from the storage.
+    assertTrue("Rollback operation must be successful.", sidechainWalletBoxStorage.rollback(version1).isSuccess)
+    assertEquals("Wallet boxes must be reverted to the specified version.", contentOfVersion1, walletBoxesContent(sidechainWalletBoxStorage))
+    assertEquals("Wallet boxes must be the same as loaded from the storage.",
+      walletBoxesContent(new SidechainWalletBoxStorage(storage, sidechainBoxesCompanion)), walletBoxesContent(sidechainWalletBoxStorage))
+  }
+
 }
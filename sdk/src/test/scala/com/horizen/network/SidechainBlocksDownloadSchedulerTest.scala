@@ -0,0 +1,102 @@
+package com.horizen.network
+
+import java.net.InetSocketAddress
+
+import akka.actor.ActorRef
+import com.horizen.fixtures.SidechainBlockInfoFixture
+import org.junit.Assert.{assertEquals, assertFalse, assertTrue}
+import org.junit.Test
+import org.scalatest.junit.JUnitSuite
+import org.scalatest.mockito.MockitoSugar
+import scorex.core.network.{ConnectedPeer, ConnectionId, Incoming}
+import scorex.util.ModifierId
+
+class SidechainBlocksDownloadSchedulerTest extends JUnitSuite with MockitoSugar with SidechainBlockInfoFixture {
+
+  private def createPeer(port: Int): ConnectedPeer =
+    ConnectedPeer(ConnectionId(new InetSocketAddress(port), new InetSocketAddress(port + 1), Incoming), mock[ActorRef], None)
+
+  @Test
+  def parallelDownload(): Unit = {
+    setSeed(1234L)
+    val firstPeer = createPeer(10)
+    val secondPeer = createPeer(20)
+    val scheduler = new SidechainBlocksDownloadScheduler(6, 2, 1000L)
+    val ids: Seq[ModifierId] = (1 to 10).map(_ => getRandomModifier())
+
+    assertTrue("Empty scheduler expected.", scheduler.isEmpty)
+    scheduler.enqueue(ids)
+    scheduler.enqueue(ids.take(3))
+    assertEquals("Different pending number expected.", 10, scheduler.pendingNumber)
+
+    // Ids are split between the peers in the chain order, not more than per peer limit.
+    val firstPlan = scheduler.schedule(Seq(firstPeer, secondPeer), _ => true, 0L)
+    assertEquals("Different planned ids expected.", ids.take(4).toSet, firstPlan.values.flatten.toSet)
+    assertEquals("Each peer expected to get 2 ids.", Seq(2, 2), firstPlan.values.map(_.size).toSeq)
+    assertEquals("Different window size expected.", 4, scheduler.windowSize)
+    assertTrue("No more ids expected to be planned for the busy peers.", scheduler.schedule(Seq(firstPeer, secondPeer), _ => true, 0L).isEmpty)
+
+    // Received blocks keep their place in the window till they are processed.
+    firstPlan.values.flatten.foreach(id => scheduler.onReceived(id))
+    val secondPlan = scheduler.schedule(Seq(firstPeer, secondPeer), _ => true, 10L)
+    assertEquals("Window expected to limit the planned ids.", ids.slice(4, 6).toSet, secondPlan.values.flatten.toSet)
+    assertEquals("Different window size expected.", 6, scheduler.windowSize)
+
+    ids.take(4).foreach(id => scheduler.onProcessed(id))
+    // Not wanted ids are dropped.
+    val thirdPlan = scheduler.schedule(Seq(firstPeer, secondPeer), id => id != ids(6), 20L)
+    assertEquals("Different planned ids expected.", ids.slice(7, 9).toSet, thirdPlan.values.flatten.toSet)
+    assertFalse("Not wanted id expected to be dropped.", scheduler.contains(ids(6)))
+    assertEquals("Different pending number expected.", 1, scheduler.pendingNumber)
+  }
+
+  @Test
+  def expiredRequests(): Unit = {
+    setSeed(4321L)
+    val slowPeer = createPeer(10)
+    val fastPeer = createPeer(20)
+    val scheduler = new SidechainBlocksDownloadScheduler(10, 3, 1000L)
+    val ids: Seq[ModifierId] = (1 to 5).map(_ => getRandomModifier())
+    scheduler.enqueue(ids)
+
+    val plan = scheduler.schedule(Seq(slowPeer, fastPeer), _ => true, 0L)
+    val slowPeerIds = plan(slowPeer)
+    plan(fastPeer).foreach(id => scheduler.onReceived(id))
+
+    assertTrue("No requests expected to expire yet.", scheduler.expire(999L).isEmpty)
+    assertEquals("Slow peer expected to be reported.", Set(slowPeer), scheduler.expire(1000L))
+
+    // Expired ids are requested again first.
+    val newPlan = scheduler.schedule(Seq(fastPeer), _ => true, 1000L)
+    assertEquals("Different planned ids expected.", slowPeerIds, newPlan(fastPeer).take(slowPeerIds.size))
+
+    ids.foreach(id => scheduler.onProcessed(id))
+    assertTrue("Empty scheduler expected.", scheduler.isEmpty)
+  }
+
+  @Test
+  def fastestPeersFirst(): Unit = {
+    setSeed(5678L)
+    val fastPeer = createPeer(10)
+    val slowPeer = createPeer(20)
+    val scheduler = new SidechainBlocksDownloadScheduler(10, 4, 10000L)
+    val ids: Seq[ModifierId] = (1 to 5).map(_ => getRandomModifier())
+    scheduler.enqueue(ids)
+
+    // Fast peer takes the blocks till its requests in flight make it slower than the idle slow peer.
+    val latency: ConnectedPeer => Long = peer => if (peer == fastPeer) 100L else 250L
+    val plan = scheduler.schedule(Seq(slowPeer, fastPeer), _ => true, 0L, latency)
+    assertEquals("Different ids for the fast peer expected.", Seq(ids.head, ids(1), ids(3), ids(4)), plan(fastPeer))
+    assertEquals("Different ids for the slow peer expected.", Seq(ids(2)), plan(slowPeer))
+
+    // Requests of the stalled peer expire before the request timeout and are retried.
+    plan(fastPeer).foreach(id => scheduler.onReceived(id))
+    val stallTimeout: ConnectedPeer => Long = peer => latency(peer) * 4
+    assertEquals("Slow peer expected to be stalled.", Set(slowPeer), scheduler.expire(1000L, stallTimeout))
+    assertTrue("Stalled id expected to be retried.", scheduler.isRetried(ids(2)))
+    assertEquals("Stalled id expected to be requested from the fast peer.", Map(fastPeer -> Seq(ids(2))),
+      scheduler.schedule(Seq(slowPeer, fastPeer), _ => true, 1000L, peer => if (peer == fastPeer) 100L else 10000L))
+    ids.foreach(id => scheduler.onProcessed(id))
+    assertFalse("Processed id expected to be not retried.", scheduler.isRetried(ids(2)))
+  }
+}
@@ -145,6 +145,8 @@ class SidechainNodeViewSynchronizerTest extends JUnitSuite
       }))
 
     networkControllerProbe.expectMsgType[RegisterMessageSpecs]
+    // Headers-first sync messages
+    networkControllerProbe.expectMsgType[RegisterMessageSpecs]
 
     val modifierId: ModifierId = getRandomModifier()
     val block = mock[SidechainBlock]
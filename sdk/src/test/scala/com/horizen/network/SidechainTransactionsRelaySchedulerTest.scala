@@ -0,0 +1,68 @@
+package com.horizen.network
+
+import java.net.InetSocketAddress
+
+import akka.actor.ActorRef
+import com.horizen.fixtures.SidechainBlockInfoFixture
+import org.junit.Assert.{assertEquals, assertTrue}
+import org.junit.Test
+import org.scalatest.junit.JUnitSuite
+import org.scalatest.mockito.MockitoSugar
+import scorex.core.network.{ConnectedPeer, ConnectionId, Incoming}
+import scorex.util.ModifierId
+
+class SidechainTransactionsRelaySchedulerTest extends JUnitSuite with MockitoSugar with SidechainBlockInfoFixture {
+
+  private def createPeer(port: Int): ConnectedPeer =
+    ConnectedPeer(ConnectionId(new InetSocketAddress(port), new InetSocketAddress(port + 1), Incoming), mock[ActorRef], None)
+
+  @Test
+  def batchedRelay(): Unit = {
+    setSeed(1234L)
+    val firstPeer = createPeer(10)
+    val secondPeer = createPeer(20)
+    val scheduler = new SidechainTransactionsRelayScheduler(100, 2, 1000)
+    val ids: Seq[ModifierId] = (1 to 3).map(_ => getRandomModifier())
+
+    scheduler.addPeer(firstPeer)
+    scheduler.addPeer(secondPeer)
+    ids.zipWithIndex.foreach { case (id, index) => scheduler.enqueue(id, index) }
+    // Second peer announced the first transaction to us.
+    scheduler.markKnown(secondPeer, Seq(ids.head))
+
+    // Highest fee transactions are announced first, not more than the announcement size.
+    val firstPlan = scheduler.schedule(_ => true)
+    assertEquals("Different ids for the first peer expected.", Seq(ids(2), ids(1)), firstPlan(firstPeer))
+    assertEquals("Different ids for the second peer expected.", Seq(ids(2), ids(1)), firstPlan(secondPeer))
+    assertEquals("Not announced id expected to stay queued.", 1, scheduler.queueSize)
+
+    // Each peer gets each id only once and never gets back the ids it announced.
+    val secondPlan = scheduler.schedule(_ => true)
+    assertEquals("Different ids planned expected.", Map(firstPeer -> Seq(ids.head)), secondPlan)
+    assertEquals("Queue expected to be empty.", 0, scheduler.queueSize)
+    assertTrue("No ids expected to be planned.", scheduler.schedule(_ => true).isEmpty)
+  }
+
+  @Test
+  def queueLimits(): Unit = {
+    setSeed(4321L)
+    val peer = createPeer(10)
+    val scheduler = new SidechainTransactionsRelayScheduler(2, 10, 1000)
+    val ids: Seq[ModifierId] = (1 to 3).map(_ => getRandomModifier())
+
+    // Lowest fee transaction is dropped, when the queue is full.
+    scheduler.enqueue(ids.head, 5)
+    scheduler.enqueue(ids(1), 1)
+    scheduler.enqueue(ids(2), 3)
+    assertEquals("Different queue size expected.", 2, scheduler.queueSize)
+
+    // Queue is kept till the peers come, not relevant ids are dropped.
+    assertTrue("No ids expected to be planned without peers.", scheduler.schedule(_ => true).isEmpty)
+    scheduler.addPeer(peer)
+    assertEquals("Different ids planned expected.", Map(peer -> Seq(ids.head)), scheduler.schedule(id => id != ids(2)))
+
+    scheduler.removePeer(peer.connectionId.remoteAddress)
+    scheduler.enqueue(ids(1), 1)
+    assertTrue("No ids expected to be planned for the removed peer.", scheduler.schedule(_ => true).isEmpty)
+  }
+}
@@ -102,7 +102,7 @@ class ForgingBoxesInfoStorageTest extends JUnitSuite
     )
     val version = getVersion
 
-    Mockito.when(mockedStorage.lastVersionID()).thenReturn(JOptional.ofNullable[ByteArrayWrapper](null))
+    Mockito.when(mockedStorage.get(ArgumentMatchers.any[ByteArrayWrapper]())).thenReturn(JOptional.empty[ByteArrayWrapper]())
 
     Mockito.when(mockedStorage.update(
       ArgumentMatchers.any[ByteArrayWrapper](),
@@ -110,9 +110,11 @@ class ForgingBoxesInfoStorageTest extends JUnitSuite
       ArgumentMatchers.anyList[ByteArrayWrapper]()))
       // For Test 1:
       .thenAnswer(answer => {
+      val actualVersion = answer.getArgument(0).asInstanceOf[ByteArrayWrapper]
       val actualToUpdate = answer.getArgument(1).asInstanceOf[java.util.List[Pair[ByteArrayWrapper, ByteArrayWrapper]]]
       val actualToRemove = answer.getArgument(2).asInstanceOf[java.util.List[ByteArrayWrapper]]
 
+      assertEquals("Store update(...) actual Version is wrong.", version, actualVersion)
       assertEquals("Store update(...) actual list to update size expected to be different.", 1, actualToUpdate.size())
       assertEquals("Different toUpdate epoch key expected.", forgingBoxesInfoStorage.epochKey(epochNumber), actualToUpdate.get(0).getKey)
       assertEquals("Different toUpdate value expected.",
@@ -132,10 +134,12 @@ class ForgingBoxesInfoStorageTest extends JUnitSuite
 
 
     // Test 1: successful update of physical Store
-    assertTrue("Update expected to be successful.", forgingBoxesInfoStorage.updateForgerBoxMerklePathInfo(epochNumber, boxMerklePathInfoSeq).isSuccess)
+    assertTrue("Update expected to be successful.",
+      forgingBoxesInfoStorage.updateForgerBoxes(version, Seq(), Seq(), Seq((epochNumber, boxMerklePathInfoSeq))).isSuccess)
 
 
     // Test 2: failed to update of physical Store
-    assertTrue("Update expected to fail.", forgingBoxesInfoStorage.updateForgerBoxMerklePathInfo(epochNumber, boxMerklePathInfoSeq).isFailure)
+    assertTrue("Update expected to fail.",
+      forgingBoxesInfoStorage.updateForgerBoxes(version, Seq(), Seq(), Seq((epochNumber, boxMerklePathInfoSeq))).isFailure)
   }
 }
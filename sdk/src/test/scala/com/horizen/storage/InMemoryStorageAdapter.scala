@@ -12,6 +12,9 @@ import scala.compat.java8.OptionConverters._
 * 1. Storage interface changing is required. That storage is not support rollbacks, but it ok for current usages
 * */
 class InMemoryStorageAdapter(hashMap: mutable.HashMap[ByteArrayWrapper, ByteArrayWrapper] = mutable.HashMap()) extends Storage /*in fact it is non-versioned storage*/{
+  // Version of the last update only, previous versions are not kept
+  private var lastVersion: Option[ByteArrayWrapper] = None
+
   override def get(key: ByteArrayWrapper): Optional[ByteArrayWrapper] = hashMap.get(key).asJava
 
   override def getOrElse(key: ByteArrayWrapper, defaultValue: ByteArrayWrapper): ByteArrayWrapper = hashMap.getOrElse(key, defaultValue)
@@ -20,11 +23,12 @@ class InMemoryStorageAdapter(hashMap: mutable.HashMap[ByteArrayWrapper, ByteArra
 
   override def getAll: util.List[JPair[ByteArrayWrapper, ByteArrayWrapper]] = hashMap.map{case (key, value) => new JPair(key, value)}.toSeq.asJava
 
-  override def lastVersionID(): Optional[ByteArrayWrapper] = ???
+  override def lastVersionID(): Optional[ByteArrayWrapper] = lastVersion.asJava
 
   override def update(version: ByteArrayWrapper, toUpdate: JList[JPair[ByteArrayWrapper, ByteArrayWrapper]], toRemove: JList[ByteArrayWrapper]): Unit = {
     toRemove.asScala.map(keyToRemove => hashMap.remove(keyToRemove))
     toUpdate.asScala.map(pair => hashMap.put(pair.getKey, pair.getValue))
+    lastVersion = Some(version)
   }
 
   override def rollback(versionID: ByteArrayWrapper): Unit = ???
@@ -35,5 +39,9 @@ class InMemoryStorageAdapter(hashMap: mutable.HashMap[ByteArrayWrapper, ByteArra
 
   override def close(): Unit = {}
 
-  def copy(): InMemoryStorageAdapter = new InMemoryStorageAdapter(hashMap.clone())
+  def copy(): InMemoryStorageAdapter = {
+    val storageCopy = new InMemoryStorageAdapter(hashMap.clone())
+    storageCopy.lastVersion = lastVersion
+    storageCopy
+  }
 }
@@ -203,4 +203,54 @@ class SidechainSecretStorageTest
     assertEquals("SecretStorage successful removing expected. Secret should be removed.", None, secretStorage.get(newSecret.publicImage()))
   }
 
+  @Test
+  def testDerivedKeys(): Unit = {
+    val storage = new InMemoryStorageAdapter()
+    val secretStorage = new SidechainSecretStorage(storage, sidechainSecretsCompanion)
+    val storedSecret = getPrivateKey25519("stored secret".getBytes())
+    assertTrue("SecretStorage add expected to be successful.", secretStorage.add(storedSecret).isSuccess)
+
+    // Add derived keys in several updates
+    val derivedKeys = (0 until 600).map(index => (getPrivateKey25519(("derived" + index).getBytes()).publicImage(), index))
+    assertEquals("No derived keys expected.", -1, secretStorage.getLastDerivedKeyIndex)
+    for (keys <- derivedKeys.grouped(250))
+      assertTrue("SecretStorage derived keys adding expected to be successful.", secretStorage.addDerivedKeys(keys).isSuccess)
+
+
+    // Test 1: check derived keys
+    for ((publicKey, index) <- derivedKeys)
+      assertEquals("Different derived key index expected.", Some(index), secretStorage.getDerivedKeyIndex(publicKey))
+    assertEquals("Different last derived key index expected.", 599, secretStorage.getLastDerivedKeyIndex)
+    assertEquals("Different derived key index expected.", Some(300), secretStorage.getDerivedKeyIndex(derivedKeys(300)._1))
+    assertEquals("Derived keys must not be returned as secrets.", List(storedSecret), secretStorage.getAll)
+
+
+    // Test 2: try to add existing derived key again, both as derived key and as a secret
+    assertTrue("SecretStorage failure expected during adding existing derived key.",
+      secretStorage.addDerivedKeys(Seq(derivedKeys.head)).isFailure)
+    val derivedSecret = getPrivateKey25519("derived5".getBytes())
+    assertTrue("SecretStorage failure expected during adding secret of existing derived key.", secretStorage.add(derivedSecret).isFailure)
+
+
+    // Test 3: reload storage and check secrets and derived keys
+    val reloadedSecretStorage = new SidechainSecretStorage(storage, sidechainSecretsCompanion)
+    for ((publicKey, index) <- derivedKeys)
+      assertEquals("Different derived key index expected after reload.", Some(index), reloadedSecretStorage.getDerivedKeyIndex(publicKey))
+    assertEquals("Unknown key must have no derived key index.", None,
+      reloadedSecretStorage.getDerivedKeyIndex(getPrivateKey25519("not derived".getBytes()).publicImage()))
+    assertEquals("Different last derived key index expected after reload.", 599, reloadedSecretStorage.getLastDerivedKeyIndex)
+    assertEquals("Different secrets expected after reload.", List(storedSecret), reloadedSecretStorage.getAll)
+
+
+    // Test 4: add secrets and derived keys together - nothing must be added, if any of them can't be added
+    val newSecret = getPrivateKey25519("new secret".getBytes())
+    val newDerivedKey = (getPrivateKey25519("derived600".getBytes()).publicImage(), 600)
+    assertTrue("SecretStorage failure expected during adding batch with existing secret.",
+      secretStorage.add(List(newSecret, storedSecret), Seq(newDerivedKey)).isFailure)
+    assertEquals("Secret must not be added.", None, secretStorage.get(newSecret.publicImage()))
+    assertEquals("Derived key must not be added.", 599, secretStorage.getLastDerivedKeyIndex)
+    assertTrue("SecretStorage batch adding expected to be successful.", secretStorage.add(List(newSecret), Seq(newDerivedKey)).isSuccess)
+    assertEquals("Secret must be added.", Some(newSecret), secretStorage.get(newSecret.publicImage()))
+    assertEquals("Derived key must be added.", Some(600), secretStorage.getDerivedKeyIndex(newDerivedKey._1))
+  }
 }
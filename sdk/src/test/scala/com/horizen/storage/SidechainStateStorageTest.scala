@@ -159,4 +159,43 @@ class SidechainStateStorageTest
     assertTrue("SidechainStorage.rollback. Method must return Failure if NULL version specified.",
       stateStorage.rollback(null).isFailure)
   }
+
+  @Test
+  def stateSnapshot(): Unit = {
+    val physicalStorage = new InMemoryStorageAdapter()
+    val stateStorage = new SidechainStateStorage(physicalStorage, sidechainBoxesCompanion, 4)
+    val removedBoxId = new ByteArrayWrapper(boxList.head.id())
+    assertTrue("Update must be successful.", stateStorage.update(getVersion, WithdrawalEpochInfo(1, 1), boxList.toSet, Set(),
+      Seq(), forgingStakesToAppendSeq, consensusEpoch, None).isSuccess)
+    val snapshotVersion = getVersion
+    assertTrue("Update must be successful.", stateStorage.update(snapshotVersion, WithdrawalEpochInfo(1, 2), Set(), Set(removedBoxId),
+      Seq(), Seq(), consensusEpoch, None).isSuccess)
+
+    val records = physicalStorage.getAll.asScala.map(pair => (pair.getKey, pair.getValue))
+    val snapshot = stateStorage.takeStateSnapshot().get
+    val header = snapshot.header
+    assertEquals("Different snapshot version expected.", snapshotVersion, header.version)
+    assertEquals("Different snapshot withdrawal epoch expected.", 1, header.withdrawalEpoch)
+    assertEquals("Different number of chunks expected.", (records.size + 3) / 4, snapshot.chunks.size)
+    snapshot.chunks.zipWithIndex.foreach { case (chunk, index) =>
+      assertTrue("Chunk expected to be consistent to the header.", header.verifyChunk(index, chunk))
+    }
+
+    // Snapshot contains the whole state and doesn't depend on the records order.
+    assertEquals("Different snapshot records expected.", records.toMap, snapshot.chunks.flatMap(_.records).toMap)
+    assertFalse("Removed box expected to be absent.", snapshot.chunks.exists(_.records.exists(_._1 == stateStorage.calculateKey(removedBoxId.data))))
+    assertEquals("Different snapshot root hash expected.", header.rootHash, StateSnapshot.build(snapshotVersion, 1, records.reverse, 4).header.rootHash)
+
+    // Serialized snapshot is parsed back to the same content.
+    val receivedHeader = StateSnapshotHeaderSerializer.parseBytes(StateSnapshotHeaderSerializer.toBytes(header))
+    assertEquals("Different snapshot root hash expected.", header.rootHash, receivedHeader.rootHash)
+    val receivedChunk = StateSnapshotChunkSerializer.parseBytes(StateSnapshotChunkSerializer.toBytes(snapshot.chunks.head))
+    assertTrue("Received chunk expected to be consistent to the header.", receivedHeader.verifyChunk(0, receivedChunk))
+
+    // Tampered chunk and the chunk of the other snapshot are rejected.
+    val tamperedChunk = StateSnapshotChunk(snapshot.chunks.head.records.tail)
+    assertFalse("Tampered chunk expected to be inconsistent to the header.", header.verifyChunk(0, tamperedChunk))
+    assertFalse("Chunk expected to be inconsistent to the other index.", header.verifyChunk(1, snapshot.chunks.head))
+    assertFalse("Chunk index expected to be out of range.", header.verifyChunk(snapshot.chunks.size, snapshot.chunks.head))
+  }
 }
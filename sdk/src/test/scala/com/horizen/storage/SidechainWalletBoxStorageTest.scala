@@ -154,4 +154,54 @@ class SidechainWalletBoxStorageTest
     assertEquals("Storage should return existing WalletBox.", boxList(3), walletBoxStorage.get(boxList(3).box.id()).get)
    }
 
+
+  @Test
+  def testGetPage(): Unit = {
+    val walletBoxStorage = new SidechainWalletBoxStorage(mockedStorage, sidechainBoxesCompanion)
+    val expectedOrder = boxList.toList.sortWith((wb1, wb2) =>
+      SidechainWalletBoxStorage.orderKeyComparator.compare(walletBoxStorage.calculateOrderKey(wb1), walletBoxStorage.calculateOrderKey(wb2)) < 0)
+
+
+    // Test 1: iterate over all boxes page by page
+    val retrievedBoxes = new ListBuffer[WalletBox]()
+    var cursor: Option[ByteArrayWrapper] = None
+    var pagesCount = 0
+    do {
+      val (page, nextCursor) = walletBoxStorage.getPage(None, 0, cursor, 4)
+      assertTrue("Page must not exceed page size.", page.size <= 4)
+      retrievedBoxes ++= page
+      cursor = nextCursor
+      pagesCount += 1
+    } while (cursor.isDefined)
+    assertEquals("Storage must return all WalletBoxes from the oldest to the newest.", expectedOrder, retrievedBoxes.toList)
+    assertEquals("Different number of pages expected.", 4, pagesCount)
+
+
+    // Test 2: get page of specified type
+    val (regularBoxesPage, regularBoxesCursor) = walletBoxStorage.getPage(Some(classOf[RegularBox]), 0, None, 10)
+    assertEquals("Storage must return WalletBoxes of specified type only.", expectedOrder.filter(_.box.isInstanceOf[RegularBox]), regularBoxesPage)
+    assertEquals("Page of specified type expected to be the last one.", None, regularBoxesCursor)
+
+
+    // Test 3: get page with min value filter
+    val minValue = expectedOrder.map(_.box.value()).sorted.apply(7)
+    val (minValuePage, _) = walletBoxStorage.getPage(None, minValue, None, boxList.size)
+    assertEquals("Storage must return WalletBoxes with value not less than specified one.", expectedOrder.filter(_.box.value() >= minValue), minValuePage)
+
+
+    // Test 4: get page of non-existing type
+    assertEquals("Storage should NOT contain WalletBoxes of specified type.", (List(), None),
+      walletBoxStorage.getPage(Some(classOf[CustomBoxChild]), 0, None, 10))
+
+
+    // Test 5: removed box must disappear from pages
+    Mockito.when(mockedStorage.update(
+      ArgumentMatchers.any[ByteArrayWrapper](),
+      ArgumentMatchers.anyList[Pair[ByteArrayWrapper, ByteArrayWrapper]](),
+      ArgumentMatchers.anyList[ByteArrayWrapper]())).thenAnswer(_ => {})
+    walletBoxStorage.update(getVersion, List(), List(expectedOrder.head.box.id())).get
+    assertEquals("Storage must NOT return removed WalletBox.", expectedOrder.tail,
+      walletBoxStorage.getPage(None, 0, None, boxList.size)._1)
+  }
+
 }
@@ -0,0 +1,90 @@
+package com.horizen.storage
+
+import com.horizen.SidechainTypes
+import com.horizen.fixtures.{CompanionsFixture, IODBStoreFixture}
+import com.horizen.secret.PrivateKey25519Creator
+import org.junit.Assert._
+import org.junit._
+import org.scalatest.junit.JUnitSuite
+import scorex.util.bytesToId
+
+import scala.collection.mutable.ListBuffer
+import scala.util.Random
+
+class SidechainWalletTransactionStorageTest
+  extends JUnitSuite
+  with CompanionsFixture
+  with IODBStoreFixture
+  with SidechainTypes
+{
+  val proposition1: SidechainTypes#SCP = PrivateKey25519Creator.getInstance().generateSecret("seed1".getBytes).publicImage()
+  val proposition2: SidechainTypes#SCP = PrivateKey25519Creator.getInstance().generateSecret("seed2".getBytes).publicImage()
+
+  private def getHistoryEntry(blockTimestamp: Long): WalletTransactionHistoryEntry = {
+    val txId = new Array[Byte](32)
+    Random.nextBytes(txId)
+    WalletTransactionHistoryEntry(blockTimestamp, bytesToId(txId))
+  }
+
+  @Test
+  def testHistory(): Unit = {
+    val transactionStorage = new SidechainWalletTransactionStorage(new InMemoryStorageAdapter(), getDefaultTransactionsCompanion)
+
+    // Append entries in several blocks, more than a single chunk for the first proposition
+    val proposition1Entries = new ListBuffer[WalletTransactionHistoryEntry]()
+    val proposition2Entries = new ListBuffer[WalletTransactionHistoryEntry]()
+    for (blockTimestamp <- 1L to 300L) {
+      val blockEntries = Seq(getHistoryEntry(blockTimestamp), getHistoryEntry(blockTimestamp))
+      proposition1Entries ++= blockEntries
+      val history = blockEntries.map(entry => (proposition1, entry)) ++
+        (if (blockTimestamp % 10 == 0) {
+          val entry = getHistoryEntry(blockTimestamp)
+          proposition2Entries += entry
+          Seq((proposition2, entry))
+        } else Seq())
+
+      assertTrue("Transaction storage update expected to be successful.", transactionStorage.update(getVersion, Seq(), history).isSuccess)
+    }
+
+
+    // Test 1: check number of entries per proposition
+    assertEquals("Different number of proposition1 entries expected.", proposition1Entries.size, transactionStorage.getHistoryEntriesCount(proposition1))
+    assertEquals("Different number of proposition2 entries expected.", proposition2Entries.size, transactionStorage.getHistoryEntriesCount(proposition2))
+
+
+    // Test 2: get whole history at once
+    assertEquals("Whole history of proposition1 expected.", (proposition1Entries.toList, None),
+      transactionStorage.getHistory(proposition1, 0, Long.MaxValue, None, proposition1Entries.size) match {
+        case (entries, nextPosition) => (entries.toList, nextPosition)
+      })
+    assertEquals("Whole history of proposition2 expected.", proposition2Entries.toList,
+      transactionStorage.getHistory(proposition2, 0, Long.MaxValue, None, 1000)._1.toList)
+
+
+    // Test 3: get history in time range page by page
+    val fromTimestamp = 100L
+    val toTimestamp = 250L
+    val retrievedEntries = new ListBuffer[WalletTransactionHistoryEntry]()
+    var position: Option[Int] = None
+    do {
+      val (entries, nextPosition) = transactionStorage.getHistory(proposition1, fromTimestamp, toTimestamp, position, 40)
+      assertTrue("Page must not exceed limit.", entries.size <= 40)
+      retrievedEntries ++= entries
+      position = nextPosition
+    } while (position.isDefined)
+    assertEquals("History of proposition1 in time range expected.",
+      proposition1Entries.filter(entry => entry.blockTimestamp >= fromTimestamp && entry.blockTimestamp <= toTimestamp).toList,
+      retrievedEntries.toList)
+
+
+    // Test 4: get history out of time range
+    assertEquals("History of proposition1 out of time range must be empty.", (Seq(), None),
+      transactionStorage.getHistory(proposition1, 301L, Long.MaxValue, None, 10))
+
+
+    // Test 5: get history of unknown proposition
+    val unknownProposition = PrivateKey25519Creator.getInstance().generateSecret("seed3".getBytes).publicImage()
+    assertEquals("History of unknown proposition must be empty.", (Seq(), None),
+      transactionStorage.getHistory(unknownProposition, 0, Long.MaxValue, None, 10))
+  }
+}
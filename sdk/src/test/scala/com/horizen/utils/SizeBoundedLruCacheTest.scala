@@ -0,0 +1,37 @@
+package com.horizen.utils
+
+import org.junit.Assert.{assertEquals, assertTrue}
+import org.junit.Test
+import org.scalatest.junit.JUnitSuite
+
+class SizeBoundedLruCacheTest extends JUnitSuite {
+
+  @Test
+  def evictionBySize(): Unit = {
+    val cache = new SizeBoundedLruCache[Int, String](100)
+
+    (1 to 4).foreach(i => cache.put(i, s"value$i", 30))
+    assertEquals("Different cache size expected.", 3, cache.size)
+    assertEquals("Different total size of the values expected.", 90L, cache.currentSize)
+    assertTrue("The eldest value expected to be evicted.", cache.get(1).isEmpty)
+    assertEquals("Different value expected.", Some("value4"), cache.get(4))
+
+    // Replacing the value updates the total size
+    cache.put(2, "value2", 10)
+    assertEquals("Different total size of the values expected.", 70L, cache.currentSize)
+    assertEquals("Different value expected.", Some("value2"), cache.get(2))
+
+    // Larger value evicts several eldest ones
+    cache.put(5, "value5", 80)
+    assertEquals("Different cache size expected.", 2, cache.size)
+    assertEquals("Different total size of the values expected.", 90L, cache.currentSize)
+    assertTrue("The eldest value expected to be evicted.", cache.get(3).isEmpty)
+    assertTrue("The eldest value expected to be evicted.", cache.get(4).isEmpty)
+    assertEquals("Different value expected.", Some("value2"), cache.get(2))
+
+    // Value larger than the limit is not cached and doesn't evict the others
+    cache.put(6, "value6", 101)
+    assertTrue("Too large value expected NOT to be cached.", cache.get(6).isEmpty)
+    assertEquals("Different cache size expected.", 2, cache.size)
+  }
+}
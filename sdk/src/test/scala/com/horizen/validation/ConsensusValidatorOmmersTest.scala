@@ -475,6 +475,86 @@ class ConsensusValidatorOmmersTest
 
   }
 
+  @Test
+  def deepOmmersTreeValidation(): Unit = {
+    // Mock history
+    val history = mockHistory()
+
+    val currentEpochNonceBytes: Array[Byte] = new Array[Byte](32)
+    scala.util.Random.nextBytes(currentEpochNonceBytes)
+    val currentFullConsensusEpochInfo = FullConsensusEpochInfo(mock[StakeConsensusEpochInfo],
+      NonceConsensusEpochInfo(byteArrayToConsensusNonce(currentEpochNonceBytes)))
+    val previousFullConsensusEpochInfo: FullConsensusEpochInfo = mock[FullConsensusEpochInfo]
+
+    val currentEpochNumber: ConsensusEpochNumber = ConsensusEpochNumber @@ 3
+
+    /* Ommers tree in the same epoch:
+       Notation <epoch_number>/<slot_number>
+       Block slots number:   3/1 - 3/100
+                                    |
+       Ommers slots:   [3/2 ... 3/k] - every ommer contains single subommer from the previous slot.
+     */
+    val treeDepth = 50
+    var ommers: Seq[Ommer] = Seq()
+    for(slot <- 2 to treeDepth + 1) {
+      ommers = Seq(getMockedOmmer(history.getTimeStampForEpochAndSlot(currentEpochNumber, ConsensusSlotNumber @@ slot), ommers))
+    }
+    // Ommers tree headers in expected order of verification: from the top to the bottom.
+    val expectedHeaders: Seq[SidechainBlockHeader] = Iterator.iterate(ommers)(_.head.ommers).takeWhile(_.nonEmpty).map(_.head.header).toSeq
+    assertEquals("Different ommers tree size expected.", treeDepth, expectedHeaders.size)
+
+    // Mock block with ommers
+    val parentId: ModifierId = getRandomBlockId()
+    val parentInfo: SidechainBlockInfo = mock[SidechainBlockInfo]
+    val verifiedBlock: SidechainBlock = mock[SidechainBlock]
+    val header = mock[SidechainBlockHeader]
+    Mockito.when(header.timestamp).thenReturn(history.getTimeStampForEpochAndSlot(currentEpochNumber, ConsensusSlotNumber @@ 100))
+    Mockito.when(verifiedBlock.header).thenReturn(header)
+    Mockito.when(verifiedBlock.ommers).thenReturn(ommers)
+
+
+    // Test 1: Every ommer of the tree expected to be verified exactly once with proper data.
+    val verifiedHeaders = new java.util.concurrent.ConcurrentLinkedQueue[SidechainBlockHeader]()
+    val currentEpochConsensusValidator = new ConsensusValidator {
+      override private[horizen] def verifyForgerBox(header: SidechainBlockHeader, stakeConsensusEpochInfo: StakeConsensusEpochInfo, vrfOutput: VrfOutput): Unit = {
+        assertEquals("Different stakeConsensusEpochInfo expected", currentFullConsensusEpochInfo.stakeConsensusEpochInfo, stakeConsensusEpochInfo)
+        assertEquals("Different vrfOutput expected", generateDummyVrfOutput(header), vrfOutput)
+        verifiedHeaders.add(header)
+      }
+    }
+
+    Try {
+      currentEpochConsensusValidator.verifyOmmers(verifiedBlock, currentFullConsensusEpochInfo, Some(previousFullConsensusEpochInfo), parentId, parentInfo, history, Seq())
+    } match {
+      case Success(_) =>
+      case Failure(e) => throw e // jFail(s"Block with deep ommers tree expected to be Valid, instead exception: ${e.getMessage}")
+    }
+    assertEquals("Different number of verified ommers expected.", treeDepth, verifiedHeaders.size())
+    assertEquals("Different verified ommers expected.", expectedHeaders.toSet, verifiedHeaders.toArray.toSet)
+
+
+    // Test 2: Several ommers in the tree are invalid. Exception of the upper one expected, despite of the parallel verification.
+    val upperInvalidHeader = expectedHeaders(treeDepth / 2)
+    val lowerInvalidHeader = expectedHeaders.last
+    val upperException = new Exception("UpperForgerBoxException")
+    val lowerException = new Exception("LowerForgerBoxException")
+    val forgerBoxFailConsensusValidator = new ConsensusValidator {
+      override private[horizen] def verifyForgerBox(header: SidechainBlockHeader, stakeConsensusEpochInfo: StakeConsensusEpochInfo, vrfOutput: VrfOutput): Unit = {
+        if(header == upperInvalidHeader)
+          throw upperException
+        if(header == lowerInvalidHeader)
+          throw lowerException
+      }
+    }
+
+    Try {
+      forgerBoxFailConsensusValidator.verifyOmmers(verifiedBlock, currentFullConsensusEpochInfo, Some(previousFullConsensusEpochInfo), parentId, parentInfo, history, Seq())
+    } match {
+      case Success(_) => jFail("Block with invalid ommers expected to be invalid.")
+      case Failure(e) => assertEquals("Different exception expected.", upperException, e)
+    }
+  }
+
   private def getMockedOmmer(timestamp: Long, subOmmers: Seq[Ommer] = Seq()): Ommer = {
     val header = mock[SidechainBlockHeader]
     Mockito.when(header.timestamp).thenReturn(timestamp)
@@ -0,0 +1,69 @@
+package com.horizen.websocket
+
+import com.horizen.WebSocketSettings
+import com.horizen.params.MainNetParams
+import org.glassfish.tyrus.server.Server
+import org.junit.Assert._
+import org.junit.{After, Before, Test}
+import org.scalatest.junit.JUnitSuite
+
+import scala.concurrent.duration._
+
+class MainchainNodeChannelBinaryFramesTest extends JUnitSuite {
+
+  private val serverHost = "localhost"
+  private var server: Server = _
+
+  @Before
+  def setUp(): Unit = {
+    // start server on available port
+    server = new Server(serverHost, 0, null, null, classOf[WebSocketServerStubMainchainNodeEndpoint])
+    server.start()
+    WebSocketServerStubMainchainNodeEndpoint.binaryResponsesCounter.set(0)
+    WebSocketServerStubMainchainNodeEndpoint.textResponsesCounter.set(0)
+  }
+
+  @After
+  def tearDown(): Unit = {
+    server.stop()
+  }
+
+  private def getBlockByHash(binaryFramesEnabled: Boolean): Unit = {
+    val conf = WebSocketSettings(
+      address = "ws://" + serverHost + ":" + server.getPort,
+      connectionTimeout = 1 seconds,
+      reconnectionDelay = 0 seconds,
+      reconnectionMaxAttempts = 1,
+      zencliCommandLine = "",
+      binaryFramesEnabled = binaryFramesEnabled
+    )
+
+    val communicationClient = new WebSocketCommunicationClient(conf.binaryFramesEnabled)
+    val connector = new WebSocketConnectorImpl(conf.address, conf.connectionTimeout, communicationClient, new DefaultWebSocketReconnectionHandler(conf))
+    assertTrue("Web socket connector expected to be started.", connector.start().isSuccess)
+    communicationClient.setWebSocketChannel(connector)
+
+    try {
+      val mcnode = new MainchainNodeChannelImpl(communicationClient, MainNetParams())
+      val mcRefTry = mcnode.getBlockByHash(WebSocketServerStubMainchainNodeEndpoint.blockHash)
+      assertTrue("MCBlock ref expected to be retrieved.", mcRefTry.isSuccess)
+      assertEquals("MCBlock ref hash is different.", WebSocketServerStubMainchainNodeEndpoint.blockHash, mcRefTry.get.header.hashHex)
+    } finally {
+      connector.stop()
+    }
+  }
+
+  @Test
+  def binaryFramesEnabled(): Unit = {
+    getBlockByHash(binaryFramesEnabled = true)
+    assertEquals("Block expected to be sent in binary frame.", 1, WebSocketServerStubMainchainNodeEndpoint.binaryResponsesCounter.get())
+    assertEquals("No text frames expected.", 0, WebSocketServerStubMainchainNodeEndpoint.textResponsesCounter.get())
+  }
+
+  @Test
+  def binaryFramesDisabled(): Unit = {
+    getBlockByHash(binaryFramesEnabled = false)
+    assertEquals("No binary frames expected.", 0, WebSocketServerStubMainchainNodeEndpoint.binaryResponsesCounter.get())
+    assertEquals("Block expected to be sent in text frame.", 1, WebSocketServerStubMainchainNodeEndpoint.textResponsesCounter.get())
+  }
+}
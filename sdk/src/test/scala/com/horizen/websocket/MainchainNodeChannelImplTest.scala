@@ -1,6 +1,10 @@
 package com.horizen.websocket
 
+import java.util.concurrent.atomic.AtomicInteger
+
+import com.horizen.block.MainchainBlockReference
 import com.horizen.params.MainNetParams
+import com.horizen.utils.BytesUtils
 import org.scalatest.junit.JUnitSuite
 import org.junit.Test
 import org.junit.Assert._
@@ -99,6 +103,53 @@ class MainchainNodeChannelImplTest extends JUnitSuite with MockitoSugar {
       "0000000024ebb5c6d558daa34ad9b9a4c5503b057e14815a48e241612b1eb660", mcRefTry.get.header.hashHex)
   }
 
+  @Test
+  def getBlocksByHashes(): Unit = {
+    val mockedCommunicationClient: CommunicationClient = mock[CommunicationClient]
+
+    val timeoutDuration: FiniteDuration = new FiniteDuration(500, MILLISECONDS)
+    val params = MainNetParams()
+    val mcBlocksHex: Seq[String] = Seq("mcblock473173_mainnet", "mcblock473174_mainnet", "mcblock473175_mainnet", "mcblock473176_mainnet")
+      .map(resource => Source.fromResource(resource).getLines().next())
+    val hashes: Seq[String] = mcBlocksHex.map(hex => MainchainBlockReference.create(BytesUtils.fromHexString(hex), params).get.header.hashHex)
+    val maxRequestsInFlight = 2
+    val requestsInFlight = new AtomicInteger(0)
+    val maxObservedRequestsInFlight = new AtomicInteger(0)
+
+    Mockito.when(mockedCommunicationClient.requestTimeoutDuration()).thenReturn(timeoutDuration)
+    Mockito.when(mockedCommunicationClient.sendRequest[RequestPayload, ResponsePayload](
+      ArgumentMatchers.any[Int], ArgumentMatchers.any[RequestPayload], ArgumentMatchers.any[Class[ResponsePayload]]
+    )).thenAnswer( answer => {
+        assertEquals("Get block by hash request type is wrong.", 0, answer.getArgument(0).asInstanceOf[Int])
+        val req = answer.getArgument(1).asInstanceOf[GetBlockByHashRequestPayload]
+        val index = hashes.indexOf(req.hash)
+        assertTrue("Get block by hash request data (hash) is wrong.", index >= 0)
+
+        val inFlight = requestsInFlight.incrementAndGet()
+        maxObservedRequestsInFlight.accumulateAndGet(inFlight, (a, b) => Math.max(a, b))
+
+        val p = Promise[ResponsePayload]
+        val thread = new Thread {
+          override def run() {
+            // Respond in reverse order to check that the result order is kept.
+            Thread.sleep((hashes.size - index) * 20L)
+            requestsInFlight.decrementAndGet()
+            p.complete(Success(BlockResponsePayload(473173 + index, req.hash, mcBlocksHex(index))))
+          }
+        }
+        thread.start()
+        p.future
+      }
+    )
+
+    val mcnode = new MainchainNodeChannelImpl(mockedCommunicationClient, params, maxRequestsInFlight)
+
+    val mcRefsTry = mcnode.getBlocksByHashes(hashes)
+    assertTrue("MCBlock refs expected to be retrieved.", mcRefsTry.isSuccess)
+    assertEquals("MCBlock refs hashes are different.", hashes, mcRefsTry.get.map(_.header.hashHex))
+    assertTrue("Number of requests in flight exceeds the limit.", maxObservedRequestsInFlight.get() <= maxRequestsInFlight)
+  }
+
   @Test
   def getNewBlockHashes(): Unit = {
     val mockedCommunicationClient: CommunicationClient = mock[CommunicationClient]
@@ -0,0 +1,61 @@
+package com.horizen.websocket
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.atomic.AtomicInteger
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.scala.DefaultScalaModule
+import com.horizen.utils.BytesUtils
+import javax.websocket.server.ServerEndpoint
+import javax.websocket.{OnMessage, Session}
+
+import scala.io.Source
+
+// Stub of MC node, that serves block 473173 by hash in a text or binary frame depending on the request.
+@ServerEndpoint("/")
+class WebSocketServerStubMainchainNodeEndpoint {
+  import WebSocketServerStubMainchainNodeEndpoint._
+
+  @OnMessage
+  def onMessage(session: Session, message: String): Unit = {
+    val json = mapper.readTree(message)
+    val requestId = json.get("requestId").asText()
+    val responsePayload = mapper.createObjectNode()
+      .put("height", blockHeight)
+      .put("hash", blockHash)
+
+    if (json.has("binaryResponse") && json.get("binaryResponse").asBoolean()) {
+      val headerBytes = mapper.createObjectNode()
+        .put("msgType", 2)
+        .put("requestId", requestId)
+        .set("responsePayload", responsePayload)
+        .toString.getBytes(StandardCharsets.UTF_8)
+      val blockBytes = BytesUtils.fromHexString(blockHex)
+
+      val frame = ByteBuffer.allocate(4 + headerBytes.length + blockBytes.length)
+      frame.putInt(headerBytes.length).put(headerBytes).put(blockBytes).flip()
+      binaryResponsesCounter.incrementAndGet()
+      session.getBasicRemote.sendBinary(frame)
+    } else {
+      val response = mapper.createObjectNode()
+        .put("msgType", 2)
+        .put("requestId", requestId)
+        .set("responsePayload", responsePayload.put("block", blockHex))
+        .toString
+      textResponsesCounter.incrementAndGet()
+      session.getBasicRemote.sendText(response)
+    }
+  }
+}
+
+object WebSocketServerStubMainchainNodeEndpoint {
+  private val mapper = new ObjectMapper().registerModule(DefaultScalaModule)
+
+  val blockHeight: Int = 473173
+  val blockHash: String = "0000000024ebb5c6d558daa34ad9b9a4c5503b057e14815a48e241612b1eb660"
+  val blockHex: String = Source.fromResource("mcblock473173_mainnet").getLines().next()
+
+  val binaryResponsesCounter = new AtomicInteger(0)
+  val textResponsesCounter = new AtomicInteger(0)
+}